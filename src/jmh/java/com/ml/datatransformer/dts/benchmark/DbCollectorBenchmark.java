@@ -0,0 +1,82 @@
+package com.ml.datatransformer.dts.benchmark;
+
+import com.ml.datatransformer.dts.dto.DTSRequest;
+import com.ml.datatransformer.dts.pipeline.impl.DTSExecutor;
+import com.ml.datatransformer.dts.pipeline.impl.DTSExecutorProperties;
+import com.ml.datatransformer.dts.pipeline.impl.collect.DbCollector;
+import com.ml.datatransformer.dts.pipeline.model.RecordCursor;
+import org.h2.jdbcx.JdbcDataSource;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DbCollector 基准：内嵌 H2 中的 t_order 表，覆盖批量读取（含分区并行）与游标流式读取的行映射开销
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class DbCollectorBenchmark {
+
+    @Param({"10000", "200000"})
+    public int rows;
+
+    @Param({"1", "4"})
+    public int partitions;
+
+    private DTSExecutor executor;
+    private DbCollector collector;
+    private final DTSRequest request = new DTSRequest("bench", null);
+
+    @Setup(Level.Trial)
+    public void setup() {
+        JdbcDataSource ds = new JdbcDataSource();
+        ds.setURL("jdbc:h2:mem:bench_" + rows + ";DB_CLOSE_DELAY=-1");
+        JdbcTemplate jdbc = new JdbcTemplate(ds);
+        jdbc.execute("DROP TABLE IF EXISTS t_order");
+        jdbc.execute("CREATE TABLE t_order (id BIGINT PRIMARY KEY, merchant VARCHAR(32), scheme VARCHAR(16), "
+                + "amount DECIMAL(18, 2), create_time TIMESTAMP)");
+        jdbc.execute("INSERT INTO t_order SELECT X, CONCAT('m', MOD(X, 97)), CASE MOD(X, 2) WHEN 0 THEN 'VISA' ELSE 'MC' END, "
+                + "X * 1.25, CURRENT_TIMESTAMP FROM SYSTEM_RANGE(1, " + rows + ")");
+
+        executor = new DTSExecutor(new DTSExecutorProperties());
+        Map<String, Object> config = new HashMap<>();
+        config.put("sql", "SELECT id, merchant, scheme, amount, create_time FROM t_order");
+        config.put("fetch_size", 1000);
+        if (partitions > 1) {
+            config.put("partition_column", "id");
+            config.put("partitions", partitions);
+        }
+        collector = new DbCollector(jdbc, config, executor);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.close();
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> collect() {
+        return collector.collect(request);
+    }
+
+    @Benchmark
+    public long stream(Blackhole bh) {
+        long count = 0;
+        try (RecordCursor<Map<String, Object>> cursor = collector.open(request)) {
+            while (cursor.hasNext()) {
+                bh.consume(cursor.next());
+                count++;
+            }
+        }
+        return count;
+    }
+}
\ No newline at end of file
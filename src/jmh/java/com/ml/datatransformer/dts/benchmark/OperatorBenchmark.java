@@ -0,0 +1,77 @@
+package com.ml.datatransformer.dts.benchmark;
+
+import com.ml.datatransformer.dts.pipeline.impl.calculate.AddOperator;
+import com.ml.datatransformer.dts.pipeline.impl.clean.ExtractJsonOperator;
+import com.ml.datatransformer.dts.pipeline.impl.clean.ExtractSliceOperator;
+import com.ml.datatransformer.dts.pipeline.impl.clean.TypeCastOperator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 单算子基准：每次调用处理一条新记录（记录构造成本在各基准间相同，便于横向比较）
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OperatorBenchmark {
+
+    static final String PAYLOAD = "{\"id\":10086,\"scheme_rate\":\"0.0125\",\"interchange_rate\":\"0.006\","
+            + "\"amount\":\"1999.90\",\"card\":{\"scheme\":\"VISA\",\"country\":\"US\"},"
+            + "\"tags\":[\"a\",\"b\",\"c\",\"d\"],\"memo\":\"" + "x".repeat(256) + "\"}";
+
+    private ExtractJsonOperator extractJson;
+    private ExtractSliceOperator extractSlice;
+    private TypeCastOperator typeCast;
+    private AddOperator add;
+
+    @Setup
+    public void setup() {
+        extractJson = new ExtractJsonOperator(Map.of(
+                "key_name", List.of("scheme_rate", "interchange_rate", "amount", "/card/scheme")));
+        extractSlice = new ExtractSliceOperator(Map.of(
+                "key_name", "tags", "target_fields", List.of("tag1", "tag2"), "length", 2));
+        typeCast = new TypeCastOperator(Map.of(
+                "type_map", Map.of("scheme_rate", "double", "interchange_rate", "double", "amount", "double")));
+        add = new AddOperator(Map.of(
+                "fields_name", List.of("scheme_rate", "interchange_rate", "amount"), "result_name", "total"));
+    }
+
+    @Benchmark
+    public Map<String, Object> extractJson() {
+        Map<String, Object> row = new HashMap<>();
+        row.put("payload", PAYLOAD);
+        return extractJson.process(row);
+    }
+
+    @Benchmark
+    public Map<String, Object> extractSlice() {
+        Map<String, Object> row = new HashMap<>();
+        row.put("tags", List.of("a", "b", "c", "d"));
+        return extractSlice.process(row);
+    }
+
+    @Benchmark
+    public Map<String, Object> typeCast() {
+        return typeCast.process(fees());
+    }
+
+    @Benchmark
+    public Map<String, Object> add() {
+        return add.process(fees());
+    }
+
+    private static Map<String, Object> fees() {
+        Map<String, Object> row = new HashMap<>();
+        row.put("scheme_rate", "0.0125");
+        row.put("interchange_rate", "0.006");
+        row.put("amount", "1999.90");
+        return row;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,101 @@
+package com.ml.datatransformer.dts.benchmark;
+
+import com.ml.datatransformer.dts.dto.DTSRequest;
+import com.ml.datatransformer.dts.pipeline.DTSPipeline;
+import com.ml.datatransformer.dts.pipeline.ExecutionMode;
+import com.ml.datatransformer.dts.pipeline.PipelineOptions;
+import com.ml.datatransformer.dts.pipeline.impl.DTSExecutor;
+import com.ml.datatransformer.dts.pipeline.impl.DTSExecutorProperties;
+import com.ml.datatransformer.dts.pipeline.impl.calculate.AddOperator;
+import com.ml.datatransformer.dts.pipeline.impl.clean.ExtractJsonOperator;
+import com.ml.datatransformer.dts.pipeline.impl.clean.TypeCastOperator;
+import com.ml.datatransformer.dts.pipeline.impl.publish.JsonStringPublisher;
+import com.ml.datatransformer.dts.pipeline.model.Collector;
+import com.ml.datatransformer.dts.pipeline.model.Processor;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 端到端基准：采集(内存生成) -> extract_json -> type_cast -> add -> JSON 发布，
+ * 覆盖不同批大小、执行器类型与执行模式
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class PipelineBenchmark {
+
+    @Param({"100", "10000", "100000"})
+    public int batchSize;
+
+    @Param({"platform", "forkjoin", "virtual"})
+    public String executorType;
+
+    @Param({"record", "chunked"})
+    public String mode;
+
+    private DTSExecutor executor;
+    private DTSPipeline<DTSRequest, Map<String, Object>, String> pipeline;
+    private final DTSRequest request = new DTSRequest("bench", null);
+
+    @Setup(Level.Trial)
+    public void setup() {
+        DTSExecutorProperties properties = new DTSExecutorProperties();
+        properties.setType(executorType);
+        executor = new DTSExecutor(properties);
+
+        List<Processor<Map<String, Object>, Map<String, Object>>> processors = List.of(
+                new ExtractJsonOperator(Map.of("key_name", List.of("scheme_rate", "interchange_rate", "amount"))),
+                new TypeCastOperator(Map.of("type_map", Map.of("amount", "double"))),
+                new AddOperator(Map.of("fields_name", List.of("scheme_rate", "interchange_rate", "amount"),
+                        "result_name", "total")));
+        PipelineOptions options = PipelineOptions.builder().mode(ExecutionMode.of(mode)).build();
+        pipeline = new DTSPipeline<>(new GeneratingCollector(batchSize), processors, new JsonStringPublisher(),
+                List.of(), executor, options);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.close();
+    }
+
+    @Benchmark
+    public List<String> execute() {
+        return pipeline.execute(request);
+    }
+
+    /**
+     * 每次采集生成一批新记录，避免算子改写复用的 Map
+     */
+    private static final class GeneratingCollector implements Collector<DTSRequest, List<Map<String, Object>>> {
+        private final int size;
+
+        private GeneratingCollector(int size) {
+            this.size = size;
+        }
+
+        @Override
+        public List<Map<String, Object>> collect(DTSRequest input) {
+            List<Map<String, Object>> rows = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                Map<String, Object> row = new HashMap<>();
+                row.put("id", i);
+                row.put("payload", OperatorBenchmark.PAYLOAD);
+                rows.add(row);
+            }
+            return rows;
+        }
+
+        @Override
+        public String name() {
+            return "collector:generating";
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,257 @@
+package com.ml.datatransformer.dts.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.ml.datatransformer.dts.dto.DTSRequest;
+import com.ml.datatransformer.dts.pipeline.task.CacheDefinition;
+import com.ml.datatransformer.dts.pipeline.task.TaskDefinition;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * ResultCache
+ * 幂等触发类任务的两级结果缓存（任务配置 cache 节点后生效）：
+ * - 本地：Caffeine，按条数上限淘汰，过期时间取 min(任务 ttl, dts.result-cache.local-ttl-seconds)
+ * - 远程：Redis（StringRedisTemplate），过期时间为任务 ttl，多实例共享；Redis 不可用时降级为只用本地缓存，
+ *   并在 30s 内不再访问 Redis
+ * - key：sha256(ruleId | 任务内容摘要 | payload)。任务内容摘要不含注册表版本号，重启或多实例下相同任务定义得到相同 key；
+ *   任务重载后内容变化，旧结果不会再被命中，本地缓存由 TaskReloader 调用 invalidate 清理，Redis 中的旧结果随 ttl 过期
+ * - 同一 key 的并发请求（如调用方超时重试）只执行一次，其余等待其结果
+ * - 只缓存执行成功的结果
+ * - 指标：dts.result.cache.requests{tier=local|redis, result=hit|miss}、dts.result.cache.hit.ratio、
+ *   dts.result.cache.size、dts.result.cache.coalesced、dts.result.cache.errors（Redis 访问失败）
+ */
+@Slf4j
+@Component
+public class ResultCache {
+
+    private static final ObjectMapper OM = new ObjectMapper();
+    private static final long REDIS_RETRY_MS = 30_000;
+
+    private final ResultCacheProperties properties;
+    private final StringRedisTemplate redis;
+    private final Cache<String, Entry> local;
+    private final Map<String, Fingerprint> fingerprints = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<String>> inflight = new ConcurrentHashMap<>();
+    private volatile long redisRetryAt;
+
+    private final LongAdder localHits = new LongAdder();
+    private final LongAdder localMisses = new LongAdder();
+    private final LongAdder redisHits = new LongAdder();
+    private final LongAdder redisMisses = new LongAdder();
+    private final LongAdder redisErrors = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    public ResultCache(ResultCacheProperties properties, ObjectProvider<StringRedisTemplate> redis,
+                       MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.redis = properties.isRedisEnabled() ? redis.getIfAvailable() : null;
+        this.local = Caffeine.newBuilder()
+                .maximumSize(properties.getLocalMaxSize())
+                .expireAfter(new Expiry<String, Entry>() {
+                    @Override
+                    public long expireAfterCreate(String key, Entry value, long currentTime) {
+                        return value.ttlNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, Entry value, long currentTime, long currentDuration) {
+                        return value.ttlNanos();
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, Entry value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+        counter(meterRegistry, "local", "hit", localHits);
+        counter(meterRegistry, "local", "miss", localMisses);
+        counter(meterRegistry, "redis", "hit", redisHits);
+        counter(meterRegistry, "redis", "miss", redisMisses);
+        FunctionCounter.builder("dts.result.cache.errors", redisErrors, LongAdder::doubleValue).register(meterRegistry);
+        FunctionCounter.builder("dts.result.cache.coalesced", coalesced, LongAdder::doubleValue).register(meterRegistry);
+        Gauge.builder("dts.result.cache.size", local, Cache::estimatedSize).register(meterRegistry);
+        Gauge.builder("dts.result.cache.hit.ratio", this, ResultCache::hitRatio).register(meterRegistry);
+    }
+
+    public boolean enabled(TaskDefinition task) {
+        CacheDefinition cache = task.getCache();
+        return properties.isEnabled() && cache != null && !Boolean.FALSE.equals(cache.getEnabled());
+    }
+
+    /**
+     * 命中缓存时返回缓存结果，否则执行 loader 并写入两级缓存
+     */
+    public String get(TaskDefinition task, DTSRequest request, Callable<String> loader) throws Exception {
+        String key = key(task, request);
+        Entry cached = local.getIfPresent(key);
+        if (cached != null) {
+            localHits.increment();
+            return cached.value();
+        }
+        localMisses.increment();
+        Duration ttl = ttl(task);
+        String remote = redisGet(key);
+        if (remote != null) {
+            local.put(key, new Entry(remote, localTtl(ttl)));
+            return remote;
+        }
+
+        CompletableFuture<String> mine = new CompletableFuture<>();
+        CompletableFuture<String> running = inflight.putIfAbsent(key, mine);
+        if (running != null) {
+            coalesced.increment();
+            return await(running);
+        }
+        try {
+            // 与上一个执行者结束、移出 inflight 之间的竞争
+            cached = local.getIfPresent(key);
+            String value = cached != null ? cached.value() : loader.call();
+            if (cached == null) {
+                local.put(key, new Entry(value, localTtl(ttl)));
+                redisSet(key, value, ttl);
+            }
+            mine.complete(value);
+            return value;
+        } catch (Exception e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inflight.remove(key, mine);
+        }
+    }
+
+    /**
+     * 清理任务在本地缓存中的结果（任务重载或移除时调用）
+     */
+    public void invalidate(String ruleId) {
+        if (ruleId == null) return;
+        fingerprints.remove(ruleId);
+        String prefix = properties.getKeyPrefix() + ruleId + ":";
+        local.asMap().keySet().removeIf(k -> k.startsWith(prefix));
+    }
+
+    public double hitRatio() {
+        long requests = localHits.sum() + localMisses.sum();
+        return requests == 0 ? 0 : (double) (localHits.sum() + redisHits.sum()) / requests;
+    }
+
+    private String key(TaskDefinition task, DTSRequest request) {
+        String ruleId = task.getName();
+        return properties.getKeyPrefix() + ruleId + ":"
+                + sha256(ruleId + "|" + fingerprint(task) + "|" + request.getPayload());
+    }
+
+    /**
+     * 任务内容摘要（不含版本号），按任务版本缓存
+     */
+    private String fingerprint(TaskDefinition task) {
+        Fingerprint f = fingerprints.get(task.getName());
+        if (f != null && f.version() == task.getVersion()) return f.digest();
+        ObjectNode node = OM.valueToTree(task);
+        node.remove("version");
+        String digest;
+        try {
+            digest = sha256(OM.writeValueAsString(node));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("serialize task [" + task.getName() + "] failed", e);
+        }
+        fingerprints.put(task.getName(), new Fingerprint(task.getVersion(), digest));
+        return digest;
+    }
+
+    private Duration ttl(TaskDefinition task) {
+        Long seconds = task.getCache().getTtlSeconds();
+        return Duration.ofSeconds(seconds == null || seconds <= 0 ? properties.getDefaultTtlSeconds() : seconds);
+    }
+
+    private long localTtl(Duration ttl) {
+        return Math.min(ttl.toNanos(), TimeUnit.SECONDS.toNanos(properties.getLocalTtlSeconds()));
+    }
+
+    private String redisGet(String key) {
+        if (!redisAvailable()) return null;
+        try {
+            String value = redis.opsForValue().get(key);
+            if (value == null) redisMisses.increment();
+            else redisHits.increment();
+            return value;
+        } catch (RuntimeException e) {
+            redisFailed(e);
+            return null;
+        }
+    }
+
+    private void redisSet(String key, String value, Duration ttl) {
+        if (!redisAvailable()) return;
+        try {
+            redis.opsForValue().set(key, value, ttl);
+        } catch (RuntimeException e) {
+            redisFailed(e);
+        }
+    }
+
+    private boolean redisAvailable() {
+        return redis != null && System.currentTimeMillis() >= redisRetryAt;
+    }
+
+    private void redisFailed(RuntimeException e) {
+        redisErrors.increment();
+        redisRetryAt = System.currentTimeMillis() + REDIS_RETRY_MS;
+        log.warn("Result cache redis unavailable, use local cache only for {}ms: {}", REDIS_RETRY_MS, e.getMessage());
+    }
+
+    private static String await(CompletableFuture<String> running) throws Exception {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof Exception cause) throw cause;
+            throw e;
+        }
+    }
+
+    private static String sha256(String s) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(s.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void counter(MeterRegistry registry, String tier, String result, LongAdder adder) {
+        FunctionCounter.builder("dts.result.cache.requests", adder, LongAdder::doubleValue)
+                .tag("tier", tier)
+                .tag("result", result)
+                .register(registry);
+    }
+
+    private record Entry(String value, long ttlNanos) {
+    }
+
+    private record Fingerprint(long version, String digest) {
+    }
+}
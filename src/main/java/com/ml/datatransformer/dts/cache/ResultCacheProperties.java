@@ -0,0 +1,30 @@
+package com.ml.datatransformer.dts.cache;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 执行结果缓存配置（dts.result-cache.*），任务需在 task.yaml 中配置 cache 节点才会缓存
+ *
+ * 示例：
+ * dts:
+ *   result-cache:
+ *     enabled: true
+ *     local-max-size: 10000        # 本地缓存条数上限，超出按 W-TinyLFU 淘汰
+ *     local-ttl-seconds: 60        # 本地缓存最长保留时长，不超过任务 ttl
+ *     default-ttl-seconds: 300     # 任务未配置 ttl_seconds 时的 Redis 过期时间
+ *     redis-enabled: true          # false 时只使用本地缓存
+ *     key-prefix: "dts:result:"
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "dts.result-cache")
+public class ResultCacheProperties {
+    private boolean enabled = true;
+    private long localMaxSize = 10_000;
+    private long localTtlSeconds = 60;
+    private long defaultTtlSeconds = 300;
+    private boolean redisEnabled = true;
+    private String keyPrefix = "dts:result:";
+}
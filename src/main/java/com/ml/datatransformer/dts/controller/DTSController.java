@@ -1,15 +1,25 @@
 package com.ml.datatransformer.dts.controller;
 
+import com.ml.datatransformer.common.ErrorCode;
+import com.ml.datatransformer.dts.dto.DTSJobStatus;
 import com.ml.datatransformer.dts.dto.DTSRequest;
 import com.ml.datatransformer.dts.dto.DTSResponse;
 import com.ml.datatransformer.dts.service.DTSService;
 import com.ml.datatransformer.common.ApiResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.concurrent.CompletableFuture;
 
 /**
  *  数据迁移任务接口
@@ -25,4 +35,45 @@ public class DTSController {
     public ApiResponse<DTSResponse> execute(@Valid @RequestBody DTSRequest request) {
         return ApiResponse.success(dtsService.execute(request));
     }
-} 
\ No newline at end of file
+
+    /**
+     * 异步执行：请求线程立即释放，结果就绪后由 Spring MVC 异步写回
+     */
+    @PostMapping("/execute/async")
+    public CompletableFuture<ApiResponse<DTSResponse>> executeAsync(@Valid @RequestBody DTSRequest request) {
+        return dtsService.executeAsync(request).thenApply(ApiResponse::success);
+    }
+
+    /**
+     * 流式执行：处理完成的记录直接写入响应体，format=ndjson（默认，每行一条）或 array（单个 JSON 数组）
+     */
+    @PostMapping("/execute/stream")
+    public ResponseEntity<StreamingResponseBody> executeStream(@Valid @RequestBody DTSRequest request,
+                                                               @RequestParam(defaultValue = "ndjson") String format) {
+        boolean jsonArray = "array".equalsIgnoreCase(format);
+        StreamingResponseBody body = out -> dtsService.executeStream(request, out, jsonArray);
+        return ResponseEntity.ok()
+                .contentType(jsonArray ? MediaType.APPLICATION_JSON : MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    /**
+     * 提交作业，立即返回作业 id
+     */
+    @PostMapping("/jobs")
+    public ApiResponse<DTSJobStatus> submitJob(@Valid @RequestBody DTSRequest request) {
+        return ApiResponse.success(dtsService.submitJob(request));
+    }
+
+    /**
+     * 轮询作业状态、进度，结束后返回结果
+     */
+    @GetMapping("/jobs/{jobId}")
+    public ApiResponse<DTSJobStatus> getJob(@PathVariable String jobId) {
+        DTSJobStatus status = dtsService.getJob(jobId);
+        if (status == null) {
+            return ApiResponse.failure(ErrorCode.NOT_FOUND.getCode(), ErrorCode.NOT_FOUND.getMsg());
+        }
+        return ApiResponse.success(status);
+    }
+}
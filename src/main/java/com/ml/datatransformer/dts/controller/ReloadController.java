@@ -0,0 +1,41 @@
+package com.ml.datatransformer.dts.controller;
+
+import com.ml.datatransformer.common.ApiResponse;
+import com.ml.datatransformer.common.ErrorCode;
+import com.ml.datatransformer.dts.dto.TaskReloadResult;
+import com.ml.datatransformer.dts.service.DTSService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * 任务热更新接口
+ */
+@RestController
+@RequestMapping("/api/dts/tasks")
+@RequiredArgsConstructor
+public class ReloadController {
+
+    private final DTSService dtsService;
+
+    /**
+     * 重新加载 dts.taskPath 下的任务；任一任务校验失败时整体拒绝并返回原因，当前任务保持不变
+     */
+    @PostMapping("/reload")
+    public ApiResponse<TaskReloadResult> reload() {
+        try {
+            return ApiResponse.success(dtsService.reloadTasks());
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            return ApiResponse.failure(ErrorCode.PARAM_ERROR.getCode(), e.getMessage());
+        }
+    }
+
+    /**
+     * 在后台刷新全部 lookup 参考表，返回提交刷新的表数
+     */
+    @PostMapping("/lookups/refresh")
+    public ApiResponse<Integer> refreshLookups() {
+        return ApiResponse.success(dtsService.refreshLookups());
+    }
+}
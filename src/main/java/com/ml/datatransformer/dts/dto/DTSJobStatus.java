@@ -0,0 +1,31 @@
+package com.ml.datatransformer.dts.dto;
+
+import lombok.Data;
+
+/**
+ * 作业状态（轮询接口返回）
+ */
+@Data
+public class DTSJobStatus {
+    private String jobId;
+    private String ruleId;
+    /**
+     * PENDING | RUNNING | SUCCEEDED | FAILED
+     */
+    private String status;
+    private long collected;
+    private long processed;
+    private long published;
+    /**
+     * 按 on_error 策略跳过的失败记录数
+     */
+    private long failed;
+    private Long submittedAt;
+    private Long startedAt;
+    private Long finishedAt;
+    /**
+     * 仅 SUCCEEDED 时返回，内容同同步接口的 result
+     */
+    private String result;
+    private String error;
+}
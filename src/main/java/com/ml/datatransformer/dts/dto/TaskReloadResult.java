@@ -0,0 +1,29 @@
+package com.ml.datatransformer.dts.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 任务重载结果
+ */
+@Data
+public class TaskReloadResult {
+    /**
+     * 重载后的注册表快照版本；没有任何变化时为原快照版本
+     */
+    private long version;
+    private int tasks;
+    private List<String> added = new ArrayList<>();
+    private List<String> updated = new ArrayList<>();
+    private List<String> removed = new ArrayList<>();
+    /**
+     * 宽松模式下因校验失败被跳过的任务/文件及原因
+     */
+    private List<String> skipped = new ArrayList<>();
+
+    public boolean isChanged() {
+        return !added.isEmpty() || !updated.isEmpty() || !removed.isEmpty();
+    }
+}
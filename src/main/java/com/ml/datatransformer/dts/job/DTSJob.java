@@ -0,0 +1,78 @@
+package com.ml.datatransformer.dts.job;
+
+import com.ml.datatransformer.dts.dto.DTSJobStatus;
+import com.ml.datatransformer.dts.pipeline.ExecutionProgress;
+
+/**
+ * 单个异步作业的运行期状态；状态字段由作业线程写入、轮询线程读取
+ */
+public class DTSJob {
+
+    public enum Status { PENDING, RUNNING, SUCCEEDED, FAILED }
+
+    private final String id;
+    private final String ruleId;
+    private final ExecutionProgress progress = new ExecutionProgress();
+    private final long submittedAt = System.currentTimeMillis();
+    private volatile Status status = Status.PENDING;
+    private volatile Long startedAt;
+    private volatile Long finishedAt;
+    private volatile String result;
+    private volatile String error;
+
+    DTSJob(String id, String ruleId) {
+        this.id = id;
+        this.ruleId = ruleId;
+    }
+
+    void start() {
+        startedAt = System.currentTimeMillis();
+        status = Status.RUNNING;
+    }
+
+    void succeed(String result) {
+        this.result = result;
+        finishedAt = System.currentTimeMillis();
+        status = Status.SUCCEEDED;
+    }
+
+    void fail(String error) {
+        this.error = error;
+        finishedAt = System.currentTimeMillis();
+        status = Status.FAILED;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public ExecutionProgress getProgress() {
+        return progress;
+    }
+
+    boolean isFinished() {
+        return status == Status.SUCCEEDED || status == Status.FAILED;
+    }
+
+    Long getFinishedAt() {
+        return finishedAt;
+    }
+
+    public DTSJobStatus toStatus() {
+        Status current = status;
+        DTSJobStatus s = new DTSJobStatus();
+        s.setJobId(id);
+        s.setRuleId(ruleId);
+        s.setStatus(current.name());
+        s.setCollected(progress.getCollected());
+        s.setProcessed(progress.getProcessed());
+        s.setPublished(progress.getPublished());
+        s.setFailed(progress.getFailed());
+        s.setSubmittedAt(submittedAt);
+        s.setStartedAt(startedAt);
+        s.setFinishedAt(finishedAt);
+        s.setResult(current == Status.SUCCEEDED ? result : null);
+        s.setError(error);
+        return s;
+    }
+}
@@ -0,0 +1,89 @@
+package com.ml.datatransformer.dts.job;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * DTSJobManager
+ * 异步执行入口：整条流水线的执行放到独立的作业线程池，不占用 Tomcat 请求线程。
+ * - 作业线程池与 DTSExecutor 分离：作业线程会阻塞等待流水线内部任务，放在同一个池中可能互相等待
+ * - 作业状态保存在内存中，已结束的作业超过 retention-minutes 后在下次提交时清理
+ */
+@Slf4j
+@Component
+public class DTSJobManager {
+
+    private final DTSJobProperties properties;
+    private final ThreadPoolExecutor executor;
+    private final Map<String, DTSJob> jobs = new ConcurrentHashMap<>();
+
+    public DTSJobManager(DTSJobProperties properties) {
+        this.properties = properties;
+        int running = Math.max(1, properties.getMaxRunning());
+        AtomicInteger seq = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(running, running, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, properties.getQueueCapacity())),
+                r -> {
+                    Thread t = new Thread(r, "dts-job-" + seq.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+    }
+
+    /**
+     * 异步执行并返回结果 Future；作业队列已满时抛出 RejectedExecutionException
+     */
+    public <T> CompletableFuture<T> supplyAsync(Supplier<T> work) {
+        return CompletableFuture.supplyAsync(work, executor);
+    }
+
+    /**
+     * 提交作业并立即返回；work 接收作业的进度对象，返回值作为作业结果
+     */
+    public DTSJob submit(String ruleId, Function<DTSJob, String> work) {
+        evictExpired();
+        DTSJob job = new DTSJob(UUID.randomUUID().toString(), ruleId);
+        jobs.put(job.getId(), job);
+        try {
+            executor.execute(() -> {
+                job.start();
+                try {
+                    job.succeed(work.apply(job));
+                } catch (Exception e) {
+                    log.error("DTS job failed, jobId={}, ruleId={}", job.getId(), ruleId, e);
+                    job.fail(e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            job.fail("job queue is full");
+        }
+        return job;
+    }
+
+    public DTSJob get(String jobId) {
+        return jobId == null ? null : jobs.get(jobId);
+    }
+
+    private void evictExpired() {
+        long deadline = System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(properties.getRetentionMinutes());
+        jobs.values().removeIf(j -> j.isFinished() && j.getFinishedAt() != null && j.getFinishedAt() < deadline);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
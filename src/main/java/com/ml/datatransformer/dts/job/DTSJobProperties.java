@@ -0,0 +1,24 @@
+package com.ml.datatransformer.dts.job;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 异步执行/作业配置（dts.jobs.*）
+ *
+ * 示例：
+ * dts:
+ *   jobs:
+ *     max-running: 4          # 同时运行的作业数（作业内部的并发仍由 DTSExecutor 承担）
+ *     queue-capacity: 100     # 排队作业上限，超出时拒绝提交
+ *     retention-minutes: 60   # 已结束作业的保留时长，过期后不可再查询
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "dts.jobs")
+public class DTSJobProperties {
+    private int maxRunning = 4;
+    private int queueCapacity = 100;
+    private long retentionMinutes = 60;
+}
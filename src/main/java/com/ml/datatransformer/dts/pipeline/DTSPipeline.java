@@ -1,84 +1,969 @@
 package com.ml.datatransformer.dts.pipeline;
 
+import com.ml.datatransformer.dts.pipeline.checkpoint.Checkpointer;
+import com.ml.datatransformer.dts.pipeline.checkpoint.Watermarker;
+import com.ml.datatransformer.dts.pipeline.error.DeadLetter;
+import com.ml.datatransformer.dts.pipeline.error.DeadLetterSink;
+import com.ml.datatransformer.dts.pipeline.error.ErrorPolicy;
 import com.ml.datatransformer.dts.pipeline.impl.DTSExecutor;
+import com.ml.datatransformer.dts.pipeline.impl.publish.BatchPublishStage;
+import com.ml.datatransformer.dts.pipeline.metrics.PipelineMetrics;
+import com.ml.datatransformer.dts.pipeline.model.Aggregator;
+import com.ml.datatransformer.dts.pipeline.model.BatchProcessor;
+import com.ml.datatransformer.dts.pipeline.model.CheckpointCursor;
 import com.ml.datatransformer.dts.pipeline.model.Collector;
 import com.ml.datatransformer.dts.pipeline.model.Pipeline;
 import com.ml.datatransformer.dts.pipeline.model.Processor;
 import com.ml.datatransformer.dts.pipeline.model.Publisher;
+import com.ml.datatransformer.dts.pipeline.model.RecordCursor;
+import com.ml.datatransformer.dts.pipeline.model.ResumableCollector;
 import com.ml.datatransformer.dts.pipeline.model.Stage;
+import com.ml.datatransformer.dts.pipeline.model.StreamingCollector;
+import lombok.extern.slf4j.Slf4j;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Queue;
+import java.util.RandomAccess;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 /**
  * DTSPipelineBatch
  * - collector: I -> List<M>
- * - processors: (M -> M) 作用于单条
+ * - processors: (M -> M) 作用于单条；含 BatchProcessor 时分块执行改为按阶段处理整块，BatchProcessor 一次处理整块（见 processChunk）
  * - publisher: M -> R 作用于单条
- * - execute: 并发（虚拟线程）处理整批，返回 List<R>
+ * - batchPublishers: 可选，处理完成的记录攒批后批量写出（如 ES bulk），与 publisher 并行存在
+ * - execute: 并发（DTSExecutor，受 max-concurrency 限制）处理整批，返回 List<R>
+ *   RECORD 模式每条一个任务；CHUNKED 模式按块提交；STREAMING 模式按窗口从游标拉取（见 PipelineOptions）
+ * - metrics: 按 stages() 下标记录各阶段耗时/行数/异常（见 PipelineMetrics），单条算子按采样率计时
+ * - checkpointer: 可选，STREAMING 模式下按窗口保存断点，中途失败后再次执行从断点继续（见 Checkpointer）
+ * - aggregator: 可选，接在 processors 之后按块部分聚合、块结束时合并，聚合结果再交给 publisher 与批量发布（见 Aggregator）；
+ *   配置后 RECORD 模式按 CHUNKED 执行，STREAMING 模式在时间窗口关闭时输出
+ * - watermarker: 可选，增量采集时记录采集到的水位最大值，执行成功（批量发布全部写出）后推进水位（见 Watermarker）
+ * - errorPolicy: STOP 时任一记录失败即中止；CONTINUE/RETRY 时失败记录（可重试）后跳过并写入死信，其余记录照常处理发布；
+ *   RETRY 时批量发布的失败批次先在写出线程上重试，耗尽后才写入死信（见 BatchPublishStage）
+ * - 构造后不可变、不持有请求级状态，可作为编译结果被多个请求并发复用
  *
  * @param <I> 输入类型（如 DTSRequest）
  * @param <M> 单条中间类型（如 Map<String,Object>）
  * @param <R> 单条发布结果类型（如 String/Boolean/DTO）
  */
+@Slf4j
 public class DTSPipeline<I, M, R> implements Pipeline<I, List<R>> {
 
+    /**
+     * 结果数组中失败记录的占位，返回前剔除
+     */
+    private static final Object SKIPPED = new Object();
+
     private final Collector<I, List<M>> collector;
     private final List<Processor<M, M>> processors;
     private final Publisher<M, R> publisher;
+    private final List<BatchPublishStage<M>> batchPublishers;
     private final DTSExecutor dtsExecutor;
+    private final PipelineOptions options;
+    private final PipelineMetrics metrics;
+    private final Aggregator<M> aggregator;
+    private final int aggregatorStage;
+    private final int publisherStage;
+    private final boolean batched;
+    private final String[] stageNames;
 
     public DTSPipeline(Collector<I, List<M>> collector,
                             List<Processor<M, M>> processors,
                             Publisher<M, R> publisher,
                             DTSExecutor dtsExecutor) {
+        this(collector, processors, publisher, List.of(), dtsExecutor, PipelineOptions.defaults());
+    }
+
+    public DTSPipeline(Collector<I, List<M>> collector,
+                            List<Processor<M, M>> processors,
+                            Publisher<M, R> publisher,
+                            List<BatchPublishStage<M>> batchPublishers,
+                            DTSExecutor dtsExecutor,
+                            PipelineOptions options) {
+        this(collector, processors, publisher, batchPublishers, dtsExecutor, options, stages -> PipelineMetrics.NOOP);
+    }
+
+    /**
+     * @param metricsFactory 按本流水线的 stages() 创建指标句柄，阶段下标与 stages() 一致
+     */
+    @SuppressWarnings("unchecked")
+    public DTSPipeline(Collector<I, List<M>> collector,
+                            List<Processor<M, M>> processors,
+                            Publisher<M, R> publisher,
+                            List<BatchPublishStage<M>> batchPublishers,
+                            DTSExecutor dtsExecutor,
+                            PipelineOptions options,
+                            Function<List<Stage>, PipelineMetrics> metricsFactory) {
         this.collector = Objects.requireNonNull(collector, "collector must not be null");
-        this.processors = processors == null ? List.of() : new ArrayList<>(processors);
+        this.processors = processors == null ? List.of() : List.copyOf(processors);
         this.publisher = Objects.requireNonNull(publisher, "publisher must not be null");
+        this.batchPublishers = batchPublishers == null ? List.of() : List.copyOf(batchPublishers);
         this.dtsExecutor = Objects.requireNonNull(dtsExecutor, "dtsExecutor must not be null");
+        this.options = options == null ? PipelineOptions.defaults() : options;
+        this.aggregator = (Aggregator<M>) this.options.getAggregator();
+        this.aggregatorStage = this.processors.size() + 1;
+        this.publisherStage = this.aggregatorStage + (aggregator == null ? 0 : 1);
+        this.batched = this.processors.stream().anyMatch(p -> p instanceof BatchProcessor);
+        List<Stage> stages = stages();
+        this.stageNames = new String[stages.size()];
+        for (int i = 0; i < stageNames.length; i++) stageNames[i] = stages.get(i).name();
+        PipelineMetrics m = metricsFactory == null ? null : metricsFactory.apply(stages);
+        this.metrics = m == null ? PipelineMetrics.NOOP : m;
     }
 
     @Override
     public List<R> execute(I input) {
-        List<M> batch = collector.collect(input);
+        return execute(input, null);
+    }
+
+    /**
+     * @param progress 可选，执行过程中累加采集/处理/发布的记录数，供其他线程轮询
+     */
+    @SuppressWarnings("unchecked")
+    public List<R> execute(I input, ExecutionProgress progress) {
+        ExecutionProgress p = progress == null ? new ExecutionProgress() : progress;
+        if (options.getMode() == ExecutionMode.STREAMING && collector instanceof StreamingCollector) {
+            List<R> results = new ArrayList<>();
+            executeStreaming(input, results::addAll, p);
+            return results;
+        }
+        long start = System.nanoTime();
+        Watermarker.Run watermark = watermark();
+        List<M> batch = collect(input, p, watermark);
         if (batch == null || batch.isEmpty()) return List.of();
 
+        List<R> results = withSessions(p, sessions -> {
+            Aggregator.Run<M> agg = aggregate();
+            if (agg != null) {
+                executeChunked(batch, sessions, p, agg);
+                return (List<R>) emit(agg.finish(), sessions, p, false);
+            }
+            return options.getMode() == ExecutionMode.RECORD
+                    ? executeRecords(batch, sessions, p)
+                    : executeChunked(batch, sessions, p, null);
+        });
+        if (watermark != null) watermark.commit();
+        metrics.execution(System.nanoTime() - start);
+        return results;
+    }
+
+    /**
+     * 执行到算子链为止：跳过单条 publisher（批量发布照常），返回处理后的记录，供下游 flow 继续处理。
+     * 不区分 RECORD/CHUNKED，统一按块并发。
+     */
+    @SuppressWarnings("unchecked")
+    public List<M> executeRows(I input, ExecutionProgress progress) {
+        ExecutionProgress p = progress == null ? new ExecutionProgress() : progress;
+        long start = System.nanoTime();
+        List<M> batch = collect(input, p, null);
+        if (batch == null || batch.isEmpty()) return List.of();
+        List<M> rows = withSessions(p, sessions -> {
+            Aggregator.Run<M> agg = aggregate();
+            List<Object> out = executeChunked(batch, sessions, p, true, agg);
+            if (agg != null) out = emit(agg.finish(), sessions, p, true);
+            return (List<M>) (List<?>) out;
+        });
+        metrics.execution(System.nanoTime() - start);
+        return rows;
+    }
+
+    /**
+     * @param watermark 可选，在算子处理前记录本批的水位
+     */
+    private List<M> collect(I input, ExecutionProgress progress, Watermarker.Run watermark) {
+        long start = System.nanoTime();
+        List<M> batch;
+        try {
+            batch = collector.collect(input);
+        } catch (RuntimeException e) {
+            metrics.error(0);
+            throw e;
+        }
+        metrics.latency(0, System.nanoTime() - start);
+        int size = batch == null ? 0 : batch.size();
+        metrics.rows(0, size);
+        metrics.batchSize(size);
+        progress.addCollected(size);
+        if (watermark != null) watermark.observe(batch);
+        return batch;
+    }
+
+    private Watermarker.Run watermark() {
+        return options.getWatermarker() == null ? null : options.getWatermarker().begin();
+    }
+
+    private Aggregator.Run<M> aggregate() {
+        return aggregator == null ? null : aggregator.begin();
+    }
+
+    /**
+     * 处理一个窗口；配置了聚合时输出本窗口后已关闭的时间窗口的聚合结果
+     */
+    private List<Object> runWindow(List<M> window, List<BatchPublishStage<M>.Session> sessions,
+                                   ExecutionProgress progress, boolean rawRows, Aggregator.Run<M> agg) {
+        List<Object> out = executeChunked(window, sessions, progress, rawRows, agg);
+        return agg == null ? out : emit(agg.closed(), sessions, progress, rawRows);
+    }
+
+    /**
+     * 输出聚合结果：交给批量发布，rawRows 为 false 时再经单条 publisher
+     */
+    private List<Object> emit(List<M> rows, List<BatchPublishStage<M>.Session> sessions,
+                              ExecutionProgress progress, boolean rawRows) {
+        if (rows.isEmpty()) return List.of();
+        for (BatchPublishStage<M>.Session s : sessions) s.offerAll(rows);
+        if (batchPublishers.isEmpty()) progress.addPublished(rows.size());
+        if (rawRows) return new ArrayList<>(rows);
+        List<Object> out = new ArrayList<>(rows.size());
+        for (M row : rows) out.add(publish(row, false));
+        metrics.rows(publisherStage, rows.size());
+        return out;
+    }
+
+    /**
+     * 流式执行：从游标按 windowSize 拉取一个窗口，窗口内分块并发处理，处理完交给 windowSink 后再拉下一窗口。
+     * 同一时刻只持有一个窗口的输入与输出。collector 不支持流式时退化为整批分块执行后一次性交给 windowSink。
+     *
+     * @return 处理的记录总数
+     */
+    public long executeStreaming(I input, Consumer<List<R>> windowSink) {
+        return executeStreaming(input, windowSink, null);
+    }
+
+    @SuppressWarnings("unchecked")
+    public long executeStreaming(I input, Consumer<List<R>> windowSink, ExecutionProgress progress) {
+        ExecutionProgress p = progress == null ? new ExecutionProgress() : progress;
+        long start = System.nanoTime();
+        if (!(collector instanceof StreamingCollector)) {
+            Watermarker.Run watermark = watermark();
+            List<M> batch = collect(input, p, watermark);
+            if (batch == null || batch.isEmpty()) return 0;
+            withSessions(p, sessions -> {
+                Aggregator.Run<M> agg = aggregate();
+                List<R> out = executeChunked(batch, sessions, p, agg);
+                windowSink.accept(agg == null ? out : (List<R>) emit(agg.finish(), sessions, p, false));
+                return null;
+            });
+            if (watermark != null) watermark.commit();
+            metrics.execution(System.nanoTime() - start);
+            return batch.size();
+        }
+        return streamWindows(input, rows -> windowSink.accept((List<R>) rows), false, p);
+    }
+
+    /**
+     * 直写执行：跳过单条 publisher，把处理完成的记录按窗口交给 rowSink（在调用线程上按输入顺序回调），
+     * 调用方可直接序列化写出，不经过中间字符串。collector 不支持流式时整批采集后按 windowSize 分窗处理。
+     *
+     * @return 处理的记录总数
+     */
+    @SuppressWarnings("unchecked")
+    public long executeTo(I input, Consumer<List<M>> rowSink, ExecutionProgress progress) {
+        ExecutionProgress p = progress == null ? new ExecutionProgress() : progress;
+        if (collector instanceof StreamingCollector) {
+            return streamWindows(input, rows -> rowSink.accept((List<M>) rows), true, p);
+        }
+        long start = System.nanoTime();
+        Watermarker.Run watermark = watermark();
+        List<M> batch = collect(input, p, watermark);
+        if (batch == null || batch.isEmpty()) return 0;
+        List<M> items = batch instanceof RandomAccess ? batch : new ArrayList<>(batch);
+        int windowSize = Math.max(1, options.getWindowSize());
+        withSessions(p, sessions -> {
+            Aggregator.Run<M> agg = aggregate();
+            for (int from = 0; from < items.size(); from += windowSize) {
+                List<M> window = items.subList(from, Math.min(items.size(), from + windowSize));
+                rowSink.accept((List<M>) (List<?>) runWindow(window, sessions, p, true, agg));
+            }
+            if (agg != null) rowSink.accept((List<M>) (List<?>) emit(agg.finish(), sessions, p, true));
+            return null;
+        });
+        if (watermark != null) watermark.commit();
+        metrics.execution(System.nanoTime() - start);
+        return items.size();
+    }
+
+    /**
+     * 从游标按窗口拉取并处理；rawRows 为 true 时窗口结果为处理后的记录，否则为单条 publisher 的输出。
+     * 配置了 checkpointer 时从上次断点继续读取，每个窗口交给 sink 并刷出批量发布后保存断点，成功结束时清除断点。
+     * 游标在任何情况下都会关闭；失败时不清除断点、不推进水位。
+     */
+    private long streamWindows(I input, Consumer<List<?>> sink, boolean rawRows, ExecutionProgress p) {
+        long start = System.nanoTime();
+        int windowSize = Math.max(1, options.getWindowSize());
+        Checkpointer.Run checkpoint = options.getCheckpointer() == null ? null : options.getCheckpointer().begin(input);
+        Watermarker.Run watermark = watermark();
+        long total = withSessions(p, sessions -> {
+            Aggregator.Run<M> agg = aggregate();
+            long count = 0;
+            try (RecordCursor<M> cursor = open(input, checkpoint)) {
+                List<M> window = new ArrayList<>(windowSize);
+                // collector 耗时按窗口计：从开始拉取到窗口填满（或游标耗尽）的时间，不含处理时间
+                long pullStart = System.nanoTime();
+                while (hasNext(cursor)) {
+                    window.add(cursor.next());
+                    if (window.size() >= windowSize) {
+                        recordWindow(window, System.nanoTime() - pullStart, p, watermark);
+                        sink.accept(runWindow(window, sessions, p, rawRows, agg));
+                        count += window.size();
+                        commit(checkpoint, cursor, sessions, count, p);
+                        window = new ArrayList<>(windowSize);
+                        pullStart = System.nanoTime();
+                    }
+                }
+                if (!window.isEmpty()) {
+                    recordWindow(window, System.nanoTime() - pullStart, p, watermark);
+                    sink.accept(runWindow(window, sessions, p, rawRows, agg));
+                    count += window.size();
+                }
+            }
+            if (agg != null) sink.accept(emit(agg.finish(), sessions, p, rawRows));
+            return count;
+        });
+        if (checkpoint != null) checkpoint.complete();
+        if (watermark != null) watermark.commit();
+        metrics.execution(System.nanoTime() - start);
+        return total;
+    }
+
+    @SuppressWarnings("unchecked")
+    private RecordCursor<M> open(I input, Checkpointer.Run checkpoint) {
+        try {
+            return checkpoint == null
+                    ? ((StreamingCollector<I, M>) collector).open(input)
+                    : ((ResumableCollector<I, M>) collector).open(input, checkpoint.position());
+        } catch (RuntimeException e) {
+            metrics.error(0);
+            throw e;
+        }
+    }
+
+    /**
+     * 窗口内的记录全部写出后才保存断点，恢复时不会跳过未发布的记录
+     */
+    private void commit(Checkpointer.Run checkpoint, RecordCursor<M> cursor,
+                        List<BatchPublishStage<M>.Session> sessions, long total, ExecutionProgress p) {
+        if (checkpoint == null) return;
+        for (int i = 0; i < sessions.size(); i++) {
+            try {
+                sessions.get(i).flush();
+            } catch (RuntimeException e) {
+                metrics.error(publisherStage + 1 + i);
+                throw e;
+            }
+        }
+        checkpoint.commit(((CheckpointCursor<M>) cursor).position(), total, p.getPublished());
+    }
+
+    private boolean hasNext(RecordCursor<M> cursor) {
+        try {
+            return cursor.hasNext();
+        } catch (RuntimeException e) {
+            metrics.error(0);
+            throw e;
+        }
+    }
+
+    private void recordWindow(List<M> window, long nanos, ExecutionProgress progress, Watermarker.Run watermark) {
+        metrics.latency(0, nanos);
+        metrics.rows(0, window.size());
+        metrics.batchSize(window.size());
+        progress.addCollected(window.size());
+        if (watermark != null) watermark.observe(window);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<R> executeRecords(List<M> batch, List<BatchPublishStage<M>.Session> sessions,
+                                   ExecutionProgress progress) {
+        Queue<DeadLetter> failures = options.getErrorPolicy().tolerant() ? new ConcurrentLinkedQueue<>() : null;
+        Queue<Retry> retries = options.getErrorPolicy().retrying() ? new ConcurrentLinkedQueue<>() : null;
         List<Callable<R>> tasks = new ArrayList<>(batch.size());
+        int index = 0;
         for (M item : batch) {
+            int slot = index;
+            boolean sampled = metrics.sampled(index++);
             tasks.add(() -> {
-                M current = item;
-                for (Processor<M, M> p : processors) {
-                    current = p.process(current);
+                R r;
+                if (failures == null) {
+                    M current = process(item, sampled);
+                    for (BatchPublishStage<M>.Session s : sessions) s.offer(current);
+                    r = publish(current, sampled);
+                } else {
+                    M current;
+                    try {
+                        current = processTolerant(item, sampled);
+                        r = attempt(publisherStage, publisher::publish, current, sampled);
+                    } catch (RecordFailure f) {
+                        if (defer(f, slot, sampled, retries)) return null;
+                        failed(f, progress, failures);
+                        return (R) SKIPPED;
+                    }
+                    for (BatchPublishStage<M>.Session s : sessions) s.offer(current);
                 }
-                return publisher.publish(current);
+                countProcessed(1, progress);
+                return r;
             });
         }
 
+        List<Future<R>> futures = new ArrayList<>(tasks.size());
+        List<R> results;
         try {
-            List<Future<R>> futures = new ArrayList<>(tasks.size());
+            // 单次执行的并发许可：许可耗尽时阻塞提交，避免整批任务同时在途
+            Semaphore permits = dtsExecutor.newPermits(options.getMaxConcurrency());
             for (Callable<R> t : tasks) {
-                futures.add(dtsExecutor.submit(t)); // 虚拟线程提交
+                futures.add(dtsExecutor.submit(t, permits));
             }
-            List<R> results = new ArrayList<>(futures.size());
-            for (Future<R> f : futures) {
-                results.add(f.get());
+            Object[] slots = new Object[futures.size()];
+            for (int i = 0; i < slots.length; i++) {
+                slots[i] = futures.get(i).get();
+            }
+            retryPublish(retries, slots, sessions, progress, failures);
+            results = new ArrayList<>(slots.length);
+            for (Object r : slots) {
+                if (r != SKIPPED) results.add((R) r);
             }
-            return results;
         } catch (Exception e) {
-            throw new RuntimeException("Batch pipeline failed", e);
+            cancel(futures);
+            RuntimeException error = failure(e);
+            // 超过 max_errors 等中止执行时，已收集的死信仍然写出
+            if (failures != null) writeDeadLetters(new ArrayList<>(failures), error);
+            throw error;
         }
+        if (failures != null) writeDeadLetters(new ArrayList<>(failures));
+        return results;
+    }
+
+    /**
+     * 分块执行：每块一个任务，块内紧凑循环跑完整条算子链，结果按下标写入预分配数组。
+     * 只有一块时直接在调用线程执行，省去提交与 Future 开销。
+     */
+    @SuppressWarnings("unchecked")
+    private List<R> executeChunked(List<M> batch, List<BatchPublishStage<M>.Session> sessions,
+                                   ExecutionProgress progress, Aggregator.Run<M> agg) {
+        return (List<R>) executeChunked(batch, sessions, progress, false, agg);
+    }
+
+    /**
+     * @param rawRows 为 true 时不调用单条 publisher，结果为处理后的记录本身
+     * @param agg     非 null 时记录并入各块的部分聚合，不产生逐条结果，返回空列表
+     */
+    private List<Object> executeChunked(List<M> batch, List<BatchPublishStage<M>.Session> sessions,
+                                        ExecutionProgress progress, boolean rawRows, Aggregator.Run<M> agg) {
+        List<M> items = batch instanceof RandomAccess ? batch : new ArrayList<>(batch);
+        int size = items.size();
+        int chunkSize = Math.max(1, options.getChunkSize());
+        Object[] results = new Object[size];
+        List<Future<Integer>> futures = new ArrayList<>((size + chunkSize - 1) / chunkSize);
+        Queue<Retry> retries = options.getErrorPolicy().retrying() && !rawRows && agg == null
+                ? new ConcurrentLinkedQueue<>() : null;
+        List<DeadLetter> retryFailures = new ArrayList<>(0);
+        int failed = 0;
+        try {
+            if (size <= chunkSize) {
+                failed = runRange(items, 0, size, results, sessions, progress, rawRows, agg, retries);
+            } else {
+                Semaphore permits = dtsExecutor.newPermits(options.getMaxConcurrency());
+                for (int from = 0; from < size; from += chunkSize) {
+                    int start = from;
+                    int end = Math.min(size, from + chunkSize);
+                    futures.add(dtsExecutor.submit(
+                            () -> runRange(items, start, end, results, sessions, progress, rawRows, agg, retries), permits));
+                }
+                for (Future<Integer> f : futures) {
+                    failed += f.get();
+                }
+            }
+            failed += retryPublish(retries, results, sessions, progress, retryFailures);
+        } catch (Exception e) {
+            cancel(futures);
+            RuntimeException error = failure(e);
+            writeDeadLetters(retryFailures, error);
+            throw error;
+        }
+        writeDeadLetters(retryFailures);
+        return agg != null ? List.of() : compact(results, failed);
+    }
+
+    /**
+     * 执行失败时取消尚未开始的任务，避免失败后仍有记录继续处理并写入已中止的批量发布
+     */
+    private static void cancel(List<? extends Future<?>> futures) {
+        for (Future<?> f : futures) f.cancel(false);
+    }
+
+    private static List<Object> compact(Object[] results, int failed) {
+        if (failed == 0) return Arrays.asList(results);
+        List<Object> out = new ArrayList<>(results.length - failed);
+        for (Object r : results) {
+            if (r != SKIPPED) out.add(r);
+        }
+        return out;
+    }
+
+    /**
+     * 保留失败原因，便于调用方直接看到是哪条记录、哪个阶段出错
+     */
+    private static RuntimeException failure(Exception e) {
+        Throwable cause = e instanceof ExecutionException && e.getCause() != null ? e.getCause() : e;
+        if (cause instanceof InterruptedException) Thread.currentThread().interrupt();
+        return new RuntimeException("Batch pipeline failed: " + cause.getMessage(), cause);
+    }
+
+    /**
+     * @param retries 非 null 时发布失败且可重试的记录放入其中，由调用线程在整批结束后重试
+     * @return 块内按 errorPolicy 跳过的失败记录数（对应结果为 SKIPPED）
+     */
+    private int runRange(List<M> items, int start, int end, Object[] results,
+                         List<BatchPublishStage<M>.Session> sessions, ExecutionProgress progress, boolean rawRows,
+                         Aggregator.Run<M> agg, Queue<Retry> retries) {
+        Aggregator.Partial<M> partial = agg == null ? null : agg.partial();
+        List<M> processed = sessions.isEmpty() || partial != null ? null : new ArrayList<>(end - start);
+        List<DeadLetter> failures = null;
+        int deferred = 0;
+        boolean tolerant = options.getErrorPolicy().tolerant();
+        Object[] staged = batched ? processChunk(items, start, end, tolerant) : null;
+        try {
+            for (int i = start; i < end; i++) {
+                boolean sampled = metrics.sampled(i);
+                if (!tolerant) {
+                    M current = staged == null ? process(items.get(i), sampled) : staged(staged[i - start]);
+                    if (partial != null) {
+                        accumulate(partial, current, sampled);
+                        continue;
+                    }
+                    if (processed != null) processed.add(current);
+                    results[i] = rawRows ? current : publish(current, sampled);
+                    continue;
+                }
+                try {
+                    M current = staged == null ? processTolerant(items.get(i), sampled) : staged(staged[i - start]);
+                    if (partial != null) {
+                        attempt(aggregatorStage, row -> {
+                            partial.add(row);
+                            return row;
+                        }, current, sampled);
+                        continue;
+                    }
+                    results[i] = rawRows ? current : attempt(publisherStage, publisher::publish, current, sampled);
+                    if (processed != null) processed.add(current);
+                } catch (RecordFailure f) {
+                    if (defer(f, i, sampled, retries)) {
+                        deferred++;
+                        continue;
+                    }
+                    if (failures == null) failures = new ArrayList<>();
+                    failed(f, progress, failures);
+                    results[i] = SKIPPED;
+                }
+            }
+        } catch (RuntimeException e) {
+            // 超过 max_errors 中止时，块内已收集的死信仍然写出
+            if (failures != null) writeDeadLetters(failures, e);
+            throw e;
+        }
+        if (processed != null) {
+            for (BatchPublishStage<M>.Session s : sessions) s.offerAll(processed);
+        }
+        if (partial != null) agg.merge(partial);
+        int failed = failures == null ? 0 : failures.size();
+        if (failed > 0) writeDeadLetters(failures);
+        // 行数按块汇总后一次性累加，避免逐条更新计数器；等待重试的记录在重试成功后再计数
+        countProcessed(end - start - failed - deferred, progress);
+        return failed;
+    }
+
+    /**
+     * 按阶段处理整块（算子链中有 BatchProcessor 时）：BatchProcessor 一次处理块内仍有效的全部记录，其余算子逐条执行。
+     * 容错模式下失败的记录以 RecordFailure 占位、不再进入后续阶段，由 runRange 统一按 errorPolicy 处理
+     */
+    @SuppressWarnings("unchecked")
+    private Object[] processChunk(List<M> items, int start, int end, boolean tolerant) {
+        int n = end - start;
+        Object[] rows = new Object[n];
+        for (int i = 0; i < n; i++) rows[i] = items.get(start + i);
+        int failed = 0;
+        for (int k = 0; k < processors.size(); k++) {
+            Processor<M, M> p = processors.get(k);
+            int stage = k + 1;
+            if (p instanceof BatchProcessor<M> b && processBatch(b, stage, rows, failed, tolerant)) continue;
+            for (int i = 0; i < n; i++) {
+                if (rows[i] instanceof RecordFailure) continue;
+                M current = (M) rows[i];
+                boolean sampled = metrics.sampled(start + i);
+                if (!tolerant) {
+                    rows[i] = processStage(p, stage, current, sampled);
+                    continue;
+                }
+                try {
+                    rows[i] = attempt(stage, p::process, current, sampled);
+                } catch (RecordFailure f) {
+                    rows[i] = f;
+                    failed++;
+                }
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * 整块执行一个 BatchProcessor，按次计时
+     *
+     * @return false 表示容错模式下整块执行失败，该阶段退回逐条执行以定位失败记录
+     */
+    @SuppressWarnings("unchecked")
+    private boolean processBatch(BatchProcessor<M> p, int stage, Object[] rows, int failed, boolean tolerant) {
+        List<M> live;
+        if (failed == 0) {
+            live = (List<M>) (List<?>) Arrays.asList(rows);
+        } else {
+            live = new ArrayList<>(rows.length - failed);
+            for (Object r : rows) if (!(r instanceof RecordFailure)) live.add((M) r);
+        }
+        long start = System.nanoTime();
+        try {
+            p.processBatch(live);
+            metrics.latency(stage, System.nanoTime() - start);
+            return true;
+        } catch (RuntimeException e) {
+            metrics.error(stage);
+            if (!tolerant) throw e;
+            log.debug("Batch stage [{}] failed, fall back to per-record: {}", stageNames[stage], e.getMessage());
+            return false;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private M staged(Object row) {
+        if (row instanceof RecordFailure f) throw f;
+        return (M) row;
+    }
+
+    private M processStage(Processor<M, M> p, int stage, M current, boolean sampled) {
+        try {
+            if (!sampled) return p.process(current);
+            long start = System.nanoTime();
+            M out = p.process(current);
+            metrics.latency(stage, System.nanoTime() - start);
+            return out;
+        } catch (RuntimeException e) {
+            metrics.error(stage);
+            throw e;
+        }
+    }
+
+    /**
+     * 容错执行算子链：逐阶段执行，失败时抛出携带阶段与当前记录的 RecordFailure。
+     * 算子对同一记录的结果是确定的，不做重试
+     */
+    private M processTolerant(M item, boolean sampled) {
+        M current = item;
+        for (int i = 0; i < processors.size(); i++) {
+            current = attempt(i + 1, processors.get(i)::process, current, sampled);
+        }
+        return current;
+    }
+
+    private <T> T attempt(int stage, Function<M, T> fn, M current, boolean sampled) {
+        long start = sampled ? System.nanoTime() : 0L;
+        try {
+            T out = fn.apply(current);
+            if (sampled) metrics.latency(stage, System.nanoTime() - start);
+            return out;
+        } catch (RuntimeException e) {
+            metrics.error(stage);
+            throw new RecordFailure(stage, current, e);
+        }
+    }
+
+    /**
+     * 发布阶段可重试的失败放入 retries 延后处理，工作线程不在退避上等待
+     *
+     * @return true 表示已延后，调用方不再按失败处理
+     */
+    @SuppressWarnings("unchecked")
+    private boolean defer(RecordFailure f, int index, boolean sampled, Queue<Retry> retries) {
+        if (retries == null || f.stage != publisherStage || !options.getErrorPolicy().retryable(f.getCause())) return false;
+        retries.add(new Retry(index, (M) f.record, sampled, f));
+        return true;
+    }
+
+    /**
+     * 在调用线程上按指数退避重试延后的发布：成功的结果写回 results 对应下标并交给批量发布，
+     * 重试耗尽或不再可重试的记录写入 failures、结果置为 SKIPPED
+     *
+     * @return 最终失败的记录数
+     */
+    private int retryPublish(Queue<Retry> retries, Object[] results, List<BatchPublishStage<M>.Session> sessions,
+                             ExecutionProgress progress, Collection<DeadLetter> failures) {
+        if (retries == null || retries.isEmpty()) return 0;
+        ErrorPolicy policy = options.getErrorPolicy();
+        List<Retry> pending = new ArrayList<>(retries);
+        retries.clear();
+        List<M> recovered = new ArrayList<>(pending.size());
+        List<Retry> exhausted = new ArrayList<>();
+        for (int round = 0; round < policy.getMaxRetries() && !pending.isEmpty(); round++) {
+            try {
+                Thread.sleep(policy.backoff(round));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting to retry publish", e);
+            }
+            List<Retry> next = new ArrayList<>(pending.size());
+            for (Retry r : pending) {
+                try {
+                    results[r.index] = attempt(publisherStage, publisher::publish, r.record, r.sampled);
+                    recovered.add(r.record);
+                } catch (RecordFailure f) {
+                    r.failure = f;
+                    (policy.retryable(f.getCause()) ? next : exhausted).add(r);
+                }
+            }
+            pending = next;
+        }
+        exhausted.addAll(pending);
+        for (Retry r : exhausted) {
+            results[r.index] = SKIPPED;
+            failed(r.failure, progress, failures);
+        }
+        if (!recovered.isEmpty()) {
+            for (BatchPublishStage<M>.Session s : sessions) s.offerAll(recovered);
+            countProcessed(recovered.size(), progress);
+        }
+        return exhausted.size();
+    }
+
+    /**
+     * 累加失败数并生成死信；超过 max_errors 时按 STOP 中止本次执行
+     */
+    private void failed(RecordFailure f, ExecutionProgress progress, Collection<DeadLetter> out) {
+        ErrorPolicy policy = options.getErrorPolicy();
+        long total = progress.addFailed(1);
+        Throwable cause = f.getCause();
+        String stage = stageNames[f.stage];
+        if (policy.getMaxErrors() > 0 && total > policy.getMaxErrors()) {
+            throw new IllegalStateException("failed records exceed max_errors " + policy.getMaxErrors()
+                    + ", last failure at stage [" + stage + "]: " + cause.getMessage(), cause);
+        }
+        out.add(new DeadLetter(policy.getRuleId(), stage, f.stage, cause.getClass().getSimpleName() + ": " + cause.getMessage(),
+                asMap(f.record), System.currentTimeMillis()));
+    }
+
+    /**
+     * 按块批量写出死信；未配置死信目标时只记录一条汇总日志
+     */
+    private void writeDeadLetters(List<DeadLetter> failures) {
+        if (failures.isEmpty()) return;
+        DeadLetter first = failures.get(0);
+        log.warn("{} records skipped, ruleId={}, first failure at stage [{}]: {}",
+                failures.size(), first.ruleId(), first.stage(), first.error());
+        DeadLetterSink sink = options.getErrorPolicy().getDeadLetter();
+        if (sink != null) sink.write(failures);
+    }
+
+    /**
+     * 执行中止前写出已收集的死信，写出失败附加到中止原因上
+     */
+    private void writeDeadLetters(List<DeadLetter> failures, RuntimeException abort) {
+        try {
+            writeDeadLetters(failures);
+        } catch (RuntimeException e) {
+            abort.addSuppressed(e);
+        }
+    }
+
+    /**
+     * 批量发布失败的批次逐条写入死信；批次失败本身仍由会话在 flush 时抛出
+     */
+    private void bulkFailed(int stage, List<M> bulk, Exception cause) {
+        ErrorPolicy policy = options.getErrorPolicy();
+        if (policy.getDeadLetter() == null) return;
+        String error = cause == null ? "bulk publish returned false" : cause.getClass().getSimpleName() + ": " + cause.getMessage();
+        long now = System.currentTimeMillis();
+        List<DeadLetter> letters = new ArrayList<>(bulk.size());
+        for (M row : bulk) {
+            letters.add(new DeadLetter(policy.getRuleId(), stageNames[stage], stage, error, asMap(row), now));
+        }
+        policy.getDeadLetter().write(letters);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> asMap(Object record) {
+        if (record instanceof Map<?, ?> m) return (Map<String, Object>) m;
+        return Collections.singletonMap("value", record);
+    }
+
+    /**
+     * 发布失败、等待重试的记录；index 为其在结果数组中的下标
+     */
+    private final class Retry {
+        private final int index;
+        private final M record;
+        private final boolean sampled;
+        private RecordFailure failure;
+
+        private Retry(int index, M record, boolean sampled, RecordFailure failure) {
+            this.index = index;
+            this.record = record;
+            this.sampled = sampled;
+            this.failure = failure;
+        }
+    }
+
+    /**
+     * 单条记录在某阶段的最终失败；作为控制流使用，不填充栈
+     */
+    private static final class RecordFailure extends RuntimeException {
+        private final int stage;
+        private final Object record;
+
+        private RecordFailure(int stage, Object record, RuntimeException cause) {
+            super(cause.getMessage(), cause, false, false);
+            this.stage = stage;
+            this.record = record;
+        }
+    }
+
+    private M process(M item, boolean sampled) {
+        M current = item;
+        int i = 0;
+        try {
+            if (!sampled) {
+                for (; i < processors.size(); i++) current = processors.get(i).process(current);
+                return current;
+            }
+            for (; i < processors.size(); i++) {
+                long start = System.nanoTime();
+                current = processors.get(i).process(current);
+                metrics.latency(i + 1, System.nanoTime() - start);
+            }
+            return current;
+        } catch (RuntimeException e) {
+            metrics.error(i + 1);
+            throw e;
+        }
+    }
+
+    private R publish(M current, boolean sampled) {
+        try {
+            if (!sampled) return publisher.publish(current);
+            long start = System.nanoTime();
+            R r = publisher.publish(current);
+            metrics.latency(publisherStage, System.nanoTime() - start);
+            return r;
+        } catch (RuntimeException e) {
+            metrics.error(publisherStage);
+            throw e;
+        }
+    }
+
+    private void accumulate(Aggregator.Partial<M> partial, M current, boolean sampled) {
+        try {
+            if (!sampled) {
+                partial.add(current);
+                return;
+            }
+            long start = System.nanoTime();
+            partial.add(current);
+            metrics.latency(aggregatorStage, System.nanoTime() - start);
+        } catch (RuntimeException e) {
+            metrics.error(aggregatorStage);
+            throw e;
+        }
+    }
+
+    /**
+     * processors 与单条 publisher 的行数；批量发布的行数在 closeSessions 中按 session 统计。
+     * 配置了聚合时只统计 processors 与聚合阶段，发布的行数在 emit 中按聚合结果统计
+     */
+    private void countProcessed(int count, ExecutionProgress progress) {
+        metrics.rows(1, aggregator == null ? publisherStage + 1 : publisherStage, count);
+        progress.addProcessed(count);
+        if (batchPublishers.isEmpty() && aggregator == null) progress.addPublished(count);
+    }
+
+    /**
+     * 进度中的 published 以第一个批量发布为准，多个发布目标时不重复累加
+     */
+    private List<BatchPublishStage<M>.Session> openSessions(ExecutionProgress progress) {
+        if (batchPublishers.isEmpty()) return List.of();
+        List<BatchPublishStage<M>.Session> sessions = new ArrayList<>(batchPublishers.size());
+        for (int i = 0; i < batchPublishers.size(); i++) {
+            int stage = publisherStage + 1 + i;
+            sessions.add(batchPublishers.get(i).open(i == 0 ? progress::addPublished : null,
+                    (bulk, e) -> bulkFailed(stage, bulk, e), options.getErrorPolicy()));
+        }
+        return sessions;
+    }
+
+    /**
+     * 在批量发布会话内执行 body：成功时刷出并关闭会话；body 或关闭失败时中止全部会话（等待在途批次结束），
+     * 中止过程中的异常附加到原异常上。调用方只在成功返回后提交断点与水位
+     */
+    private <T> T withSessions(ExecutionProgress progress, Function<List<BatchPublishStage<M>.Session>, T> body) {
+        List<BatchPublishStage<M>.Session> sessions = openSessions(progress);
+        try {
+            T out = body.apply(sessions);
+            closeSessions(sessions);
+            return out;
+        } catch (RuntimeException | Error e) {
+            for (BatchPublishStage<M>.Session s : sessions) {
+                try {
+                    s.abort();
+                } catch (RuntimeException suppressed) {
+                    e.addSuppressed(suppressed);
+                }
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 刷出所有批量发布的剩余缓冲并等待在途批次完成
+     */
+    private void closeSessions(List<BatchPublishStage<M>.Session> sessions) {
+        for (int i = 0; i < sessions.size(); i++) {
+            int stage = publisherStage + 1 + i;
+            long start = System.nanoTime();
+            try {
+                sessions.get(i).close();
+            } catch (RuntimeException e) {
+                metrics.error(stage);
+                throw e;
+            }
+            metrics.latency(stage, System.nanoTime() - start);
+            metrics.rows(stage, sessions.get(i).published());
+        }
+    }
+
+    public PipelineOptions options() {
+        return options;
+    }
+
+    public PipelineMetrics metrics() {
+        return metrics;
     }
 
     @Override
     public List<Stage> stages() {
-        List<Stage> s = new ArrayList<>(1 + processors.size() + 1);
+        List<Stage> s = new ArrayList<>(1 + processors.size() + 1 + batchPublishers.size());
         s.add(collector);
         s.addAll(processors);
+        if (aggregator != null) s.add(aggregator);
         s.add(publisher);
+        s.addAll(batchPublishers);
         return Collections.unmodifiableList(s);
     }
 }
\ No newline at end of file
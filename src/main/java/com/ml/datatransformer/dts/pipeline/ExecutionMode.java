@@ -0,0 +1,25 @@
+package com.ml.datatransformer.dts.pipeline;
+
+/**
+ * 流水线执行模式
+ * - RECORD：每条记录一个任务（默认，兼容旧行为）
+ * - CHUNKED：整批按 chunkSize 切块，每块在一个工作线程内紧凑循环执行整条算子链
+ * - STREAMING：从 StreamingCollector 游标按 windowSize 分窗拉取，窗口内按 CHUNKED 方式处理后交给下游，
+ *   内存占用与窗口大小成正比而非与数据总量成正比
+ */
+public enum ExecutionMode {
+    RECORD,
+    CHUNKED,
+    STREAMING;
+
+    /**
+     * 未配置时为 RECORD；无法识别的取值抛出 IllegalArgumentException，避免拼写错误静默退化为逐条执行
+     */
+    public static ExecutionMode of(String value) {
+        if (value == null || value.isBlank()) return RECORD;
+        for (ExecutionMode m : values()) {
+            if (m.name().equalsIgnoreCase(value.trim())) return m;
+        }
+        throw new IllegalArgumentException("unknown execution mode: " + value);
+    }
+}
\ No newline at end of file
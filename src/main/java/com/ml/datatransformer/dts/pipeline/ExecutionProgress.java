@@ -0,0 +1,53 @@
+package com.ml.datatransformer.dts.pipeline;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 单次执行的进度计数，可由调用方传入 DTSPipeline 并在其他线程轮询读取
+ * - collected：collector 产出的记录数（流式模式按窗口累加）
+ * - processed：走完算子链与单条 publisher 的记录数（按块累加）
+ * - published：批量发布成功写出的记录数；未配置批量发布时与 processed 一致
+ * - failed：按 on_error 策略跳过的失败记录数
+ */
+public class ExecutionProgress {
+
+    private final AtomicLong collected = new AtomicLong();
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    public void addCollected(long n) {
+        collected.addAndGet(n);
+    }
+
+    public void addProcessed(long n) {
+        processed.addAndGet(n);
+    }
+
+    public void addPublished(long n) {
+        published.addAndGet(n);
+    }
+
+    /**
+     * @return 累加后的失败总数
+     */
+    public long addFailed(long n) {
+        return failed.addAndGet(n);
+    }
+
+    public long getCollected() {
+        return collected.get();
+    }
+
+    public long getProcessed() {
+        return processed.get();
+    }
+
+    public long getPublished() {
+        return published.get();
+    }
+
+    public long getFailed() {
+        return failed.get();
+    }
+}
@@ -0,0 +1,53 @@
+package com.ml.datatransformer.dts.pipeline;
+
+import com.ml.datatransformer.dts.pipeline.checkpoint.Checkpointer;
+import com.ml.datatransformer.dts.pipeline.checkpoint.Watermarker;
+import com.ml.datatransformer.dts.pipeline.error.ErrorPolicy;
+import com.ml.datatransformer.dts.pipeline.model.Aggregator;
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * DTSPipeline 执行参数，由 PipelineCompiler 根据任务的 execution 配置生成
+ */
+@Getter
+@Builder
+public class PipelineOptions {
+    @Builder.Default
+    private final ExecutionMode mode = ExecutionMode.RECORD;
+    /**
+     * CHUNKED 模式下每块的记录数
+     */
+    @Builder.Default
+    private final int chunkSize = 512;
+    /**
+     * 单次执行的最大在途任务数，<=0 表示使用 dts.executor.max-concurrency
+     */
+    private final int maxConcurrency;
+    /**
+     * STREAMING 模式下每个窗口的记录数
+     */
+    @Builder.Default
+    private final int windowSize = 1000;
+    /**
+     * 单条记录出错时的处理策略，默认 STOP
+     */
+    @Builder.Default
+    private final ErrorPolicy errorPolicy = ErrorPolicy.STOP;
+    /**
+     * STREAMING 模式下按窗口保存断点，null 表示不保存
+     */
+    private final Checkpointer checkpointer;
+    /**
+     * 增量采集时执行成功后推进水位，null 表示全量采集
+     */
+    private final Watermarker watermarker;
+    /**
+     * 接在 processors 之后的聚合阶段，null 表示逐条发布
+     */
+    private final Aggregator<?> aggregator;
+
+    public static PipelineOptions defaults() {
+        return PipelineOptions.builder().build();
+    }
+}
\ No newline at end of file
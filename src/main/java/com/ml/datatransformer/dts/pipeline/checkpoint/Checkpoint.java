@@ -0,0 +1,14 @@
+package com.ml.datatransformer.dts.pipeline.checkpoint;
+
+/**
+ * 一次未完成执行的断点
+ *
+ * @param ruleId    任务名
+ * @param digest    请求 payload 的摘要，payload 不同的执行不复用断点
+ * @param position  最后一个已提交窗口末条记录的采集位置
+ * @param offset    已提交的采集记录数（累计各次恢复）
+ * @param published 已发布的记录数（累计各次恢复）
+ * @param updatedAt 保存时间（epoch millis）
+ */
+public record Checkpoint(String ruleId, String digest, Object position, long offset, long published, long updatedAt) {
+}
@@ -0,0 +1,20 @@
+package com.ml.datatransformer.dts.pipeline.checkpoint;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 断点存储配置（dts.checkpoint.*）
+ *
+ * 示例：
+ * dts:
+ *   checkpoint:
+ *     path: ./checkpoint   # 每个任务一个 <ruleId>.json
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "dts.checkpoint")
+public class CheckpointProperties {
+    private String path = "./checkpoint";
+}
@@ -0,0 +1,16 @@
+package com.ml.datatransformer.dts.pipeline.checkpoint;
+
+/**
+ * 断点存储：每个 ruleId 至多保存一个断点，save 覆盖写入须原子，进程中途退出时不留下半个断点
+ */
+public interface CheckpointStore {
+
+    /**
+     * @return 断点，不存在时返回 null
+     */
+    Checkpoint load(String ruleId);
+
+    void save(Checkpoint checkpoint);
+
+    void clear(String ruleId);
+}
@@ -0,0 +1,99 @@
+package com.ml.datatransformer.dts.pipeline.checkpoint;
+
+import com.ml.datatransformer.dts.dto.DTSRequest;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Objects;
+
+/**
+ * Checkpointer
+ * STREAMING 模式下按窗口保存执行断点，进程中途退出后同一请求再次执行时从断点继续：
+ * - begin：读取 ruleId 的断点；payload 摘要一致时从断点位置恢复，否则丢弃旧断点从头执行
+ * - commit：窗口处理完成且批量发布全部写出后调用，保存游标位置与累计的采集/发布数
+ * - complete：执行成功结束后清除断点；执行失败时断点保留
+ * 恢复后重放的是最后一次提交之后的记录，批量发布配置幂等 _id（如 ES 的 id_field）即可做到结果不重不漏。
+ * 同一任务不应并发执行，否则断点会互相覆盖。
+ *
+ * 不可变，随编译结果复用；单次执行的状态由 {@link Run} 持有。
+ */
+@Slf4j
+public final class Checkpointer {
+
+    private final CheckpointStore store;
+    private final String ruleId;
+
+    public Checkpointer(CheckpointStore store, String ruleId) {
+        this.store = Objects.requireNonNull(store, "store must not be null");
+        this.ruleId = Objects.requireNonNull(ruleId, "ruleId must not be null");
+    }
+
+    public Run begin(Object input) {
+        String digest = digest(input instanceof DTSRequest r ? r.getPayload() : null);
+        Checkpoint last = store.load(ruleId);
+        if (last == null) return new Run(digest, null);
+        if (!digest.equals(last.digest())) {
+            log.warn("Discard checkpoint of {} saved by a request with a different payload", ruleId);
+            store.clear(ruleId);
+            return new Run(digest, null);
+        }
+        log.info("Resume {} from checkpoint, position={}, offset={}, published={}",
+                ruleId, last.position(), last.offset(), last.published());
+        return new Run(digest, last);
+    }
+
+    public String ruleId() {
+        return ruleId;
+    }
+
+    private static String digest(String payload) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256")
+                    .digest(String.valueOf(payload).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 单次执行的断点状态
+     */
+    public final class Run {
+        private final String digest;
+        private final Object position;
+        private final long baseOffset;
+        private final long basePublished;
+
+        private Run(String digest, Checkpoint resumed) {
+            this.digest = digest;
+            this.position = resumed == null ? null : resumed.position();
+            this.baseOffset = resumed == null ? 0 : resumed.offset();
+            this.basePublished = resumed == null ? 0 : resumed.published();
+        }
+
+        /**
+         * @return 恢复起点，null 表示从头读取
+         */
+        public Object position() {
+            return position;
+        }
+
+        /**
+         * @param position  本窗口末条记录的采集位置
+         * @param collected 本次执行已提交的采集数
+         * @param published 本次执行已发布的记录数
+         */
+        public void commit(Object position, long collected, long published) {
+            store.save(new Checkpoint(ruleId, digest, position, baseOffset + collected, basePublished + published,
+                    System.currentTimeMillis()));
+        }
+
+        public void complete() {
+            store.clear(ruleId);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.ml.datatransformer.dts.pipeline.checkpoint;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * FileCheckpointStore
+ * 断点与增量水位以 JSON 文件保存在 dts.checkpoint.path 下，每个任务：<ruleId>.json（断点）、<ruleId>.watermark.json（水位）
+ * - 写入先写临时文件并 fsync，再原子替换正式文件，进程在任意时刻退出都只会看到旧值或新值
+ * - 只在单个实例本地有效，多实例部署时同一任务须固定在一个实例上执行
+ */
+@Component
+public class FileCheckpointStore implements CheckpointStore, WatermarkStore {
+
+    private static final ObjectMapper OM = new ObjectMapper();
+
+    private final Path dir;
+
+    public FileCheckpointStore(CheckpointProperties properties) {
+        this.dir = Path.of(properties.getPath());
+    }
+
+    @Override
+    public Checkpoint load(String ruleId) {
+        return read(file(ruleId, ".json"), Checkpoint.class, "checkpoint of " + ruleId);
+    }
+
+    @Override
+    public void save(Checkpoint checkpoint) {
+        write(file(checkpoint.ruleId(), ".json"), checkpoint, "checkpoint of " + checkpoint.ruleId());
+    }
+
+    @Override
+    public void clear(String ruleId) {
+        try {
+            Files.deleteIfExists(file(ruleId, ".json"));
+        } catch (IOException e) {
+            throw new UncheckedIOException("clear checkpoint of " + ruleId + " failed", e);
+        }
+    }
+
+    @Override
+    public Watermark loadWatermark(String ruleId) {
+        return read(file(ruleId, ".watermark.json"), Watermark.class, "watermark of " + ruleId);
+    }
+
+    @Override
+    public void saveWatermark(Watermark watermark) {
+        write(file(watermark.ruleId(), ".watermark.json"), watermark, "watermark of " + watermark.ruleId());
+    }
+
+    private <T> T read(Path file, Class<T> type, String what) {
+        try {
+            return OM.readValue(Files.readAllBytes(file), type);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException("read " + what + " failed", e);
+        }
+    }
+
+    private void write(Path target, Object value, String what) {
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(dir);
+            try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                ch.write(ByteBuffer.wrap(OM.writeValueAsBytes(value)));
+                ch.force(true);
+            }
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("save " + what + " failed", e);
+        }
+    }
+
+    private Path file(String ruleId, String suffix) {
+        return dir.resolve((ruleId == null ? "unknown" : ruleId.replaceAll("[^A-Za-z0-9._-]", "_")) + suffix);
+    }
+}
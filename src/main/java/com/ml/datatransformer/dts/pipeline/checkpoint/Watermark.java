@@ -0,0 +1,11 @@
+package com.ml.datatransformer.dts.pipeline.checkpoint;
+
+/**
+ * 增量采集的高水位
+ *
+ * @param ruleId    任务名
+ * @param value     已成功处理的记录中水位列的最大值
+ * @param updatedAt 保存时间（epoch millis）
+ */
+public record Watermark(String ruleId, Object value, long updatedAt) {
+}
@@ -0,0 +1,14 @@
+package com.ml.datatransformer.dts.pipeline.checkpoint;
+
+/**
+ * 高水位存储：每个 ruleId 一个水位，执行成功后才写入，跨执行长期保留
+ */
+public interface WatermarkStore {
+
+    /**
+     * @return 水位，从未成功执行过时返回 null
+     */
+    Watermark loadWatermark(String ruleId);
+
+    void saveWatermark(Watermark watermark);
+}
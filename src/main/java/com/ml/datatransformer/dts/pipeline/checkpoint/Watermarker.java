@@ -0,0 +1,147 @@
+package com.ml.datatransformer.dts.pipeline.checkpoint;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Watermarker
+ * 增量采集的水位推进：执行过程中记录采集到的水位列最大值，执行成功（批量发布全部写出）后保存为新水位，
+ * 下次执行由 collector 以 ${watermark} 只读取水位之后的记录。执行失败时水位不变，下次重新读取。
+ * - 水位值：整数按 long 保存，其他数字按数值比较，时间等其他类型转为字符串（ISO 格式按字典序即时间序）
+ * - 只前进不后退：保存前与当前水位比较，较小时不覆盖（同一任务并发执行时以最大者为准）
+ * - 配置了 key（唯一键列）时水位为 [水位列值, 键值]，按 (水位列, 键) 字典序比较，
+ *   供按水位分批（limit）读取时从同一水位值的中间续读
+ *
+ * 不可变，随编译结果复用；单次执行的状态由 {@link Run} 持有。
+ */
+@Slf4j
+public final class Watermarker {
+
+    private final WatermarkStore store;
+    private final String ruleId;
+    private final String column;
+    private final String key;
+
+    public Watermarker(WatermarkStore store, String ruleId, String column) {
+        this(store, ruleId, column, null);
+    }
+
+    /**
+     * @param key 可选，唯一键列；为 null 时水位只保存水位列的值
+     */
+    public Watermarker(WatermarkStore store, String ruleId, String column, String key) {
+        this.store = Objects.requireNonNull(store, "store must not be null");
+        this.ruleId = Objects.requireNonNull(ruleId, "ruleId must not be null");
+        this.column = Objects.requireNonNull(column, "column must not be null");
+        this.key = key;
+    }
+
+    public Run begin() {
+        return new Run();
+    }
+
+    public String column() {
+        return column;
+    }
+
+    /**
+     * @return 唯一键列，未配置时为 null
+     */
+    public String key() {
+        return key;
+    }
+
+    private synchronized void advance(Object max) {
+        Watermark current = store.loadWatermark(ruleId);
+        if (current != null && current.value() != null && compare(max, current.value()) <= 0) return;
+        store.saveWatermark(new Watermark(ruleId, max, System.currentTimeMillis()));
+        log.info("Watermark of {} advanced to {}", ruleId, max);
+    }
+
+    /**
+     * 转为可 JSON 保存、可比较的水位值
+     */
+    public static Object normalize(Object v) {
+        if (v == null) return null;
+        if (v instanceof Long || v instanceof Integer || v instanceof Short || v instanceof Byte) return ((Number) v).longValue();
+        if (v instanceof Number) return new BigDecimal(v.toString());
+        return v instanceof String ? v : String.valueOf(v);
+    }
+
+    /**
+     * 复合水位按元素字典序比较；复合水位与单值水位比较时先比水位列，相等时单值较大（单值表示该水位值已全部读取）
+     */
+    public static int compare(Object a, Object b) {
+        if (a instanceof List<?> || b instanceof List<?>) {
+            List<?> la = a instanceof List<?> l ? l : Collections.singletonList(a);
+            List<?> lb = b instanceof List<?> l ? l : Collections.singletonList(b);
+            for (int i = 0; i < la.size() && i < lb.size(); i++) {
+                int c = compare(la.get(i), lb.get(i));
+                if (c != 0) return c;
+            }
+            return Integer.compare(lb.size(), la.size());
+        }
+        if (a instanceof Number && b instanceof Number) {
+            return new BigDecimal(a.toString()).compareTo(new BigDecimal(b.toString()));
+        }
+        return String.valueOf(a).compareTo(String.valueOf(b));
+    }
+
+    /**
+     * 单次执行的水位状态，在执行线程上按采集批次/窗口调用
+     */
+    public final class Run {
+        private Object max;
+        private Object maxKey;
+        private String label;
+        private String keyLabel;
+
+        /**
+         * 在算子处理前调用，取原始采集值；部分驱动返回大写列标签，按忽略大小写匹配
+         */
+        @SuppressWarnings("unchecked")
+        public void observe(List<?> rows) {
+            if (rows == null) return;
+            for (Object r : rows) {
+                if (!(r instanceof Map<?, ?>)) continue;
+                Map<String, Object> row = (Map<String, Object>) r;
+                if (label == null || !row.containsKey(label)) label = resolveLabel(row, column);
+                Object v = normalize(row.get(label));
+                if (v == null) continue;
+                int c = max == null ? 1 : compare(v, max);
+                if (key == null) {
+                    if (c > 0) max = v;
+                    continue;
+                }
+                if (keyLabel == null || !row.containsKey(keyLabel)) keyLabel = resolveLabel(row, key);
+                Object k = normalize(row.get(keyLabel));
+                if (c > 0 || c == 0 && k != null && (maxKey == null || compare(k, maxKey) > 0)) {
+                    max = v;
+                    maxKey = k;
+                }
+            }
+        }
+
+        /**
+         * 执行成功后调用；本次没有采集到记录时水位不变
+         */
+        public void commit() {
+            if (max == null) return;
+            advance(key == null ? max : Arrays.asList(max, maxKey));
+        }
+
+        private String resolveLabel(Map<String, Object> row, String name) {
+            if (row.containsKey(name)) return name;
+            for (String k : row.keySet()) {
+                if (k.equalsIgnoreCase(name)) return k;
+            }
+            return name;
+        }
+    }
+}
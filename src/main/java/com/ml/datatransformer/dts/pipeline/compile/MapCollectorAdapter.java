@@ -0,0 +1,105 @@
+package com.ml.datatransformer.dts.pipeline.compile;
+
+import com.ml.datatransformer.dts.dto.DTSRequest;
+import com.ml.datatransformer.dts.pipeline.model.CheckpointCursor;
+import com.ml.datatransformer.dts.pipeline.model.Collector;
+import com.ml.datatransformer.dts.pipeline.model.RecordCursor;
+import com.ml.datatransformer.dts.pipeline.model.RecordCursors;
+import com.ml.datatransformer.dts.pipeline.model.ResumableCollector;
+import com.ml.datatransformer.dts.pipeline.model.SchemaBindableCollector;
+import com.ml.datatransformer.dts.pipeline.model.StreamingCollector;
+import com.ml.datatransformer.dts.pipeline.record.RecordSchema;
+
+import java.util.*;
+
+/**
+ * MapCollectorAdapter
+ * 将任意 collect 算子的输出统一为 Map 记录：
+ * - List<Map>：原样返回
+ * - List<其他>：每个元素包装为 {payload, ruleId}
+ * - Map：转为单条记录并补充 ruleId
+ * - 其他：包装为单条 {payload, ruleId}
+ * 若底层算子实现了 StreamingCollector，则 open 直接透传其游标，否则退化为先 collect 再遍历；
+ * 断点恢复（ResumableCollector）同样透传，底层算子不支持时 resumable() 为 false。
+ * 底层算子支持 typed record（SchemaBindableCollector）时 bind 透传，否则返回 null。
+ */
+public class MapCollectorAdapter implements Collector<DTSRequest, List<Map<String, Object>>>,
+        ResumableCollector<DTSRequest, Map<String, Object>>, SchemaBindableCollector<DTSRequest> {
+
+    private final Collector<DTSRequest, ?> raw;
+
+    public MapCollectorAdapter(Collector<DTSRequest, ?> raw) {
+        this.raw = Objects.requireNonNull(raw, "raw collector must not be null");
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<Map<String, Object>> collect(DTSRequest req) {
+        Object r = raw.collect(req);
+        if (r instanceof List<?> ls) {
+            if (ls.isEmpty()) return Collections.emptyList();
+            Object first = ls.get(0);
+            if (first instanceof Map) {
+                return (List<Map<String, Object>>) r;
+            } else {
+                List<Map<String, Object>> wrapped = new ArrayList<>(ls.size());
+                for (Object it : ls) {
+                    wrapped.add(wrap(it, req));
+                }
+                return wrapped;
+            }
+        }
+        if (r instanceof Map<?, ?> m) {
+            Map<String, Object> ctx = new HashMap<>();
+            m.forEach((k, v) -> ctx.put(String.valueOf(k), v));
+            ctx.putIfAbsent("ruleId", req == null ? null : req.getRuleId());
+            return List.of(ctx);
+        }
+        Map<String, Object> one = new HashMap<>();
+        one.put("payload", r);
+        one.put("ruleId", req == null ? null : req.getRuleId());
+        return List.of(one);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public RecordCursor<Map<String, Object>> open(DTSRequest req) {
+        if (raw instanceof StreamingCollector<?, ?> streaming) {
+            RecordCursor<Object> cursor = ((StreamingCollector<DTSRequest, Object>) streaming).open(req);
+            return RecordCursors.map(cursor, it -> it instanceof Map ? (Map<String, Object>) it : wrap(it, req));
+        }
+        return RecordCursors.of(collect(req));
+    }
+
+    @Override
+    public boolean resumable() {
+        return raw instanceof ResumableCollector<?, ?> r && r.resumable();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public CheckpointCursor<Map<String, Object>> open(DTSRequest req, Object position) {
+        if (!resumable()) throw new IllegalStateException(raw.name() + " does not support checkpoint");
+        CheckpointCursor<Object> cursor = ((ResumableCollector<DTSRequest, Object>) raw).open(req, position);
+        return RecordCursors.map(cursor, it -> it instanceof Map ? (Map<String, Object>) it : wrap(it, req));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public MapCollectorAdapter bind(RecordSchema schema) {
+        if (!(raw instanceof SchemaBindableCollector<?> bindable)) return null;
+        return new MapCollectorAdapter(((SchemaBindableCollector<DTSRequest>) bindable).bind(schema));
+    }
+
+    private Map<String, Object> wrap(Object it, DTSRequest req) {
+        Map<String, Object> ctx = new HashMap<>(4);
+        ctx.put("payload", it);
+        ctx.put("ruleId", req == null ? null : req.getRuleId());
+        return ctx;
+    }
+
+    @Override
+    public String name() {
+        return "collector:adapter";
+    }
+}
\ No newline at end of file
@@ -0,0 +1,106 @@
+package com.ml.datatransformer.dts.pipeline.compile;
+
+import com.ml.datatransformer.dts.pipeline.flow.FlowGraph;
+import com.ml.datatransformer.dts.pipeline.task.TaskDefinition;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * PipelineCache
+ * 已编译流水线缓存：key 为 ruleId，value 携带编译时的任务版本。
+ * - 命中：缓存版本与 TaskRegistry 当前版本一致，直接复用
+ * - 未命中/版本变化：在 compute 中重新编译并替换，同一 ruleId 并发请求只编译一次
+ * - 被替换或失效的执行图调用 close 释放编译期资源（参考表租约等）
+ * - 指标：dts.pipeline.cache.requests{result=hit|miss}、dts.pipeline.compile、dts.pipeline.cache.size
+ */
+@Slf4j
+@Component
+public class PipelineCache {
+
+    private final PipelineCompiler compiler;
+    private final Map<String, CompiledPipeline> cache = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final Timer compileTimer;
+
+    public PipelineCache(PipelineCompiler compiler, MeterRegistry meterRegistry) {
+        this.compiler = compiler;
+        FunctionCounter.builder("dts.pipeline.cache.requests", hits, LongAdder::doubleValue)
+                .tag("result", "hit")
+                .register(meterRegistry);
+        FunctionCounter.builder("dts.pipeline.cache.requests", misses, LongAdder::doubleValue)
+                .tag("result", "miss")
+                .register(meterRegistry);
+        Gauge.builder("dts.pipeline.cache.size", cache, Map::size).register(meterRegistry);
+        this.compileTimer = Timer.builder("dts.pipeline.compile").register(meterRegistry);
+    }
+
+    /**
+     * 获取任务对应的已编译执行图，必要时编译
+     */
+    public FlowGraph get(TaskDefinition task) {
+        String ruleId = task.getName();
+        long version = task.getVersion();
+        CompiledPipeline cached = cache.get(ruleId);
+        if (cached != null && cached.version() == version) {
+            hits.increment();
+            return cached.pipeline();
+        }
+        return cache.compute(ruleId, (k, old) -> {
+            if (old != null && old.version() == version) {
+                hits.increment();
+                return old;
+            }
+            misses.increment();
+            long start = System.nanoTime();
+            FlowGraph pipeline = compiler.compile(task);
+            long cost = System.nanoTime() - start;
+            compileTimer.record(cost, TimeUnit.NANOSECONDS);
+            log.info("Pipeline compiled, ruleId={}, version={}, cost={}us", ruleId, version, cost / 1000);
+            if (old != null) old.pipeline().close();
+            return new CompiledPipeline(version, pipeline);
+        }).pipeline();
+    }
+
+    /**
+     * 放入已编译好的执行图（如重载校验时编译的结果），版本取自 task
+     */
+    public void put(TaskDefinition task, FlowGraph pipeline) {
+        CompiledPipeline old = cache.put(task.getName(), new CompiledPipeline(task.getVersion(), pipeline));
+        if (old != null && old.pipeline() != pipeline) old.pipeline().close();
+    }
+
+    public void invalidate(String ruleId) {
+        CompiledPipeline old = ruleId == null ? null : cache.remove(ruleId);
+        if (old != null) {
+            old.pipeline().close();
+            log.info("Pipeline cache invalidated, ruleId={}", ruleId);
+        }
+    }
+
+    public void invalidateAll() {
+        for (String ruleId : List.copyOf(cache.keySet())) invalidate(ruleId);
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    private record CompiledPipeline(long version, FlowGraph pipeline) {
+    }
+}
\ No newline at end of file
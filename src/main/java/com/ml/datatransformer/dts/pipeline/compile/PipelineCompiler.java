@@ -0,0 +1,436 @@
+package com.ml.datatransformer.dts.pipeline.compile;
+
+import com.ml.datatransformer.dts.dto.DTSRequest;
+import com.ml.datatransformer.dts.pipeline.DTSPipeline;
+import com.ml.datatransformer.dts.pipeline.ExecutionMode;
+import com.ml.datatransformer.dts.pipeline.PipelineOptions;
+import com.ml.datatransformer.dts.pipeline.checkpoint.CheckpointStore;
+import com.ml.datatransformer.dts.pipeline.checkpoint.Checkpointer;
+import com.ml.datatransformer.dts.pipeline.checkpoint.WatermarkStore;
+import com.ml.datatransformer.dts.pipeline.checkpoint.Watermarker;
+import com.ml.datatransformer.dts.pipeline.error.DeadLetterSink;
+import com.ml.datatransformer.dts.pipeline.error.ErrorPolicy;
+import com.ml.datatransformer.dts.pipeline.flow.FlowCondition;
+import com.ml.datatransformer.dts.pipeline.flow.FlowGraph;
+import com.ml.datatransformer.dts.pipeline.flow.FlowInput;
+import com.ml.datatransformer.dts.pipeline.flow.FlowNode;
+import com.ml.datatransformer.dts.pipeline.impl.DTSExecutor;
+import com.ml.datatransformer.dts.pipeline.impl.OperatorFactory;
+import com.ml.datatransformer.dts.pipeline.impl.aggregate.GroupByAggregator;
+import com.ml.datatransformer.dts.pipeline.impl.lookup.LookupTables;
+import com.ml.datatransformer.dts.pipeline.impl.publish.BatchPublishStage;
+import com.ml.datatransformer.dts.pipeline.impl.publish.JsonStringPublisher;
+import com.ml.datatransformer.dts.pipeline.metrics.PipelineMetrics;
+import com.ml.datatransformer.dts.pipeline.metrics.PipelineMetricsProperties;
+import com.ml.datatransformer.dts.pipeline.model.Aggregator;
+import com.ml.datatransformer.dts.pipeline.model.Collector;
+import com.ml.datatransformer.dts.pipeline.model.MapProcessor;
+import com.ml.datatransformer.dts.pipeline.model.Processor;
+import com.ml.datatransformer.dts.pipeline.model.Publisher;
+import com.ml.datatransformer.dts.pipeline.model.ResumableCollector;
+import com.ml.datatransformer.dts.pipeline.model.SchemaBindable;
+import com.ml.datatransformer.dts.pipeline.model.Stage;
+import com.ml.datatransformer.dts.pipeline.record.RecordSchema;
+import com.ml.datatransformer.dts.pipeline.task.ErrorPolicyDefinition;
+import com.ml.datatransformer.dts.pipeline.task.ExecutionDefinition;
+import com.ml.datatransformer.dts.pipeline.task.FlowDefinition;
+import com.ml.datatransformer.dts.pipeline.task.OperatorStep;
+import com.ml.datatransformer.dts.pipeline.task.TaskDefinition;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * PipelineCompiler
+ * - 将 TaskDefinition 一次性编译为不可变的 FlowGraph：解析配置、调用 OperatorFactory 实例化算子，并由 PipelineOptimizer 改写算子链
+ * - 单 flow 任务编译为一条 DTSPipeline；多 flow 任务按 depends_on 拓扑排序，每个 flow 一条流水线，共享一个 collector
+ * - 编译结果不持有请求级状态，可被多个请求线程并发复用（由 PipelineCache 缓存）
+ */
+@Component
+@RequiredArgsConstructor
+public class PipelineCompiler {
+
+    private static final Publisher<Map<String, Object>, String> JSON_PUBLISHER = new JsonStringPublisher();
+
+    private final OperatorFactory operatorFactory;
+    private final LookupTables lookupTables;
+    private final DTSExecutor dtsExecutor;
+    private final MeterRegistry meterRegistry;
+    private final PipelineMetricsProperties metricsProperties;
+    private final CheckpointStore checkpointStore;
+    private final WatermarkStore watermarkStore;
+
+    /**
+     * 编译结果持有参考表租约，不再使用时由调用方 close（见 PipelineCache）
+     */
+    public FlowGraph compile(TaskDefinition task) {
+        LookupTables.Lease lookups = lookupTables.lease(task.getName());
+        try {
+            List<FlowDefinition> flows = task.getFlows();
+            FlowDefinition first = flows.get(0);
+            if (flows.size() == 1 && (first.getWhen() == null || first.getWhen().isBlank())) {
+                return FlowGraph.of(compileSingle(task, first, lookups), lookups);
+            }
+            return compileGraph(task, lookups);
+        } catch (RuntimeException e) {
+            lookups.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 单 flow：collector 直接作为流水线第一阶段，流式模式下由 DTSPipeline 自行按窗口拉取
+     */
+    private DTSPipeline<DTSRequest, Map<String, Object>, String> compileSingle(TaskDefinition task, FlowDefinition flow,
+                                                                               LookupTables.Lease lookups) {
+        // 1) 批量 collector：I -> List<Map<String,Object>>
+        Collector<DTSRequest, List<Map<String, Object>>> batchCollector = buildBatchCollector(task);
+
+        // 2) 单条 processors（Map -> Map）与可选的聚合阶段
+        GroupByAggregator aggregator = buildAggregator(flow);
+        List<MapProcessor> operators = buildOperators(task, flow, task.getName(), aggregator, lookups);
+
+        // typed record：字段在编译期解析为槽位，行使用 SlotRecord 承载
+        if (typed(task)) {
+            RecordSchema schema = buildSchema(task, operators, aggregator == null ? List.of() : aggregator.fields());
+            operators = bind(operators, schema);
+            batchCollector = new SlotRecordCollector(batchCollector, schema);
+        }
+
+        // 3) 批量 publisher：flow.publish 优先，否则使用任务级 publish
+        List<OperatorStep> publishSteps = safe(flow.getPublish()).isEmpty() ? safe(task.getPublish()) : flow.getPublish();
+
+        // 4) 单条 publisher（Map -> String）：默认将每条结果转 JSON 字符串，作为接口同步返回
+        Checkpointer checkpointer = buildCheckpointer(task, batchCollector);
+        if (checkpointer != null && aggregator != null) {
+            // 未关闭窗口的聚合状态只在内存中，按断点恢复会丢失
+            throw new IllegalArgumentException("checkpoint cannot be combined with aggregate in task [" + task.getName() + "]");
+        }
+        PipelineOptions options = buildOptions(task, buildErrorPolicy(task, task.getName(), buildDeadLetterSink(task)),
+                checkpointer, buildWatermarker(task), aggregator);
+        return new DTSPipeline<>(batchCollector, toProcessors(operators), JSON_PUBLISHER, buildBatchPublishers(publishSteps),
+                dtsExecutor, options, metricsFactory(task.getName(), options));
+    }
+
+    /**
+     * 多 flow：校验名称与依赖并拓扑排序，共享一个 collector，每个 flow 编译为以 FlowInput 为 collector 的流水线。
+     * 任务级 publish 只作用于没有下游、且自身未配置 publish 的 flow（汇点）。
+     */
+    private FlowGraph compileGraph(TaskDefinition task, LookupTables.Lease lookups) {
+        List<FlowDefinition> flows = task.getFlows();
+        int n = flows.size();
+        List<String> names = new ArrayList<>(n);
+        Map<String, Integer> index = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            String name = flows.get(i).getName() == null || flows.get(i).getName().isBlank()
+                    ? "flow-" + i : flows.get(i).getName();
+            if (index.putIfAbsent(name, i) != null) {
+                throw new IllegalArgumentException("duplicate flow name [" + name + "] in task [" + task.getName() + "]");
+            }
+            names.add(name);
+        }
+        List<List<Integer>> deps = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            Set<Integer> d = new LinkedHashSet<>();
+            for (String dep : safe(flows.get(i).getDependsOn())) {
+                Integer j = index.get(dep);
+                if (j == null || j == i) {
+                    throw new IllegalArgumentException("flow [" + names.get(i) + "] depends on "
+                            + (j == null ? "unknown flow [" + dep + "]" : "itself"));
+                }
+                d.add(j);
+            }
+            deps.add(new ArrayList<>(d));
+        }
+        int[] order = topologicalOrder(task, names, deps);
+
+        List<List<MapProcessor>> operators = new ArrayList<>(n);
+        List<FlowCondition> conditions = new ArrayList<>(n);
+        List<GroupByAggregator> aggregators = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            FlowDefinition flow = flows.get(i);
+            GroupByAggregator aggregator = buildAggregator(flow);
+            aggregators.add(aggregator);
+            operators.add(buildOperators(task, flow, task.getName() + "." + names.get(i), aggregator, lookups));
+            String when = flow.getWhen();
+            conditions.add(when == null || when.isBlank() ? null : FlowCondition.compile(when));
+        }
+        boolean aggregating = aggregators.stream().anyMatch(Objects::nonNull);
+        if (aggregating && task.getExecution() != null
+                && ExecutionMode.of(task.getExecution().getMode()) == ExecutionMode.STREAMING) {
+            // FlowGraph 按窗口逐个驱动各 flow，聚合结果无法跨窗口合并
+            throw new IllegalArgumentException("aggregate is not supported in streaming multi-flow task [" + task.getName() + "]");
+        }
+
+        Collector<DTSRequest, List<Map<String, Object>>> batchCollector = buildBatchCollector(task);
+        if (typed(task)) {
+            // 所有 flow 共用一个 schema，拷贝后的 SlotRecord 仍可按槽位访问
+            List<MapProcessor> all = new ArrayList<>();
+            operators.forEach(all::addAll);
+            List<String> conditionFields = new ArrayList<>();
+            for (FlowCondition c : conditions) if (c != null) conditionFields.addAll(c.fields());
+            for (GroupByAggregator a : aggregators) if (a != null) conditionFields.addAll(a.fields());
+            RecordSchema schema = buildSchema(task, all, conditionFields);
+            for (int i = 0; i < n; i++) {
+                operators.set(i, bind(operators.get(i), schema));
+                if (conditions.get(i) != null) conditions.set(i, conditions.get(i).bind(schema));
+            }
+            batchCollector = new SlotRecordCollector(batchCollector, schema);
+        }
+
+        // 输入被多个 flow 消费时需要拷贝：-1 代表共享采集结果
+        int[] consumers = new int[n];
+        int roots = 0;
+        for (List<Integer> d : deps) {
+            if (d.isEmpty()) roots++;
+            for (int j : d) consumers[j]++;
+        }
+
+        PipelineOptions options = buildOptions(task, ErrorPolicy.STOP, buildCheckpointer(task, batchCollector),
+                buildWatermarker(task), null);
+        DeadLetterSink deadLetter = buildDeadLetterSink(task);
+        int[] position = new int[n];
+        for (int k = 0; k < n; k++) position[order[k]] = k;
+        List<FlowNode> nodes = new ArrayList<>(n);
+        for (int k = 0; k < n; k++) {
+            int i = order[k];
+            FlowDefinition flow = flows.get(i);
+            boolean copy = deps.get(i).isEmpty() ? roots > 1 : deps.get(i).stream().anyMatch(j -> consumers[j] > 1);
+            List<OperatorStep> publishSteps = !safe(flow.getPublish()).isEmpty() ? flow.getPublish()
+                    : consumers[i] == 0 ? safe(task.getPublish()) : List.of();
+            DTSPipeline<List<Map<String, Object>>, Map<String, Object>, String> pipeline = new DTSPipeline<>(
+                    new FlowInput(conditions.get(i), copy), toProcessors(operators.get(i)), JSON_PUBLISHER,
+                    buildBatchPublishers(publishSteps), dtsExecutor,
+                    buildOptions(task, buildErrorPolicy(task, task.getName() + "." + names.get(i), deadLetter), null, null,
+                            aggregators.get(i)),
+                    metricsFactory(task.getName() + "." + names.get(i), options));
+            List<Integer> upstream = new ArrayList<>(deps.get(i).size());
+            for (int j : deps.get(i)) upstream.add(position[j]);
+            nodes.add(new FlowNode(names.get(i), upstream, pipeline));
+        }
+        PipelineMetrics graphMetrics = metricsFactory(task.getName(), options).apply(List.of(batchCollector));
+        return new FlowGraph(batchCollector, nodes, dtsExecutor.coordinator(), options, graphMetrics, lookups);
+    }
+
+    /**
+     * Kahn 拓扑排序；同时就绪的 flow 按声明顺序排列，存在环时抛出异常
+     */
+    private int[] topologicalOrder(TaskDefinition task, List<String> names, List<List<Integer>> deps) {
+        int n = names.size();
+        int[] indegree = new int[n];
+        List<List<Integer>> downstream = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) downstream.add(new ArrayList<>());
+        for (int i = 0; i < n; i++) {
+            indegree[i] = deps.get(i).size();
+            for (int j : deps.get(i)) downstream.get(j).add(i);
+        }
+        PriorityQueue<Integer> ready = new PriorityQueue<>();
+        for (int i = 0; i < n; i++) if (indegree[i] == 0) ready.add(i);
+        int[] order = new int[n];
+        int count = 0;
+        while (!ready.isEmpty()) {
+            int i = ready.poll();
+            order[count++] = i;
+            for (int d : downstream.get(i)) if (--indegree[d] == 0) ready.add(d);
+        }
+        if (count < n) {
+            List<String> cyclic = new ArrayList<>();
+            for (int i = 0; i < n; i++) if (indegree[i] > 0) cyclic.add(names.get(i));
+            throw new IllegalArgumentException("flow dependency cycle in task [" + task.getName() + "]: " + cyclic);
+        }
+        return order;
+    }
+
+    /**
+     * 实例化 clean + calculate 算子并交给 PipelineOptimizer 改写（去掉 noop、死字段消除、合并相邻算子）
+     */
+    private List<MapProcessor> buildOperators(TaskDefinition task, FlowDefinition flow, String flowName,
+                                              GroupByAggregator aggregator, LookupTables.Lease lookups) {
+        List<MapProcessor> operators = new ArrayList<>();
+        for (OperatorStep s : safe(flow.getClean()))     operators.add(operatorFactory.createClean(s.getType(), s.getConfig(), lookups));
+        for (OperatorStep s : safe(flow.getCalculate())) operators.add(operatorFactory.createCalculate(s.getType(), s.getConfig(), lookups));
+        return PipelineOptimizer.optimize(flowName, operators, flow.getOutputFields(),
+                aggregator == null ? List.of() : aggregator.fields(), columnar(task));
+    }
+
+    private GroupByAggregator buildAggregator(FlowDefinition flow) {
+        return flow.getAggregate() == null ? null : operatorFactory.createAggregator(flow.getAggregate());
+    }
+
+    private List<MapProcessor> bind(List<MapProcessor> operators, RecordSchema schema) {
+        List<MapProcessor> bound = new ArrayList<>(operators.size());
+        for (MapProcessor op : operators) {
+            bound.add(op instanceof SchemaBindable b ? b.bind(schema) : op);
+        }
+        return bound;
+    }
+
+    private List<Processor<Map<String, Object>, Map<String, Object>>> toProcessors(List<MapProcessor> operators) {
+        List<Processor<Map<String, Object>, Map<String, Object>>> processors = new ArrayList<>(operators.size());
+        for (MapProcessor op : operators) processors.add(cast(op));
+        return processors;
+    }
+
+    private List<BatchPublishStage<Map<String, Object>>> buildBatchPublishers(List<OperatorStep> steps) {
+        List<BatchPublishStage<Map<String, Object>>> batchPublishers = new ArrayList<>();
+        for (OperatorStep s : steps) {
+            batchPublishers.add(new BatchPublishStage<>(castBatch(operatorFactory.createPublisher(s.getType(), s.getConfig())),
+                    dtsExecutor, s.getConfig()));
+        }
+        return batchPublishers;
+    }
+
+    private Function<List<Stage>, PipelineMetrics> metricsFactory(String ruleId, PipelineOptions options) {
+        return stages -> metricsProperties.isEnabled()
+                ? new PipelineMetrics(meterRegistry, ruleId, options.getMode().name().toLowerCase(Locale.ROOT),
+                        stages, metricsProperties.getSampleRate())
+                : PipelineMetrics.NOOP;
+    }
+
+    private boolean columnar(TaskDefinition task) {
+        return task.getExecution() != null && Boolean.TRUE.equals(task.getExecution().getColumnar());
+    }
+
+    private boolean typed(TaskDefinition task) {
+        return task.getExecution() != null && "typed".equalsIgnoreCase(task.getExecution().getRecordMode());
+    }
+
+    /**
+     * schema 字段来源：默认上下文键、collect 配置的 columns、各算子声明的读写字段、flow 条件与聚合引用的字段
+     */
+    private RecordSchema buildSchema(TaskDefinition task, List<MapProcessor> operators, Collection<String> extraFields) {
+        List<String> fields = new ArrayList<>();
+        fields.add("payload");
+        fields.add("ruleId");
+        OperatorStep collect = task.getCollect();
+        if (collect != null && collect.getConfig() != null && collect.getConfig().get("columns") instanceof List<?> columns) {
+            for (Object c : columns) fields.add(String.valueOf(c));
+        }
+        // 水位在算子处理前从采集行读取，须保留槽位
+        Watermarker watermarker = buildWatermarker(task);
+        if (watermarker != null) {
+            fields.add(watermarker.column());
+            if (watermarker.key() != null) fields.add(watermarker.key());
+        }
+        for (MapProcessor op : operators) {
+            if (op instanceof SchemaBindable b) fields.addAll(b.fields());
+        }
+        fields.addAll(extraFields);
+        return RecordSchema.of(fields);
+    }
+
+    private PipelineOptions buildOptions(TaskDefinition task, ErrorPolicy errorPolicy, Checkpointer checkpointer,
+                                         Watermarker watermarker, Aggregator<?> aggregator) {
+        ExecutionDefinition execution = task.getExecution();
+        PipelineOptions.PipelineOptionsBuilder builder = PipelineOptions.builder()
+                .errorPolicy(errorPolicy)
+                .checkpointer(checkpointer)
+                .watermarker(watermarker)
+                .aggregator(aggregator);
+        if (execution == null) return builder.build();
+        builder.mode(ExecutionMode.of(execution.getMode()));
+        if (execution.getChunkSize() != null) builder.chunkSize(execution.getChunkSize());
+        if (execution.getMaxConcurrency() != null) builder.maxConcurrency(execution.getMaxConcurrency());
+        if (execution.getWindowSize() != null) builder.windowSize(execution.getWindowSize());
+        return builder.build();
+    }
+
+    /**
+     * checkpoint 只在 streaming 模式下按窗口生效，且 collector 须能按断点键恢复（DB checkpoint_column / ES checkpoint_field）
+     */
+    private Checkpointer buildCheckpointer(TaskDefinition task, Collector<DTSRequest, List<Map<String, Object>>> collector) {
+        ExecutionDefinition execution = task.getExecution();
+        if (execution == null || !Boolean.TRUE.equals(execution.getCheckpoint())) return null;
+        if (ExecutionMode.of(execution.getMode()) != ExecutionMode.STREAMING) {
+            throw new IllegalArgumentException("checkpoint requires streaming mode in task [" + task.getName() + "]");
+        }
+        if (!(collector instanceof ResumableCollector<?, ?> r) || !r.resumable()) {
+            throw new IllegalArgumentException("checkpoint requires a collector with checkpoint_column/checkpoint_field in task ["
+                    + task.getName() + "]");
+        }
+        return new Checkpointer(checkpointStore, task.getName());
+    }
+
+    /**
+     * 增量采集：collect 配置了 watermark_column（DB）/ watermark_field（ES）时，执行成功后按采集到的最大值推进水位
+     */
+    private Watermarker buildWatermarker(TaskDefinition task) {
+        OperatorStep collectStep = task.getCollect();
+        if (collectStep == null || collectStep.getConfig() == null) return null;
+        String key = "db".equalsIgnoreCase(collectStep.getType()) ? "watermark_column"
+                : "es".equalsIgnoreCase(collectStep.getType()) ? "watermark_field" : null;
+        Object column = key == null ? null : collectStep.getConfig().get(key);
+        if (column == null || String.valueOf(column).isBlank()) return null;
+        Object unique = collectStep.getConfig().get("watermark_key");
+        return new Watermarker(watermarkStore, task.getName(), String.valueOf(column),
+                unique == null || String.valueOf(unique).isBlank() ? null : String.valueOf(unique).trim());
+    }
+
+    /**
+     * @param ruleId 死信中的来源标识
+     */
+    private ErrorPolicy buildErrorPolicy(TaskDefinition task, String ruleId, DeadLetterSink deadLetter) {
+        ErrorPolicyDefinition def = task.getOnError();
+        if (def == null) return ErrorPolicy.STOP;
+        ErrorPolicy.ErrorPolicyBuilder builder = ErrorPolicy.builder()
+                .action(ErrorPolicy.Action.of(def.getPolicy()))
+                .deadLetter(deadLetter)
+                .ruleId(ruleId);
+        if (def.getMaxRetries() != null) builder.maxRetries(def.getMaxRetries());
+        if (def.getBackoffMs() != null) builder.backoffMs(def.getBackoffMs());
+        if (def.getMaxBackoffMs() != null) builder.maxBackoffMs(def.getMaxBackoffMs());
+        if (def.getRetryOn() != null) builder.retryOn(List.copyOf(def.getRetryOn()));
+        if (def.getMaxErrors() != null) builder.maxErrors(def.getMaxErrors());
+        return builder.build();
+    }
+
+    /**
+     * 同一任务的所有 flow 共用一个死信目标
+     */
+    private DeadLetterSink buildDeadLetterSink(TaskDefinition task) {
+        ErrorPolicyDefinition def = task.getOnError();
+        if (def == null || def.getDeadLetter() == null || def.getDeadLetter().getType() == null) return null;
+        return operatorFactory.createDeadLetterSink(def.getDeadLetter().getType(), def.getDeadLetter().getConfig());
+    }
+
+    @SuppressWarnings("unchecked")
+    private Collector<DTSRequest, List<Map<String, Object>>> buildBatchCollector(TaskDefinition task) {
+        OperatorStep collectStep = task.getCollect();
+        if (collectStep != null && collectStep.getType() != null) {
+            Collector<DTSRequest, ?> raw = (Collector<DTSRequest, ?>)
+                    operatorFactory.createCollector(collectStep.getType(), collectStep.getConfig());
+            return new MapCollectorAdapter(raw);
+        }
+
+        // 无 collect 配置时：把请求封装为单条
+        return new Collector<DTSRequest, List<Map<String, Object>>>() {
+            @Override
+            public List<Map<String, Object>> collect(DTSRequest req) {
+                Map<String, Object> one = new HashMap<>(4);
+                one.put("payload", req == null ? null : req.getPayload());
+                one.put("ruleId", req == null ? null : req.getRuleId());
+                return List.of(one);
+            }
+
+            @Override
+            public String name() {
+                return "collector:fallback";
+            }
+        };
+    }
+
+    private <T> List<T> safe(List<T> list) { return list == null ? Collections.emptyList() : list; }
+
+    @SuppressWarnings("unchecked")
+    private Publisher<List<Map<String, Object>>, Boolean> castBatch(Publisher<?, ?> p) {
+        return (Publisher<List<Map<String, Object>>, Boolean>) p;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Processor<Map<String, Object>, Map<String, Object>> cast(MapProcessor p) {
+        return (Processor<Map<String, Object>, Map<String, Object>>) p;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,146 @@
+package com.ml.datatransformer.dts.pipeline.compile;
+
+import com.ml.datatransformer.dts.pipeline.impl.NoopOperator;
+import com.ml.datatransformer.dts.pipeline.impl.calculate.ArithmeticChain;
+import com.ml.datatransformer.dts.pipeline.impl.calculate.ArithmeticOperator;
+import com.ml.datatransformer.dts.pipeline.impl.calculate.ColumnarCalculate;
+import com.ml.datatransformer.dts.pipeline.impl.clean.ExtractCastOperator;
+import com.ml.datatransformer.dts.pipeline.impl.clean.ProjectOperator;
+import com.ml.datatransformer.dts.pipeline.impl.clean.TypeCastOperator;
+import com.ml.datatransformer.dts.pipeline.model.MapProcessor;
+import com.ml.datatransformer.dts.pipeline.model.SchemaBindable;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * PipelineOptimizer
+ * 编译期改写一个 flow 的 clean + calculate 算子链，改写前后每条记录的结果相同：
+ * 1) 去掉 noop 回退算子与不做任何事的算子（空 fields_name 的算术算子、空 type_map 的 type_cast）
+ * 2) flow 声明 output_fields 时消除死字段：从后往前计算仍会被读取的字段，结果字段不再被读取的算术算子直接去掉，
+ *    非 strict 的 type_cast 只保留仍被读取的字段；遇到未声明读写字段的算子时停止消除；算子链末尾追加投影
+ *    （保留 output_fields 与聚合读取的字段）
+ * 3) extract_json 后紧跟 type_cast 且转换字段与抽取字段有交集时合并为 ExtractCastOperator，一次遍历抽取并转换
+ * 4) 连续的算术算子合并为 ArithmeticChain（每行每个字段只读取解析一次）；execution.columnar 时合并为 ColumnarCalculate
+ *
+ * 合并减少的是阶段数、阶段间的虚调用与重复的字段读取/解析；不生成字节码，合并后的算子仍按 Map 访问记录。
+ */
+@Slf4j
+final class PipelineOptimizer {
+
+    private PipelineOptimizer() {
+    }
+
+    /**
+     * @param flow            flow 名称，用于日志
+     * @param outputFields    flow 的 output_fields，为空时不做死字段消除与投影
+     * @param aggregateFields 聚合阶段读取的字段，死字段消除时视为仍被读取
+     */
+    static List<MapProcessor> optimize(String flow, List<MapProcessor> operators, List<String> outputFields,
+                                       Collection<String> aggregateFields, boolean columnar) {
+        List<MapProcessor> out = dropNoops(operators);
+        List<String> kept = null;
+        if (outputFields != null && !outputFields.isEmpty()) {
+            // 聚合在投影之后读取记录，其输入字段一并保留
+            Set<String> live = new LinkedHashSet<>(outputFields);
+            live.addAll(aggregateFields);
+            kept = new ArrayList<>(live);
+            out = dropDeadFields(out, live);
+        }
+        out = fuseExtractCast(out);
+        out = fuseArithmetic(out, columnar);
+        if (kept != null) out.add(new ProjectOperator(kept));
+        if (log.isDebugEnabled()) {
+            log.debug("Optimized flow [{}]: {} -> {}", flow, names(operators), names(out));
+        }
+        return out;
+    }
+
+    private static List<MapProcessor> dropNoops(List<MapProcessor> operators) {
+        List<MapProcessor> out = new ArrayList<>(operators.size());
+        for (MapProcessor op : operators) {
+            if (op instanceof NoopOperator) continue;
+            if (op instanceof ArithmeticOperator a && a.fieldsName().isEmpty()) continue;
+            if (op instanceof TypeCastOperator t && t.typeMap().isEmpty()) continue;
+            out.add(op);
+        }
+        return out;
+    }
+
+    /**
+     * 从后往前维护仍被读取的字段集合 live。算术算子在没有有效输入时不写入结果，字段原值可能保留下来，
+     * 因此写入的字段不从 live 中移除，只在结果字段不在 live 中时去掉算子
+     */
+    private static List<MapProcessor> dropDeadFields(List<MapProcessor> operators, Set<String> live) {
+        List<MapProcessor> reversed = new ArrayList<>(operators.size());
+        int i = operators.size() - 1;
+        for (; i >= 0; i--) {
+            MapProcessor op = operators.get(i);
+            if (op instanceof ArithmeticOperator a) {
+                if (!live.contains(a.resultName())) continue;
+                live.addAll(a.fieldsName());
+            } else if (op instanceof TypeCastOperator t && !t.strict()) {
+                // strict 转换失败会报错，保留全部字段
+                TypeCastOperator kept = t.retain(live);
+                if (kept.typeMap().isEmpty()) continue;
+                op = kept.typeMap().size() == t.typeMap().size() ? t : kept;
+            } else if (op instanceof SchemaBindable b) {
+                live.addAll(b.fields());
+            } else {
+                break;
+            }
+            reversed.add(op);
+        }
+        List<MapProcessor> out = new ArrayList<>(operators.subList(0, i + 1));
+        for (int k = reversed.size() - 1; k >= 0; k--) out.add(reversed.get(k));
+        return out;
+    }
+
+    private static List<MapProcessor> fuseExtractCast(List<MapProcessor> operators) {
+        List<MapProcessor> out = new ArrayList<>(operators.size());
+        for (int i = 0; i < operators.size(); i++) {
+            MapProcessor op = operators.get(i);
+            ExtractCastOperator fused = i + 1 < operators.size() ? ExtractCastOperator.fuse(op, operators.get(i + 1)) : null;
+            if (fused != null) {
+                out.add(fused);
+                i++;
+            } else {
+                out.add(op);
+            }
+        }
+        return out;
+    }
+
+    private static List<MapProcessor> fuseArithmetic(List<MapProcessor> operators, boolean columnar) {
+        List<MapProcessor> out = new ArrayList<>(operators.size());
+        List<ArithmeticOperator> run = new ArrayList<>();
+        for (MapProcessor op : operators) {
+            if (op instanceof ArithmeticOperator a) {
+                run.add(a);
+                continue;
+            }
+            flush(run, out, columnar);
+            out.add(op);
+        }
+        flush(run, out, columnar);
+        return out;
+    }
+
+    private static void flush(List<ArithmeticOperator> run, List<MapProcessor> out, boolean columnar) {
+        if (run.isEmpty()) return;
+        if (columnar) out.add(new ColumnarCalculate(run));
+        else if (run.size() == 1) out.add(run.get(0));
+        else out.add(new ArithmeticChain(run));
+        run.clear();
+    }
+
+    private static List<String> names(List<MapProcessor> operators) {
+        List<String> names = new ArrayList<>(operators.size());
+        for (MapProcessor op : operators) names.add(op.name());
+        return names;
+    }
+}
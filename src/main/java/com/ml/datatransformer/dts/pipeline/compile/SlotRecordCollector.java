@@ -0,0 +1,79 @@
+package com.ml.datatransformer.dts.pipeline.compile;
+
+import com.ml.datatransformer.dts.dto.DTSRequest;
+import com.ml.datatransformer.dts.pipeline.model.CheckpointCursor;
+import com.ml.datatransformer.dts.pipeline.model.Collector;
+import com.ml.datatransformer.dts.pipeline.model.RecordCursor;
+import com.ml.datatransformer.dts.pipeline.model.RecordCursors;
+import com.ml.datatransformer.dts.pipeline.model.ResumableCollector;
+import com.ml.datatransformer.dts.pipeline.model.SchemaBindableCollector;
+import com.ml.datatransformer.dts.pipeline.model.StreamingCollector;
+import com.ml.datatransformer.dts.pipeline.record.RecordSchema;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * SlotRecordCollector
+ * typed record 模式下包装 collector：把采集到的 Map 行转换为按 schema 布局的 SlotRecord。
+ * collector 支持 SchemaBindableCollector 时改用其绑定版本，直接产出 SlotRecord，不再逐行转换
+ */
+public class SlotRecordCollector implements Collector<DTSRequest, List<Map<String, Object>>>,
+        ResumableCollector<DTSRequest, Map<String, Object>> {
+
+    private final Collector<DTSRequest, List<Map<String, Object>>> delegate;
+    private final RecordSchema schema;
+    /**
+     * delegate 已绑定 schema，产出的行即为 SlotRecord
+     */
+    private final boolean bound;
+
+    @SuppressWarnings("unchecked")
+    public SlotRecordCollector(Collector<DTSRequest, List<Map<String, Object>>> delegate, RecordSchema schema) {
+        Collector<DTSRequest, ?> bound = delegate instanceof SchemaBindableCollector<?> b
+                ? ((SchemaBindableCollector<DTSRequest>) b).bind(schema) : null;
+        this.delegate = bound == null ? delegate : (Collector<DTSRequest, List<Map<String, Object>>>) bound;
+        this.bound = bound != null;
+        this.schema = schema;
+    }
+
+    @Override
+    public List<Map<String, Object>> collect(DTSRequest input) {
+        List<Map<String, Object>> rows = delegate.collect(input);
+        if (rows == null || rows.isEmpty() || bound) return rows;
+        List<Map<String, Object>> records = new ArrayList<>(rows.size());
+        for (Map<String, Object> row : rows) records.add(schema.wrap(row));
+        return records;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public RecordCursor<Map<String, Object>> open(DTSRequest input) {
+        if (delegate instanceof StreamingCollector<?, ?> streaming) {
+            RecordCursor<Map<String, Object>> cursor =
+                    ((StreamingCollector<DTSRequest, Map<String, Object>>) streaming).open(input);
+            return bound ? cursor : RecordCursors.map(cursor, schema::wrap);
+        }
+        return RecordCursors.of(collect(input));
+    }
+
+    @Override
+    public boolean resumable() {
+        return delegate instanceof ResumableCollector<?, ?> r && r.resumable();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public CheckpointCursor<Map<String, Object>> open(DTSRequest input, Object position) {
+        if (!resumable()) throw new IllegalStateException(delegate.name() + " does not support checkpoint");
+        CheckpointCursor<Map<String, Object>> cursor =
+                ((ResumableCollector<DTSRequest, Map<String, Object>>) delegate).open(input, position);
+        return bound ? cursor : RecordCursors.map(cursor, schema::wrap);
+    }
+
+    @Override
+    public String name() {
+        return delegate.name();
+    }
+}
\ No newline at end of file
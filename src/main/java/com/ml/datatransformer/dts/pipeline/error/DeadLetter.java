@@ -0,0 +1,17 @@
+package com.ml.datatransformer.dts.pipeline.error;
+
+import java.util.Map;
+
+/**
+ * 一条处理失败的记录
+ *
+ * @param ruleId    来源任务（多 flow 时为 任务名.flow名）
+ * @param stage     失败阶段的 Stage.name()
+ * @param position  失败阶段在流水线 stages() 中的下标
+ * @param error     异常类型与信息
+ * @param record    失败时的记录内容（已执行的阶段对记录的修改会保留）
+ * @param timestamp 失败时间（毫秒）
+ */
+public record DeadLetter(String ruleId, String stage, int position, String error,
+                         Map<String, Object> record, long timestamp) {
+}
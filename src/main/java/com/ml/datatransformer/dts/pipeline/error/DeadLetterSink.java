@@ -0,0 +1,13 @@
+package com.ml.datatransformer.dts.pipeline.error;
+
+import java.util.List;
+
+/**
+ * 死信写出目标。DTSPipeline 按块汇总失败记录后批量调用，可能被多个工作线程并发调用，实现需保证线程安全
+ */
+public interface DeadLetterSink {
+
+    void write(List<DeadLetter> letters);
+
+    String name();
+}
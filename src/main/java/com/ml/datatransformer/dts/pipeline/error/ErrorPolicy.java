@@ -0,0 +1,97 @@
+package com.ml.datatransformer.dts.pipeline.error;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 单条记录出错时的处理策略，由 PipelineCompiler 根据任务的 on_error 配置生成
+ * - STOP：任一记录失败即中止本次执行（默认，兼容旧行为）
+ * - CONTINUE：失败记录写入死信后跳过，其余记录照常处理与发布
+ * - RETRY：只重试发布阶段（外部 IO）的失败，重试耗尽后按 CONTINUE 处理；清洗/计算等算子对同一记录的结果是确定的，
+ *   失败直接写入死信。配置 retryOn 时只重试列出的异常，否则重试 IllegalArgumentException（数据错误）以外的异常。
+ *   批量发布（如 ES bulk）的失败批次由 BatchPublishStage 在写出该批的线程上按指数退避整批重试；
+ *   单条 publisher 的失败由执行线程在整批处理结束后统一重试，不在工作线程上等待
+ */
+@Getter
+@Builder
+public class ErrorPolicy {
+
+    public static final ErrorPolicy STOP = ErrorPolicy.builder().build();
+
+    public enum Action {
+        STOP,
+        CONTINUE,
+        RETRY;
+
+        public static Action of(String value) {
+            if (value == null) return STOP;
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("unknown error policy: " + value);
+            }
+        }
+    }
+
+    @Builder.Default
+    private final Action action = Action.STOP;
+    @Builder.Default
+    private final int maxRetries = 3;
+    /**
+     * 首次重试前的等待时间，之后每次翻倍，不超过 maxBackoffMs
+     */
+    @Builder.Default
+    private final long backoffMs = 100;
+    @Builder.Default
+    private final long maxBackoffMs = 2000;
+    /**
+     * 需要重试的异常类名（全限定名或简单类名，匹配异常及其 cause 链上的类型与父类型）；为空时见类注释
+     */
+    @Builder.Default
+    private final List<String> retryOn = List.of();
+    /**
+     * 单次执行允许的失败记录数上限，超出后中止执行；<=0 表示不限制
+     */
+    private final long maxErrors;
+    /**
+     * 失败记录的写出目标，可为 null（只计数与记录日志）
+     */
+    private final DeadLetterSink deadLetter;
+    /**
+     * 写入死信时的来源标识（任务名，多 flow 时为 任务名.flow名）
+     */
+    private final String ruleId;
+
+    public boolean tolerant() {
+        return action != Action.STOP;
+    }
+
+    public boolean retrying() {
+        return action == Action.RETRY && maxRetries > 0;
+    }
+
+    /**
+     * 发布阶段的异常是否值得重试；e 为 null（批量 publisher 返回 false）时只在未配置 retryOn 时重试
+     */
+    public boolean retryable(Throwable e) {
+        if (!retrying()) return false;
+        if (retryOn.isEmpty()) return !(e instanceof IllegalArgumentException);
+        for (Throwable t = e; t != null; t = t.getCause() == t ? null : t.getCause()) {
+            for (Class<?> c = t.getClass(); c != null && c != Object.class; c = c.getSuperclass()) {
+                if (retryOn.contains(c.getName()) || retryOn.contains(c.getSimpleName())) return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 第 attempt 次（从 0 开始）重试前的等待毫秒数
+     */
+    public long backoff(int attempt) {
+        long delay = backoffMs << Math.min(attempt, 20);
+        return Math.max(0, Math.min(delay, maxBackoffMs));
+    }
+}
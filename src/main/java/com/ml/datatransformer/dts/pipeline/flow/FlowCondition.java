@@ -0,0 +1,293 @@
+package com.ml.datatransformer.dts.pipeline.flow;
+
+import com.ml.datatransformer.dts.pipeline.impl.calculate.ExpressionCompiler;
+import com.ml.datatransformer.dts.pipeline.impl.calculate.NumericKernel;
+import com.ml.datatransformer.dts.pipeline.record.RecordSchema;
+import com.ml.datatransformer.dts.pipeline.record.SlotRecord;
+
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * FlowCondition
+ * flow 的 when 条件：编译期解析为不可变的判断树，运行期逐行判断记录是否进入该 flow。
+ *
+ * 语法：
+ *   cond    := and ('||' and)*
+ *   and     := compare ('&&' compare)*
+ *   compare := operand op operand          op: == | != | > | >= | < | <=
+ *   operand := 算术表达式（见 ExpressionCompiler） | '字符串' | "字符串"
+ *
+ * - 数值比较：两侧按 ExpressionCompiler 求值，任一侧为 null（字段缺失/非数字）时不匹配
+ * - 字符串比较：一侧为字符串字面量时另一侧须为字段名，仅支持 == 与 !=，字段值按 String.valueOf 比较
+ *
+ * 例：scheme == 'VISA' && amount * rate > 100
+ */
+public final class FlowCondition {
+
+    private static final ExpressionCompiler COMPILER =
+            new ExpressionCompiler(false, NumericKernel.DEFAULT_SCALE, RoundingMode.HALF_UP);
+    private static final Pattern FIELD = Pattern.compile("[A-Za-z_][A-Za-z0-9_.]*|`[^`]+`");
+
+    private final String source;
+    private final Node root;
+
+    private FlowCondition(String source, Node root) {
+        this.source = source;
+        this.root = root;
+    }
+
+    public static FlowCondition compile(String source) {
+        if (source == null || source.isBlank()) throw new IllegalArgumentException("condition must not be empty");
+        return new FlowCondition(source, parseOr(source, source));
+    }
+
+    public boolean test(Map<String, Object> row) {
+        return root.test(row);
+    }
+
+    /**
+     * 字段节点改为按槽位访问，返回新条件
+     */
+    public FlowCondition bind(RecordSchema schema) {
+        return new FlowCondition(source, root.bind(schema));
+    }
+
+    public Set<String> fields() {
+        Set<String> out = new LinkedHashSet<>();
+        root.collectFields(out);
+        return out;
+    }
+
+    public String source() {
+        return source;
+    }
+
+    @Override
+    public String toString() {
+        return source;
+    }
+
+    // ---------------- parse ----------------
+
+    private static Node parseOr(String src, String part) {
+        List<String> terms = split(src, part, "||");
+        if (terms.size() == 1) return parseAnd(src, terms.get(0));
+        Node[] nodes = new Node[terms.size()];
+        for (int i = 0; i < nodes.length; i++) nodes[i] = parseAnd(src, terms.get(i));
+        return new Or(nodes);
+    }
+
+    private static Node parseAnd(String src, String part) {
+        List<String> terms = split(src, part, "&&");
+        if (terms.size() == 1) return parseCompare(src, terms.get(0));
+        Node[] nodes = new Node[terms.size()];
+        for (int i = 0; i < nodes.length; i++) nodes[i] = parseCompare(src, terms.get(i));
+        return new And(nodes);
+    }
+
+    private static Node parseCompare(String src, String part) {
+        int at = findOperator(src, part);
+        if (at < 0) throw error(src, "missing comparison in '" + part.trim() + "'");
+        char c = part.charAt(at);
+        boolean eq = at + 1 < part.length() && part.charAt(at + 1) == '=';
+        Op op = switch (c) {
+            case '=' -> eq ? Op.EQ : null;
+            case '!' -> eq ? Op.NE : null;
+            case '>' -> eq ? Op.GE : Op.GT;
+            case '<' -> eq ? Op.LE : Op.LT;
+            default -> null;
+        };
+        if (op == null) throw error(src, "unknown operator at '" + part.substring(at).trim() + "'");
+        String left = part.substring(0, at).trim();
+        String right = part.substring(at + (eq ? 2 : 1)).trim();
+        if (left.isEmpty() || right.isEmpty()) throw error(src, "missing operand in '" + part.trim() + "'");
+
+        String literal = literal(right);
+        String field = left;
+        if (literal == null && (literal = literal(left)) != null) field = right;
+        if (literal != null) {
+            if (op != Op.EQ && op != Op.NE) throw error(src, "string comparison only supports == and !=");
+            if (!FIELD.matcher(field).matches()) throw error(src, "string literal must be compared with a field: '" + field + "'");
+            String name = field.startsWith("`") ? field.substring(1, field.length() - 1) : field;
+            return new StringCompare(name, -1, null, op == Op.NE, literal);
+        }
+        try {
+            return new NumberCompare(COMPILER.compile(left), op, COMPILER.compile(right));
+        } catch (IllegalArgumentException e) {
+            throw error(src, e.getMessage());
+        }
+    }
+
+    private static String literal(String s) {
+        if (s.length() >= 2 && (s.charAt(0) == '\'' || s.charAt(0) == '"') && s.charAt(s.length() - 1) == s.charAt(0)) {
+            return s.substring(1, s.length() - 1);
+        }
+        return null;
+    }
+
+    /**
+     * 按顶层（不在括号、引号、反引号内）的分隔符切分
+     */
+    private static List<String> split(String src, String part, String sep) {
+        List<String> out = new ArrayList<>();
+        int depth = 0, from = 0;
+        char quote = 0;
+        for (int i = 0; i < part.length(); i++) {
+            char c = part.charAt(i);
+            if (quote != 0) {
+                if (c == quote) quote = 0;
+            } else if (c == '\'' || c == '"' || c == '`') {
+                quote = c;
+            } else if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+            } else if (depth == 0 && part.startsWith(sep, i)) {
+                out.add(part.substring(from, i));
+                from = i + sep.length();
+                i += sep.length() - 1;
+            }
+        }
+        if (quote != 0) throw error(src, "unclosed " + quote);
+        if (depth != 0) throw error(src, "unbalanced parentheses");
+        out.add(part.substring(from));
+        return out;
+    }
+
+    private static int findOperator(String src, String part) {
+        int depth = 0;
+        char quote = 0;
+        for (int i = 0; i < part.length(); i++) {
+            char c = part.charAt(i);
+            if (quote != 0) {
+                if (c == quote) quote = 0;
+            } else if (c == '\'' || c == '"' || c == '`') {
+                quote = c;
+            } else if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+            } else if (depth == 0 && (c == '=' || c == '!' || c == '<' || c == '>')) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static IllegalArgumentException error(String src, String msg) {
+        return new IllegalArgumentException("invalid condition [" + src + "]: " + msg);
+    }
+
+    // ---------------- nodes ----------------
+
+    private enum Op {
+        EQ, NE, GT, GE, LT, LE;
+
+        boolean test(int cmp) {
+            return switch (this) {
+                case EQ -> cmp == 0;
+                case NE -> cmp != 0;
+                case GT -> cmp > 0;
+                case GE -> cmp >= 0;
+                case LT -> cmp < 0;
+                case LE -> cmp <= 0;
+            };
+        }
+    }
+
+    private interface Node {
+        boolean test(Map<String, Object> row);
+
+        Node bind(RecordSchema schema);
+
+        void collectFields(Set<String> out);
+    }
+
+    private record Or(Node[] terms) implements Node {
+        @Override
+        public boolean test(Map<String, Object> row) {
+            for (Node t : terms) if (t.test(row)) return true;
+            return false;
+        }
+
+        @Override
+        public Node bind(RecordSchema schema) {
+            Node[] bound = new Node[terms.length];
+            for (int i = 0; i < terms.length; i++) bound[i] = terms[i].bind(schema);
+            return new Or(bound);
+        }
+
+        @Override
+        public void collectFields(Set<String> out) {
+            for (Node t : terms) t.collectFields(out);
+        }
+    }
+
+    private record And(Node[] terms) implements Node {
+        @Override
+        public boolean test(Map<String, Object> row) {
+            for (Node t : terms) if (!t.test(row)) return false;
+            return true;
+        }
+
+        @Override
+        public Node bind(RecordSchema schema) {
+            Node[] bound = new Node[terms.length];
+            for (int i = 0; i < terms.length; i++) bound[i] = terms[i].bind(schema);
+            return new And(bound);
+        }
+
+        @Override
+        public void collectFields(Set<String> out) {
+            for (Node t : terms) t.collectFields(out);
+        }
+    }
+
+    private record NumberCompare(ExpressionCompiler.Expr left, Op op, ExpressionCompiler.Expr right) implements Node {
+        @Override
+        public boolean test(Map<String, Object> row) {
+            Number l = left.eval(row);
+            if (l == null) return false;
+            Number r = right.eval(row);
+            return r != null && op.test(NumericKernel.compare(l, r));
+        }
+
+        @Override
+        public Node bind(RecordSchema schema) {
+            return new NumberCompare(left.bind(schema), op, right.bind(schema));
+        }
+
+        @Override
+        public void collectFields(Set<String> out) {
+            left.collectFields(out);
+            right.collectFields(out);
+        }
+    }
+
+    private record StringCompare(String field, int slot, RecordSchema schema, boolean negate, String literal) implements Node {
+        @Override
+        public boolean test(Map<String, Object> row) {
+            Object v = row instanceof SlotRecord r && r.schema() == schema ? r.get(slot) : row.get(field);
+            boolean eq = v != null && Objects.equals(String.valueOf(v), literal);
+            return eq != negate;
+        }
+
+        @Override
+        public Node bind(RecordSchema schema) {
+            int s = schema.slot(field);
+            return s < 0 ? this : new StringCompare(field, s, schema, negate, literal);
+        }
+
+        @Override
+        public void collectFields(Set<String> out) {
+            out.add(field);
+        }
+    }
+}
@@ -0,0 +1,339 @@
+package com.ml.datatransformer.dts.pipeline.flow;
+
+import com.ml.datatransformer.dts.dto.DTSRequest;
+import com.ml.datatransformer.dts.pipeline.DTSPipeline;
+import com.ml.datatransformer.dts.pipeline.ExecutionMode;
+import com.ml.datatransformer.dts.pipeline.ExecutionProgress;
+import com.ml.datatransformer.dts.pipeline.PipelineOptions;
+import com.ml.datatransformer.dts.pipeline.checkpoint.Checkpointer;
+import com.ml.datatransformer.dts.pipeline.checkpoint.Watermarker;
+import com.ml.datatransformer.dts.pipeline.metrics.PipelineMetrics;
+import com.ml.datatransformer.dts.pipeline.model.CheckpointCursor;
+import com.ml.datatransformer.dts.pipeline.model.Collector;
+import com.ml.datatransformer.dts.pipeline.model.RecordCursor;
+import com.ml.datatransformer.dts.pipeline.model.ResumableCollector;
+import com.ml.datatransformer.dts.pipeline.model.StreamingCollector;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+/**
+ * FlowGraph
+ * 编译后的任务执行图：任务的全部 flow 按 depends_on 组成 DAG，共享同一次采集结果。
+ * - 根 flow（无依赖）的输入为 collector 的采集结果；有依赖的 flow 输入为各上游处理后的记录（按 depends_on 顺序拼接）
+ * - 同一份输入被多个 flow 消费时，每个 flow 拿到逐行浅拷贝（见 FlowInput），算子原地改写互不影响
+ * - when：行级条件，只有满足条件的记录进入该 flow，实现条件路由
+ * - 依赖就绪的 flow 通过 CompletableFuture 在 DTSExecutor 的编排执行器上并行运行，flow 内部仍由 DTSPipeline 分块并发
+ * - 结果为没有下游的 flow（汇点）的输出，按 flow 声明顺序拼接
+ * - STREAMING 模式且 collector 支持游标时按 windowSize 拉取，每个窗口完整跑一遍整张图；
+ *   配置了 checkpointer 时每个窗口跑完后保存断点（见 Checkpointer）
+ * - 增量采集（watermarker）：整图执行成功后推进水位
+ * 只有一个 flow 且未配置 when 时直接委托给单条 DTSPipeline，与原单 flow 执行路径完全一致。
+ *
+ * 构造后不可变，可被多个请求并发复用（由 PipelineCache 缓存）；被替换或失效时由 PipelineCache 调用 close
+ * 释放编译期获取的资源（如参考表租约），正在执行的请求不受影响。
+ */
+@Slf4j
+public class FlowGraph implements AutoCloseable {
+
+    private final DTSPipeline<DTSRequest, Map<String, Object>, String> single;
+    private final Collector<DTSRequest, List<Map<String, Object>>> collector;
+    private final List<FlowNode> nodes;
+    private final boolean[] sinks;
+    private final Executor coordinator;
+    private final PipelineOptions options;
+    private final PipelineMetrics metrics;
+    private final AutoCloseable resources;
+
+    private FlowGraph(DTSPipeline<DTSRequest, Map<String, Object>, String> single, AutoCloseable resources) {
+        this.single = single;
+        this.resources = resources;
+        this.collector = null;
+        this.nodes = List.of();
+        this.sinks = new boolean[0];
+        this.coordinator = null;
+        this.options = single.options();
+        this.metrics = single.metrics();
+    }
+
+    /**
+     * @param nodes       按拓扑序排列，每个节点的上游下标均小于自身
+     * @param coordinator 运行 flow 的执行器；flow 会阻塞等待自身的分块任务，不应与分块任务共用有界线程池
+     * @param metrics     stages 仅含 collector，记录共享采集的耗时/行数与整图执行耗时
+     */
+    public FlowGraph(Collector<DTSRequest, List<Map<String, Object>>> collector,
+                     List<FlowNode> nodes,
+                     Executor coordinator,
+                     PipelineOptions options,
+                     PipelineMetrics metrics) {
+        this(collector, nodes, coordinator, options, metrics, null);
+    }
+
+    /**
+     * @param resources 可选，close 时一并关闭
+     */
+    public FlowGraph(Collector<DTSRequest, List<Map<String, Object>>> collector,
+                     List<FlowNode> nodes,
+                     Executor coordinator,
+                     PipelineOptions options,
+                     PipelineMetrics metrics,
+                     AutoCloseable resources) {
+        this.single = null;
+        this.resources = resources;
+        this.collector = Objects.requireNonNull(collector, "collector must not be null");
+        this.nodes = List.copyOf(nodes);
+        this.coordinator = Objects.requireNonNull(coordinator, "coordinator must not be null");
+        this.options = options == null ? PipelineOptions.defaults() : options;
+        this.metrics = metrics == null ? PipelineMetrics.NOOP : metrics;
+        this.sinks = new boolean[this.nodes.size()];
+        Arrays.fill(sinks, true);
+        for (int i = 0; i < this.nodes.size(); i++) {
+            for (int d : this.nodes.get(i).dependencies()) {
+                if (d < 0 || d >= i) throw new IllegalArgumentException("flow [" + this.nodes.get(i).name()
+                        + "] must be placed after its dependencies");
+                sinks[d] = false;
+            }
+        }
+    }
+
+    public static FlowGraph of(DTSPipeline<DTSRequest, Map<String, Object>, String> pipeline) {
+        return of(pipeline, null);
+    }
+
+    public static FlowGraph of(DTSPipeline<DTSRequest, Map<String, Object>, String> pipeline, AutoCloseable resources) {
+        return new FlowGraph(Objects.requireNonNull(pipeline, "pipeline must not be null"), resources);
+    }
+
+    /**
+     * 释放编译期获取的资源；关闭失败只记录日志
+     */
+    @Override
+    public void close() {
+        if (resources == null) return;
+        try {
+            resources.close();
+        } catch (Exception e) {
+            log.warn("Close flow graph resources failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 执行并返回汇点 flow 的单条发布结果
+     */
+    @SuppressWarnings("unchecked")
+    public List<String> execute(DTSRequest request, ExecutionProgress progress) {
+        if (single != null) return single.execute(request, progress);
+        List<String> results = new ArrayList<>();
+        run(request, false, progress, outputs -> {
+            for (List<?> o : outputs) results.addAll((List<String>) o);
+        });
+        return results;
+    }
+
+    /**
+     * 直写执行：汇点 flow 处理完成的记录（每个窗口、每个汇点一次）在调用线程上交给 rowSink
+     *
+     * @return 采集的记录总数
+     */
+    @SuppressWarnings("unchecked")
+    public long executeTo(DTSRequest request, Consumer<List<Map<String, Object>>> rowSink, ExecutionProgress progress) {
+        if (single != null) return single.executeTo(request, rowSink, progress);
+        return run(request, true, progress, outputs -> {
+            for (List<?> o : outputs) {
+                if (!o.isEmpty()) rowSink.accept((List<Map<String, Object>>) o);
+            }
+        });
+    }
+
+    public boolean isSingle() {
+        return single != null;
+    }
+
+    public List<FlowNode> nodes() {
+        return nodes;
+    }
+
+    private long run(DTSRequest request, boolean rawRows, ExecutionProgress progress, Consumer<List<List<?>>> sink) {
+        ExecutionProgress p = progress == null ? new ExecutionProgress() : progress;
+        ExecutionProgress flowProgress = new FlowProgress(p);
+        long start = System.nanoTime();
+        long total = 0;
+        Watermarker.Run watermark = options.getWatermarker() == null ? null : options.getWatermarker().begin();
+        if (options.getMode() == ExecutionMode.STREAMING && collector instanceof StreamingCollector<?, ?> streaming) {
+            int windowSize = Math.max(1, options.getWindowSize());
+            Checkpointer.Run checkpoint = options.getCheckpointer() == null ? null : options.getCheckpointer().begin(request);
+            try (RecordCursor<Map<String, Object>> cursor = open(streaming, request, checkpoint)) {
+                List<Map<String, Object>> window = new ArrayList<>(windowSize);
+                long pullStart = System.nanoTime();
+                while (hasNext(cursor)) {
+                    window.add(cursor.next());
+                    if (window.size() >= windowSize) {
+                        collected(window, System.nanoTime() - pullStart, p, watermark);
+                        sink.accept(runGraph(window, rawRows, flowProgress));
+                        total += window.size();
+                        // 各 flow 的批量发布在 runGraph 返回前已全部写出
+                        if (checkpoint != null) {
+                            checkpoint.commit(((CheckpointCursor<?>) cursor).position(), total, p.getPublished());
+                        }
+                        window = new ArrayList<>(windowSize);
+                        pullStart = System.nanoTime();
+                    }
+                }
+                if (!window.isEmpty()) {
+                    collected(window, System.nanoTime() - pullStart, p, watermark);
+                    sink.accept(runGraph(window, rawRows, flowProgress));
+                    total += window.size();
+                }
+            }
+            if (checkpoint != null) checkpoint.complete();
+        } else {
+            long collectStart = System.nanoTime();
+            List<Map<String, Object>> rows;
+            try {
+                rows = collector.collect(request);
+            } catch (RuntimeException e) {
+                metrics.error(0);
+                throw e;
+            }
+            if (rows == null || rows.isEmpty()) return 0;
+            collected(rows, System.nanoTime() - collectStart, p, watermark);
+            sink.accept(runGraph(rows, rawRows, flowProgress));
+            total = rows.size();
+        }
+        if (watermark != null) watermark.commit();
+        metrics.execution(System.nanoTime() - start);
+        return total;
+    }
+
+    /**
+     * 按拓扑序为每个 flow 挂上依赖完成后的异步执行，等待全部 flow 结束；
+     * 任一 flow 失败时其下游不再执行，其余 flow 跑完后抛出失败原因
+     */
+    @SuppressWarnings("unchecked")
+    private List<List<?>> runGraph(List<Map<String, Object>> rows, boolean rawRows, ExecutionProgress progress) {
+        int n = nodes.size();
+        CompletableFuture<List<?>>[] futures = new CompletableFuture[n];
+        for (int i = 0; i < n; i++) {
+            FlowNode node = nodes.get(i);
+            boolean publish = sinks[i] && !rawRows;
+            List<Integer> deps = node.dependencies();
+            CompletableFuture<?> ready;
+            if (deps.isEmpty()) {
+                ready = CompletableFuture.completedFuture(null);
+            } else if (deps.size() == 1) {
+                ready = futures[deps.get(0)];
+            } else {
+                CompletableFuture<?>[] upstream = new CompletableFuture[deps.size()];
+                for (int j = 0; j < upstream.length; j++) upstream[j] = futures[deps.get(j)];
+                ready = CompletableFuture.allOf(upstream);
+            }
+            futures[i] = ready.thenApplyAsync(v -> runNode(node, input(node, rows, futures), publish, progress), coordinator);
+        }
+        try {
+            CompletableFuture.allOf(futures).join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause() == null ? e : e.getCause();
+            if (cause instanceof RuntimeException re) throw re;
+            throw new IllegalStateException("flow execution failed", cause);
+        }
+        List<List<?>> outputs = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            if (sinks[i]) outputs.add(futures[i].join());
+        }
+        return outputs;
+    }
+
+    /**
+     * 上游均已完成时调用：根 flow 取共享采集结果，否则按依赖顺序拼接上游输出
+     */
+    @SuppressWarnings("unchecked")
+    private List<Map<String, Object>> input(FlowNode node, List<Map<String, Object>> rows,
+                                            CompletableFuture<List<?>>[] futures) {
+        List<Integer> deps = node.dependencies();
+        if (deps.isEmpty()) return rows;
+        if (deps.size() == 1) return (List<Map<String, Object>>) futures[deps.get(0)].join();
+        int size = 0;
+        for (int d : deps) size += futures[d].join().size();
+        List<Map<String, Object>> merged = new ArrayList<>(size);
+        for (int d : deps) merged.addAll((List<Map<String, Object>>) futures[d].join());
+        return merged;
+    }
+
+    private List<?> runNode(FlowNode node, List<Map<String, Object>> input, boolean publish, ExecutionProgress progress) {
+        if (input == null || input.isEmpty()) return List.of();
+        try {
+            return publish ? node.pipeline().execute(input, progress) : node.pipeline().executeRows(input, progress);
+        } catch (RuntimeException e) {
+            throw new IllegalStateException("flow [" + node.name() + "] failed: " + e.getMessage(), e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private RecordCursor<Map<String, Object>> open(StreamingCollector<?, ?> streaming, DTSRequest request,
+                                                   Checkpointer.Run checkpoint) {
+        try {
+            return checkpoint == null
+                    ? ((StreamingCollector<DTSRequest, Map<String, Object>>) streaming).open(request)
+                    : ((ResumableCollector<DTSRequest, Map<String, Object>>) streaming).open(request, checkpoint.position());
+        } catch (RuntimeException e) {
+            metrics.error(0);
+            throw e;
+        }
+    }
+
+    private boolean hasNext(RecordCursor<Map<String, Object>> cursor) {
+        try {
+            return cursor.hasNext();
+        } catch (RuntimeException e) {
+            metrics.error(0);
+            throw e;
+        }
+    }
+
+    private void collected(List<Map<String, Object>> rows, long nanos, ExecutionProgress progress,
+                           Watermarker.Run watermark) {
+        metrics.latency(0, nanos);
+        metrics.rows(0, rows.size());
+        metrics.batchSize(rows.size());
+        progress.addCollected(rows.size());
+        if (watermark != null) watermark.observe(rows);
+    }
+
+    /**
+     * flow 流水线的进度视图：collected 已由共享采集统计，不再按 flow 重复累加；processed/published/failed 汇总到整体进度
+     */
+    private static final class FlowProgress extends ExecutionProgress {
+        private final ExecutionProgress parent;
+
+        private FlowProgress(ExecutionProgress parent) {
+            this.parent = parent;
+        }
+
+        @Override
+        public void addCollected(long n) {
+        }
+
+        @Override
+        public void addProcessed(long n) {
+            parent.addProcessed(n);
+        }
+
+        @Override
+        public void addPublished(long n) {
+            parent.addPublished(n);
+        }
+
+        @Override
+        public long addFailed(long n) {
+            return parent.addFailed(n);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.ml.datatransformer.dts.pipeline.flow;
+
+import com.ml.datatransformer.dts.pipeline.model.Collector;
+import com.ml.datatransformer.dts.pipeline.record.SlotRecord;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * FlowInput
+ * flow 流水线的 collector：输入为共享采集结果或上游 flow 的输出，按 when 条件过滤；
+ * 输入同时被多个 flow 消费时逐行浅拷贝，避免算子原地改写影响其他 flow。
+ */
+public class FlowInput implements Collector<List<Map<String, Object>>, List<Map<String, Object>>> {
+
+    private final FlowCondition when;
+    private final boolean copy;
+
+    /**
+     * @param when 可为 null，表示全部记录进入
+     * @param copy 是否逐行拷贝
+     */
+    public FlowInput(FlowCondition when, boolean copy) {
+        this.when = when;
+        this.copy = copy;
+    }
+
+    @Override
+    public List<Map<String, Object>> collect(List<Map<String, Object>> rows) {
+        if (rows == null || rows.isEmpty() || (when == null && !copy)) return rows;
+        List<Map<String, Object>> out = new ArrayList<>(when == null ? rows.size() : Math.min(rows.size(), 16));
+        for (Map<String, Object> row : rows) {
+            if (when != null && !when.test(row)) continue;
+            out.add(copy ? copyOf(row) : row);
+        }
+        return out;
+    }
+
+    private static Map<String, Object> copyOf(Map<String, Object> row) {
+        return row instanceof SlotRecord r ? r.copy() : new HashMap<>(row);
+    }
+
+    @Override
+    public String name() {
+        return "collector:flow";
+    }
+}
@@ -0,0 +1,21 @@
+package com.ml.datatransformer.dts.pipeline.flow;
+
+import com.ml.datatransformer.dts.pipeline.DTSPipeline;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * FlowGraph 中的一个 flow：编译后的流水线 + 上游 flow 在图中的下标（上游下标均小于自身）
+ *
+ * @param name         flow 名称（未配置时为 flow-<序号>）
+ * @param dependencies 上游下标，为空表示根 flow，输入为共享采集结果
+ */
+public record FlowNode(String name,
+                       List<Integer> dependencies,
+                       DTSPipeline<List<Map<String, Object>>, Map<String, Object>, String> pipeline) {
+
+    public FlowNode {
+        dependencies = dependencies == null ? List.of() : List.copyOf(dependencies);
+    }
+}
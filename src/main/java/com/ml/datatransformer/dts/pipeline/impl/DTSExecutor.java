@@ -1,55 +1,160 @@
 package com.ml.datatransformer.dts.pipeline.impl;
 
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
 import java.lang.reflect.Method;
 import java.time.Duration;
+import java.util.Locale;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * DTSExecutor
- * 使用虚拟线程执行任务；若 JDK 不支持则自动回退到普通线程池。
+ * 按 dts.executor.type 创建执行器：
+ * - virtual：每任务一个虚拟线程（JDK21+，通过反射探测，不可用时回退 platform）
+ * - platform：固定大小线程池 + 有界队列，队列满时 CallerRuns 形成背压
+ * - forkjoin：ForkJoinPool（asyncMode），适合大量短小的 CPU 型任务
+ * - auto：优先 virtual，回退 platform
+ *
+ * 单次流水线执行通过 {@link #newPermits()} 获取的信号量限制在途任务数，
+ * 提交线程在许可耗尽时阻塞，从而不会一次性把整批任务压入执行器。
  */
+@Slf4j
 @Component
 public class DTSExecutor implements AutoCloseable {
 
+    private final DTSExecutorProperties properties;
     private final ExecutorService executor;
+    private final String mode;
+    private final ExecutorService coordinator;
+    /**
+     * 只负责按时触发，触发后的工作交给编排执行器，不在计时线程上做 I/O
+     */
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "dts-timer");
+        t.setDaemon(true);
+        return t;
+    });
+    private final AtomicInteger inFlight = new AtomicInteger();
 
-    public DTSExecutor() {
-        this.executor = createExecutor();
+    public DTSExecutor(DTSExecutorProperties properties) {
+        this.properties = properties;
+        String type = properties.getType() == null ? "auto" : properties.getType().toLowerCase(Locale.ROOT);
+        ExecutorService created = null;
+        String createdMode = type;
+        switch (type) {
+            case "platform" -> created = createPlatformExecutor();
+            case "forkjoin" -> created = createForkJoinExecutor();
+            case "virtual", "auto" -> {
+                created = createVirtualExecutor();
+                createdMode = "virtual";
+                if (created == null) {
+                    created = createPlatformExecutor();
+                    createdMode = "platform";
+                }
+            }
+            default -> throw new IllegalArgumentException("Unknown dts.executor.type: " + properties.getType()
+                    + ", expected one of auto, virtual, platform, forkjoin");
+        }
+        this.executor = created;
+        this.mode = createdMode;
+        this.coordinator = "virtual".equals(createdMode) ? created : createCoordinator();
+        log.info("DTSExecutor started, mode={}, poolSize={}, queueCapacity={}, maxConcurrency={}",
+                mode, properties.getPoolSize(), properties.getQueueCapacity(), properties.getMaxConcurrency());
     }
 
-    private ExecutorService createExecutor() {
-        /*
+    private ExecutorService createVirtualExecutor() {
         try {
-            // 使用反射检测方法是否存在，避免编译错误
+            // 使用反射检测方法是否存在，避免在低版本 JDK 上编译/加载失败
             Method ofVirtualMethod = Thread.class.getMethod("ofVirtual");
-            // 如果方法存在，说明是 JDK 21+
             Object threadBuilder = ofVirtualMethod.invoke(null);
-            Method nameMethod = threadBuilder.getClass().getMethod("name", String.class, long.class);
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            Method nameMethod = builderType.getMethod("name", String.class, long.class);
             Object namedBuilder = nameMethod.invoke(threadBuilder, "dts-vt-", 0L);
-            Method factoryMethod = namedBuilder.getClass().getMethod("factory");
+            Method factoryMethod = builderType.getMethod("factory");
             ThreadFactory factory = (ThreadFactory) factoryMethod.invoke(namedBuilder);
-            return Executors.newThreadPerTaskExecutor(factory);
+            Method perTask = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+            return (ExecutorService) perTask.invoke(null, factory);
         } catch (Exception e) {
-            // 回退到传统线程池
-            return Executors.newCachedThreadPool(r -> {
-                Thread t = new Thread(r);
-                t.setName("dts-norm-" + t.getId());
-                t.setDaemon(true);
-                return t;
-            });
+            log.info("Virtual threads unavailable on this JDK, fallback to platform pool");
+            return null;
         }
+    }
+
+    private ExecutorService createPlatformExecutor() {
+        int size = Math.max(1, properties.getPoolSize());
+        AtomicInteger seq = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(size, size,
+                properties.getKeepAliveSeconds(), TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, properties.getQueueCapacity())),
+                r -> {
+                    Thread t = new Thread(r);
+                    t.setName("dts-norm-" + seq.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    private ExecutorService createForkJoinExecutor() {
+        int parallelism = Math.max(1, properties.getPoolSize());
+        AtomicInteger seq = new AtomicInteger();
+        return new ForkJoinPool(parallelism, pool -> {
+            ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            t.setName("dts-fj-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }, null, true);
+    }
 
-         */
+    /**
+     * 编排线程：只做等待子任务的协调工作，按需创建、空闲回收
+     */
+    private ExecutorService createCoordinator() {
+        AtomicInteger seq = new AtomicInteger();
         return Executors.newCachedThreadPool(r -> {
             Thread t = new Thread(r);
-            t.setName("dts-norm-" + t.getId());
+            t.setName("dts-flow-" + seq.incrementAndGet());
             t.setDaemon(true);
             return t;
         });
     }
 
+    /**
+     * 按全局 max-concurrency 创建单次执行的并发许可
+     */
+    public Semaphore newPermits() {
+        return newPermits(properties.getMaxConcurrency());
+    }
+
+    public Semaphore newPermits(int maxConcurrency) {
+        return new Semaphore(maxConcurrency > 0 ? maxConcurrency : properties.getMaxConcurrency());
+    }
+
+    /**
+     * 受并发许可约束的提交：许可耗尽时阻塞提交线程，任务结束后归还许可
+     */
+    public <T> Future<T> submit(Callable<T> task, Semaphore permits) throws InterruptedException {
+        permits.acquire();
+        try {
+            return executor.submit(() -> {
+                inFlight.incrementAndGet();
+                try {
+                    return task.call();
+                } finally {
+                    inFlight.decrementAndGet();
+                    permits.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
     public <T> Future<T> submit(Callable<T> task) {
         return executor.submit(task);
     }
@@ -58,8 +163,52 @@ public class DTSExecutor implements AutoCloseable {
         return executor.submit(task);
     }
 
+    /**
+     * 编排执行器：用于运行会阻塞等待分块任务的协调型任务（如多 flow 并行），
+     * 与分块任务分开，避免 platform/forkjoin 的有限工作线程全部阻塞在等待上而死锁。
+     * virtual 模式下直接复用虚拟线程执行器。
+     */
+    public Executor coordinator() {
+        return coordinator;
+    }
+
+    /**
+     * 按固定间隔在编排执行器上运行 task，返回的 ScheduledFuture 用于取消
+     */
+    public ScheduledFuture<?> scheduleOnCoordinator(Runnable task, long periodMillis) {
+        return timer.scheduleWithFixedDelay(() -> {
+            try {
+                coordinator.execute(task);
+            } catch (RejectedExecutionException e) {
+                log.debug("Scheduled task rejected, executor is shutting down");
+            }
+        }, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public String mode() {
+        return mode;
+    }
+
+    /**
+     * 当前正在执行的受限任务数
+     */
+    public int activeCount() {
+        return inFlight.get();
+    }
+
+    /**
+     * 执行器排队中的任务数（virtual 模式无队列，恒为 0）
+     */
+    public long queueDepth() {
+        if (executor instanceof ThreadPoolExecutor tpe) return tpe.getQueue().size();
+        if (executor instanceof ForkJoinPool fjp) return fjp.getQueuedSubmissionCount() + fjp.getQueuedTaskCount();
+        return 0;
+    }
+
     @Override
     public void close() {
+        timer.shutdownNow();
+        if (coordinator != executor) coordinator.shutdown();
         executor.shutdown();
         try {
             executor.awaitTermination(Duration.ofSeconds(5).toMillis(), TimeUnit.MILLISECONDS);
@@ -0,0 +1,28 @@
+package com.ml.datatransformer.dts.pipeline.impl;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * DTSExecutor 配置（dts.executor.*）
+ *
+ * 示例：
+ * dts:
+ *   executor:
+ *     type: auto              # auto | virtual | platform | forkjoin；auto 在 JDK21+ 使用虚拟线程，否则回退 platform
+ *     pool-size: 16           # platform/forkjoin 的线程数，默认 CPU 核数 * 2
+ *     queue-capacity: 10000   # platform 模式的有界队列长度，队列满时由提交线程自己执行（背压）
+ *     max-concurrency: 256    # 单次流水线执行允许同时在途的任务数
+ *     keep-alive-seconds: 60
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "dts.executor")
+public class DTSExecutorProperties {
+    private String type = "auto";
+    private int poolSize = Runtime.getRuntime().availableProcessors() * 2;
+    private int queueCapacity = 10000;
+    private int maxConcurrency = 256;
+    private long keepAliveSeconds = 60;
+}
\ No newline at end of file
@@ -0,0 +1,27 @@
+package com.ml.datatransformer.dts.pipeline.impl;
+
+import com.ml.datatransformer.dts.pipeline.model.MapProcessor;
+
+import java.util.Map;
+
+/**
+ * 未知 clean/calculate 类型的回退算子：记录原样返回，编译期由 PipelineOptimizer 去掉
+ */
+public final class NoopOperator implements MapProcessor {
+
+    private final String name;
+
+    public NoopOperator(String name) {
+        this.name = name;
+    }
+
+    @Override
+    public Map<String, Object> process(Map<String, Object> data) {
+        return data;
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+}
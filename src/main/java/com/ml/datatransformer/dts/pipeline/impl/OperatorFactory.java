@@ -1,13 +1,28 @@
 package com.ml.datatransformer.dts.pipeline.impl;
 
 
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
 import com.ml.datatransformer.dts.dto.DTSRequest;
+import com.ml.datatransformer.dts.pipeline.checkpoint.WatermarkStore;
+import com.ml.datatransformer.dts.pipeline.error.DeadLetterSink;
+import com.ml.datatransformer.dts.pipeline.impl.aggregate.GroupByAggregator;
 import com.ml.datatransformer.dts.pipeline.impl.calculate.AddOperator;
+import com.ml.datatransformer.dts.pipeline.impl.calculate.AvgOperator;
+import com.ml.datatransformer.dts.pipeline.impl.calculate.DivOperator;
+import com.ml.datatransformer.dts.pipeline.impl.calculate.ExprOperator;
+import com.ml.datatransformer.dts.pipeline.impl.calculate.MaxOperator;
+import com.ml.datatransformer.dts.pipeline.impl.calculate.MinOperator;
+import com.ml.datatransformer.dts.pipeline.impl.calculate.MulOperator;
+import com.ml.datatransformer.dts.pipeline.impl.calculate.SubOperator;
 import com.ml.datatransformer.dts.pipeline.impl.clean.ExtractJsonOperator;
 import com.ml.datatransformer.dts.pipeline.impl.clean.ExtractSliceOperator;
 import com.ml.datatransformer.dts.pipeline.impl.clean.TypeCastOperator;
 import com.ml.datatransformer.dts.pipeline.impl.collect.DbCollector;
 import com.ml.datatransformer.dts.pipeline.impl.collect.EsCollector;
+import com.ml.datatransformer.dts.pipeline.impl.deadletter.FileDeadLetterSink;
+import com.ml.datatransformer.dts.pipeline.impl.deadletter.JdbcDeadLetterSink;
+import com.ml.datatransformer.dts.pipeline.impl.lookup.LookupOperator;
+import com.ml.datatransformer.dts.pipeline.impl.lookup.LookupTables;
 import com.ml.datatransformer.dts.pipeline.impl.publish.EsPublisher;
 import com.ml.datatransformer.dts.pipeline.model.Collector;
 import com.ml.datatransformer.dts.pipeline.model.MapProcessor;
@@ -32,10 +47,13 @@ public class OperatorFactory {
 
     private final JdbcTemplate jdbcTemplate;
     private final ElasticsearchOperations esOps;
+    private final ElasticsearchClient esClient;
+    private final DTSExecutor dtsExecutor;
+    private final WatermarkStore watermarkStore;
 
     public Collector<DTSRequest, ?> createCollector(String type, Map<String, Object> config) {
-        if ("es".equalsIgnoreCase(type)) return new EsCollector(esOps, config);
-        if ("db".equalsIgnoreCase(type)) return new DbCollector(jdbcTemplate, config);
+        if ("es".equalsIgnoreCase(type)) return new EsCollector(esOps, esClient, dtsExecutor, config, watermarkStore);
+        if ("db".equalsIgnoreCase(type)) return new DbCollector(jdbcTemplate, config, dtsExecutor, watermarkStore);
         return new Collector<DTSRequest, String>() {
             @Override
             public String collect(DTSRequest input) {
@@ -48,28 +66,42 @@ public class OperatorFactory {
         };
     }
 
-    public MapProcessor createClean(String type, Map<String, Object> config) {
+    /**
+     * 死信写出目标：file（本地 NDJSON）| table（数据库表）
+     */
+    public DeadLetterSink createDeadLetterSink(String type, Map<String, Object> config) {
+        if ("file".equalsIgnoreCase(type)) return new FileDeadLetterSink(config);
+        if ("table".equalsIgnoreCase(type) || "db".equalsIgnoreCase(type)) return new JdbcDeadLetterSink(jdbcTemplate, config);
+        throw new IllegalArgumentException("unknown dead letter type: " + type);
+    }
+
+    /**
+     * @param lookups 本次编译的参考表租约，供 lookup 算子使用
+     */
+    public MapProcessor createClean(String type, Map<String, Object> config, LookupTables.Lease lookups) {
         if ("extract_json".equalsIgnoreCase(type)) return new ExtractJsonOperator(config);
         if ("extract_slice".equalsIgnoreCase(type)) return new ExtractSliceOperator(config);
         if ("type_cast".equalsIgnoreCase(type)) return new TypeCastOperator(config);
-        return new MapProcessor() {
-            @Override
-            public Map<String, Object> process(Map<String, Object> data) { return data; }
-            @Override
-            public String name() { return "clean:noop"; }
-        };
+        if ("lookup".equalsIgnoreCase(type)) return new LookupOperator(config, lookups);
+        return new NoopOperator("clean:noop");
     }
 
-    public MapProcessor createCalculate(String type, Map<String, Object> config) {
+    public MapProcessor createCalculate(String type, Map<String, Object> config, LookupTables.Lease lookups) {
         if ("add".equalsIgnoreCase(type)) return new AddOperator(config);
-        return new MapProcessor() {
-            @Override
-            public Map<String, Object> process(Map<String, Object> data) { return data; }
-            @Override
-            public String name() { return "calculate:noop"; }
-        };
+        if ("sub".equalsIgnoreCase(type)) return new SubOperator(config);
+        if ("mul".equalsIgnoreCase(type)) return new MulOperator(config);
+        if ("div".equalsIgnoreCase(type)) return new DivOperator(config);
+        if ("min".equalsIgnoreCase(type)) return new MinOperator(config);
+        if ("max".equalsIgnoreCase(type)) return new MaxOperator(config);
+        if ("avg".equalsIgnoreCase(type)) return new AvgOperator(config);
+        if ("expr".equalsIgnoreCase(type)) return new ExprOperator(config);
+        if ("lookup".equalsIgnoreCase(type)) return new LookupOperator(config, lookups);
+        return new NoopOperator("calculate:noop");
     }
 
+    public GroupByAggregator createAggregator(Map<String, Object> config) {
+        return new GroupByAggregator(config);
+    }
 
     public Publisher<?, ?> createPublisher(String type, Map<String, Object> config) {
         if ("es".equalsIgnoreCase(type)) return new EsPublisher(esOps, config);
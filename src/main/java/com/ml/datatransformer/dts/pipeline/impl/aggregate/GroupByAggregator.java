@@ -0,0 +1,370 @@
+package com.ml.datatransformer.dts.pipeline.impl.aggregate;
+
+import com.ml.datatransformer.dts.pipeline.impl.calculate.NumericKernel;
+import com.ml.datatransformer.dts.pipeline.model.Aggregator;
+import lombok.extern.slf4j.Slf4j;
+
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * GroupByAggregator
+ * 按 group_by 字段分组聚合整批记录，输出每组一条：分组字段 + （时间窗口起止）+ 各指标。
+ *
+ * 配置示例（flow 的 aggregate 节点）：
+ * {
+ *   "group_by": ["card_scheme", "merchant_id"],     // 为空时整批聚合为一条
+ *   "metrics": [
+ *     {"op": "sum", "field": "fee", "as": "total_fee"},
+ *     {"op": "count", "as": "txn_count"},           // 不配置 field 时计行数，否则计非空值个数
+ *     {"op": "avg", "field": "amount"},             // as 默认为 <op>_<field>
+ *     {"op": "min", "field": "amount"},
+ *     {"op": "max", "field": "amount"},
+ *     {"op": "distinct", "field": "card_no", "as": "card_count"}
+ *   ],
+ *   "window": {                                     // 可选，按事件时间的滚动窗口
+ *     "field": "txn_time",                          // epoch 毫秒、时间类型或 ISO 字符串
+ *     "size_seconds": 300,
+ *     "allowed_lateness_seconds": 0,                // 窗口结束后仍接受迟到记录的时长
+ *     "time_zone": "Asia/Shanghai"                  // 不带时区的时间按此解析，默认系统时区
+ *   },
+ *   "math": "exact", "scale": 10, "rounding": "HALF_UP"   // 同 ArithmeticOperator
+ * }
+ *
+ * - 数值累加使用 NumericKernel.Accumulator：整数按 long 累加，溢出或遇到小数时按 math 提升，不逐条装箱
+ * - 配置 window 时输出额外包含 window_start / window_end（epoch 毫秒）；streaming 模式下已见到的最大事件时间
+ *   超过窗口结束 + allowed_lateness 后窗口关闭并立即输出，之后落入已关闭窗口的记录被丢弃并在结束时汇总告警
+ * - 缺少或无法解析窗口时间的记录抛出 IllegalArgumentException，交由 on_error 策略处理
+ */
+@Slf4j
+public class GroupByAggregator implements Aggregator<Map<String, Object>> {
+
+    private static final int SUM = 0, COUNT = 1, AVG = 2, MIN = 3, MAX = 4, DISTINCT = 5;
+    private static final List<String> OPS = List.of("sum", "count", "avg", "min", "max", "distinct");
+
+    private final String[] groupBy;
+    private final int[] ops;
+    private final String[] metricFields;
+    private final String[] outputs;
+    private final boolean lossy;
+    private final int scale;
+    private final RoundingMode rounding;
+    private final String windowField;
+    private final long windowMillis;
+    private final long latenessMillis;
+    private final ZoneId zone;
+
+    public GroupByAggregator(Map<String, Object> config) {
+        if (config == null) throw new IllegalArgumentException("aggregate requires config");
+        this.groupBy = config.get("group_by") instanceof List<?> l
+                ? l.stream().map(String::valueOf).toArray(String[]::new)
+                : config.get("group_by") == null ? new String[0] : new String[]{String.valueOf(config.get("group_by"))};
+        if (!(config.get("metrics") instanceof List<?> metrics) || metrics.isEmpty()) {
+            throw new IllegalArgumentException("aggregate requires metrics");
+        }
+        int n = metrics.size();
+        this.ops = new int[n];
+        this.metricFields = new String[n];
+        this.outputs = new String[n];
+        for (int i = 0; i < n; i++) {
+            if (!(metrics.get(i) instanceof Map<?, ?> m)) throw new IllegalArgumentException("invalid aggregate metric: " + metrics.get(i));
+            String op = String.valueOf(m.get("op")).toLowerCase(Locale.ROOT);
+            ops[i] = OPS.indexOf(op);
+            if (ops[i] < 0) throw new IllegalArgumentException("unknown aggregate op: " + op);
+            metricFields[i] = m.get("field") == null ? null : String.valueOf(m.get("field"));
+            if (metricFields[i] == null && ops[i] != COUNT) throw new IllegalArgumentException("aggregate " + op + " requires field");
+            outputs[i] = m.get("as") != null ? String.valueOf(m.get("as"))
+                    : metricFields[i] == null ? op : op + "_" + metricFields[i];
+        }
+        Object math = config.get("math");
+        this.lossy = math != null && "double".equalsIgnoreCase(String.valueOf(math));
+        Number sc = config.get("scale") == null ? null : NumericKernel.parse(config.get("scale"));
+        this.scale = sc instanceof Long l ? l.intValue() : NumericKernel.DEFAULT_SCALE;
+        this.rounding = config.get("rounding") == null ? RoundingMode.HALF_UP
+                : RoundingMode.valueOf(String.valueOf(config.get("rounding")).toUpperCase(Locale.ROOT));
+
+        if (config.get("window") instanceof Map<?, ?> w) {
+            if (w.get("field") == null) throw new IllegalArgumentException("aggregate window requires field");
+            this.windowField = String.valueOf(w.get("field"));
+            long size = w.get("size_seconds") == null ? 0 : Long.parseLong(String.valueOf(w.get("size_seconds")));
+            if (size <= 0) throw new IllegalArgumentException("aggregate window requires positive size_seconds");
+            this.windowMillis = size * 1000;
+            this.latenessMillis = w.get("allowed_lateness_seconds") == null ? 0
+                    : Long.parseLong(String.valueOf(w.get("allowed_lateness_seconds"))) * 1000;
+            this.zone = w.get("time_zone") == null ? ZoneId.systemDefault() : ZoneId.of(String.valueOf(w.get("time_zone")));
+        } else {
+            this.windowField = null;
+            this.windowMillis = 0;
+            this.latenessMillis = 0;
+            this.zone = null;
+        }
+    }
+
+    /**
+     * 聚合读取的字段，typed record 编译时并入 schema
+     */
+    public Collection<String> fields() {
+        Set<String> fields = new LinkedHashSet<>(Arrays.asList(groupBy));
+        for (String f : metricFields) if (f != null) fields.add(f);
+        if (windowField != null) fields.add(windowField);
+        return fields;
+    }
+
+    public boolean windowed() {
+        return windowField != null;
+    }
+
+    @Override
+    public Run<Map<String, Object>> begin() {
+        return new GroupRun();
+    }
+
+    @Override
+    public String name() {
+        return "aggregate";
+    }
+
+    /**
+     * 整数统一为 Long，避免 Integer 5 与 Long 5 落入不同分组
+     */
+    private static Object normalize(Object v) {
+        if (v instanceof Integer || v instanceof Short || v instanceof Byte) return ((Number) v).longValue();
+        return v;
+    }
+
+    private long eventTime(Object v) {
+        if (v instanceof Number n) return n.longValue();
+        if (v instanceof java.util.Date d) return d.getTime();
+        if (v instanceof Instant i) return i.toEpochMilli();
+        if (v instanceof OffsetDateTime o) return o.toInstant().toEpochMilli();
+        if (v instanceof ZonedDateTime z) return z.toInstant().toEpochMilli();
+        if (v instanceof LocalDateTime l) return l.atZone(zone).toInstant().toEpochMilli();
+        if (v instanceof LocalDate d) return d.atStartOfDay(zone).toInstant().toEpochMilli();
+        if (v instanceof CharSequence cs) {
+            String s = cs.toString().trim();
+            try {
+                if (!s.isEmpty() && s.chars().allMatch(Character::isDigit)) return Long.parseLong(s);
+                if (s.endsWith("Z")) return Instant.parse(s).toEpochMilli();
+                if (s.length() > 10) {
+                    String t = s.charAt(10) == ' ' ? s.substring(0, 10) + "T" + s.substring(11) : s;
+                    try {
+                        return OffsetDateTime.parse(t).toInstant().toEpochMilli();
+                    } catch (DateTimeParseException e) {
+                        return LocalDateTime.parse(t).atZone(zone).toInstant().toEpochMilli();
+                    }
+                }
+                return LocalDate.parse(s).atStartOfDay(zone).toInstant().toEpochMilli();
+            } catch (DateTimeParseException | NumberFormatException e) {
+                // 落到下方统一报错
+            }
+        }
+        throw new IllegalArgumentException("invalid window time [" + v + "] in field [" + windowField + "]");
+    }
+
+    /**
+     * 块内部分聚合
+     */
+    private final class GroupPartial implements Partial<Map<String, Object>> {
+        private final Map<Object, Group> groups = new HashMap<>();
+        private long maxTime = Long.MIN_VALUE;
+
+        @Override
+        public void add(Map<String, Object> row) {
+            long windowStart = 0;
+            if (windowField != null) {
+                long t = eventTime(row.get(windowField));
+                windowStart = Math.floorDiv(t, windowMillis) * windowMillis;
+                if (t > maxTime) maxTime = t;
+            }
+            Object key;
+            Object[] values = null;
+            if (groupBy.length == 1 && windowField == null) {
+                key = normalize(row.get(groupBy[0]));
+            } else {
+                values = new Object[groupBy.length + (windowField == null ? 0 : 1)];
+                for (int i = 0; i < groupBy.length; i++) values[i] = normalize(row.get(groupBy[i]));
+                if (windowField != null) values[groupBy.length] = windowStart;
+                key = Arrays.asList(values);
+            }
+            Group g = groups.get(key);
+            if (g == null) {
+                if (values == null) values = new Object[]{key};
+                g = new Group(values, windowStart);
+                groups.put(key, g);
+            }
+            g.add(row);
+        }
+    }
+
+    /**
+     * 单次执行的聚合状态；merge/closed/finish 可能来自不同线程，按实例加锁（每块只合并一次）
+     */
+    private final class GroupRun implements Run<Map<String, Object>> {
+        private final Map<Object, Group> groups = new LinkedHashMap<>();
+        private long maxTime = Long.MIN_VALUE;
+        private long closedBefore = Long.MIN_VALUE;
+        private long late;
+
+        @Override
+        public Partial<Map<String, Object>> partial() {
+            return new GroupPartial();
+        }
+
+        @Override
+        public synchronized void merge(Partial<Map<String, Object>> partial) {
+            GroupPartial p = (GroupPartial) partial;
+            for (Map.Entry<Object, Group> e : p.groups.entrySet()) {
+                Group g = e.getValue();
+                if (windowField != null && g.windowStart + windowMillis <= closedBefore) {
+                    late += g.rows;
+                    continue;
+                }
+                Group current = groups.putIfAbsent(e.getKey(), g);
+                if (current != null) current.merge(g);
+            }
+            if (p.maxTime > maxTime) maxTime = p.maxTime;
+        }
+
+        @Override
+        public synchronized List<Map<String, Object>> closed() {
+            if (windowField == null || maxTime == Long.MIN_VALUE) return List.of();
+            long boundary = maxTime - latenessMillis;
+            List<Group> done = new ArrayList<>();
+            for (Iterator<Group> it = groups.values().iterator(); it.hasNext(); ) {
+                Group g = it.next();
+                if (g.windowStart + windowMillis <= boundary) {
+                    done.add(g);
+                    it.remove();
+                }
+            }
+            if (boundary > closedBefore) closedBefore = boundary;
+            return output(done);
+        }
+
+        @Override
+        public synchronized List<Map<String, Object>> finish() {
+            List<Map<String, Object>> out = output(new ArrayList<>(groups.values()));
+            groups.clear();
+            if (late > 0) {
+                log.warn("{} late rows dropped by aggregate, window field [{}], allowed lateness {}ms",
+                        late, windowField, latenessMillis);
+            }
+            return out;
+        }
+
+        private List<Map<String, Object>> output(List<Group> done) {
+            if (done.isEmpty()) return List.of();
+            if (windowField != null) done.sort(Comparator.comparingLong(g -> g.windowStart));
+            List<Map<String, Object>> out = new ArrayList<>(done.size());
+            for (Group g : done) out.add(g.output());
+            return out;
+        }
+    }
+
+    /**
+     * 一个分组的累加状态，按指标下标存放：数值类为 Accumulator，count/avg 计数为 long，distinct 为值集合
+     */
+    private final class Group {
+        private final Object[] values;
+        private final long windowStart;
+        private final NumericKernel.Accumulator[] accs;
+        private final long[] counts;
+        private final Set<Object>[] distinct;
+        private long rows;
+
+        @SuppressWarnings("unchecked")
+        Group(Object[] values, long windowStart) {
+            this.values = values;
+            this.windowStart = windowStart;
+            this.accs = new NumericKernel.Accumulator[ops.length];
+            this.counts = new long[ops.length];
+            this.distinct = new Set[ops.length];
+            for (int i = 0; i < ops.length; i++) {
+                if (ops[i] == DISTINCT) distinct[i] = new HashSet<>();
+                else if (ops[i] != COUNT) accs[i] = new NumericKernel.Accumulator(lossy, scale, rounding);
+            }
+        }
+
+        void add(Map<String, Object> row) {
+            rows++;
+            for (int i = 0; i < ops.length; i++) {
+                switch (ops[i]) {
+                    case COUNT -> {
+                        if (metricFields[i] == null || row.get(metricFields[i]) != null) counts[i]++;
+                    }
+                    case DISTINCT -> {
+                        Object v = row.get(metricFields[i]);
+                        if (v != null) distinct[i].add(normalize(v));
+                    }
+                    default -> {
+                        Number n = NumericKernel.parse(row.get(metricFields[i]));
+                        if (n == null) continue;
+                        switch (ops[i]) {
+                            case MIN -> accs[i].min(n);
+                            case MAX -> accs[i].max(n);
+                            default -> {
+                                accs[i].add(n);
+                                counts[i]++;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        void merge(Group other) {
+            rows += other.rows;
+            for (int i = 0; i < ops.length; i++) {
+                counts[i] += other.counts[i];
+                if (distinct[i] != null) distinct[i].addAll(other.distinct[i]);
+                if (accs[i] == null || other.accs[i].isEmpty()) continue;
+                Number r = other.accs[i].result();
+                switch (ops[i]) {
+                    case MIN -> accs[i].min(r);
+                    case MAX -> accs[i].max(r);
+                    default -> accs[i].add(r);
+                }
+            }
+        }
+
+        Map<String, Object> output() {
+            Map<String, Object> out = new LinkedHashMap<>((groupBy.length + ops.length + 2) * 2);
+            for (int i = 0; i < groupBy.length; i++) out.put(groupBy[i], values[i]);
+            if (windowField != null) {
+                out.put("window_start", windowStart);
+                out.put("window_end", windowStart + windowMillis);
+            }
+            for (int i = 0; i < ops.length; i++) {
+                switch (ops[i]) {
+                    case COUNT -> out.put(outputs[i], counts[i]);
+                    case DISTINCT -> out.put(outputs[i], (long) distinct[i].size());
+                    case AVG -> {
+                        if (counts[i] > 0) accs[i].divide(counts[i]);
+                        out.put(outputs[i], accs[i].result());
+                    }
+                    default -> out.put(outputs[i], accs[i].result());
+                }
+            }
+            return out;
+        }
+    }
+}
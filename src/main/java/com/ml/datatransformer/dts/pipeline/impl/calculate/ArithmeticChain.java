@@ -0,0 +1,107 @@
+package com.ml.datatransformer.dts.pipeline.impl.calculate;
+
+import com.ml.datatransformer.dts.pipeline.model.MapProcessor;
+import com.ml.datatransformer.dts.pipeline.model.SchemaBindable;
+import com.ml.datatransformer.dts.pipeline.record.RecordSchema;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * ArithmeticChain
+ * 连续的算术算子合并为一次遍历（由 PipelineOptimizer 生成）：各算子读写的字段在编译期编号，
+ * 每行每个字段只读取、解析一次，中间结果留在局部数组中供后续算子读取，最后只写回产生了结果的字段。
+ * 结果与依次执行各算子相同。
+ */
+public class ArithmeticChain implements MapProcessor, SchemaBindable {
+
+    private static final byte UNREAD = 0, READ = 1, WRITTEN = 2;
+
+    private final List<ArithmeticOperator> operators;
+    private final String[] fields;
+    /**
+     * 每个算子的输入字段编号，按 fields_name 顺序
+     */
+    private final int[][] inputs;
+    /**
+     * 每个算子的结果字段编号
+     */
+    private final int[] results;
+    private final String name;
+
+    public ArithmeticChain(List<ArithmeticOperator> operators) {
+        this.operators = List.copyOf(operators);
+        Map<String, Integer> index = new HashMap<>();
+        List<String> names = new ArrayList<>();
+        this.inputs = new int[operators.size()][];
+        this.results = new int[operators.size()];
+        for (int k = 0; k < operators.size(); k++) {
+            ArithmeticOperator op = operators.get(k);
+            List<String> in = op.fieldsName();
+            inputs[k] = new int[in.size()];
+            for (int j = 0; j < in.size(); j++) {
+                inputs[k][j] = index.computeIfAbsent(in.get(j), f -> { names.add(f); return names.size() - 1; });
+            }
+            results[k] = index.computeIfAbsent(op.resultName(), f -> { names.add(f); return names.size() - 1; });
+        }
+        this.fields = names.toArray(new String[0]);
+        this.name = operators.stream().map(op -> op.name().substring(op.name().indexOf(':') + 1))
+                .collect(Collectors.joining(",", "calculate:chain[", "]"));
+    }
+
+    @Override
+    public Map<String, Object> process(Map<String, Object> data) {
+        Number[] values = new Number[fields.length];
+        byte[] state = new byte[fields.length];
+        for (int k = 0; k < inputs.length; k++) {
+            int[] in = inputs[k];
+            if (in.length == 0) continue;
+            Number[] args = new Number[in.length];
+            for (int j = 0; j < in.length; j++) {
+                int f = in[j];
+                if (state[f] == UNREAD) {
+                    values[f] = NumericKernel.parse(data.get(fields[f]));
+                    state[f] = READ;
+                }
+                args[j] = values[f];
+            }
+            Number r = operators.get(k).evaluate(args);
+            if (r != null) {
+                values[results[k]] = r;
+                state[results[k]] = WRITTEN;
+            }
+        }
+        for (int f = 0; f < fields.length; f++) {
+            if (state[f] == WRITTEN) data.put(fields[f], values[f]);
+        }
+        return data;
+    }
+
+    public List<ArithmeticOperator> operators() {
+        return operators;
+    }
+
+    @Override
+    public Collection<String> fields() {
+        Set<String> out = new LinkedHashSet<>();
+        for (ArithmeticOperator op : operators) out.addAll(op.fields());
+        return out;
+    }
+
+    @Override
+    public MapProcessor bind(RecordSchema schema) {
+        // 每行每个字段只访问一次，按 Map 视图访问即可命中槽位
+        return this;
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+}
@@ -0,0 +1,172 @@
+package com.ml.datatransformer.dts.pipeline.impl.calculate;
+
+import com.ml.datatransformer.dts.pipeline.model.MapProcessor;
+import com.ml.datatransformer.dts.pipeline.model.SchemaBindable;
+import com.ml.datatransformer.dts.pipeline.record.RecordSchema;
+import com.ml.datatransformer.dts.pipeline.record.SlotRecord;
+
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * ArithmeticOperator
+ * 多字段算术类 calculate 算子的公共骨架，数值运算统一交给 NumericKernel。
+ *
+ * 通用配置：
+ * {
+ *   "fields_name": ["a", "b", "c"],   // 按顺序参与运算；缺失或非数字的字段忽略
+ *   "result_name": "total",
+ *   "math": "exact",                  // exact(默认，整数 long / 小数 BigDecimal) | double(有损，最快)
+ *   "scale": 10,                      // 除法/平均值的小数位（exact 模式）
+ *   "rounding": "HALF_UP"
+ * }
+ * 没有任何可用字段时不写入结果。
+ */
+public abstract class ArithmeticOperator implements MapProcessor, SchemaBindable {
+
+    protected final List<String> fieldsName;
+    protected final String resultName;
+    protected final boolean lossy;
+    protected final int scale;
+    protected final RoundingMode rounding;
+
+    protected ArithmeticOperator(Map<String, Object> config, String defaultResultName) {
+        this.fieldsName = toStringList(config, "fields_name");
+        Object rn = config == null ? null : config.get("result_name");
+        this.resultName = rn == null ? defaultResultName : String.valueOf(rn);
+        Object math = config == null ? null : config.get("math");
+        this.lossy = math != null && "double".equalsIgnoreCase(String.valueOf(math));
+        Object sc = config == null ? null : config.get("scale");
+        Number parsedScale = sc == null ? null : NumericKernel.parse(sc);
+        this.scale = parsedScale instanceof Long l ? l.intValue() : NumericKernel.DEFAULT_SCALE;
+        Object rd = config == null ? null : config.get("rounding");
+        this.rounding = parseRounding(rd);
+    }
+
+    /**
+     * 把第 index 个有效值并入累加器；返回 false 表示本行结果无效（如除数为 0）
+     */
+    protected abstract boolean apply(NumericKernel.Accumulator acc, Number value, int index);
+
+    /**
+     * 全部字段处理完后的收尾，默认直接取累加结果
+     */
+    protected Number finish(NumericKernel.Accumulator acc, int count) {
+        return acc.result();
+    }
+
+    @Override
+    public Map<String, Object> process(Map<String, Object> data) {
+        if (fieldsName.isEmpty()) return data;
+        NumericKernel.Accumulator acc = newAccumulator();
+        int count = 0;
+        for (String f : fieldsName) {
+            Number n = NumericKernel.parse(data.get(f));
+            if (n == null) continue;
+            if (!apply(acc, n, count++)) return data;
+        }
+        if (count > 0) {
+            Number result = finish(acc, count);
+            if (result != null) data.put(resultName, result);
+        }
+        return data;
+    }
+
+    /**
+     * 按字段顺序计算一行，values 中 null 表示字段缺失；返回 null 表示不写入。列式执行的逐行退回路径（见 ColumnBatch）
+     */
+    Number evaluate(Number[] values) {
+        NumericKernel.Accumulator acc = newAccumulator();
+        int count = 0;
+        for (Number n : values) {
+            if (n == null) continue;
+            if (!apply(acc, n, count++)) return null;
+        }
+        return count > 0 ? finish(acc, count) : null;
+    }
+
+    /**
+     * 可在整列上执行的内核，null 表示列式执行时逐行计算
+     */
+    ColumnBatch.Kernel kernel() {
+        return null;
+    }
+
+    protected NumericKernel.Accumulator newAccumulator() {
+        return new NumericKernel.Accumulator(lossy, scale, rounding);
+    }
+
+    @Override
+    public Collection<String> fields() {
+        List<String> fields = new ArrayList<>(fieldsName);
+        fields.add(resultName);
+        return fields;
+    }
+
+    /**
+     * 槽位版本：字段名在编译期解析为下标，SlotRecord 行直接按下标读写
+     */
+    @Override
+    public MapProcessor bind(RecordSchema schema) {
+        int[] slots = new int[fieldsName.size()];
+        for (int i = 0; i < slots.length; i++) slots[i] = schema.slot(fieldsName.get(i));
+        int resultSlot = schema.slot(resultName);
+        ArithmeticOperator self = this;
+        return new MapProcessor() {
+            @Override
+            public Map<String, Object> process(Map<String, Object> data) {
+                if (!(data instanceof SlotRecord record) || record.schema() != schema || resultSlot < 0) {
+                    return self.process(data);
+                }
+                if (slots.length == 0) return data;
+                NumericKernel.Accumulator acc = newAccumulator();
+                int count = 0;
+                for (int slot : slots) {
+                    Number n = slot < 0 ? null : NumericKernel.parse(record.get(slot));
+                    if (n == null) continue;
+                    if (!apply(acc, n, count++)) return data;
+                }
+                if (count > 0) {
+                    Number result = finish(acc, count);
+                    if (result != null) record.set(resultSlot, result);
+                }
+                return data;
+            }
+
+            @Override
+            public String name() {
+                return self.name();
+            }
+        };
+    }
+
+    public List<String> fieldsName() {
+        return fieldsName;
+    }
+
+    public String resultName() {
+        return resultName;
+    }
+
+    static RoundingMode parseRounding(Object v) {
+        if (v == null) return RoundingMode.HALF_UP;
+        try {
+            return RoundingMode.valueOf(String.valueOf(v).toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return RoundingMode.HALF_UP;
+        }
+    }
+
+    private static List<String> toStringList(Map<String, Object> cfg, String key) {
+        Object v = cfg == null ? null : cfg.get(key);
+        List<String> out = new ArrayList<>();
+        if (v instanceof List<?> list) {
+            for (Object o : list) out.add(String.valueOf(o));
+        }
+        return out;
+    }
+}
\ No newline at end of file
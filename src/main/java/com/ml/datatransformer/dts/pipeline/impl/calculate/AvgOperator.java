@@ -0,0 +1,43 @@
+package com.ml.datatransformer.dts.pipeline.impl.calculate;
+
+import java.util.Map;
+
+/**
+ * AvgOperator
+ * 对多个有效字段求平均值（exact 模式按 scale/rounding 保留小数）。
+ *
+ * 配置示例：
+ * {
+ *   "fields_name": ["a", "b"],
+ *   "result_name": "avg"
+ * }
+ * 通用配置（math/scale/rounding）见 ArithmeticOperator。
+ */
+public class AvgOperator extends ArithmeticOperator {
+
+    public AvgOperator(Map<String, Object> config) {
+        super(config, "avg");
+    }
+
+    @Override
+    protected boolean apply(NumericKernel.Accumulator acc, Number value, int index) {
+        acc.add(value);
+        return true;
+    }
+
+    @Override
+    protected Number finish(NumericKernel.Accumulator acc, int count) {
+        acc.divide((long) count);
+        return acc.result();
+    }
+
+    @Override
+    ColumnBatch.Kernel kernel() {
+        return ColumnBatch.Kernel.AVG;
+    }
+
+    @Override
+    public String name() {
+        return "calculate:avg";
+    }
+}
\ No newline at end of file
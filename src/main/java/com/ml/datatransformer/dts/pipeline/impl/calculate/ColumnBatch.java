@@ -0,0 +1,342 @@
+package com.ml.datatransformer.dts.pipeline.impl.calculate;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ColumnBatch
+ * 一块记录的列式视图：数值字段在首次读取时从行中转置为 long[] / double[]，算术算子在整列上循环计算，
+ * 中间结果留在列中，最后 flush 只把写入过的行写回记录。
+ * - 每列只有一种原始类型；缺失或非数字记入 nulls 位图，无法用该类型表示的值（BigDecimal、与列类型不同的数）记入 boxed，
+ *   两者同时记入 irregular 位图
+ * - 快速内核只处理各输入列都规整的行，且只在结果与逐行执行完全一致时写入原始值；irregular、溢出、不能整除、除数为 0
+ *   的行标记为 slow，逐行交给 ArithmeticOperator.evaluate（同一个累加器路径）计算
+ * - 内核按列循环、循环体内不装箱不分派，便于 JIT 自动向量化
+ * - 单线程使用，每块新建
+ */
+final class ColumnBatch {
+
+    /**
+     * 可在整列上执行的算术内核
+     */
+    enum Kernel {
+        ADD, SUB, MUL, DIV, MIN, MAX, AVG
+    }
+
+    private final List<Map<String, Object>> rows;
+    private final int size;
+    private final int words;
+    private final Map<String, Column> columns = new HashMap<>();
+
+    ColumnBatch(List<Map<String, Object>> rows) {
+        this.rows = rows;
+        this.size = rows.size();
+        this.words = (size + 63) >>> 6;
+    }
+
+    /**
+     * 在整块上执行一个算术算子，结果列替换同名列
+     */
+    void apply(ArithmeticOperator op) {
+        List<String> fields = op.fieldsName();
+        if (fields.isEmpty()) return;
+        int k = fields.size();
+        Column[] in = new Column[k];
+        for (int j = 0; j < k; j++) in[j] = column(fields.get(j), op.lossy);
+
+        boolean doubles = in[0].doubles;
+        boolean uniform = true;
+        for (Column c : in) uniform &= c.doubles == doubles;
+        Kernel kernel = op.kernel();
+        // exact 模式下小数走 BigDecimal，double 列只在 lossy 时可快速计算
+        boolean fast = kernel != null && uniform && (!doubles || op.lossy);
+
+        Column out = new Column(size, words, fast && doubles);
+        long[] slow = new long[words];
+        if (fast) {
+            for (Column c : in) {
+                for (int w = 0; w < words; w++) slow[w] |= c.irregular[w];
+            }
+            if (doubles) doubleKernel(kernel, in, out.d, slow);
+            else longKernel(kernel, in, out.l, slow);
+        } else {
+            fill(slow, size);
+        }
+
+        long[] unwritten = null;
+        Number[] values = new Number[k];
+        for (int i = nextSet(slow, 0); i >= 0; i = nextSet(slow, i + 1)) {
+            for (int j = 0; j < k; j++) values[j] = in[j].get(i);
+            Number r = op.evaluate(values);
+            if (r != null) {
+                out.put(i, r);
+                continue;
+            }
+            if (unwritten == null) unwritten = new long[words];
+            set(unwritten, i);
+        }
+
+        // 本批写入的行：全部行去掉未写入的行
+        out.dirty = new long[words];
+        fill(out.dirty, size);
+        if (unwritten != null) {
+            // 未写入的行保留字段原值（可能是本段之前的算子写入的）
+            Column prior = column(op.resultName, op.lossy);
+            for (int i = nextSet(unwritten, 0); i >= 0; i = nextSet(unwritten, i + 1)) {
+                out.copy(i, prior);
+                if (prior.dirty == null || !get(prior.dirty, i)) clear(out.dirty, i);
+            }
+        }
+        columns.put(op.resultName, out);
+    }
+
+    /**
+     * 把写入过的行写回记录
+     */
+    void flush() {
+        for (Map.Entry<String, Column> e : columns.entrySet()) {
+            Column c = e.getValue();
+            if (c.dirty == null) continue;
+            String field = e.getKey();
+            for (int i = nextSet(c.dirty, 0); i >= 0; i = nextSet(c.dirty, i + 1)) {
+                rows.get(i).put(field, c.get(i));
+            }
+        }
+    }
+
+    private Column column(String field, boolean lossy) {
+        Column c = columns.get(field);
+        if (c == null) {
+            c = Column.load(rows, field, words, lossy);
+            columns.put(field, c);
+        }
+        return c;
+    }
+
+    private void longKernel(Kernel kernel, Column[] in, long[] r, long[] slow) {
+        System.arraycopy(in[0].l, 0, r, 0, size);
+        int n = size;
+        switch (kernel) {
+            case ADD, AVG -> {
+                long[] overflow = new long[n];
+                for (int j = 1; j < in.length; j++) {
+                    long[] b = in[j].l;
+                    for (int i = 0; i < n; i++) {
+                        long x = r[i], y = b[i], s = x + y;
+                        overflow[i] |= (x ^ s) & (y ^ s);
+                        r[i] = s;
+                    }
+                }
+                markNegative(overflow, slow);
+                if (kernel == Kernel.AVG) {
+                    long count = in.length;
+                    for (int i = 0; i < n; i++) {
+                        // 不能整除时按 math 提升为小数，交给逐行路径
+                        if (r[i] % count == 0) r[i] /= count;
+                        else set(slow, i);
+                    }
+                }
+            }
+            case SUB -> {
+                long[] overflow = new long[n];
+                for (int j = 1; j < in.length; j++) {
+                    long[] b = in[j].l;
+                    for (int i = 0; i < n; i++) {
+                        long x = r[i], y = b[i], s = x - y;
+                        overflow[i] |= (x ^ y) & (x ^ s);
+                        r[i] = s;
+                    }
+                }
+                markNegative(overflow, slow);
+            }
+            case MUL -> {
+                long[] overflow = new long[n];
+                for (int j = 1; j < in.length; j++) {
+                    long[] b = in[j].l;
+                    for (int i = 0; i < n; i++) {
+                        long x = r[i], y = b[i], lo = x * y;
+                        // 高 64 位须等于低 64 位的符号扩展
+                        overflow[i] |= Math.multiplyHigh(x, y) ^ (lo >> 63);
+                        r[i] = lo;
+                    }
+                }
+                for (int i = 0; i < n; i++) if (overflow[i] != 0) set(slow, i);
+            }
+            case DIV -> {
+                for (int j = 1; j < in.length; j++) {
+                    long[] b = in[j].l;
+                    for (int i = 0; i < n; i++) {
+                        long y = b[i];
+                        if (y == 0 || y == -1 || r[i] % y != 0) set(slow, i);
+                        else r[i] /= y;
+                    }
+                }
+            }
+            case MIN -> {
+                for (int j = 1; j < in.length; j++) {
+                    long[] b = in[j].l;
+                    for (int i = 0; i < n; i++) r[i] = Math.min(r[i], b[i]);
+                }
+            }
+            case MAX -> {
+                for (int j = 1; j < in.length; j++) {
+                    long[] b = in[j].l;
+                    for (int i = 0; i < n; i++) r[i] = Math.max(r[i], b[i]);
+                }
+            }
+        }
+    }
+
+    private void doubleKernel(Kernel kernel, Column[] in, double[] r, long[] slow) {
+        System.arraycopy(in[0].d, 0, r, 0, size);
+        int n = size;
+        for (int j = 1; j < in.length; j++) {
+            double[] b = in[j].d;
+            switch (kernel) {
+                case ADD, AVG -> {
+                    for (int i = 0; i < n; i++) r[i] += b[i];
+                }
+                case SUB -> {
+                    for (int i = 0; i < n; i++) r[i] -= b[i];
+                }
+                case MUL -> {
+                    for (int i = 0; i < n; i++) r[i] *= b[i];
+                }
+                case DIV -> {
+                    for (int i = 0; i < n; i++) {
+                        // 除数为 0 时不写入结果，交给逐行路径
+                        if (b[i] == 0d) set(slow, i);
+                        r[i] /= b[i];
+                    }
+                }
+                // 与 Accumulator 一致按 Double.compare 比较
+                case MIN -> {
+                    for (int i = 0; i < n; i++) if (Double.compare(r[i], b[i]) > 0) r[i] = b[i];
+                }
+                case MAX -> {
+                    for (int i = 0; i < n; i++) if (Double.compare(r[i], b[i]) < 0) r[i] = b[i];
+                }
+            }
+        }
+        if (kernel == Kernel.AVG) {
+            double count = in.length;
+            for (int i = 0; i < n; i++) r[i] /= count;
+        }
+    }
+
+    private void markNegative(long[] flags, long[] slow) {
+        for (int i = 0; i < size; i++) if (flags[i] < 0) set(slow, i);
+    }
+
+    static boolean get(long[] bits, int i) {
+        return (bits[i >>> 6] & (1L << i)) != 0;
+    }
+
+    static void set(long[] bits, int i) {
+        bits[i >>> 6] |= 1L << i;
+    }
+
+    /**
+     * 置位 [0, size)
+     */
+    static void fill(long[] bits, int size) {
+        int full = size >>> 6;
+        for (int w = 0; w < full; w++) bits[w] = -1L;
+        if ((size & 63) != 0) bits[full] = (1L << size) - 1;
+    }
+
+    static void clear(long[] bits, int i) {
+        bits[i >>> 6] &= ~(1L << i);
+    }
+
+    /**
+     * 从 from 开始的下一个置位下标，没有时返回 -1
+     */
+    static int nextSet(long[] bits, int from) {
+        int w = from >>> 6;
+        if (w >= bits.length) return -1;
+        long word = bits[w] & (-1L << from);
+        while (true) {
+            if (word != 0) return (w << 6) + Long.numberOfTrailingZeros(word);
+            if (++w == bits.length) return -1;
+            word = bits[w];
+        }
+    }
+
+    /**
+     * 一个字段的列：原始值数组 + nulls / irregular 位图 + 稀疏的 boxed 值
+     */
+    static final class Column {
+        final boolean doubles;
+        final long[] l;
+        final double[] d;
+        final long[] nulls;
+        final long[] irregular;
+        Number[] boxed;
+        /**
+         * 本批写入过的行，null 表示只读列（从记录转置而来）
+         */
+        long[] dirty;
+
+        Column(int size, int words, boolean doubles) {
+            this.doubles = doubles;
+            this.l = doubles ? null : new long[size];
+            this.d = doubles ? new double[size] : null;
+            this.nulls = new long[words];
+            this.irregular = new long[words];
+        }
+
+        /**
+         * 从记录转置：按 NumericKernel.parse 解析；lossy 且小数多于整数时为 double 列，否则为 long 列
+         */
+        static Column load(List<Map<String, Object>> rows, String field, int words, boolean lossy) {
+            int n = rows.size();
+            Number[] parsed = new Number[n];
+            int longs = 0, doubles = 0;
+            for (int i = 0; i < n; i++) {
+                Number v = NumericKernel.parse(rows.get(i).get(field));
+                parsed[i] = v;
+                if (v instanceof Long) longs++;
+                else if (v instanceof Double) doubles++;
+            }
+            Column c = new Column(n, words, lossy && doubles > longs);
+            for (int i = 0; i < n; i++) {
+                if (parsed[i] == null) {
+                    set(c.nulls, i);
+                    set(c.irregular, i);
+                } else {
+                    c.put(i, parsed[i]);
+                }
+            }
+            return c;
+        }
+
+        Number get(int i) {
+            if (boxed != null && boxed[i] != null) return boxed[i];
+            if (ColumnBatch.get(nulls, i)) return null;
+            return doubles ? (Number) d[i] : (Number) l[i];
+        }
+
+        void put(int i, Number v) {
+            if (doubles ? v instanceof Double : v instanceof Long) {
+                if (doubles) d[i] = v.doubleValue();
+                else l[i] = v.longValue();
+                return;
+            }
+            if (boxed == null) boxed = new Number[doubles ? d.length : l.length];
+            boxed[i] = v;
+            set(irregular, i);
+        }
+
+        void copy(int i, Column from) {
+            Number v = from.get(i);
+            if (v == null) {
+                set(nulls, i);
+                set(irregular, i);
+            } else {
+                put(i, v);
+            }
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.ml.datatransformer.dts.pipeline.impl.calculate;
+
+import java.util.Map;
+
+/**
+ * DivOperator
+ * 以第一个有效字段为被除数，依次除以其余字段；任一除数为 0 时不写入结果。
+ *
+ * 配置示例：
+ * {
+ *   "fields_name": ["a", "b"],
+ *   "result_name": "quotient"
+ * }
+ * 通用配置（math/scale/rounding）见 ArithmeticOperator。
+ */
+public class DivOperator extends ArithmeticOperator {
+
+    public DivOperator(Map<String, Object> config) {
+        super(config, "quotient");
+    }
+
+    @Override
+    protected boolean apply(NumericKernel.Accumulator acc, Number value, int index) {
+        if (index == 0) {
+            acc.set(value);
+            return true;
+        }
+        return acc.divide(value);
+    }
+
+    @Override
+    ColumnBatch.Kernel kernel() {
+        return ColumnBatch.Kernel.DIV;
+    }
+
+    @Override
+    public String name() {
+        return "calculate:div";
+    }
+}
\ No newline at end of file
@@ -0,0 +1,125 @@
+package com.ml.datatransformer.dts.pipeline.impl.calculate;
+
+import com.ml.datatransformer.dts.pipeline.model.MapProcessor;
+import com.ml.datatransformer.dts.pipeline.model.SchemaBindable;
+import com.ml.datatransformer.dts.pipeline.record.RecordSchema;
+import com.ml.datatransformer.dts.pipeline.record.SlotRecord;
+
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * ExprOperator
+ * 公式计算算子：公式在流水线编译期解析为求值树，字段访问已预先解析，每行只做节点求值。
+ *
+ * 配置示例：
+ * {
+ *   "formula": "total = (scheme_rate + interchange_rate) * amount",
+ *   // 或多条，按顺序求值，后面的公式可引用前面的结果
+ *   "formulas": ["fee = scheme_rate + interchange_rate", "total = fee * amount"],
+ *   "math": "exact",          // 同 ArithmeticOperator
+ *   "scale": 10,
+ *   "rounding": "HALF_UP"
+ * }
+ * 公式结果为 null（操作数缺失、除数为 0）时不写入目标字段。
+ */
+public class ExprOperator implements MapProcessor, SchemaBindable {
+
+    private final String[] targets;
+    private final ExpressionCompiler.Expr[] exprs;
+
+    public ExprOperator(Map<String, Object> config) {
+        Object math = config == null ? null : config.get("math");
+        boolean lossy = math != null && "double".equalsIgnoreCase(String.valueOf(math));
+        Object sc = config == null ? null : config.get("scale");
+        Number parsedScale = sc == null ? null : NumericKernel.parse(sc);
+        int scale = parsedScale instanceof Long l ? l.intValue() : NumericKernel.DEFAULT_SCALE;
+        RoundingMode rounding = ArithmeticOperator.parseRounding(config == null ? null : config.get("rounding"));
+        ExpressionCompiler compiler = new ExpressionCompiler(lossy, scale, rounding);
+
+        List<String> formulas = new ArrayList<>();
+        Object single = config == null ? null : config.get("formula");
+        if (single != null) formulas.add(String.valueOf(single));
+        Object many = config == null ? null : config.get("formulas");
+        if (many instanceof List<?> list) {
+            for (Object o : list) formulas.add(String.valueOf(o));
+        }
+        this.targets = new String[formulas.size()];
+        this.exprs = new ExpressionCompiler.Expr[formulas.size()];
+        for (int i = 0; i < formulas.size(); i++) {
+            String f = formulas.get(i);
+            int eq = f.indexOf('=');
+            if (eq <= 0) throw new IllegalArgumentException("invalid formula [" + f + "]: expected 'target = expression'");
+            String target = f.substring(0, eq).trim();
+            if (target.length() > 1 && target.startsWith("`") && target.endsWith("`")) {
+                target = target.substring(1, target.length() - 1);
+            }
+            if (target.isEmpty()) throw new IllegalArgumentException("invalid formula [" + f + "]: missing target field");
+            targets[i] = target;
+            exprs[i] = compiler.compile(f.substring(eq + 1));
+        }
+    }
+
+    @Override
+    public Map<String, Object> process(Map<String, Object> data) {
+        for (int i = 0; i < exprs.length; i++) {
+            Number v = exprs[i].eval(data);
+            if (v != null) data.put(targets[i], v);
+        }
+        return data;
+    }
+
+    @Override
+    public Collection<String> fields() {
+        Set<String> fields = new LinkedHashSet<>();
+        for (int i = 0; i < exprs.length; i++) {
+            fields.addAll(ExpressionCompiler.fieldsOf(exprs[i]));
+            fields.add(targets[i]);
+        }
+        return fields;
+    }
+
+    /**
+     * 槽位版本：字段节点替换为按下标读取，结果按下标写回
+     */
+    @Override
+    public MapProcessor bind(RecordSchema schema) {
+        ExpressionCompiler.Expr[] bound = new ExpressionCompiler.Expr[exprs.length];
+        int[] targetSlots = new int[exprs.length];
+        for (int i = 0; i < exprs.length; i++) {
+            bound[i] = exprs[i].bind(schema);
+            targetSlots[i] = schema.slot(targets[i]);
+        }
+        ExprOperator self = this;
+        return new MapProcessor() {
+            @Override
+            public Map<String, Object> process(Map<String, Object> data) {
+                if (!(data instanceof SlotRecord record) || record.schema() != schema) {
+                    return self.process(data);
+                }
+                for (int i = 0; i < bound.length; i++) {
+                    Number v = bound[i].eval(record);
+                    if (v == null) continue;
+                    if (targetSlots[i] >= 0) record.set(targetSlots[i], v);
+                    else record.put(targets[i], v);
+                }
+                return data;
+            }
+
+            @Override
+            public String name() {
+                return self.name();
+            }
+        };
+    }
+
+    @Override
+    public String name() {
+        return "calculate:expr";
+    }
+}
\ No newline at end of file
@@ -0,0 +1,370 @@
+package com.ml.datatransformer.dts.pipeline.impl.calculate;
+
+import com.ml.datatransformer.dts.pipeline.record.RecordSchema;
+import com.ml.datatransformer.dts.pipeline.record.SlotRecord;
+
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * ExpressionCompiler
+ * 把 task.yaml 中的算术公式编译为求值树，编译期完成词法/语法分析与常量折叠，运行期只做节点求值。
+ *
+ * 语法：
+ *   expr    := term (('+' | '-') term)*
+ *   term    := unary (('*' | '/') unary)*
+ *   unary   := '-' unary | primary
+ *   primary := number | field | func '(' expr (',' expr)* ')' | '(' expr ')'
+ *   field   := [A-Za-z_][A-Za-z0-9_.]* | `任意字段名`
+ *   func    := min | max | abs | round | coalesce
+ *
+ * 任一操作数缺失或非数字时结果为 null（可用 coalesce(x, 0) 指定默认值）；除数为 0 时结果为 null。
+ */
+public final class ExpressionCompiler {
+
+    private final boolean lossy;
+    private final int scale;
+    private final RoundingMode rounding;
+
+    public ExpressionCompiler(boolean lossy, int scale, RoundingMode rounding) {
+        this.lossy = lossy;
+        this.scale = scale;
+        this.rounding = rounding;
+    }
+
+    /**
+     * 编译后的表达式节点；求值不修改节点状态，可被多线程共享
+     */
+    public interface Expr {
+        Number eval(Map<String, Object> row);
+
+        /**
+         * 把字段节点替换为按槽位访问的版本，返回新树
+         */
+        default Expr bind(RecordSchema schema) {
+            return this;
+        }
+
+        default void collectFields(Set<String> out) {
+        }
+    }
+
+    public Expr compile(String source) {
+        Parser p = new Parser(source);
+        Expr e = p.parseExpr();
+        p.skipSpaces();
+        if (p.pos != source.length()) throw p.error("unexpected '" + source.charAt(p.pos) + "'");
+        return e;
+    }
+
+    public static Set<String> fieldsOf(Expr e) {
+        Set<String> out = new LinkedHashSet<>();
+        e.collectFields(out);
+        return out;
+    }
+
+    // ---------------- nodes ----------------
+
+    private record Const(Number value) implements Expr {
+        @Override
+        public Number eval(Map<String, Object> row) {
+            return value;
+        }
+    }
+
+    private record Field(String name) implements Expr {
+        @Override
+        public Number eval(Map<String, Object> row) {
+            return NumericKernel.parse(row.get(name));
+        }
+
+        @Override
+        public Expr bind(RecordSchema schema) {
+            int slot = schema.slot(name);
+            return slot < 0 ? this : new SlotField(name, slot, schema);
+        }
+
+        @Override
+        public void collectFields(Set<String> out) {
+            out.add(name);
+        }
+    }
+
+    private record SlotField(String name, int slot, RecordSchema schema) implements Expr {
+        @Override
+        public Number eval(Map<String, Object> row) {
+            if (row instanceof SlotRecord r && r.schema() == schema) return NumericKernel.parse(r.get(slot));
+            return NumericKernel.parse(row.get(name));
+        }
+
+        @Override
+        public void collectFields(Set<String> out) {
+            out.add(name);
+        }
+    }
+
+    private final class Binary implements Expr {
+        private final char op;
+        private final Expr left;
+        private final Expr right;
+
+        private Binary(char op, Expr left, Expr right) {
+            this.op = op;
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        public Number eval(Map<String, Object> row) {
+            Number a = left.eval(row);
+            if (a == null) return null;
+            Number b = right.eval(row);
+            if (b == null) return null;
+            return apply(a, b);
+        }
+
+        private Number apply(Number a, Number b) {
+            switch (op) {
+                case '+': return NumericKernel.add(a, b, lossy);
+                case '-': return NumericKernel.subtract(a, b, lossy);
+                case '*': return NumericKernel.multiply(a, b, lossy);
+                default: return NumericKernel.divide(a, b, lossy, scale, rounding);
+            }
+        }
+
+        @Override
+        public Expr bind(RecordSchema schema) {
+            return new Binary(op, left.bind(schema), right.bind(schema));
+        }
+
+        @Override
+        public void collectFields(Set<String> out) {
+            left.collectFields(out);
+            right.collectFields(out);
+        }
+    }
+
+    private record Negate(Expr inner) implements Expr {
+        @Override
+        public Number eval(Map<String, Object> row) {
+            Number v = inner.eval(row);
+            return v == null ? null : NumericKernel.negate(v);
+        }
+
+        @Override
+        public Expr bind(RecordSchema schema) {
+            return new Negate(inner.bind(schema));
+        }
+
+        @Override
+        public void collectFields(Set<String> out) {
+            inner.collectFields(out);
+        }
+    }
+
+    private final class Call implements Expr {
+        private final String fn;
+        private final Expr[] args;
+
+        private Call(String fn, Expr[] args) {
+            this.fn = fn;
+            this.args = args;
+        }
+
+        @Override
+        public Number eval(Map<String, Object> row) {
+            switch (fn) {
+                case "coalesce":
+                    for (Expr a : args) {
+                        Number v = a.eval(row);
+                        if (v != null) return v;
+                    }
+                    return null;
+                case "abs": {
+                    Number v = args[0].eval(row);
+                    if (v == null) return null;
+                    return NumericKernel.compare(v, 0L) < 0 ? NumericKernel.negate(v) : v;
+                }
+                case "round": {
+                    Number v = args[0].eval(row);
+                    Number digits = args.length > 1 ? args[1].eval(row) : Long.valueOf(0);
+                    if (v == null || digits == null) return null;
+                    if (v instanceof Long) return v;
+                    if (lossy && v instanceof Double d) {
+                        double f = Math.pow(10, digits.intValue());
+                        return Math.round(d * f) / f;
+                    }
+                    return NumericKernel.toDecimal(v).setScale(digits.intValue(), rounding);
+                }
+                default: {
+                    // min / max
+                    boolean min = "min".equals(fn);
+                    Number best = null;
+                    for (Expr a : args) {
+                        Number v = a.eval(row);
+                        if (v == null) return null;
+                        if (best == null || (min ? NumericKernel.compare(v, best) < 0 : NumericKernel.compare(v, best) > 0)) {
+                            best = v;
+                        }
+                    }
+                    return best;
+                }
+            }
+        }
+
+        @Override
+        public Expr bind(RecordSchema schema) {
+            Expr[] bound = new Expr[args.length];
+            for (int i = 0; i < args.length; i++) bound[i] = args[i].bind(schema);
+            return new Call(fn, bound);
+        }
+
+        @Override
+        public void collectFields(Set<String> out) {
+            for (Expr a : args) a.collectFields(out);
+        }
+    }
+
+    // ---------------- parser ----------------
+
+    private final class Parser {
+        private final String src;
+        private int pos;
+
+        private Parser(String src) {
+            this.src = src;
+        }
+
+        Expr parseExpr() {
+            Expr left = parseTerm();
+            while (true) {
+                skipSpaces();
+                if (peek('+') || peek('-')) {
+                    char op = src.charAt(pos++);
+                    left = fold(new Binary(op, left, parseTerm()));
+                } else {
+                    return left;
+                }
+            }
+        }
+
+        Expr parseTerm() {
+            Expr left = parseUnary();
+            while (true) {
+                skipSpaces();
+                if (peek('*') || peek('/')) {
+                    char op = src.charAt(pos++);
+                    left = fold(new Binary(op, left, parseUnary()));
+                } else {
+                    return left;
+                }
+            }
+        }
+
+        Expr parseUnary() {
+            skipSpaces();
+            if (peek('-')) {
+                pos++;
+                return fold(new Negate(parseUnary()));
+            }
+            if (peek('+')) {
+                pos++;
+                return parseUnary();
+            }
+            return parsePrimary();
+        }
+
+        Expr parsePrimary() {
+            skipSpaces();
+            if (pos >= src.length()) throw error("unexpected end of formula");
+            char c = src.charAt(pos);
+            if (c == '(') {
+                pos++;
+                Expr e = parseExpr();
+                expect(')');
+                return e;
+            }
+            if (c == '`') {
+                int end = src.indexOf('`', pos + 1);
+                if (end < 0) throw error("unclosed `");
+                String name = src.substring(pos + 1, end);
+                pos = end + 1;
+                return new Field(name);
+            }
+            if ((c >= '0' && c <= '9') || c == '.') {
+                int start = pos;
+                while (pos < src.length() && (Character.isDigit(src.charAt(pos)) || src.charAt(pos) == '.')) pos++;
+                Number n = NumericKernel.parse(src.substring(start, pos));
+                if (n == null) throw error("invalid number '" + src.substring(start, pos) + "'");
+                return new Const(n);
+            }
+            if (Character.isLetter(c) || c == '_') {
+                int start = pos;
+                while (pos < src.length() && (Character.isLetterOrDigit(src.charAt(pos)) || src.charAt(pos) == '_' || src.charAt(pos) == '.')) pos++;
+                String ident = src.substring(start, pos);
+                skipSpaces();
+                if (peek('(')) {
+                    pos++;
+                    return parseCall(ident.toLowerCase(Locale.ROOT));
+                }
+                return new Field(ident);
+            }
+            throw error("unexpected '" + c + "'");
+        }
+
+        Expr parseCall(String fn) {
+            if (!List.of("min", "max", "abs", "round", "coalesce").contains(fn)) throw error("unknown function " + fn);
+            List<Expr> args = new ArrayList<>();
+            skipSpaces();
+            if (!peek(')')) {
+                args.add(parseExpr());
+                skipSpaces();
+                while (peek(',')) {
+                    pos++;
+                    args.add(parseExpr());
+                    skipSpaces();
+                }
+            }
+            expect(')');
+            if (args.isEmpty()) throw error(fn + "() requires arguments");
+            if (("abs".equals(fn) && args.size() != 1) || ("round".equals(fn) && args.size() > 2)) {
+                throw error("wrong number of arguments for " + fn);
+            }
+            return fold(new Call(fn, args.toArray(new Expr[0])));
+        }
+
+        /**
+         * 常量折叠：所有子节点都是常量时在编译期直接求值
+         */
+        private Expr fold(Expr e) {
+            if (fieldsOf(e).isEmpty()) {
+                Number v = e.eval(Map.of());
+                if (v != null) return new Const(v);
+            }
+            return e;
+        }
+
+        void skipSpaces() {
+            while (pos < src.length() && Character.isWhitespace(src.charAt(pos))) pos++;
+        }
+
+        private boolean peek(char c) {
+            return pos < src.length() && src.charAt(pos) == c;
+        }
+
+        private void expect(char c) {
+            skipSpaces();
+            if (!peek(c)) throw error("expected '" + c + "'");
+            pos++;
+        }
+
+        private IllegalArgumentException error(String msg) {
+            return new IllegalArgumentException("invalid formula [" + src + "] at " + pos + ": " + msg);
+        }
+    }
+}
\ No newline at end of file
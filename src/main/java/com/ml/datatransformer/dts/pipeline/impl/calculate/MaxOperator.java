@@ -0,0 +1,37 @@
+package com.ml.datatransformer.dts.pipeline.impl.calculate;
+
+import java.util.Map;
+
+/**
+ * MaxOperator
+ * 取多个字段中的最大值。
+ *
+ * 配置示例：
+ * {
+ *   "fields_name": ["a", "b"],
+ *   "result_name": "max"
+ * }
+ * 通用配置（math/scale/rounding）见 ArithmeticOperator。
+ */
+public class MaxOperator extends ArithmeticOperator {
+
+    public MaxOperator(Map<String, Object> config) {
+        super(config, "max");
+    }
+
+    @Override
+    protected boolean apply(NumericKernel.Accumulator acc, Number value, int index) {
+        acc.max(value);
+        return true;
+    }
+
+    @Override
+    ColumnBatch.Kernel kernel() {
+        return ColumnBatch.Kernel.MAX;
+    }
+
+    @Override
+    public String name() {
+        return "calculate:max";
+    }
+}
\ No newline at end of file
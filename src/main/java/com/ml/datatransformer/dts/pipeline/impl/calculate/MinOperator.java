@@ -0,0 +1,37 @@
+package com.ml.datatransformer.dts.pipeline.impl.calculate;
+
+import java.util.Map;
+
+/**
+ * MinOperator
+ * 取多个字段中的最小值。
+ *
+ * 配置示例：
+ * {
+ *   "fields_name": ["a", "b"],
+ *   "result_name": "min"
+ * }
+ * 通用配置（math/scale/rounding）见 ArithmeticOperator。
+ */
+public class MinOperator extends ArithmeticOperator {
+
+    public MinOperator(Map<String, Object> config) {
+        super(config, "min");
+    }
+
+    @Override
+    protected boolean apply(NumericKernel.Accumulator acc, Number value, int index) {
+        acc.min(value);
+        return true;
+    }
+
+    @Override
+    ColumnBatch.Kernel kernel() {
+        return ColumnBatch.Kernel.MIN;
+    }
+
+    @Override
+    public String name() {
+        return "calculate:min";
+    }
+}
\ No newline at end of file
@@ -0,0 +1,37 @@
+package com.ml.datatransformer.dts.pipeline.impl.calculate;
+
+import java.util.Map;
+
+/**
+ * MulOperator
+ * 对多个字段求积。
+ *
+ * 配置示例：
+ * {
+ *   "fields_name": ["a", "b"],
+ *   "result_name": "product"
+ * }
+ * 通用配置（math/scale/rounding）见 ArithmeticOperator。
+ */
+public class MulOperator extends ArithmeticOperator {
+
+    public MulOperator(Map<String, Object> config) {
+        super(config, "product");
+    }
+
+    @Override
+    protected boolean apply(NumericKernel.Accumulator acc, Number value, int index) {
+        acc.multiply(value);
+        return true;
+    }
+
+    @Override
+    ColumnBatch.Kernel kernel() {
+        return ColumnBatch.Kernel.MUL;
+    }
+
+    @Override
+    public String name() {
+        return "calculate:mul";
+    }
+}
\ No newline at end of file
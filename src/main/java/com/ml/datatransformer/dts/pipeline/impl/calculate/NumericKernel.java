@@ -0,0 +1,309 @@
+package com.ml.datatransformer.dts.pipeline.impl.calculate;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+
+/**
+ * NumericKernel
+ * calculate 类算子共享的数值内核：
+ * - 解析不抛异常：非数字字符串先做字符校验，直接返回 null，不走 NumberFormatException
+ * - 每个值按最便宜的表示参与运算：整数走 long（溢出自动提升 BigDecimal），
+ *   小数默认走 BigDecimal 保证精度；任务声明 math: double 时走 double（有损但最快）
+ * - Accumulator 为单线程可变对象，每条记录新建一个，不跨线程共享
+ */
+public final class NumericKernel {
+
+    public static final int DEFAULT_SCALE = 10;
+
+    private NumericKernel() {
+    }
+
+    /**
+     * 解析为 Long / Double / BigDecimal；无法解析返回 null
+     */
+    public static Number parse(Object v) {
+        if (v == null) return null;
+        if (v instanceof Long || v instanceof Integer || v instanceof Short || v instanceof Byte) {
+            return ((Number) v).longValue();
+        }
+        if (v instanceof Double || v instanceof Float) {
+            double d = ((Number) v).doubleValue();
+            return Double.isFinite(d) ? d : null;
+        }
+        if (v instanceof BigDecimal bd) return bd;
+        if (v instanceof BigInteger bi) return new BigDecimal(bi);
+        if (v instanceof Number n) return parseString(n.toString());
+        if (v instanceof CharSequence cs) return parseString(cs);
+        return null;
+    }
+
+    /**
+     * 字符级校验：[+-]digits[.digits][(e|E)[+-]digits]；不超过 18 位的纯整数直接累加为 long
+     */
+    static Number parseString(CharSequence s) {
+        int len = s.length();
+        int start = 0;
+        while (start < len && s.charAt(start) <= ' ') start++;
+        int end = len;
+        while (end > start && s.charAt(end - 1) <= ' ') end--;
+        if (start == end) return null;
+
+        int i = start;
+        boolean negative = false;
+        char c = s.charAt(i);
+        if (c == '+' || c == '-') {
+            negative = c == '-';
+            if (++i == end) return null;
+        }
+        long acc = 0;
+        int intDigits = 0;
+        while (i < end && (c = s.charAt(i)) >= '0' && c <= '9') {
+            if (intDigits < 18) acc = acc * 10 + (c - '0');
+            intDigits++;
+            i++;
+        }
+        if (i == end) {
+            if (intDigits == 0) return null;
+            if (intDigits <= 18) return negative ? -acc : acc;
+            return new BigDecimal(s.subSequence(start, end).toString());
+        }
+        int fracDigits = 0;
+        if (s.charAt(i) == '.') {
+            i++;
+            while (i < end && (c = s.charAt(i)) >= '0' && c <= '9') {
+                fracDigits++;
+                i++;
+            }
+        }
+        if (intDigits + fracDigits == 0) return null;
+        if (i < end && (s.charAt(i) == 'e' || s.charAt(i) == 'E')) {
+            i++;
+            if (i < end && (s.charAt(i) == '+' || s.charAt(i) == '-')) i++;
+            int expDigits = 0;
+            while (i < end && (c = s.charAt(i)) >= '0' && c <= '9') {
+                expDigits++;
+                i++;
+            }
+            if (expDigits == 0 || expDigits > 9) return null;
+        }
+        if (i != end) return null;
+        return new BigDecimal(s.subSequence(start, end).toString());
+    }
+
+    static BigDecimal toDecimal(Number n) {
+        if (n instanceof BigDecimal bd) return bd;
+        if (n instanceof Double d) return BigDecimal.valueOf(d);
+        return BigDecimal.valueOf(n.longValue());
+    }
+
+    /**
+     * 二元运算：两个 long 且不溢出时保持 long，否则按 lossy 提升为 double 或 BigDecimal
+     */
+    public static Number add(Number a, Number b, boolean lossy) {
+        if (a instanceof Long x && b instanceof Long y) {
+            long r = x + y;
+            if (((x ^ r) & (y ^ r)) >= 0) return r;
+        }
+        return lossy ? (Number) (a.doubleValue() + b.doubleValue()) : toDecimal(a).add(toDecimal(b));
+    }
+
+    public static Number subtract(Number a, Number b, boolean lossy) {
+        if (a instanceof Long x && b instanceof Long y) {
+            long r = x - y;
+            if (((x ^ y) & (x ^ r)) >= 0) return r;
+        }
+        return lossy ? (Number) (a.doubleValue() - b.doubleValue()) : toDecimal(a).subtract(toDecimal(b));
+    }
+
+    public static Number multiply(Number a, Number b, boolean lossy) {
+        if (a instanceof Long x && b instanceof Long y) {
+            long hi = Math.multiplyHigh(x, y);
+            long lo = x * y;
+            if ((hi == 0 && lo >= 0) || (hi == -1 && lo < 0)) return lo;
+        }
+        return lossy ? (Number) (a.doubleValue() * b.doubleValue()) : toDecimal(a).multiply(toDecimal(b));
+    }
+
+    /**
+     * 除数为 0 时返回 null
+     */
+    public static Number divide(Number a, Number b, boolean lossy, int scale, RoundingMode rounding) {
+        if (b instanceof Long y) {
+            if (y == 0) return null;
+            if (a instanceof Long x && y != -1 && x % y == 0) return x / y;
+        } else if (b instanceof Double y) {
+            if (y == 0d) return null;
+        } else if (toDecimal(b).signum() == 0) {
+            return null;
+        }
+        return lossy ? (Number) (a.doubleValue() / b.doubleValue()) : toDecimal(a).divide(toDecimal(b), scale, rounding);
+    }
+
+    public static int compare(Number a, Number b) {
+        if (a instanceof Long x && b instanceof Long y) return Long.compare(x, y);
+        if (a instanceof Double x && b instanceof Double y) return Double.compare(x, y);
+        return toDecimal(a).compareTo(toDecimal(b));
+    }
+
+    public static Number negate(Number a) {
+        if (a instanceof Long x && x != Long.MIN_VALUE) return -x;
+        if (a instanceof Double x) return -x;
+        return toDecimal(a).negate();
+    }
+
+    /**
+     * 可变累加器：kind 随输入逐步提升 LONG -> DOUBLE(lossy) 或 LONG -> DECIMAL(精确)，不会降级
+     */
+    public static final class Accumulator {
+        private static final int EMPTY = 0, LONG = 1, DOUBLE = 2, DECIMAL = 3;
+
+        private final boolean lossy;
+        private final int scale;
+        private final RoundingMode rounding;
+        private int kind = EMPTY;
+        private long l;
+        private double d;
+        private BigDecimal b;
+
+        public Accumulator(boolean lossy, int scale, RoundingMode rounding) {
+            this.lossy = lossy;
+            this.scale = scale;
+            this.rounding = rounding;
+        }
+
+        public boolean isEmpty() {
+            return kind == EMPTY;
+        }
+
+        public void set(Number n) {
+            if (n instanceof Long v) {
+                kind = LONG;
+                l = v;
+            } else if (lossy) {
+                kind = DOUBLE;
+                d = n.doubleValue();
+            } else {
+                kind = DECIMAL;
+                b = toDecimal(n);
+            }
+        }
+
+        public void add(Number n) {
+            if (kind == EMPTY) { set(n); return; }
+            if (kind == LONG && n instanceof Long v) {
+                long r = l + v;
+                // 同号相加结果变号即溢出（Math.addExact 的判定方式，不依赖异常）
+                if (((l ^ r) & (v ^ r)) >= 0) { l = r; return; }
+            }
+            if (promote(n) == DOUBLE) d += n.doubleValue();
+            else b = b.add(toDecimal(n));
+        }
+
+        public void subtract(Number n) {
+            if (kind == EMPTY) { set(n); negate(); return; }
+            if (kind == LONG && n instanceof Long v) {
+                long r = l - v;
+                if (((l ^ v) & (l ^ r)) >= 0) { l = r; return; }
+            }
+            if (promote(n) == DOUBLE) d -= n.doubleValue();
+            else b = b.subtract(toDecimal(n));
+        }
+
+        public void multiply(Number n) {
+            if (kind == EMPTY) { set(n); return; }
+            if (kind == LONG && n instanceof Long v) {
+                long hi = Math.multiplyHigh(l, v);
+                long lo = l * v;
+                if ((hi == 0 && lo >= 0) || (hi == -1 && lo < 0)) { l = lo; return; }
+            }
+            if (promote(n) == DOUBLE) d *= n.doubleValue();
+            else b = b.multiply(toDecimal(n));
+        }
+
+        /**
+         * 除数为 0 时返回 false 且不修改当前值
+         */
+        public boolean divide(Number n) {
+            if (kind == EMPTY) { set(n); return true; }
+            if (isZero(n)) return false;
+            if (kind == LONG && n instanceof Long v && v != -1 && l % v == 0) {
+                l = l / v;
+                return true;
+            }
+            if (lossy) {
+                promoteToDouble();
+                d /= n.doubleValue();
+            } else {
+                promoteToDecimal();
+                b = b.divide(NumericKernel.toDecimal(n), scale, rounding);
+            }
+            return true;
+        }
+
+        public void min(Number n) {
+            if (kind == EMPTY || compareTo(n) > 0) set(n);
+        }
+
+        public void max(Number n) {
+            if (kind == EMPTY || compareTo(n) < 0) set(n);
+        }
+
+        /**
+         * @return Long / Double / BigDecimal；空累加器返回 null
+         */
+        public Number result() {
+            switch (kind) {
+                case LONG: return l;
+                case DOUBLE: return d;
+                case DECIMAL: return b;
+                default: return null;
+            }
+        }
+
+        private int compareTo(Number n) {
+            if (kind == LONG && n instanceof Long v) return Long.compare(l, v);
+            if (lossy) return Double.compare(kind == LONG ? (double) l : d, n.doubleValue());
+            BigDecimal current = kind == LONG ? BigDecimal.valueOf(l) : b;
+            return current.compareTo(NumericKernel.toDecimal(n));
+        }
+
+        private boolean isZero(Number n) {
+            if (n instanceof Long v) return v == 0;
+            if (n instanceof Double v) return v == 0d;
+            return toDecimal(n).signum() == 0;
+        }
+
+        private void negate() {
+            switch (kind) {
+                case LONG:
+                    if (l == Long.MIN_VALUE) { promoteToDecimal(); b = b.negate(); } else l = -l;
+                    break;
+                case DOUBLE: d = -d; break;
+                case DECIMAL: b = b.negate(); break;
+                default: break;
+            }
+        }
+
+        /**
+         * 提升到可同时表示当前值与输入的 kind：lossy 为 DOUBLE，否则为 DECIMAL
+         */
+        private int promote(Number n) {
+            if (lossy) promoteToDouble();
+            else promoteToDecimal();
+            return kind;
+        }
+
+        private void promoteToDouble() {
+            if (kind == LONG) d = l;
+            else if (kind == DECIMAL) d = b.doubleValue();
+            kind = DOUBLE;
+        }
+
+        private void promoteToDecimal() {
+            if (kind == LONG) b = BigDecimal.valueOf(l);
+            else if (kind == DOUBLE) b = BigDecimal.valueOf(d);
+            kind = DECIMAL;
+        }
+    }
+}
\ No newline at end of file
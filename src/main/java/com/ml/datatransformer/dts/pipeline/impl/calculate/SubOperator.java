@@ -0,0 +1,38 @@
+package com.ml.datatransformer.dts.pipeline.impl.calculate;
+
+import java.util.Map;
+
+/**
+ * SubOperator
+ * 以第一个有效字段为被减数，依次减去其余字段。
+ *
+ * 配置示例：
+ * {
+ *   "fields_name": ["a", "b"],
+ *   "result_name": "diff"
+ * }
+ * 通用配置（math/scale/rounding）见 ArithmeticOperator。
+ */
+public class SubOperator extends ArithmeticOperator {
+
+    public SubOperator(Map<String, Object> config) {
+        super(config, "diff");
+    }
+
+    @Override
+    protected boolean apply(NumericKernel.Accumulator acc, Number value, int index) {
+        if (index == 0) acc.set(value);
+        else acc.subtract(value);
+        return true;
+    }
+
+    @Override
+    ColumnBatch.Kernel kernel() {
+        return ColumnBatch.Kernel.SUB;
+    }
+
+    @Override
+    public String name() {
+        return "calculate:sub";
+    }
+}
\ No newline at end of file
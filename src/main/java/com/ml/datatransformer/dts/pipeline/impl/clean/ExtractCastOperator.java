@@ -0,0 +1,117 @@
+package com.ml.datatransformer.dts.pipeline.impl.clean;
+
+import com.ml.datatransformer.dts.pipeline.model.MapProcessor;
+import com.ml.datatransformer.dts.pipeline.model.SchemaBindable;
+import com.ml.datatransformer.dts.pipeline.record.RecordSchema;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * ExtractCastOperator
+ * extract_json 后紧跟 type_cast 时合并为一次遍历（由 PipelineOptimizer 生成）：
+ * 抽取出的值直接按目标类型转换后写入一次；type_cast 中本行未由抽取写入的字段仍按记录中的原值转换。
+ * 结果与依次执行两个算子相同。
+ */
+public class ExtractCastOperator implements MapProcessor, SchemaBindable {
+
+    private final ExtractJsonOperator extract;
+    private final TypeCastOperator cast;
+    private final String[] outputs;
+    /**
+     * 每个抽取字段的目标类型，null 表示不转换
+     */
+    private final String[] targets;
+    /**
+     * type_cast 中不由抽取写入的字段与目标类型
+     */
+    private final String[] otherFields;
+    private final String[] otherTargets;
+
+    private ExtractCastOperator(ExtractJsonOperator extract, TypeCastOperator cast) {
+        this.extract = extract;
+        this.cast = cast;
+        Map<String, String> typeMap = cast.typeMap();
+        this.outputs = extract.outputNames().toArray(new String[0]);
+        this.targets = new String[outputs.length];
+        for (int i = 0; i < outputs.length; i++) targets[i] = typeMap.get(outputs[i]);
+        List<String> fields = new ArrayList<>();
+        List<String> types = new ArrayList<>();
+        typeMap.forEach((f, t) -> {
+            if (!extract.outputNames().contains(f)) {
+                fields.add(f);
+                types.add(t);
+            }
+        });
+        this.otherFields = fields.toArray(new String[0]);
+        this.otherTargets = types.toArray(new String[0]);
+    }
+
+    /**
+     * 可合并时返回合并后的算子，否则返回 null：须按 key_name 抽取（整体 putAll 时写入字段未知），且转换字段与抽取字段有交集
+     */
+    public static ExtractCastOperator fuse(MapProcessor first, MapProcessor second) {
+        if (!(first instanceof ExtractJsonOperator extract) || !(second instanceof TypeCastOperator cast)) return null;
+        if (extract.keys().isEmpty()) return null;
+        for (String f : cast.typeMap().keySet()) {
+            if (extract.outputNames().contains(f)) return new ExtractCastOperator(extract, cast);
+        }
+        return null;
+    }
+
+    @Override
+    public Map<String, Object> process(Map<String, Object> data) {
+        if (data == null) return extract.process(null);
+        Object payload = data.get(extract.sourceField());
+        Object[] values = null;
+        if (payload instanceof String json) {
+            try {
+                values = extract.extractor().extract(json);
+            } catch (Exception e) {
+                if (extract.strict()) throw extract.invalid(e);
+            }
+        }
+        for (int i = 0; i < outputs.length; i++) {
+            if (values != null && !JsonFieldExtractor.isMissing(values[i])) {
+                Object v = values[i];
+                data.put(outputs[i], targets[i] == null || v == null ? v : cast.cast(outputs[i], targets[i], v));
+                continue;
+            }
+            // 本行未抽取到，按记录中的原值转换
+            if (targets[i] == null) continue;
+            Object v = data.get(outputs[i]);
+            if (v == null) continue;
+            Object c = cast.cast(outputs[i], targets[i], v);
+            if (c != v) data.put(outputs[i], c);
+        }
+        for (int i = 0; i < otherFields.length; i++) {
+            Object v = data.get(otherFields[i]);
+            if (v == null) continue;
+            Object c = cast.cast(otherFields[i], otherTargets[i], v);
+            if (c != v) data.put(otherFields[i], c);
+        }
+        return data;
+    }
+
+    @Override
+    public Collection<String> fields() {
+        Set<String> fields = new LinkedHashSet<>(extract.fields());
+        fields.addAll(cast.fields());
+        return fields;
+    }
+
+    @Override
+    public MapProcessor bind(RecordSchema schema) {
+        // 字段已进入 schema，按 Map 视图访问即可命中槽位
+        return this;
+    }
+
+    @Override
+    public String name() {
+        return "clean:extract_json+type_cast";
+    }
+}
@@ -1,19 +1,44 @@
 package com.ml.datatransformer.dts.pipeline.impl.clean;
 
 import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.ml.datatransformer.dts.pipeline.model.MapProcessor;
+import com.ml.datatransformer.dts.pipeline.model.SchemaBindable;
+import com.ml.datatransformer.dts.pipeline.record.RecordSchema;
+import com.ml.datatransformer.dts.pipeline.record.SlotRecord;
 
 import java.util.*;
 
-public class ExtractJsonOperator implements MapProcessor {
-    private final ObjectMapper mapper = new ObjectMapper();
+/**
+ * ExtractJsonOperator
+ * 从 source_field（默认 payload）的 JSON 字符串中抽取字段写入当前记录。
+ *
+ * 配置示例：
+ * {
+ *   "key_name": ["scheme_rate", "/card/scheme", "/fees/0/amount"],
+ *   "key_alias": {"/card/scheme": "card_scheme"},
+ *   "source_field": "payload",
+ *   "strict": false
+ * }
+ *
+ * 规则：
+ * - key_name 为顶层字段名或 JSON Pointer；Pointer 默认以最后一段作为写入字段名，可用 key_alias 覆盖
+ * - 配置了 key_name 时使用 JsonFieldExtractor 流式抽取，找齐即停，不构建整棵 Map
+ * - 未配置 key_name 时整体解析并 putAll
+ * - strict=false（默认）时非法 JSON 忽略、记录原样返回；strict=true 时抛出 IllegalArgumentException，交由 on_error 策略处理
+ */
+public class ExtractJsonOperator implements MapProcessor, SchemaBindable {
     private final List<String> keys;
+    private final List<String> outputNames;
     private final String sourceField;
+    private final JsonFieldExtractor extractor;
+    private final boolean strict;
 
     public ExtractJsonOperator() {
         this.keys = Collections.emptyList();
+        this.outputNames = Collections.emptyList();
         this.sourceField = "payload";
+        this.extractor = new JsonFieldExtractor(keys);
+        this.strict = false;
     }
 
     public ExtractJsonOperator(Map<String, Object> config) {
@@ -25,8 +50,22 @@ public class ExtractJsonOperator implements MapProcessor {
         } else {
             this.keys = Collections.emptyList();
         }
+        Object alias = config == null ? null : config.get("key_alias");
+        List<String> names = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            Object a = alias instanceof Map<?, ?> m ? m.get(key) : null;
+            if (a != null) {
+                names.add(String.valueOf(a));
+            } else {
+                List<String> segments = JsonFieldExtractor.segments(key);
+                names.add(segments.get(segments.size() - 1));
+            }
+        }
+        this.outputNames = names;
         Object sf = config == null ? null : config.getOrDefault("source_field", "payload");
         this.sourceField = String.valueOf(sf);
+        this.extractor = new JsonFieldExtractor(keys);
+        this.strict = config != null && Boolean.parseBoolean(String.valueOf(config.get("strict")));
     }
 
     @Override
@@ -35,18 +74,83 @@ public class ExtractJsonOperator implements MapProcessor {
         Object payload = data.get(sourceField);
         if (!(payload instanceof String)) return data;
         try {
-            Map<String, Object> json = mapper.readValue((String) payload, new TypeReference<Map<String, Object>>() {});
             if (keys.isEmpty()) {
-                data.putAll(json);
+                data.putAll(JsonFieldExtractor.MAPPER.readValue((String) payload, new TypeReference<Map<String, Object>>() {}));
             } else {
-                for (String key : keys) {
-                    if (json.containsKey(key)) data.put(key, json.get(key));
+                Object[] values = extractor.extract((String) payload);
+                for (int i = 0; i < values.length; i++) {
+                    if (!JsonFieldExtractor.isMissing(values[i])) data.put(outputNames.get(i), values[i]);
                 }
             }
-        } catch (Exception ignored) {}
+        } catch (Exception e) {
+            if (strict) throw invalid(e);
+        }
         return data;
     }
 
+    List<String> keys() {
+        return keys;
+    }
+
+    List<String> outputNames() {
+        return outputNames;
+    }
+
+    String sourceField() {
+        return sourceField;
+    }
+
+    JsonFieldExtractor extractor() {
+        return extractor;
+    }
+
+    boolean strict() {
+        return strict;
+    }
+
+    IllegalArgumentException invalid(Exception e) {
+        return new IllegalArgumentException("invalid json in field [" + sourceField + "]: " + e.getMessage(), e);
+    }
+
+    @Override
+    public Collection<String> fields() {
+        List<String> fields = new ArrayList<>(outputNames);
+        fields.add(sourceField);
+        return fields;
+    }
+
+    @Override
+    public MapProcessor bind(RecordSchema schema) {
+        if (keys.isEmpty()) return this;
+        int sourceSlot = schema.slot(sourceField);
+        int[] keySlots = new int[outputNames.size()];
+        for (int i = 0; i < keySlots.length; i++) keySlots[i] = schema.slot(outputNames.get(i));
+        ExtractJsonOperator self = this;
+        return new MapProcessor() {
+            @Override
+            public Map<String, Object> process(Map<String, Object> data) {
+                if (!(data instanceof SlotRecord record) || record.schema() != schema || sourceSlot < 0) {
+                    return self.process(data);
+                }
+                if (!(record.get(sourceSlot) instanceof String payload)) return data;
+                try {
+                    Object[] values = extractor.extract(payload);
+                    for (int i = 0; i < values.length; i++) {
+                        if (JsonFieldExtractor.isMissing(values[i])) continue;
+                        if (keySlots[i] >= 0) record.set(keySlots[i], values[i]);
+                        else record.put(outputNames.get(i), values[i]);
+                    }
+                } catch (Exception e) {
+                    if (strict) throw invalid(e);
+                }
+                return data;
+            }
+
+            @Override
+            public String name() { return self.name(); }
+        };
+    }
+
     @Override
     public String name() { return "clean:extract_json"; }
-}
+}
\ No newline at end of file
@@ -1,13 +1,16 @@
 package com.ml.datatransformer.dts.pipeline.impl.clean;
 
 import com.ml.datatransformer.dts.pipeline.model.MapProcessor;
+import com.ml.datatransformer.dts.pipeline.model.SchemaBindable;
+import com.ml.datatransformer.dts.pipeline.record.RecordSchema;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
-public class ExtractSliceOperator implements MapProcessor {
+public class ExtractSliceOperator implements MapProcessor, SchemaBindable {
     private final String keyName;
     private final List<String> targetFields;
     private final int length;
@@ -63,6 +66,20 @@ public class ExtractSliceOperator implements MapProcessor {
         return data;
     }
 
+    @Override
+    public Collection<String> fields() {
+        List<String> fields = new ArrayList<>(targetFields);
+        fields.add(keyName);
+        if (targetFields.isEmpty()) fields.add(keyName + "_slice");
+        return fields;
+    }
+
+    @Override
+    public MapProcessor bind(RecordSchema schema) {
+        // 字段已进入 schema，按 Map 视图访问即可命中槽位
+        return this;
+    }
+
     @Override
     public String name() { return "clean:extract_slice"; }
 }
@@ -0,0 +1,171 @@
+package com.ml.datatransformer.dts.pipeline.impl.clean;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * JsonFieldExtractor
+ * 基于 Jackson 流式 JsonParser 的按需字段抽取：
+ * - 路径在构造时编译为前缀树，支持顶层字段名（"amount"）与 JSON Pointer（"/card/scheme"、"/items/0/fee"）
+ * - 未请求的子树通过 skipChildren 跳过，不构建任何对象
+ * - 所有目标字段找到后立即停止解析，不再读取剩余内容
+ *
+ * 实例不可变、线程安全，可在多个算子/线程间共享。
+ */
+public final class JsonFieldExtractor {
+
+    /**
+     * 共享的 JsonFactory：关闭字符串驻留（payload 的 key 基数大时避免污染全局符号表）
+     */
+    static final JsonFactory FACTORY = JsonFactory.builder()
+            .disable(JsonFactory.Feature.INTERN_FIELD_NAMES)
+            .build();
+
+    static final ObjectMapper MAPPER = new ObjectMapper(FACTORY);
+
+    private static final Object MISSING = new Object();
+
+    private final Node root = new Node();
+    private final int targets;
+
+    public JsonFieldExtractor(List<String> paths) {
+        this.targets = paths.size();
+        for (int i = 0; i < paths.size(); i++) {
+            Node node = root;
+            for (String segment : segments(paths.get(i))) {
+                node = node.children.computeIfAbsent(segment, k -> new Node());
+            }
+            node.targets.add(i);
+        }
+    }
+
+    /**
+     * 顶层字段名原样作为一段；以 "/" 开头的按 RFC 6901 拆分并反转义 ~1 / ~0
+     */
+    static List<String> segments(String path) {
+        if (!path.startsWith("/")) return List.of(path);
+        String[] raw = path.substring(1).split("/", -1);
+        List<String> out = new ArrayList<>(raw.length);
+        for (String s : raw) out.add(s.replace("~1", "/").replace("~0", "~"));
+        return out;
+    }
+
+    /**
+     * 抽取结果按构造时的路径顺序返回；未出现的路径对应位置为 MISSING，用 {@link #isMissing(Object)} 判断
+     */
+    public Object[] extract(String json) throws IOException {
+        Object[] out = new Object[targets];
+        Arrays.fill(out, MISSING);
+        if (targets == 0) return out;
+        try (JsonParser p = FACTORY.createParser(json)) {
+            JsonToken t = p.nextToken();
+            if (t == JsonToken.START_OBJECT || t == JsonToken.START_ARRAY) {
+                walk(p, root, out, new int[]{targets});
+            }
+        }
+        return out;
+    }
+
+    public static boolean isMissing(Object v) {
+        return v == MISSING;
+    }
+
+    /**
+     * 当前 token 为容器起始；返回 true 表示全部目标已找到，可以终止解析
+     */
+    private boolean walk(JsonParser p, Node node, Object[] out, int[] remaining) throws IOException {
+        if (p.currentToken() == JsonToken.START_OBJECT) {
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                Node child = node.children.get(p.currentName());
+                p.nextToken();
+                if (visit(p, child, out, remaining)) return true;
+            }
+        } else {
+            int index = 0;
+            while (p.nextToken() != JsonToken.END_ARRAY) {
+                Node child = node.children.get(Integer.toString(index++));
+                if (visit(p, child, out, remaining)) return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean visit(JsonParser p, Node child, Object[] out, int[] remaining) throws IOException {
+        if (child == null) {
+            p.skipChildren();
+            return false;
+        }
+        JsonToken t = p.currentToken();
+        boolean container = t == JsonToken.START_OBJECT || t == JsonToken.START_ARRAY;
+        if (!child.targets.isEmpty()) {
+            Object value = readValue(p);
+            for (int idx : child.targets) {
+                if (out[idx] == MISSING) remaining[0]--;
+                out[idx] = value;
+            }
+            // 同时请求了该节点及其子路径：从已物化的值中继续解析
+            if (!child.children.isEmpty()) resolve(value, child, out, remaining);
+            return remaining[0] <= 0;
+        }
+        if (!container) return false;
+        return walk(p, child, out, remaining);
+    }
+
+    private Object readValue(JsonParser p) throws IOException {
+        switch (p.currentToken()) {
+            case VALUE_STRING:
+                return p.getText();
+            case VALUE_NUMBER_INT:
+                return p.getNumberValue();
+            case VALUE_NUMBER_FLOAT:
+                return p.getDoubleValue();
+            case VALUE_TRUE:
+                return Boolean.TRUE;
+            case VALUE_FALSE:
+                return Boolean.FALSE;
+            case VALUE_NULL:
+                return null;
+            default:
+                return MAPPER.readValue(p, Object.class);
+        }
+    }
+
+    private void resolve(Object value, Node node, Object[] out, int[] remaining) {
+        for (Map.Entry<String, Node> e : node.children.entrySet()) {
+            Object childValue = MISSING;
+            if (value instanceof Map<?, ?> m && m.containsKey(e.getKey())) {
+                childValue = m.get(e.getKey());
+            } else if (value instanceof List<?> l) {
+                int i = parseIndex(e.getKey());
+                if (i >= 0 && i < l.size()) childValue = l.get(i);
+            }
+            if (childValue == MISSING) continue;
+            for (int idx : e.getValue().targets) {
+                if (out[idx] == MISSING) remaining[0]--;
+                out[idx] = childValue;
+            }
+            resolve(childValue, e.getValue(), out, remaining);
+        }
+    }
+
+    private int parseIndex(String s) {
+        if (s.isEmpty() || s.length() > 9) return -1;
+        int v = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') return -1;
+            v = v * 10 + (c - '0');
+        }
+        return v;
+    }
+
+    private static final class Node {
+        private final Map<String, Node> children = new HashMap<>(4);
+        private final List<Integer> targets = new ArrayList<>(1);
+    }
+}
\ No newline at end of file
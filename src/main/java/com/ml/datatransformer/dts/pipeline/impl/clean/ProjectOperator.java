@@ -0,0 +1,48 @@
+package com.ml.datatransformer.dts.pipeline.impl.clean;
+
+import com.ml.datatransformer.dts.pipeline.model.MapProcessor;
+import com.ml.datatransformer.dts.pipeline.model.SchemaBindable;
+import com.ml.datatransformer.dts.pipeline.record.RecordSchema;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * ProjectOperator
+ * 按 flow 的 output_fields 投影：只保留列出的字段，其余字段在发布前移除（由 PipelineOptimizer 追加在算子链末尾）
+ */
+public class ProjectOperator implements MapProcessor, SchemaBindable {
+
+    private final List<String> fields;
+    private final Set<String> keep;
+
+    public ProjectOperator(List<String> fields) {
+        this.fields = List.copyOf(fields);
+        this.keep = new HashSet<>(fields);
+    }
+
+    @Override
+    public Map<String, Object> process(Map<String, Object> data) {
+        data.keySet().removeIf(k -> !keep.contains(k));
+        return data;
+    }
+
+    @Override
+    public Collection<String> fields() {
+        return fields;
+    }
+
+    @Override
+    public MapProcessor bind(RecordSchema schema) {
+        // 字段已进入 schema，按 Map 视图访问即可命中槽位
+        return this;
+    }
+
+    @Override
+    public String name() {
+        return "clean:project";
+    }
+}
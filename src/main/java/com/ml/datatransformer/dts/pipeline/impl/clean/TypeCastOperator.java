@@ -1,16 +1,34 @@
 package com.ml.datatransformer.dts.pipeline.impl.clean;
 
 import com.ml.datatransformer.dts.pipeline.model.MapProcessor;
+import com.ml.datatransformer.dts.pipeline.model.SchemaBindable;
+import com.ml.datatransformer.dts.pipeline.record.RecordSchema;
 
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
-public class TypeCastOperator implements MapProcessor {
+/**
+ * TypeCastOperator
+ * 按 type_map 转换字段类型（int/long/double/boolean/string）。
+ *
+ * 配置示例：
+ * {
+ *   "type_map": {"amount": "double", "count": "long"},
+ *   "strict": false
+ * }
+ *
+ * strict=false（默认）时无法转换的值保持原样；strict=true 时抛出 IllegalArgumentException，交由 on_error 策略处理
+ */
+public class TypeCastOperator implements MapProcessor, SchemaBindable {
     private final Map<String, String> typeMap;
+    private final boolean strict;
 
     public TypeCastOperator() {
         this.typeMap = Collections.emptyMap();
+        this.strict = false;
     }
 
     public TypeCastOperator(Map<String, Object> config) {
@@ -22,40 +40,84 @@ public class TypeCastOperator implements MapProcessor {
         } else {
             this.typeMap = Collections.emptyMap();
         }
+        this.strict = config != null && Boolean.parseBoolean(String.valueOf(config.get("strict")));
+    }
+
+    private TypeCastOperator(Map<String, String> typeMap, boolean strict) {
+        this.typeMap = typeMap;
+        this.strict = strict;
     }
 
     @Override
     public Map<String, Object> process(Map<String, Object> data) {
         for (Map.Entry<String, String> e : typeMap.entrySet()) {
             String field = e.getKey();
-            String target = e.getValue();
             Object val = data.get(field);
             if (val == null) continue;
-            try {
-                switch (target.toLowerCase()) {
-                    case "int":
-                    case "integer":
-                        data.put(field, Integer.parseInt(String.valueOf(val)));
-                        break;
-                    case "long":
-                        data.put(field, Long.parseLong(String.valueOf(val)));
-                        break;
-                    case "double":
-                    case "float":
-                        data.put(field, Double.parseDouble(String.valueOf(val)));
-                        break;
-                    case "boolean":
-                        data.put(field, Boolean.parseBoolean(String.valueOf(val)));
-                        break;
-                    case "string":
-                    default:
-                        data.put(field, String.valueOf(val));
-                }
-            } catch (Exception ignored) {}
+            Object cast = cast(field, e.getValue(), val);
+            if (cast != val) data.put(field, cast);
         }
         return data;
     }
 
+    /**
+     * 转换单个非 null 值；无法转换时 strict 抛出 IllegalArgumentException，否则返回原值
+     */
+    public Object cast(String field, String target, Object val) {
+        try {
+            switch (target.toLowerCase()) {
+                case "int":
+                case "integer":
+                    return Integer.parseInt(String.valueOf(val));
+                case "long":
+                    return Long.parseLong(String.valueOf(val));
+                case "double":
+                case "float":
+                    return Double.parseDouble(String.valueOf(val));
+                case "boolean":
+                    return Boolean.parseBoolean(String.valueOf(val));
+                case "string":
+                default:
+                    return String.valueOf(val);
+            }
+        } catch (Exception ex) {
+            if (strict) {
+                throw new IllegalArgumentException("cannot cast field [" + field + "] value [" + val + "] to " + target, ex);
+            }
+            return val;
+        }
+    }
+
+    public Map<String, String> typeMap() {
+        return typeMap;
+    }
+
+    public boolean strict() {
+        return strict;
+    }
+
+    /**
+     * 只保留 fields 中字段的转换，用于死字段消除（见 PipelineOptimizer）
+     */
+    public TypeCastOperator retain(Collection<String> fields) {
+        Map<String, String> kept = new LinkedHashMap<>();
+        typeMap.forEach((k, v) -> {
+            if (fields.contains(k)) kept.put(k, v);
+        });
+        return new TypeCastOperator(kept, strict);
+    }
+
+    @Override
+    public Collection<String> fields() {
+        return typeMap.keySet();
+    }
+
+    @Override
+    public MapProcessor bind(RecordSchema schema) {
+        // 字段已进入 schema，按 Map 视图访问即可命中槽位
+        return this;
+    }
+
     @Override
     public String name() { return "clean:type_cast"; }
 }
@@ -2,12 +2,30 @@ package com.ml.datatransformer.dts.pipeline.impl.collect;
 
 
 import com.ml.datatransformer.dts.dto.DTSRequest;
+import com.ml.datatransformer.dts.pipeline.checkpoint.Watermark;
+import com.ml.datatransformer.dts.pipeline.checkpoint.WatermarkStore;
+import com.ml.datatransformer.dts.pipeline.model.CheckpointCursor;
 import com.ml.datatransformer.dts.pipeline.model.Collector;
-import lombok.RequiredArgsConstructor;
+import com.ml.datatransformer.dts.pipeline.model.RecordCursor;
+import com.ml.datatransformer.dts.pipeline.model.RecordCursors;
+import com.ml.datatransformer.dts.pipeline.model.ResumableCollector;
+import com.ml.datatransformer.dts.pipeline.model.SchemaBindableCollector;
+import com.ml.datatransformer.dts.pipeline.impl.DTSExecutor;
+import com.ml.datatransformer.dts.pipeline.record.RecordSchema;
+import com.ml.datatransformer.dts.pipeline.record.SlotRecord;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
 
+import java.math.BigInteger;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.regex.Pattern;
 
 /**
  * DbCollector
@@ -15,56 +33,378 @@ import java.util.*;
  *
  * 配置项（config）示例：
  * - sql: "SELECT id, name, amount FROM t_order WHERE create_time BETWEEN ? AND ? LIMIT ?"
- * - params: ["${start_time}", "${end_time}", 200]  // 支持从 request.payload 或 data map 解析占位符，这里示例简化仅透传
+ * - params: ["${start_time}", "${end_time}", 200]  // ${} 占位符从 request.payload（JSON 对象）与 ${watermark} 解析，见 Placeholders
  * - limit: 200
+ * - fetch_size: 1000   // 每次从驱动拉取的行数（批量与流式都生效）；MySQL 需在 url 上开启 useCursorFetch=true
+ *                      // （application.yml 默认已开启），否则配置为 -2147483648（Integer.MIN_VALUE）使用驱动的逐行流式读取
+ * - columns: ["id", "amount"]  // 可选，typed record 模式下预先声明的列，编译期分配槽位
+ * - partition_column: id      // 可选，整数型分区键，须为结果列标签（不带表别名，需要时在 sql 中 AS 命名）；
+ *                              // 配置后按 [min, max] 均分为 partitions 段
+ * - partitions: 8             // 分区数，批量模式下各段在 DTSExecutor 上并行读取（各占一个连接）
+ * - partition_min / partition_max  // 可选，只用于计算切分点，不过滤数据；不配置时先执行一次 MIN/MAX 查询
+ * - checkpoint_column: id     // 可选，断点键（唯一、非空、可排序的结果列），开启任务 checkpoint 时必填
+ * - watermark_column: update_time  // 可选，增量采集的水位列；执行成功后保存已读记录的最大值，下次只读取更大的记录
+ * - watermark_key: id         // 配置了 limit 时必填，唯一、非空、可排序的结果列；水位保存为 [水位列值, 键值]，
+ *                              // 按 (水位列, 键) 排序分批读取，同一水位值的记录被 limit 截断时下次从截断处续读
+ * - watermark_initial: "2024-01-01 00:00:00"  // 可选，尚无水位时的起点
  *
  *
- * - 返回 List<Map<String,Object>>，列名为 Map 的 key
+ * - collect 返回 List<Map<String,Object>>，列名为 Map 的 key
+ * - open 返回游标，按 fetch_size 从数据库增量拉取，供 STREAMING 模式使用；分区依次读取，同一时刻只占一个连接；
+ *   limit 与 collect 一样生效
+ * - 分区读取把原 sql 包装为子查询追加范围条件：第一段向下、最后一段向上不设界，分区键为 NULL 的行归入第一段；
+ *   配置了 limit 或 sql 自带 LIMIT 时不分区
+ * - 断点恢复（open(input, position)）把原 sql 包装为子查询，按断点键升序单游标读取并追加 "键 > 上次位置"，不分区
+ * - typed record 模式下通过 bind(schema) 生成的实例直接把列值按槽位写入 SlotRecord
  */
 @Slf4j
-@RequiredArgsConstructor
-public class DbCollector implements Collector<DTSRequest, List<Map<String, Object>>> {
+public class DbCollector implements Collector<DTSRequest, List<Map<String, Object>>>,
+        ResumableCollector<DTSRequest, Map<String, Object>>, SchemaBindableCollector<DTSRequest> {
 
-    private final JdbcTemplate jdbcTemplate;
+    private static final int DEFAULT_FETCH_SIZE = 1000;
+    private static final Pattern COLUMN = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*");
+    /**
+     * sql 自带的 LIMIT 子句（LIMIT 200 / LIMIT ?），不匹配 credit_limit 之类的列名
+     */
+    private static final Pattern LIMIT = Pattern.compile("\\blimit\\s+(\\d|\\?)", Pattern.CASE_INSENSITIVE);
+
+    private final JdbcTemplate queryTemplate;
     private final Map<String, Object> config;
+    private final DTSExecutor dtsExecutor;
+    private final String partitionColumn;
+    private final int partitions;
+    private final String checkpointColumn;
+    private final String watermarkColumn;
+    private final String watermarkKey;
+    private final WatermarkStore watermarkStore;
+    /**
+     * 非 null 时行为按该 schema 布局的 SlotRecord
+     */
+    private final RecordSchema schema;
+
+    public DbCollector(JdbcTemplate jdbcTemplate, Map<String, Object> config) {
+        this(jdbcTemplate, config, null);
+    }
+
+    public DbCollector(JdbcTemplate jdbcTemplate, Map<String, Object> config, DTSExecutor dtsExecutor) {
+        this(jdbcTemplate, config, dtsExecutor, null);
+    }
+
+    public DbCollector(JdbcTemplate jdbcTemplate, Map<String, Object> config, DTSExecutor dtsExecutor,
+                       WatermarkStore watermarkStore) {
+        this.config = config == null ? Map.of() : config;
+        this.dtsExecutor = dtsExecutor;
+        this.watermarkStore = watermarkStore;
+        // 单独的模板承载 fetch size，避免修改全局共享的 JdbcTemplate
+        this.queryTemplate = new JdbcTemplate(Objects.requireNonNull(jdbcTemplate.getDataSource()));
+        Object fs = this.config.get("fetch_size");
+        this.queryTemplate.setFetchSize(fs == null ? DEFAULT_FETCH_SIZE : Integer.parseInt(String.valueOf(fs)));
+
+        Object pc = this.config.get("partition_column");
+        Object pn = this.config.get("partitions");
+        String column = pc == null ? null : String.valueOf(pc).trim();
+        // 分区条件加在包装后的子查询外层，只能引用结果列标签（如 id），不能带表别名（如 o.id）
+        if (column != null && !COLUMN.matcher(column).matches()) {
+            throw new IllegalArgumentException("invalid partition_column: " + column);
+        }
+        this.partitionColumn = column;
+        this.partitions = column == null || pn == null ? 1 : Math.max(1, Integer.parseInt(String.valueOf(pn)));
+
+        Object cc = this.config.get("checkpoint_column");
+        String key = cc == null ? null : String.valueOf(cc).trim();
+        if (key != null && !COLUMN.matcher(key).matches()) {
+            throw new IllegalArgumentException("invalid checkpoint_column: " + key);
+        }
+        this.checkpointColumn = key;
+
+        Object wc = this.config.get("watermark_column");
+        String wm = wc == null ? null : String.valueOf(wc).trim();
+        if (wm != null && !COLUMN.matcher(wm).matches()) {
+            throw new IllegalArgumentException("invalid watermark_column: " + wm);
+        }
+        this.watermarkColumn = wm;
+
+        Object wk = this.config.get("watermark_key");
+        String wkey = wk == null ? null : String.valueOf(wk).trim();
+        if (wkey != null && !COLUMN.matcher(wkey).matches()) {
+            throw new IllegalArgumentException("invalid watermark_key: " + wkey);
+        }
+        // 只按水位列排序分批时，limit 可能截断水位值相同的一组记录，而下次按 "> 水位" 读取会跳过其余部分
+        if (wm != null && wkey == null && this.config.get("limit") != null
+                && !Placeholders.references(this.config.get("params"), "watermark")) {
+            throw new IllegalArgumentException("watermark_column with limit requires watermark_key (a unique column)");
+        }
+        this.watermarkKey = wkey;
+        this.schema = null;
+    }
+
+    private DbCollector(DbCollector source, RecordSchema schema) {
+        this.queryTemplate = source.queryTemplate;
+        this.config = source.config;
+        this.dtsExecutor = source.dtsExecutor;
+        this.partitionColumn = source.partitionColumn;
+        this.partitions = source.partitions;
+        this.checkpointColumn = source.checkpointColumn;
+        this.watermarkColumn = source.watermarkColumn;
+        this.watermarkKey = source.watermarkKey;
+        this.watermarkStore = source.watermarkStore;
+        this.schema = schema;
+    }
+
+    @Override
+    public DbCollector bind(RecordSchema schema) {
+        return new DbCollector(this, schema);
+    }
 
     @Override
     public List<Map<String, Object>> collect(DTSRequest input) {
+        BoundSql bound = bind(input);
+        if (bound == null) return Collections.emptyList();
+        String sql = limited(bound.sql());
+        Object[] params = bound.params();
+        List<KeyRange> ranges = partition(sql, params);
+        if (ranges.size() > 1 && dtsExecutor != null) {
+            return collectPartitions(sql, params, ranges);
+        }
+        if (ranges.size() > 1) {
+            // 没有执行器时退化为依次读取
+            List<Map<String, Object>> rows = new ArrayList<>();
+            for (KeyRange r : ranges) rows.addAll(queryRange(sql, params, r));
+            return rows;
+        }
+        log.debug("DbCollector executing sql: {}, params: {}", sql, Arrays.toString(params));
+        return queryTemplate.query(sql, new LabelCachingRowMapper(schema), params);
+    }
+
+    @Override
+    public RecordCursor<Map<String, Object>> open(DTSRequest input) {
+        BoundSql bound = bind(input);
+        if (bound == null) return RecordCursors.of(Collections.<Map<String, Object>>emptyList());
+        String sql = limited(bound.sql());
+        Object[] params = bound.params();
+        List<KeyRange> ranges = partition(sql, params);
+        if (ranges.size() > 1) {
+            return new PartitionCursor(sql, params, ranges);
+        }
+        log.debug("DbCollector streaming sql: {}, params: {}, fetchSize: {}",
+                sql, Arrays.toString(params), queryTemplate.getFetchSize());
+        return RecordCursors.of(queryTemplate.queryForStream(sql, new LabelCachingRowMapper(schema), params));
+    }
+
+    /**
+     * 配置了 limit 且 sql 自身没有 LIMIT 子句时追加 LIMIT；批量与流式读取一致（分区随之关闭，见 partition）
+     */
+    private String limited(String sql) {
+        Object limit = config.get("limit");
+        if (limit == null || LIMIT.matcher(sql).find()) return sql;
+        return sql + " LIMIT " + Integer.parseInt(String.valueOf(limit).trim());
+    }
+
+    @Override
+    public boolean resumable() {
+        return checkpointColumn != null;
+    }
+
+    /**
+     * 按断点键升序读取 position 之后的记录；游标位置为最近一条记录的断点键
+     */
+    @Override
+    public CheckpointCursor<Map<String, Object>> open(DTSRequest input, Object position) {
+        if (checkpointColumn == null) throw new IllegalStateException("DbCollector checkpoint_column is not configured");
+        BoundSql bound = bind(input);
+        if (bound == null) return new KeyCursor(RecordCursors.of(Collections.<Map<String, Object>>emptyList()), position);
+        Object[] params = bound.params();
+        String keySql = "SELECT * FROM (" + bound.sql() + ") dts_ckpt"
+                + (position == null ? "" : " WHERE " + checkpointColumn + " > ?")
+                + " ORDER BY " + checkpointColumn;
+        Object[] keyParams = params;
+        if (position != null) {
+            keyParams = Arrays.copyOf(params, params.length + 1);
+            keyParams[params.length] = position;
+        }
+        log.debug("DbCollector resuming sql: {}, params: {}", keySql, Arrays.toString(keyParams));
+        return new KeyCursor(RecordCursors.of(queryTemplate.queryForStream(keySql, new LabelCachingRowMapper(schema), keyParams)),
+                position);
+    }
+
+    /**
+     * 各分区作为独立任务提交到 DTSExecutor，结果按分区顺序拼接
+     */
+    private List<Map<String, Object>> collectPartitions(String sql, Object[] params, List<KeyRange> ranges) {
+        long start = System.nanoTime();
+        try {
+            Semaphore permits = dtsExecutor.newPermits(ranges.size());
+            List<Future<List<Map<String, Object>>>> futures = new ArrayList<>(ranges.size());
+            for (KeyRange r : ranges) {
+                futures.add(dtsExecutor.submit(() -> queryRange(sql, params, r), permits));
+            }
+            List<List<Map<String, Object>>> parts = new ArrayList<>(futures.size());
+            int total = 0;
+            for (Future<List<Map<String, Object>>> f : futures) {
+                List<Map<String, Object>> part = f.get();
+                total += part.size();
+                parts.add(part);
+            }
+            List<Map<String, Object>> rows = new ArrayList<>(total);
+            for (List<Map<String, Object>> part : parts) rows.addAll(part);
+            log.debug("DbCollector read {} rows from {} partitions in {} ms",
+                    total, ranges.size(), (System.nanoTime() - start) / 1_000_000);
+            return rows;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("partitioned read interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("partitioned read failed", e.getCause());
+        }
+    }
+
+    private List<Map<String, Object>> queryRange(String sql, Object[] params, KeyRange range) {
+        String rangeSql = rangeSql(sql, range);
+        Object[] rangeParams = rangeParams(params, range);
+        log.debug("DbCollector executing partition sql: {}, params: {}", rangeSql, Arrays.toString(rangeParams));
+        return queryTemplate.query(rangeSql, new LabelCachingRowMapper(schema), rangeParams);
+    }
+
+    /**
+     * 第一段只有上界（含 NULL），最后一段只有下界，各段合起来覆盖全部记录
+     */
+    String rangeSql(String sql, KeyRange range) {
+        if (range.first() && range.last()) return sql;
+        String cond;
+        if (range.first()) cond = "(" + partitionColumn + " < ? OR " + partitionColumn + " IS NULL)";
+        else if (range.last()) cond = partitionColumn + " >= ?";
+        else cond = partitionColumn + " >= ? AND " + partitionColumn + " < ?";
+        return "SELECT * FROM (" + sql + ") dts_part WHERE " + cond;
+    }
+
+    static Object[] rangeParams(Object[] params, KeyRange range) {
+        if (range.first() && range.last()) return params;
+        if (range.first() || range.last()) {
+            Object[] out = Arrays.copyOf(params, params.length + 1);
+            out[params.length] = range.first() ? range.upper() : range.lower();
+            return out;
+        }
+        Object[] out = Arrays.copyOf(params, params.length + 2);
+        out[params.length] = range.lower();
+        out[params.length + 1] = range.upper();
+        return out;
+    }
+
+    /**
+     * 计算分区键区间；不满足分区条件或数据为空时返回单个 FULL 区间
+     */
+    List<KeyRange> partition(String sql, Object[] params) {
+        if (partitions <= 1) return List.of(KeyRange.FULL);
+        if (config.get("limit") != null || LIMIT.matcher(sql).find()) {
+            log.warn("DbCollector partitioning disabled because the query is limited");
+            return List.of(KeyRange.FULL);
+        }
+        Long min = toLong("partition_min", config.get("partition_min"));
+        Long max = toLong("partition_max", config.get("partition_max"));
+        if (min == null || max == null) {
+            String boundsSql = "SELECT MIN(" + partitionColumn + "), MAX(" + partitionColumn + ") FROM (" + sql + ") dts_part";
+            long[] bounds = queryTemplate.query(boundsSql, rs -> {
+                if (!rs.next()) return null;
+                Object lo = rs.getObject(1);
+                Object hi = rs.getObject(2);
+                if (lo == null || hi == null) return null;
+                if (!integral(lo) || !integral(hi)) {
+                    throw new IllegalArgumentException("DbCollector partition_column [" + partitionColumn
+                            + "] must be an integer column, got " + lo.getClass().getName());
+                }
+                return new long[]{((Number) lo).longValue(), ((Number) hi).longValue()};
+            }, params);
+            if (bounds == null) return List.of(KeyRange.FULL);
+            if (min == null) min = bounds[0];
+            if (max == null) max = bounds[1];
+        }
+        return KeyRange.split(min, max, partitions);
+    }
+
+    private static Long toLong(String key, Object v) {
+        if (v == null) return null;
+        try {
+            return Long.valueOf(String.valueOf(v).trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("DbCollector " + key + " must be an integer: " + v);
+        }
+    }
+
+    /**
+     * 分区切分点按 long 计算，只接受整数类型（含无小数部分的 DECIMAL）
+     */
+    private static boolean integral(Object v) {
+        if (v instanceof Long || v instanceof Integer || v instanceof Short || v instanceof Byte || v instanceof BigInteger) {
+            return true;
+        }
+        if (v instanceof java.math.BigDecimal d) return d.stripTrailingZeros().scale() <= 0;
+        return false;
+    }
+
+    /**
+     * 解析 sql 与参数；sql 为空时返回 null。
+     * 配置了 watermark_column 时：params 引用了 ${watermark} 则由调用方自行写过滤条件，首次执行使用 watermark_initial；
+     * 否则把原 sql 包装为子查询追加 "水位列 > 水位"（尚无水位时读取全部），配置了 limit 时按水位列排序，保证分批推进。
+     * 配置了 watermark_key 时按 (水位列, 键) 排序，复合水位 [v, k] 的过滤条件为 "水位列 > v OR (水位列 = v AND 键 > k)"
+     */
+    private BoundSql bind(DTSRequest request) {
         String sql = Objects.toString(config.getOrDefault("sql", ""), "");
         if (sql.isEmpty()) {
             log.warn("DbCollector sql is empty");
-            return Collections.emptyList();
+            return null;
         }
         Object rawParams = config.get("params");
-        Object limitObj = config.get("limit");
-        Integer limit = limitObj == null ? null : Integer.valueOf(String.valueOf(limitObj));
+        Map<String, Object> vars = Placeholders.variables(request);
+        if (watermarkColumn == null) return new BoundSql(sql, parseParams(rawParams, vars));
 
-        Object[] params = parseParams(rawParams, input);
-        if (limit != null && !sql.toLowerCase(Locale.ROOT).contains("limit")) {
-            sql = sql + " LIMIT " + limit;
-        }
-        log.debug("DbCollector executing sql: {}, params: {}", sql, Arrays.toString(params));
-        return jdbcTemplate.query(sql, rs -> {
-            List<Map<String, Object>> rows = new ArrayList<>();
-            int cols = rs.getMetaData().getColumnCount();
-            while (rs.next()) {
-                Map<String, Object> row = new LinkedHashMap<>(cols);
-                for (int i = 1; i <= cols; i++) {
-                    String col = rs.getMetaData().getColumnLabel(i);
-                    row.put(col, rs.getObject(i));
-                }
-                rows.add(row);
+        Object mark = watermark(request);
+        // 复合水位 [v, k]；sql 自行引用 ${watermark} 时只提供水位列的值
+        List<?> compound = watermarkKey != null && mark instanceof List<?> l && l.size() == 2 ? l : null;
+        if (Placeholders.references(rawParams, "watermark")) {
+            if (mark == null) {
+                throw new IllegalStateException("DbCollector has no watermark yet, configure watermark_initial");
             }
-            return rows;
-        }, params);
+            vars.put("watermark", compound == null ? mark : compound.get(0));
+            return new BoundSql(sql, parseParams(rawParams, vars));
+        }
+        Object[] params = parseParams(rawParams, vars);
+        boolean limited = config.get("limit") != null;
+        if (mark == null && !limited) return new BoundSql(sql, params);
+        StringBuilder wmSql = new StringBuilder("SELECT * FROM (").append(sql).append(") dts_wm");
+        List<Object> extra = new ArrayList<>(3);
+        if (compound != null) {
+            wmSql.append(" WHERE ").append(watermarkColumn).append(" > ? OR (")
+                    .append(watermarkColumn).append(" = ? AND ").append(watermarkKey).append(" > ?)");
+            extra.add(compound.get(0));
+            extra.add(compound.get(0));
+            extra.add(compound.get(1));
+        } else if (mark != null) {
+            wmSql.append(" WHERE ").append(watermarkColumn).append(" > ?");
+            extra.add(mark);
+        }
+        if (limited) {
+            wmSql.append(" ORDER BY ").append(watermarkColumn);
+            if (watermarkKey != null) wmSql.append(", ").append(watermarkKey);
+        }
+        params = Arrays.copyOf(params, params.length + extra.size());
+        for (int i = 0; i < extra.size(); i++) params[params.length - extra.size() + i] = extra.get(i);
+        return new BoundSql(wmSql.toString(), params);
     }
 
-    private Object[] parseParams(Object rawParams, DTSRequest request) {
+    /**
+     * 上次成功执行保存的水位，没有时取 watermark_initial
+     */
+    private Object watermark(DTSRequest request) {
+        Watermark mark = watermarkStore == null || request == null || request.getRuleId() == null
+                ? null : watermarkStore.loadWatermark(request.getRuleId());
+        return mark != null && mark.value() != null ? mark.value() : config.get("watermark_initial");
+    }
+
+    private Object[] parseParams(Object rawParams, Map<String, Object> vars) {
         if (!(rawParams instanceof List<?> list)) return new Object[0];
         List<Object> out = new ArrayList<>(list.size());
         for (Object item : list) {
-            // request.payload 解析，可在此扩展 JSON 解析和 ${} 占位符替换
-            out.add(item);
+            out.add(Placeholders.resolve(item, vars));
         }
         return out.toArray();
     }
@@ -73,4 +413,170 @@ public class DbCollector implements Collector<DTSRequest, List<Map<String, Objec
     public String name() {
         return "collect:db";
     }
-}
\ No newline at end of file
+
+    private record BoundSql(String sql, Object[] params) {
+    }
+
+    /**
+     * 列标签只在首行读取一次，后续行复用；每个游标独占一个实例。
+     * 有 schema 时首行同时把列解析为槽位，之后每行直接按下标写入 SlotRecord，schema 外的列落入溢出 Map
+     */
+    private static final class LabelCachingRowMapper implements RowMapper<Map<String, Object>> {
+        private final RecordSchema schema;
+        private String[] labels;
+        private int[] slots;
+
+        private LabelCachingRowMapper(RecordSchema schema) {
+            this.schema = schema;
+        }
+
+        @Override
+        public Map<String, Object> mapRow(ResultSet rs, int rowNum) throws SQLException {
+            if (labels == null) {
+                ResultSetMetaData md = rs.getMetaData();
+                String[] tmp = new String[md.getColumnCount()];
+                for (int i = 0; i < tmp.length; i++) tmp[i] = md.getColumnLabel(i + 1);
+                if (schema != null) {
+                    slots = new int[tmp.length];
+                    for (int i = 0; i < tmp.length; i++) slots[i] = schema.slot(tmp[i]);
+                }
+                labels = tmp;
+            }
+            if (schema != null) {
+                SlotRecord record = schema.newRecord();
+                for (int i = 0; i < labels.length; i++) {
+                    if (slots[i] >= 0) record.set(slots[i], rs.getObject(i + 1));
+                    else record.put(labels[i], rs.getObject(i + 1));
+                }
+                return record;
+            }
+            Map<String, Object> row = new LinkedHashMap<>(labels.length * 2);
+            for (int i = 0; i < labels.length; i++) {
+                row.put(labels[i], rs.getObject(i + 1));
+            }
+            return row;
+        }
+    }
+
+    /**
+     * 分区键切分点 [lower, upper)；查询时第一段不设下界、最后一段不设上界（见 rangeSql）
+     */
+    record KeyRange(long lower, long upper, boolean first, boolean last) {
+        static final KeyRange FULL = new KeyRange(Long.MIN_VALUE, Long.MAX_VALUE, true, true);
+
+        static List<KeyRange> split(long min, long max, int n) {
+            if (max <= min) return List.of(new KeyRange(min, max, true, true));
+            // 区间跨度可能超过 long 范围，用 BigInteger 计算切分点
+            BigInteger lo = BigInteger.valueOf(min);
+            BigInteger span = BigInteger.valueOf(max).subtract(lo).add(BigInteger.ONE);
+            int count = span.compareTo(BigInteger.valueOf(n)) < 0 ? span.intValue() : n;
+            List<KeyRange> out = new ArrayList<>(count);
+            long prev = min;
+            for (int i = 1; i <= count; i++) {
+                long next = i == count ? max
+                        : lo.add(span.multiply(BigInteger.valueOf(i)).divide(BigInteger.valueOf(count))).longValue();
+                out.add(new KeyRange(prev, next, i == 1, i == count));
+                prev = next;
+            }
+            return out;
+        }
+    }
+
+    /**
+     * 流式模式下依次打开各分区的游标，前一段读完并关闭后再打开下一段
+     */
+    private final class PartitionCursor implements RecordCursor<Map<String, Object>> {
+        private final String sql;
+        private final Object[] params;
+        private final Iterator<KeyRange> ranges;
+        private RecordCursor<Map<String, Object>> current;
+
+        private PartitionCursor(String sql, Object[] params, List<KeyRange> ranges) {
+            this.sql = sql;
+            this.params = params;
+            this.ranges = ranges.iterator();
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (current == null || !current.hasNext()) {
+                if (current != null) {
+                    current.close();
+                    current = null;
+                }
+                if (!ranges.hasNext()) return false;
+                KeyRange r = ranges.next();
+                current = RecordCursors.of(queryTemplate.queryForStream(
+                        rangeSql(sql, r), new LabelCachingRowMapper(schema), rangeParams(params, r)));
+            }
+            return true;
+        }
+
+        @Override
+        public Map<String, Object> next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            return current.next();
+        }
+
+        @Override
+        public void close() {
+            if (current != null) {
+                current.close();
+                current = null;
+            }
+        }
+    }
+
+    /**
+     * 断点游标：读取每条记录时记下断点键。键值按 JSON 保存，整数/字符串原样保留，其他类型（时间、小数）转为字符串，
+     * 恢复时由数据库按列类型比较
+     */
+    private final class KeyCursor implements CheckpointCursor<Map<String, Object>> {
+        private final RecordCursor<Map<String, Object>> rows;
+        private Object position;
+        private String label;
+
+        private KeyCursor(RecordCursor<Map<String, Object>> rows, Object position) {
+            this.rows = rows;
+            this.position = position;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return rows.hasNext();
+        }
+
+        @Override
+        public Map<String, Object> next() {
+            Map<String, Object> row = rows.next();
+            if (label == null) label = resolveLabel(row);
+            Object key = row.get(label);
+            if (key == null) {
+                throw new IllegalStateException("DbCollector checkpoint_column [" + checkpointColumn + "] is null");
+            }
+            position = key instanceof Integer || key instanceof Long || key instanceof String ? key : String.valueOf(key);
+            return row;
+        }
+
+        @Override
+        public Object position() {
+            return position;
+        }
+
+        @Override
+        public void close() {
+            rows.close();
+        }
+
+        /**
+         * 部分驱动返回大写列标签，按忽略大小写匹配
+         */
+        private String resolveLabel(Map<String, Object> row) {
+            if (row.containsKey(checkpointColumn)) return checkpointColumn;
+            for (String k : row.keySet()) {
+                if (k.equalsIgnoreCase(checkpointColumn)) return k;
+            }
+            throw new IllegalStateException("DbCollector checkpoint_column [" + checkpointColumn + "] is not in the result");
+        }
+    }
+}
@@ -1,82 +1,389 @@
 package com.ml.datatransformer.dts.pipeline.impl.collect;
 
 
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.FieldValue;
+import co.elastic.clients.elasticsearch._types.query_dsl.Query;
+import co.elastic.clients.elasticsearch.core.SearchRequest;
+import co.elastic.clients.elasticsearch.core.SearchResponse;
+import co.elastic.clients.elasticsearch.core.search.Hit;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.ml.datatransformer.dts.dto.DTSRequest;
+import com.ml.datatransformer.dts.pipeline.checkpoint.Watermark;
+import com.ml.datatransformer.dts.pipeline.checkpoint.WatermarkStore;
+import com.ml.datatransformer.dts.pipeline.impl.DTSExecutor;
+import com.ml.datatransformer.dts.pipeline.model.CheckpointCursor;
 import com.ml.datatransformer.dts.pipeline.model.Collector;
-import lombok.RequiredArgsConstructor;
+import com.ml.datatransformer.dts.pipeline.model.RecordCursor;
+import com.ml.datatransformer.dts.pipeline.model.RecordCursors;
+import com.ml.datatransformer.dts.pipeline.model.ResumableCollector;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.elasticsearch.client.elc.NativeQuery;
 import org.springframework.data.elasticsearch.client.elc.NativeQueryBuilder;
 import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
 import org.springframework.data.elasticsearch.core.SearchHit;
+import org.springframework.data.elasticsearch.core.SearchHitsIterator;
 import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
 import org.springframework.data.elasticsearch.core.query.FetchSourceFilter;
 
+import java.io.IOException;
+import java.io.StringReader;
 import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * EsCollector
- * 使用 Spring Data Elasticsearch 的 ElasticsearchOperations 采集数据。
+ * 采集 Elasticsearch 数据：默认以 point-in-time + search_after 全量扫描，也可只取一页。
  *
  * 配置项（config）示例：
  * - index: "card_fee_predict"
- * - query: {"match_all": {}}                 // 这里接受一个 Map 形式的 DSL，再由 NativeQuery 构造
- * - size: 200
- * - page: 0
+ * - query: {"range": {"amount": {"gte": 100}}}   // Map 形式的 DSL（或 JSON 字符串），编译期转换为 Query；缺省 match_all
+ *                                            // 含 ${} 占位符时按请求解析（payload 字段、${watermark}，见 Placeholders）
+ * - size: 200                                // 单页条数
+ * - page: 0                                  // 可选，配置后只取这一页（旧行为）；不配置则全量扫描。
+ *                                            // 配置了 watermark_field 时按 (水位, watermark_key) 升序取页，每次执行读取水位之后的一页
+ * - slices: 4                                // 可选，全量扫描的切片数，各切片在 DTSExecutor 上并行读取
+ * - keep_alive: "1m"                         // PIT 每次请求续期的保活时间
  * - source_includes: ["field1","field2"]     // 可选
  * - source_excludes: ["big_field"]           // 可选
+ * - checkpoint_field: "order_id"             // 可选，断点键（唯一、可排序的字段，如 keyword/数值），开启任务 checkpoint 时必填
+ * - watermark_field: "update_time"           // 可选，增量采集的水位字段；query 未引用 ${watermark} 时自动追加 range gt 过滤
+ * - watermark_key: "order_id"                // 单页模式配置了 watermark_field 时必填，唯一、可排序的 _source 字段（keyword/数值）；
+ *                                            // 水位保存为 [水位值, 键值]，水位值相同的文档多于一页时下次从截断处续读
+ * - watermark_initial: "2024-01-01T00:00:00" // 可选，尚无水位时的起点
  *
  * 约定：
- * - 返回 List<Map<String,Object>>，每条为 _source
+ * - collect 返回 List<Map<String,Object>>，每条为 _source
+ * - open 返回游标，按页拉取、边到边消费，供 STREAMING 模式使用；多切片时各切片写入有界队列，消费跟不上时生产端阻塞
+ * - 全量扫描按 _shard_doc 排序翻页，结束（或游标关闭）时释放 PIT
+ * - 断点恢复（open(input, position)）改按 checkpoint_field 排序、单切片翻页，以上次的 search_after 值续读：
+ *   _shard_doc 只在同一个 PIT 内有效，进程重启后 PIT 已失效，须使用跨 PIT 稳定的业务键
  */
 @Slf4j
-@RequiredArgsConstructor
-public class EsCollector implements Collector<DTSRequest, List<Map<String, Object>>> {
+public class EsCollector implements Collector<DTSRequest, List<Map<String, Object>>>,
+        ResumableCollector<DTSRequest, Map<String, Object>> {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final Object END = new Object();
 
     private final ElasticsearchOperations esOps;
+    private final ElasticsearchClient client;
+    private final DTSExecutor dtsExecutor;
     private final Map<String, Object> config;
+    private final String index;
+    private final int size;
+    private final int slices;
+    private final String keepAlive;
+    private final Query query;
+    private final Object queryTemplate;
+    private final boolean dynamicQuery;
+    private final List<String> includes;
+    private final List<String> excludes;
+    private final String checkpointField;
+    private final String watermarkField;
+    private final String watermarkKey;
+    private final WatermarkStore watermarkStore;
+
+    public EsCollector(ElasticsearchOperations esOps, Map<String, Object> config) {
+        this(esOps, null, null, config);
+    }
+
+    public EsCollector(ElasticsearchOperations esOps, ElasticsearchClient client, DTSExecutor dtsExecutor,
+                       Map<String, Object> config) {
+        this(esOps, client, dtsExecutor, config, null);
+    }
+
+    public EsCollector(ElasticsearchOperations esOps, ElasticsearchClient client, DTSExecutor dtsExecutor,
+                       Map<String, Object> config, WatermarkStore watermarkStore) {
+        this.esOps = esOps;
+        this.watermarkStore = watermarkStore;
+        this.client = client;
+        this.dtsExecutor = dtsExecutor;
+        this.config = config == null ? Map.of() : config;
+        this.index = Objects.toString(this.config.getOrDefault("index", ""), "");
+        this.size = parseInt(this.config.get("size"), 200);
+        this.slices = Math.max(1, parseInt(this.config.get("slices"), 1));
+        this.keepAlive = Objects.toString(this.config.getOrDefault("keep_alive", "1m"), "1m");
+        this.queryTemplate = toTemplate(this.config.get("query"));
+        Object wf = this.config.get("watermark_field");
+        this.watermarkField = wf == null || String.valueOf(wf).isBlank() ? null : String.valueOf(wf).trim();
+        Object wk = this.config.get("watermark_key");
+        this.watermarkKey = watermarkField == null || wk == null || String.valueOf(wk).isBlank() ? null : String.valueOf(wk).trim();
+        if (watermarkField != null && parseInt(this.config.get("page"), 0) > 0) {
+            // 水位过滤已经跳过读过的记录，再按页偏移会漏读
+            throw new IllegalArgumentException("page must be 0 when watermark_field is configured");
+        }
+        // 单页按水位推进时，一页可能截断水位值相同的一组文档，而下次按 "gt 水位" 读取会跳过其余部分
+        if (watermarkField != null && watermarkKey == null && (this.config.get("page") != null || client == null)
+                && !Placeholders.references(queryTemplate, "watermark")) {
+            throw new IllegalArgumentException("watermark_field with page requires watermark_key (a unique field)");
+        }
+        this.dynamicQuery = watermarkField != null || Placeholders.hasPlaceholder(queryTemplate);
+        // 静态查询编译期转换一次，动态查询每次请求转换
+        this.query = dynamicQuery ? null : toQuery(queryTemplate);
+        this.includes = Arrays.asList(toStringArray(this.config.get("source_includes")));
+        this.excludes = Arrays.asList(toStringArray(this.config.get("source_excludes")));
+        Object cf = this.config.get("checkpoint_field");
+        this.checkpointField = cf == null || String.valueOf(cf).isBlank() ? null : String.valueOf(cf).trim();
+    }
 
     @Override
     public List<Map<String, Object>> collect(DTSRequest input) {
-        String index = Objects.toString(config.getOrDefault("index", ""), "");
         if (index.isEmpty()) {
             log.warn("EsCollector index is empty");
             return Collections.emptyList();
         }
-        int size = parseInt(config.get("size"), 200);
-        int page = parseInt(config.get("page"), 0);
-
-        NativeQueryBuilder qb = new NativeQueryBuilder();
-        qb.withPageable(PageRequest.of(page, size));
+        Query q = query(input);
+        if (config.get("page") != null || client == null) {
+            return collectPage(parseInt(config.get("page"), 0), q);
+        }
+        AtomicReference<String> pit = openPit();
+        try {
+            List<Map<String, Object>> result;
+            if (slices > 1 && dtsExecutor != null) {
+                result = collectSlices(pit, q);
+            } else {
+                result = new ArrayList<>();
+                new PageIterator(pit, null, q).forEachRemaining(result::add);
+            }
+            log.debug("EsCollector scanned {} docs from index {} with {} slices", result.size(), index, slices);
+            return result;
+        } finally {
+            closePit(pit.get());
+        }
+    }
 
-        String[] includes = toStringArray(config.get("source_includes"));
-        String[] excludes = toStringArray(config.get("source_excludes"));
-        if (includes.length > 0 || excludes.length > 0) {
-            qb.withSourceFilter(new FetchSourceFilter(true,includes, excludes));
+    /**
+     * 流式读取：单切片时在调用线程按页拉取；多切片时由 DTSExecutor 的编排线程并行拉取写入有界队列
+     */
+    @Override
+    public RecordCursor<Map<String, Object>> open(DTSRequest input) {
+        if (index.isEmpty()) {
+            log.warn("EsCollector index is empty");
+            return RecordCursors.of(Collections.<Map<String, Object>>emptyList());
+        }
+        Query q = query(input);
+        if (client == null) {
+            SearchHitsIterator<Map> it = esOps.searchForStream(buildQuery(PageRequest.of(0, size), q), Map.class, IndexCoordinates.of(index));
+            return RecordCursors.map(RecordCursors.of(it, it), this::toSource);
         }
+        AtomicReference<String> pit = openPit();
+        if (slices > 1 && dtsExecutor != null) {
+            try {
+                return new SlicedCursor(pit, q);
+            } catch (RuntimeException | Error e) {
+                // 游标未能返回给调用方，已打开的 PIT 由这里释放
+                closePit(pit.get());
+                throw e;
+            }
+        }
+        return RecordCursors.of(new PageIterator(pit, null, q), () -> closePit(pit.get()));
+    }
+
+    @Override
+    public boolean resumable() {
+        return checkpointField != null && client != null;
+    }
 
-        Object rawQuery = config.get("query");
-        if (rawQuery == null) {
-            qb.withQuery(q -> q.matchAll(ma -> ma));
-        } else {
-            // 这里可以根据具体 DSL 需求转换 rawQuery 到 co.elastic.clients.elasticsearch._types.query_dsl.Query
-            // 给出一个兜底 match_all
-            qb.withQuery(q -> q.matchAll(ma -> ma));
+    /**
+     * 按 checkpoint_field 排序读取 position（上次末条命中的排序值）之后的文档
+     */
+    @Override
+    public CheckpointCursor<Map<String, Object>> open(DTSRequest input, Object position) {
+        if (!resumable()) throw new IllegalStateException("EsCollector checkpoint_field is not configured");
+        if (index.isEmpty()) {
+            log.warn("EsCollector index is empty");
+            return RecordCursors.checkpoint(RecordCursors.of(Collections.<Map<String, Object>>emptyList()), () -> position);
         }
+        Query q = query(input);
+        AtomicReference<String> pit = openPit();
+        PageIterator it = new PageIterator(pit, null, q, checkpointField, toFieldValues(position));
+        return RecordCursors.checkpoint(RecordCursors.of(it, () -> closePit(pit.get())), it::position);
+    }
 
-        NativeQuery query = qb.build();
-        List<SearchHit<Map>> hits = esOps.search(query, Map.class, IndexCoordinates.of(index)).getSearchHits();
+    private List<Map<String, Object>> collectPage(int page, Query q) {
+        NativeQuery nativeQuery = buildQuery(PageRequest.of(page, size), q);
+        List<SearchHit<Map>> hits = esOps.search(nativeQuery, Map.class, IndexCoordinates.of(index)).getSearchHits();
         List<Map<String, Object>> result = new ArrayList<>(hits.size());
         for (SearchHit<Map> h : hits) {
-            Map<String, Object> src = new LinkedHashMap<>();
-            if (h.getContent() != null) src.putAll(h.getContent());
-            result.add(src);
+            result.add(toSource(h));
         }
         log.debug("EsCollector fetched {} docs from index {}", result.size(), index);
         return result;
     }
 
+    private List<Map<String, Object>> collectSlices(AtomicReference<String> pit, Query q) {
+        try {
+            Semaphore permits = dtsExecutor.newPermits(slices);
+            List<Future<List<Map<String, Object>>>> futures = new ArrayList<>(slices);
+            for (int i = 0; i < slices; i++) {
+                int slice = i;
+                futures.add(dtsExecutor.submit(() -> {
+                    List<Map<String, Object>> part = new ArrayList<>();
+                    new PageIterator(pit, slice, q).forEachRemaining(part::add);
+                    return part;
+                }, permits));
+            }
+            List<Map<String, Object>> result = new ArrayList<>();
+            for (Future<List<Map<String, Object>>> f : futures) {
+                result.addAll(f.get());
+            }
+            return result;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("sliced es scan interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("sliced es scan failed", e.getCause());
+        }
+    }
+
+    /**
+     * 单页/滚动读取的查询；配置了 watermark_field 时按 (水位, watermark_key) 升序，保证读到的是水位之后最早的一批，
+     * 按本批末条的 [水位值, 键值] 推进水位不会跳过未读的记录
+     */
+    private NativeQuery buildQuery(PageRequest pageable, Query query) {
+        NativeQueryBuilder qb = new NativeQueryBuilder();
+        qb.withPageable(pageable);
+        if (watermarkField != null) {
+            qb.withSort(watermarkKey == null ? Sort.by(Sort.Direction.ASC, watermarkField)
+                    : Sort.by(Sort.Direction.ASC, watermarkField, watermarkKey));
+        }
+        if (!includes.isEmpty() || !excludes.isEmpty()) {
+            qb.withSourceFilter(new FetchSourceFilter(true, includes.toArray(new String[0]), excludes.toArray(new String[0])));
+        }
+        qb.withQuery(query);
+        return qb.build();
+    }
+
+    private AtomicReference<String> openPit() {
+        try {
+            String id = client.openPointInTime(o -> o.index(index).keepAlive(t -> t.time(keepAlive))).id();
+            return new AtomicReference<>(id);
+        } catch (IOException e) {
+            throw new IllegalStateException("open point in time failed for index " + index, e);
+        }
+    }
+
+    private void closePit(String id) {
+        if (id == null) return;
+        try {
+            client.closePointInTime(c -> c.id(id));
+        } catch (Exception e) {
+            // PIT 到期后会被服务端自动回收，这里关闭失败只记录
+            log.warn("close point in time failed for index {}: {}", index, e.getMessage());
+        }
+    }
+
+    /**
+     * 本次请求的查询：静态查询直接复用；动态查询解析占位符，配置了 watermark_field 时按水位过滤。
+     * query 引用了 ${watermark} 时由调用方自行写过滤条件，首次执行使用 watermark_initial（复合水位只提供水位值）；
+     * 否则在原查询外包一层 bool，filter 追加 {"range": {watermark_field: {"gt": 水位}}}（尚无水位时不过滤）；
+     * 复合水位 [v, k] 的过滤条件为 "水位 > v OR (水位 = v AND watermark_key > k)"
+     */
+    private Query query(DTSRequest input) {
+        if (!dynamicQuery) return query;
+        Map<String, Object> vars = Placeholders.variables(input);
+        if (watermarkField == null) return toQuery(Placeholders.resolve(queryTemplate, vars));
+        Object mark = watermark(input);
+        List<?> compound = watermarkKey != null && mark instanceof List<?> l && l.size() == 2 ? l : null;
+        if (Placeholders.references(queryTemplate, "watermark")) {
+            if (mark == null) throw new IllegalStateException("EsCollector has no watermark yet, configure watermark_initial");
+            vars.put("watermark", compound == null ? mark : compound.get(0));
+            return toQuery(Placeholders.resolve(queryTemplate, vars));
+        }
+        Object resolved = Placeholders.resolve(queryTemplate, vars);
+        if (mark == null) return toQuery(resolved);
+        Map<String, Object> bool = new LinkedHashMap<>();
+        bool.put("must", List.of(resolved == null ? Map.of("match_all", Map.of()) : resolved));
+        bool.put("filter", List.of(compound == null ? range(watermarkField, mark) : Map.of("bool", Map.of(
+                "should", List.of(
+                        range(watermarkField, compound.get(0)),
+                        Map.of("bool", Map.of("filter", List.of(
+                                Map.of("term", Map.of(watermarkField, compound.get(0))),
+                                range(watermarkKey, compound.get(1)))))),
+                "minimum_should_match", 1))));
+        return toQuery(Map.of("bool", bool));
+    }
+
+    private static Map<String, Object> range(String field, Object gt) {
+        return Map.of("range", Map.of(field, Map.of("gt", gt)));
+    }
+
+    /**
+     * 上次成功执行保存的水位，没有时取 watermark_initial
+     */
+    private Object watermark(DTSRequest input) {
+        Watermark mark = watermarkStore == null || input == null || input.getRuleId() == null
+                ? null : watermarkStore.loadWatermark(input.getRuleId());
+        return mark != null && mark.value() != null ? mark.value() : config.get("watermark_initial");
+    }
+
+    /**
+     * JSON 字符串形式的查询先转为 Map，占位符按值替换，不做字符串拼接
+     */
+    private static Object toTemplate(Object raw) {
+        if (!(raw instanceof String s)) return raw;
+        try {
+            return MAPPER.readValue(s, Map.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("invalid es query: " + s, e);
+        }
+    }
+
+    /**
+     * Map DSL 转为 Query；JSON 结构由客户端按官方 DSL 解析，非法时报错
+     */
+    private static Query toQuery(Object raw) {
+        if (raw == null) return Query.of(q -> q.matchAll(ma -> ma));
+        String json;
+        try {
+            json = raw instanceof String s ? s : MAPPER.writeValueAsString(raw);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("invalid es query: " + raw, e);
+        }
+        try {
+            return Query.of(q -> q.withJson(new StringReader(json)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("invalid es query: " + json, e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> toSource(SearchHit<Map> h) {
+        Map<String, Object> src = new LinkedHashMap<>();
+        if (h.getContent() != null) src.putAll(h.getContent());
+        return src;
+    }
+
+    /**
+     * 断点中保存的排序值（JSON 反序列化后的普通值）还原为 search_after 参数
+     */
+    private static List<FieldValue> toFieldValues(Object position) {
+        if (position == null) return null;
+        if (!(position instanceof List<?> values)) {
+            throw new IllegalArgumentException("invalid es checkpoint position: " + position);
+        }
+        List<FieldValue> out = new ArrayList<>(values.size());
+        for (Object v : values) {
+            if (v == null) out.add(FieldValue.NULL);
+            else if (v instanceof Long || v instanceof Integer) out.add(FieldValue.of(((Number) v).longValue()));
+            else if (v instanceof Number n) out.add(FieldValue.of(n.doubleValue()));
+            else if (v instanceof Boolean b) out.add(FieldValue.of(b));
+            else out.add(FieldValue.of(String.valueOf(v)));
+        }
+        return out;
+    }
+
     private int parseInt(Object v, int dft) {
         if (v == null) return dft;
         try { return Integer.parseInt(String.valueOf(v)); } catch (Exception e) { return dft; }
@@ -91,4 +398,186 @@ public class EsCollector implements Collector<DTSRequest, List<Map<String, Objec
     public String name() {
         return "collect:es";
     }
+
+    /**
+     * 单个切片（slice 为 null 表示不切片）的 search_after 翻页迭代器；每次只持有一页命中
+     * sortField 为 null 时按 _shard_doc 排序，否则按该字段排序并从 after 之后开始
+     */
+    private final class PageIterator implements Iterator<Map<String, Object>> {
+        private final AtomicReference<String> pit;
+        private final Integer slice;
+        private final Query query;
+        private final String sortField;
+        private List<FieldValue> after;
+        private List<FieldValue> last;
+        private Iterator<Hit<Map>> page = Collections.emptyIterator();
+        private boolean exhausted;
+
+        private PageIterator(AtomicReference<String> pit, Integer slice, Query query) {
+            this(pit, slice, query, null, null);
+        }
+
+        private PageIterator(AtomicReference<String> pit, Integer slice, Query query, String sortField,
+                             List<FieldValue> after) {
+            this.pit = pit;
+            this.slice = slice;
+            this.query = query;
+            this.sortField = sortField;
+            this.after = after;
+            this.last = after;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!page.hasNext()) {
+                if (exhausted) return false;
+                fetch();
+            }
+            return true;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Map<String, Object> next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            Hit<Map> hit = page.next();
+            if (sortField != null) last = hit.sort();
+            Map<String, Object> src = hit.source();
+            return src == null ? new LinkedHashMap<>() : src;
+        }
+
+        /**
+         * 最近一条命中的排序值
+         */
+        private List<Object> position() {
+            if (last == null) return null;
+            List<Object> values = new ArrayList<>(last.size());
+            for (FieldValue v : last) values.add(v.isNull() ? null : v._get());
+            return values;
+        }
+
+        private void fetch() {
+            SearchRequest.Builder b = new SearchRequest.Builder()
+                    .pit(p -> p.id(pit.get()).keepAlive(t -> t.time(keepAlive)))
+                    .size(size)
+                    .query(query)
+                    .sort(so -> so.field(f -> f.field(sortField == null ? "_shard_doc" : sortField)))
+                    .trackTotalHits(t -> t.enabled(false));
+            if (slice != null) b.slice(s -> s.id(String.valueOf(slice)).max(slices));
+            if (after != null) b.searchAfter(after);
+            if (!includes.isEmpty() || !excludes.isEmpty()) {
+                b.source(s -> s.filter(f -> f.includes(includes).excludes(excludes)));
+            }
+            SearchResponse<Map> response;
+            try {
+                response = client.search(b.build(), Map.class);
+            } catch (IOException e) {
+                throw new IllegalStateException("es search failed for index " + index, e);
+            }
+            // PIT id 可能随响应变化，后续请求与关闭都使用最新的
+            if (response.pitId() != null) pit.set(response.pitId());
+            List<Hit<Map>> hits = response.hits().hits();
+            if (hits.size() < size) exhausted = true;
+            if (!hits.isEmpty()) after = hits.get(hits.size() - 1).sort();
+            page = hits.iterator();
+        }
+    }
+
+    /**
+     * 多切片游标：每个切片一个生产任务，命中写入有界队列；关闭时通知生产端退出并释放 PIT。
+     * 生产任务会阻塞在队列上，因此运行在编排执行器上，不占用（也不会被 CallerRuns 退回到）有限的工作线程
+     */
+    private final class SlicedCursor implements RecordCursor<Map<String, Object>> {
+        private final AtomicReference<String> pit;
+        private final Query query;
+        private final BlockingQueue<Object> queue;
+        private final List<Future<?>> producers = new ArrayList<>();
+        private volatile boolean cancelled;
+        private int running;
+        private Map<String, Object> next;
+
+        private SlicedCursor(AtomicReference<String> pit, Query query) {
+            this.pit = pit;
+            this.query = query;
+            this.queue = new ArrayBlockingQueue<>(size * 2);
+            this.running = slices;
+            try {
+                for (int i = 0; i < slices; i++) {
+                    int slice = i;
+                    producers.add(CompletableFuture.runAsync(() -> produce(slice), dtsExecutor.coordinator()));
+                }
+            } catch (RuntimeException e) {
+                // 部分切片提交失败：先让已启动的生产端退出，PIT 由 open 释放
+                cancelled = true;
+                awaitProducers();
+                throw e;
+            }
+        }
+
+        private void produce(int slice) {
+            try {
+                PageIterator it = new PageIterator(pit, slice, query);
+                while (!cancelled && it.hasNext()) put(it.next());
+            } catch (RuntimeException e) {
+                put(e);
+            } finally {
+                put(END);
+            }
+        }
+
+        private void put(Object item) {
+            try {
+                while (!cancelled) {
+                    if (queue.offer(item, 100, TimeUnit.MILLISECONDS)) return;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean hasNext() {
+            while (next == null) {
+                if (running == 0) return false;
+                Object item;
+                try {
+                    item = queue.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("sliced es scan interrupted", e);
+                }
+                if (item == END) running--;
+                else if (item instanceof RuntimeException e) throw new IllegalStateException("sliced es scan failed", e);
+                else next = (Map<String, Object>) item;
+            }
+            return true;
+        }
+
+        @Override
+        public Map<String, Object> next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            Map<String, Object> current = next;
+            next = null;
+            return current;
+        }
+
+        @Override
+        public void close() {
+            cancelled = true;
+            queue.clear();
+            awaitProducers();
+            closePit(pit.get());
+        }
+
+        private void awaitProducers() {
+            for (Future<?> f : producers) {
+                try {
+                    f.get();
+                } catch (Exception ignored) {
+                    // 生产端异常已通过队列抛给消费端
+                }
+            }
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,120 @@
+package com.ml.datatransformer.dts.pipeline.impl.collect;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ml.datatransformer.dts.dto.DTSRequest;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Placeholders
+ * 采集配置中的 ${name} 占位符解析，变量来源：
+ * - request.payload 为 JSON 对象时的各字段（支持 a.b 访问嵌套字段）
+ * - payload（原始字符串）、ruleId
+ * - watermark：增量采集时上次成功执行的高水位（见 WatermarkStore）
+ *
+ * 整个值就是一个占位符时保留变量原类型（数字、时间等直接作为 JDBC 参数绑定），否则按字符串替换；
+ * Map/List 递归解析。引用了不存在的变量时抛出 IllegalArgumentException。
+ */
+public final class Placeholders {
+
+    private static final ObjectMapper OM = new ObjectMapper();
+    private static final Pattern PLACEHOLDER = Pattern.compile("\\$\\{([A-Za-z0-9_.]+)}");
+
+    private Placeholders() {
+    }
+
+    public static Map<String, Object> variables(DTSRequest request) {
+        Map<String, Object> vars = new HashMap<>();
+        String payload = request == null ? null : request.getPayload();
+        if (payload != null && payload.trim().startsWith("{")) {
+            try {
+                vars.putAll(OM.readValue(payload, new TypeReference<Map<String, Object>>() {}));
+            } catch (JsonProcessingException e) {
+                // 不是合法 JSON 时只提供原始 payload，引用其字段的占位符解析时报错
+            }
+        }
+        vars.put("payload", payload);
+        vars.put("ruleId", request == null ? null : request.getRuleId());
+        return vars;
+    }
+
+    /**
+     * 是否引用了指定变量（递归检查 Map/List）
+     */
+    public static boolean references(Object template, String name) {
+        if (template instanceof String s) {
+            Matcher m = PLACEHOLDER.matcher(s);
+            while (m.find()) {
+                if (m.group(1).equals(name) || m.group(1).startsWith(name + ".")) return true;
+            }
+            return false;
+        }
+        if (template instanceof Map<?, ?> map) {
+            for (Object v : map.values()) if (references(v, name)) return true;
+            return false;
+        }
+        if (template instanceof List<?> list) {
+            for (Object v : list) if (references(v, name)) return true;
+        }
+        return false;
+    }
+
+    public static boolean hasPlaceholder(Object template) {
+        if (template instanceof String s) return PLACEHOLDER.matcher(s).find();
+        if (template instanceof Map<?, ?> map) {
+            for (Object v : map.values()) if (hasPlaceholder(v)) return true;
+            return false;
+        }
+        if (template instanceof List<?> list) {
+            for (Object v : list) if (hasPlaceholder(v)) return true;
+        }
+        return false;
+    }
+
+    public static Object resolve(Object template, Map<String, Object> vars) {
+        if (template instanceof String s) return resolveString(s, vars);
+        if (template instanceof Map<?, ?> map) {
+            Map<String, Object> out = new LinkedHashMap<>(map.size() * 2);
+            map.forEach((k, v) -> out.put(String.valueOf(k), resolve(v, vars)));
+            return out;
+        }
+        if (template instanceof List<?> list) {
+            List<Object> out = new ArrayList<>(list.size());
+            for (Object v : list) out.add(resolve(v, vars));
+            return out;
+        }
+        return template;
+    }
+
+    private static Object resolveString(String s, Map<String, Object> vars) {
+        Matcher m = PLACEHOLDER.matcher(s);
+        if (!m.find()) return s;
+        if (m.start() == 0 && m.end() == s.length()) return lookup(m.group(1), vars);
+        StringBuilder sb = new StringBuilder(s.length() + 16);
+        do {
+            m.appendReplacement(sb, Matcher.quoteReplacement(String.valueOf(lookup(m.group(1), vars))));
+        } while (m.find());
+        m.appendTail(sb);
+        return sb.toString();
+    }
+
+    private static Object lookup(String name, Map<String, Object> vars) {
+        if (vars.containsKey(name)) return vars.get(name);
+        Object current = vars;
+        for (String part : name.split("\\.")) {
+            if (!(current instanceof Map<?, ?> map) || !map.containsKey(part)) {
+                throw new IllegalArgumentException("unresolved placeholder ${" + name + "}");
+            }
+            current = map.get(part);
+        }
+        return current;
+    }
+}
@@ -0,0 +1,91 @@
+package com.ml.datatransformer.dts.pipeline.impl.deadletter;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ml.datatransformer.dts.pipeline.error.DeadLetter;
+import com.ml.datatransformer.dts.pipeline.error.DeadLetterSink;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * FileDeadLetterSink
+ * 失败记录以 NDJSON 追加写入本地文件，每个来源（ruleId）一个文件：<path>/<ruleId>.ndjson
+ *
+ * 配置示例：
+ * {
+ *   "path": "./dead-letter"
+ * }
+ *
+ * 每行字段：ruleId、stage、position、error、record、timestamp
+ */
+public class FileDeadLetterSink implements DeadLetterSink {
+
+    private static final ObjectMapper OM = new ObjectMapper();
+
+    private final Path dir;
+
+    public FileDeadLetterSink(Map<String, Object> config) {
+        Object p = config == null ? null : config.get("path");
+        this.dir = Path.of(p == null ? "./dead-letter" : String.valueOf(p));
+    }
+
+    @Override
+    public synchronized void write(List<DeadLetter> letters) {
+        if (letters == null || letters.isEmpty()) return;
+        try {
+            Files.createDirectories(dir);
+            String ruleId = letters.get(0).ruleId();
+            BufferedWriter w = open(ruleId);
+            try {
+                for (DeadLetter letter : letters) {
+                    if (!sameSource(ruleId, letter.ruleId())) {
+                        w.close();
+                        ruleId = letter.ruleId();
+                        w = open(ruleId);
+                    }
+                    w.write(toJson(letter));
+                    w.newLine();
+                }
+            } finally {
+                w.close();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("write dead letters to " + dir + " failed", e);
+        }
+    }
+
+    /**
+     * 记录中含无法序列化的值时退化为 toString，保证死信本身不丢
+     */
+    private static String toJson(DeadLetter letter) throws JsonProcessingException {
+        try {
+            return OM.writeValueAsString(letter);
+        } catch (JsonProcessingException e) {
+            return OM.writeValueAsString(new DeadLetter(letter.ruleId(), letter.stage(), letter.position(), letter.error(),
+                    Map.of("raw", String.valueOf(letter.record())), letter.timestamp()));
+        }
+    }
+
+    private BufferedWriter open(String ruleId) throws IOException {
+        String file = (ruleId == null ? "unknown" : ruleId.replaceAll("[^A-Za-z0-9._-]", "_")) + ".ndjson";
+        return Files.newBufferedWriter(dir.resolve(file), StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    private static boolean sameSource(String a, String b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
+    @Override
+    public String name() {
+        return "dead_letter:file";
+    }
+}
@@ -0,0 +1,76 @@
+package com.ml.datatransformer.dts.pipeline.impl.deadletter;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ml.datatransformer.dts.pipeline.error.DeadLetter;
+import com.ml.datatransformer.dts.pipeline.error.DeadLetterSink;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * JdbcDeadLetterSink
+ * 失败记录批量插入数据库表（表需预先创建）：
+ *
+ * CREATE TABLE dts_dead_letter (
+ *   id         BIGINT AUTO_INCREMENT PRIMARY KEY,
+ *   rule_id    VARCHAR(128),
+ *   stage      VARCHAR(128),
+ *   position   INT,
+ *   error      VARCHAR(2000),
+ *   record     TEXT,
+ *   created_at TIMESTAMP
+ * );
+ *
+ * 配置示例：
+ * {
+ *   "table": "dts_dead_letter"
+ * }
+ */
+public class JdbcDeadLetterSink implements DeadLetterSink {
+
+    private static final ObjectMapper OM = new ObjectMapper();
+    private static final Pattern TABLE = Pattern.compile("[A-Za-z_][A-Za-z0-9_.]*");
+    private static final int MAX_ERROR_LENGTH = 2000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String sql;
+
+    public JdbcDeadLetterSink(JdbcTemplate jdbcTemplate, Map<String, Object> config) {
+        this.jdbcTemplate = jdbcTemplate;
+        Object t = config == null ? null : config.get("table");
+        String table = t == null ? "dts_dead_letter" : String.valueOf(t);
+        if (!TABLE.matcher(table).matches()) throw new IllegalArgumentException("invalid dead letter table: " + table);
+        this.sql = "INSERT INTO " + table + " (rule_id, stage, position, error, record, created_at) VALUES (?, ?, ?, ?, ?, ?)";
+    }
+
+    @Override
+    public void write(List<DeadLetter> letters) {
+        if (letters == null || letters.isEmpty()) return;
+        List<Object[]> args = new ArrayList<>(letters.size());
+        for (DeadLetter l : letters) {
+            String error = l.error() != null && l.error().length() > MAX_ERROR_LENGTH
+                    ? l.error().substring(0, MAX_ERROR_LENGTH) : l.error();
+            args.add(new Object[]{l.ruleId(), l.stage(), l.position(), error, toJson(l.record()),
+                    new Timestamp(l.timestamp())});
+        }
+        jdbcTemplate.batchUpdate(sql, args);
+    }
+
+    private static String toJson(Map<String, Object> record) {
+        try {
+            return OM.writeValueAsString(record);
+        } catch (JsonProcessingException e) {
+            return String.valueOf(record);
+        }
+    }
+
+    @Override
+    public String name() {
+        return "dead_letter:table";
+    }
+}
@@ -0,0 +1,164 @@
+package com.ml.datatransformer.dts.pipeline.impl.lookup;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * LookupIndex
+ * 参考表的不可变内存索引：键 -> 输出字段值（按 fields 顺序的 Object[]）。
+ * - 全部键都是整数（JDBC 整型列、JSON 数字或规范十进制字符串，如 "42" 而非 "042"）时使用 long 键的开放寻址表，
+ *   查找不装箱；否则按字符串键使用 HashMap
+ * - 查找键按同样规则归一化：整数列可以用数字或数字字符串匹配
+ * - 重复键后者覆盖前者
+ */
+public final class LookupIndex {
+
+    private static final long NO_KEY = Long.MIN_VALUE;
+
+    private final String[] fields;
+    private final Object[][] rows;
+    private final LongIntMap longIndex;
+    private final Map<String, Object[]> stringIndex;
+
+    private LookupIndex(String[] fields, Object[][] rows, LongIntMap longIndex, Map<String, Object[]> stringIndex) {
+        this.fields = fields;
+        this.rows = rows;
+        this.longIndex = longIndex;
+        this.stringIndex = stringIndex;
+    }
+
+    /**
+     * @param rows   参考表记录，键列为 null 的记录被忽略
+     * @param key    键列
+     * @param fields 输出字段，记录中不存在的字段取 null
+     */
+    public static LookupIndex build(List<Map<String, Object>> rows, String key, String[] fields) {
+        Object[][] values = new Object[rows.size()][];
+        Object[] rawKeys = new Object[rows.size()];
+        long[] longKeys = new long[rows.size()];
+        boolean integral = true;
+        int n = 0;
+        for (Map<String, Object> row : rows) {
+            Object k = row.get(key);
+            if (k == null) continue;
+            Object[] v = new Object[fields.length];
+            for (int i = 0; i < fields.length; i++) v[i] = row.get(fields[i]);
+            values[n] = v;
+            rawKeys[n] = k;
+            if (integral) {
+                long lk = asLong(k);
+                if (lk == NO_KEY) integral = false;
+                else longKeys[n] = lk;
+            }
+            n++;
+        }
+        if (integral) {
+            LongIntMap index = new LongIntMap(n);
+            for (int i = 0; i < n; i++) index.put(longKeys[i], i);
+            Object[][] compact = new Object[n][];
+            System.arraycopy(values, 0, compact, 0, n);
+            return new LookupIndex(fields, compact, index, null);
+        }
+        Map<String, Object[]> index = new HashMap<>(Math.max(16, (int) (n / 0.75f) + 1));
+        for (int i = 0; i < n; i++) index.put(String.valueOf(rawKeys[i]), values[i]);
+        return new LookupIndex(fields, null, null, index);
+    }
+
+    /**
+     * @return 命中时按 fields 顺序的字段值，未命中返回 null
+     */
+    public Object[] get(Object key) {
+        if (key == null) return null;
+        if (longIndex != null) {
+            long k = asLong(key);
+            if (k == NO_KEY) return null;
+            int i = longIndex.get(k);
+            return i < 0 ? null : rows[i];
+        }
+        return stringIndex.get(String.valueOf(key));
+    }
+
+    public int size() {
+        return longIndex != null ? longIndex.size() : stringIndex.size();
+    }
+
+    public String[] fields() {
+        return fields;
+    }
+
+    /**
+     * 整数键转 long，无法无损转换时返回 NO_KEY
+     */
+    static long asLong(Object v) {
+        if (v instanceof Long || v instanceof Integer || v instanceof Short || v instanceof Byte) {
+            long l = ((Number) v).longValue();
+            return l == NO_KEY ? NO_KEY : l;
+        }
+        if (v instanceof BigDecimal d) {
+            try {
+                return d.signum() == 0 ? 0 : d.stripTrailingZeros().longValueExact();
+            } catch (ArithmeticException e) {
+                return NO_KEY;
+            }
+        }
+        if (v instanceof BigInteger b) {
+            return b.bitLength() < 64 ? b.longValue() : NO_KEY;
+        }
+        if (v instanceof String s) {
+            if (s.isEmpty() || s.length() > 19) return NO_KEY;
+            try {
+                long l = Long.parseLong(s);
+                return Long.toString(l).equals(s) ? l : NO_KEY;
+            } catch (NumberFormatException e) {
+                return NO_KEY;
+            }
+        }
+        return NO_KEY;
+    }
+
+    /**
+     * long -> int 开放寻址表（线性探测，负载因子 0.5），值存 下标 + 1，0 表示空槽
+     */
+    static final class LongIntMap {
+        private final long[] keys;
+        private final int[] values;
+        private final int mask;
+        private int size;
+
+        LongIntMap(int expected) {
+            int cap = Integer.highestOneBit(Math.max(4, expected * 2 - 1)) << 1;
+            this.keys = new long[cap];
+            this.values = new int[cap];
+            this.mask = cap - 1;
+        }
+
+        void put(long key, int value) {
+            int i = slot(key);
+            while (values[i] != 0 && keys[i] != key) i = (i + 1) & mask;
+            if (values[i] == 0) size++;
+            keys[i] = key;
+            values[i] = value + 1;
+        }
+
+        int get(long key) {
+            int i = slot(key);
+            while (values[i] != 0) {
+                if (keys[i] == key) return values[i] - 1;
+                i = (i + 1) & mask;
+            }
+            return -1;
+        }
+
+        int size() {
+            return size;
+        }
+
+        private int slot(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32)) & mask;
+        }
+    }
+}
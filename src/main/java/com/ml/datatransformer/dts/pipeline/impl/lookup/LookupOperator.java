@@ -0,0 +1,92 @@
+package com.ml.datatransformer.dts.pipeline.impl.lookup;
+
+import com.ml.datatransformer.dts.pipeline.model.MapProcessor;
+import com.ml.datatransformer.dts.pipeline.model.SchemaBindable;
+import com.ml.datatransformer.dts.pipeline.record.RecordSchema;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * LookupOperator
+ * 按键关联预加载的参考表（见 LookupTables），把命中记录的字段写入当前行，单次查找为 O(1) 的内存哈希查找。
+ *
+ * 配置示例：
+ * {
+ *   "source": "db",                                   // db | file
+ *   "sql": "SELECT scheme, fee_rate, fixed_fee FROM t_fee_schedule",
+ *   "path": "./ref/fee_schedule.csv",                 // source=file 时使用：.csv / .json / .ndjson
+ *   "key": "scheme",                                  // 参考表键列
+ *   "on": "card_scheme",                              // 当前行的关联字段，默认与 key 同名
+ *   "fields": ["fee_rate", "fixed_fee"],              // 写入的字段，默认参考表除键列外的全部列（建议显式配置）
+ *   "prefix": "fee_",                                 // 可选，写入字段名前缀
+ *   "refresh_seconds": 300,                           // 可选，后台定时刷新间隔，0 或不配置时只在编译时加载
+ *   "on_miss": "keep"                                 // keep（默认，不写入）| null（写入 null）| error
+ * }
+ *
+ * on_miss=error 时未命中抛出 IllegalArgumentException，交由 on_error 策略处理
+ */
+public class LookupOperator implements MapProcessor, SchemaBindable {
+
+    private final LookupTable table;
+    private final String on;
+    private final String[] targets;
+    private final String onMiss;
+
+    /**
+     * @param lookups 本次编译的参考表租约，表的生命周期随编译结果
+     */
+    public LookupOperator(Map<String, Object> config, LookupTables.Lease lookups) {
+        if (config == null) throw new IllegalArgumentException("lookup requires config");
+        this.table = lookups.table(config);
+        this.on = String.valueOf(config.getOrDefault("on", config.get("key")));
+        String prefix = config.get("prefix") == null ? "" : String.valueOf(config.get("prefix"));
+        String[] fields = table.fields();
+        this.targets = new String[fields.length];
+        for (int i = 0; i < fields.length; i++) targets[i] = prefix + fields[i];
+        this.onMiss = config.get("on_miss") == null ? "keep" : String.valueOf(config.get("on_miss")).toLowerCase();
+        if (!List.of("keep", "null", "error").contains(onMiss)) {
+            throw new IllegalArgumentException("unknown lookup on_miss: " + onMiss);
+        }
+    }
+
+    @Override
+    public Map<String, Object> process(Map<String, Object> data) {
+        Object key = data.get(on);
+        Object[] values = table.index().get(key);
+        if (values != null) {
+            for (int i = 0; i < targets.length; i++) data.put(targets[i], values[i]);
+            return data;
+        }
+        switch (onMiss) {
+            case "null" -> {
+                for (String t : targets) data.put(t, null);
+            }
+            case "error" -> throw new IllegalArgumentException("lookup key [" + key + "] not found in " + table.name());
+            default -> {
+            }
+        }
+        return data;
+    }
+
+    @Override
+    public Collection<String> fields() {
+        List<String> fields = new ArrayList<>(targets.length + 1);
+        fields.add(on);
+        fields.addAll(List.of(targets));
+        return fields;
+    }
+
+    @Override
+    public MapProcessor bind(RecordSchema schema) {
+        // 字段已进入 schema，按 Map 视图访问即可命中槽位
+        return this;
+    }
+
+    @Override
+    public String name() {
+        return "lookup";
+    }
+}
@@ -0,0 +1,86 @@
+package com.ml.datatransformer.dts.pipeline.impl.lookup;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * LookupTable
+ * 一张参考表：持有当前索引，刷新时在后台线程完整加载并构建新索引，构建完成后以 volatile 引用整体替换（copy-on-write）。
+ * 查找只读取一次引用，不加锁，刷新期间继续使用旧索引；刷新失败时保留旧索引并记录日志。
+ */
+@Slf4j
+public final class LookupTable {
+
+    private final String name;
+    private final String key;
+    private String[] fields;
+    private final Callable<List<Map<String, Object>>> loader;
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+    private volatile LookupIndex index;
+    private volatile long loadedAt;
+
+    /**
+     * 构造时同步加载一次，失败时抛出 IllegalArgumentException（任务编译失败）
+     *
+     * @param fields 输出字段，null 时取首次加载的首条记录中除键列外的全部列，之后刷新沿用
+     */
+    public LookupTable(String name, String key, String[] fields, Callable<List<Map<String, Object>>> loader) {
+        this.name = name;
+        this.key = key;
+        this.fields = fields;
+        this.loader = loader;
+        try {
+            load();
+        } catch (Exception e) {
+            throw new IllegalArgumentException("load lookup table " + name + " failed: " + e.getMessage(), e);
+        }
+    }
+
+    public LookupIndex index() {
+        return index;
+    }
+
+    public String[] fields() {
+        return fields;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public long loadedAt() {
+        return loadedAt;
+    }
+
+    /**
+     * 重新加载并替换索引；已有刷新在进行时直接返回
+     */
+    public void refresh() {
+        if (!refreshing.compareAndSet(false, true)) return;
+        try {
+            load();
+        } catch (Exception e) {
+            log.warn("Refresh lookup table {} failed, keep {} entries loaded at {}: {}",
+                    name, index.size(), loadedAt, e.getMessage());
+        } finally {
+            refreshing.set(false);
+        }
+    }
+
+    private void load() throws Exception {
+        long start = System.nanoTime();
+        List<Map<String, Object>> rows = loader.call();
+        if (fields == null) {
+            fields = rows.isEmpty() ? new String[0]
+                    : rows.get(0).keySet().stream().filter(c -> !c.equals(key)).toArray(String[]::new);
+        }
+        LookupIndex next = LookupIndex.build(rows, key, fields);
+        index = next;
+        loadedAt = System.currentTimeMillis();
+        log.info("Lookup table {} loaded, entries={}, cost={}ms", name, next.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+}
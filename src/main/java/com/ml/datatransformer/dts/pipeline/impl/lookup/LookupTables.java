@@ -0,0 +1,225 @@
+package com.ml.datatransformer.dts.pipeline.impl.lookup;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LookupTables
+ * 参考表注册表：相同来源（source + sql/path + key + fields + refresh_seconds）的 lookup 算子共享一张表，只加载一次。
+ * - 来源：db（JdbcTemplate 执行 sql）| file（.csv 首行为表头；.json 对象数组；.ndjson/.jsonl 每行一个对象）
+ * - refresh_seconds > 0 时在后台线程按固定间隔刷新；refreshAll 触发全部表立即在后台刷新
+ * - 刷新在单独的守护线程上执行，不占用执行请求的线程
+ * - 每次编译通过 {@link #lease(String)} 取得租约，表按租约引用计数；编译结果被替换或失效时关闭租约，
+ *   最后一个引用释放后取消定时刷新并移出注册表（已持有的算子仍可使用最后一次加载的索引）
+ */
+@Slf4j
+@Component
+public class LookupTables {
+
+    private static final ObjectMapper OM = new ObjectMapper();
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<String, Entry> tables = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "dts-lookup-refresh");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public LookupTables(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * @param owner 租约持有者（任务名），用于日志
+     */
+    public Lease lease(String owner) {
+        return new Lease(owner);
+    }
+
+    /**
+     * 获取或加载参考表并增加一次引用
+     *
+     * @param config lookup 算子配置：source、sql/path、key、fields、refresh_seconds
+     */
+    private String acquire(Map<String, Object> config) {
+        String source = String.valueOf(config.getOrDefault("source", config.containsKey("sql") ? "db" : "file"));
+        Object key = config.get("key");
+        if (key == null || String.valueOf(key).isBlank()) throw new IllegalArgumentException("lookup requires key");
+        String[] fields = config.get("fields") instanceof List<?> l ? l.stream().map(String::valueOf).toArray(String[]::new) : null;
+        long refreshSeconds = config.get("refresh_seconds") == null ? 0 : Long.parseLong(String.valueOf(config.get("refresh_seconds")));
+
+        String target;
+        Callable<List<Map<String, Object>>> loader;
+        if ("db".equalsIgnoreCase(source)) {
+            target = required(config, "sql");
+            loader = () -> jdbcTemplate.queryForList(target);
+        } else if ("file".equalsIgnoreCase(source)) {
+            target = required(config, "path");
+            loader = () -> readFile(Path.of(target));
+        } else {
+            throw new IllegalArgumentException("unknown lookup source: " + source);
+        }
+
+        String id = source + ":" + target + "#" + key + (fields == null ? "" : Arrays.toString(fields))
+                + (refreshSeconds > 0 ? "@" + refreshSeconds + "s" : "");
+        tables.compute(id, (k, entry) -> {
+            if (entry == null) {
+                LookupTable table = new LookupTable(k, String.valueOf(key), fields, loader);
+                ScheduledFuture<?> refresh = refreshSeconds > 0
+                        ? scheduler.scheduleWithFixedDelay(table::refresh, refreshSeconds, refreshSeconds, TimeUnit.SECONDS)
+                        : null;
+                entry = new Entry(table, refresh);
+            }
+            entry.refs++;
+            return entry;
+        });
+        return id;
+    }
+
+    private void release(String id) {
+        tables.computeIfPresent(id, (k, entry) -> {
+            if (--entry.refs > 0) return entry;
+            if (entry.refresh != null) entry.refresh.cancel(false);
+            log.info("Lookup table {} released", k);
+            return null;
+        });
+    }
+
+    /**
+     * 在后台刷新全部参考表，返回提交刷新的表数
+     */
+    public int refreshAll() {
+        List<Entry> entries = new ArrayList<>(tables.values());
+        entries.forEach(e -> scheduler.execute(e.table::refresh));
+        return entries.size();
+    }
+
+    /**
+     * 当前注册的参考表数
+     */
+    public int size() {
+        return tables.size();
+    }
+
+    @PreDestroy
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * 一次编译持有的参考表引用；关闭后释放全部引用，重复关闭无效果
+     */
+    public final class Lease implements AutoCloseable {
+        private final String owner;
+        private final List<String> ids = new ArrayList<>();
+        private boolean closed;
+
+        private Lease(String owner) {
+            this.owner = owner;
+        }
+
+        public synchronized LookupTable table(Map<String, Object> config) {
+            if (closed) throw new IllegalStateException("lookup lease of " + owner + " is closed");
+            String id = acquire(config);
+            ids.add(id);
+            return tables.get(id).table;
+        }
+
+        @Override
+        public synchronized void close() {
+            if (closed) return;
+            closed = true;
+            ids.forEach(LookupTables.this::release);
+            ids.clear();
+        }
+    }
+
+    private static final class Entry {
+        private final LookupTable table;
+        private final ScheduledFuture<?> refresh;
+        private int refs;
+
+        private Entry(LookupTable table, ScheduledFuture<?> refresh) {
+            this.table = table;
+            this.refresh = refresh;
+        }
+    }
+
+    private static String required(Map<String, Object> config, String name) {
+        Object v = config.get(name);
+        if (v == null || String.valueOf(v).isBlank()) throw new IllegalArgumentException("lookup requires " + name);
+        return String.valueOf(v);
+    }
+
+    private static List<Map<String, Object>> readFile(Path path) throws IOException {
+        String file = path.getFileName().toString().toLowerCase();
+        if (file.endsWith(".csv")) return readCsv(path);
+        if (file.endsWith(".json")) {
+            return OM.readValue(path.toFile(), new TypeReference<List<Map<String, Object>>>() {});
+        }
+        if (file.endsWith(".ndjson") || file.endsWith(".jsonl")) {
+            List<Map<String, Object>> rows = new ArrayList<>();
+            try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (!line.isBlank()) rows.add(OM.readValue(line, new TypeReference<Map<String, Object>>() {}));
+                }
+            }
+            return rows;
+        }
+        throw new IllegalArgumentException("unsupported lookup file: " + path);
+    }
+
+    /**
+     * 简单 CSV：逗号分隔、首行为表头，值去掉首尾空白与双引号，不支持字段内逗号
+     */
+    private static List<Map<String, Object>> readCsv(Path path) throws IOException {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String header = reader.readLine();
+            if (header == null) return rows;
+            String[] columns = split(header);
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) continue;
+                String[] values = split(line);
+                Map<String, Object> row = new LinkedHashMap<>(columns.length * 2);
+                for (int i = 0; i < columns.length; i++) row.put(columns[i], i < values.length ? values[i] : null);
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+
+    private static String[] split(String line) {
+        String[] parts = line.split(",", -1);
+        for (int i = 0; i < parts.length; i++) {
+            String p = parts[i].trim();
+            if (p.length() >= 2 && p.startsWith("\"") && p.endsWith("\"")) p = p.substring(1, p.length() - 1);
+            parts[i] = p;
+        }
+        return parts;
+    }
+}
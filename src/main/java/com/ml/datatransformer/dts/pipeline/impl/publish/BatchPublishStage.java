@@ -0,0 +1,371 @@
+package com.ml.datatransformer.dts.pipeline.impl.publish;
+
+import com.ml.datatransformer.dts.pipeline.error.ErrorPolicy;
+import com.ml.datatransformer.dts.pipeline.impl.DTSExecutor;
+import com.ml.datatransformer.dts.pipeline.model.Publisher;
+import com.ml.datatransformer.dts.pipeline.model.Stage;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BiConsumer;
+import java.util.function.LongConsumer;
+
+/**
+ * BatchPublishStage
+ * 把处理完成的单条记录攒成批，通过批量 Publisher（如 EsPublisher 的 bulkIndex）写出。
+ *
+ * 配置项（publish step 的 config）：
+ * - bulk_size: 500            // 单批最大条数，达到即刷出
+ * - flush_interval_ms: 1000   // 缓冲中最早一条等待超过该时长时刷出：写入时检查，另有定时任务按该间隔检查，
+ *                             // 上游停顿（慢游标、空闲流）时缓冲最长约 2 倍间隔后写出；0 表示每次写入即刷出
+ * - max_in_flight: 2          // 同时在途的异步批次数，超出时由写入线程同步刷出（背压）
+ *
+ * 失败批次：会话按 {@link ErrorPolicy} 重试——RETRY 且 retryable 时在写出该批的线程上按 backoff 等待后整批重写，
+ * 至多 maxRetries 次（publisher 返回 false 时异常为 null，仅在未配置 retryOn 时重试）；重试耗尽或不可重试时才回调
+ * onFailed（写入死信），并在 flush/close 时以失败结束。
+ *
+ * Stage 本身不可变，可随编译结果复用；每次执行通过 {@link #open()} 获得独立的 Session。
+ */
+@Slf4j
+public class BatchPublishStage<M> implements Stage {
+
+    private final Publisher<List<M>, Boolean> delegate;
+    private final DTSExecutor dtsExecutor;
+    private final int bulkSize;
+    private final long flushIntervalNanos;
+    private final int maxInFlight;
+
+    public BatchPublishStage(Publisher<List<M>, Boolean> delegate, DTSExecutor dtsExecutor, Map<String, Object> config) {
+        this.delegate = Objects.requireNonNull(delegate, "delegate must not be null");
+        this.dtsExecutor = Objects.requireNonNull(dtsExecutor, "dtsExecutor must not be null");
+        Map<String, Object> cfg = config == null ? Map.of() : config;
+        this.bulkSize = Math.max(1, parseInt(cfg.get("bulk_size"), 500));
+        this.flushIntervalNanos = Math.max(0, parseInt(cfg.get("flush_interval_ms"), 1000)) * 1_000_000L;
+        this.maxInFlight = Math.max(1, parseInt(cfg.get("max_in_flight"), 2));
+    }
+
+    public Session open() {
+        return new Session(null, null, ErrorPolicy.STOP);
+    }
+
+    /**
+     * @param onPublished 每个批次成功写出后回调写出条数，可用于上报进度
+     */
+    public Session open(LongConsumer onPublished) {
+        return new Session(onPublished, null, ErrorPolicy.STOP);
+    }
+
+    /**
+     * @param onFailed 批次写出失败时回调该批记录与异常（publisher 返回 false 时异常为 null），可用于写入死信
+     */
+    public Session open(LongConsumer onPublished, BiConsumer<List<M>, Exception> onFailed) {
+        return new Session(onPublished, onFailed, ErrorPolicy.STOP);
+    }
+
+    /**
+     * @param policy 失败批次的重试策略，只使用其 RETRY 相关配置；死信由 onFailed 负责
+     */
+    public Session open(LongConsumer onPublished, BiConsumer<List<M>, Exception> onFailed, ErrorPolicy policy) {
+        return new Session(onPublished, onFailed, Objects.requireNonNull(policy, "policy must not be null"));
+    }
+
+    @Override
+    public String name() {
+        return "batch:" + delegate.name();
+    }
+
+    private int parseInt(Object v, int dft) {
+        if (v == null) return dft;
+        try { return Integer.parseInt(String.valueOf(v)); } catch (Exception e) { return dft; }
+    }
+
+    /**
+     * 单次执行的发布会话，可被多个工作线程并发写入；flush_interval_ms > 0 时持有一个定时刷出任务，close/abort 时取消
+     */
+    public class Session implements AutoCloseable {
+        private final Semaphore inFlight = new Semaphore(maxInFlight);
+        private final List<Future<?>> pending = new ArrayList<>();
+        private final AtomicLong published = new AtomicLong();
+        private final AtomicLong failedBulks = new AtomicLong();
+        private final LongConsumer onPublished;
+        private final BiConsumer<List<M>, Exception> onFailed;
+        private final ErrorPolicy policy;
+        /**
+         * 定时刷出与 flush 互斥：flush 返回时定时任务取出的批次也已进入 pending 或写出完毕
+         */
+        private final Semaphore flushing = new Semaphore(1);
+        private final ScheduledFuture<?> timer;
+        private volatile boolean closed;
+        /**
+         * 正在 offer/offerAll 中的调用数；abort 置 aborted 后等待其归零，之后迟到的写入（已失败执行中未取消掉的任务）直接丢弃
+         */
+        private final AtomicInteger writers = new AtomicInteger();
+        private volatile boolean aborted;
+        private List<M> buffer = new ArrayList<>(bulkSize);
+        private long firstBufferedAt;
+
+        private Session(LongConsumer onPublished, BiConsumer<List<M>, Exception> onFailed, ErrorPolicy policy) {
+            this.onPublished = onPublished;
+            this.onFailed = onFailed;
+            this.policy = policy;
+            long intervalMillis = flushIntervalNanos / 1_000_000L;
+            this.timer = intervalMillis > 0 ? dtsExecutor.scheduleOnCoordinator(this::flushExpired, intervalMillis) : null;
+        }
+
+        /**
+         * 定时任务：缓冲中最早一条已超过 flush_interval_ms 时刷出，不等待下一次写入
+         */
+        private void flushExpired() {
+            if (!flushing.tryAcquire()) return;
+            try {
+                if (closed) return;
+                List<M> expired = null;
+                synchronized (this) {
+                    if (!buffer.isEmpty() && System.nanoTime() - firstBufferedAt >= flushIntervalNanos) {
+                        expired = buffer;
+                        buffer = new ArrayList<>(bulkSize);
+                    }
+                }
+                if (expired != null) dispatch(expired);
+            } catch (RuntimeException e) {
+                log.error("{} scheduled flush failed", name(), e);
+            } finally {
+                flushing.release();
+            }
+        }
+
+        /**
+         * 取消定时任务并等待正在进行的定时刷出结束；之后迟到的触发直接跳过
+         */
+        private void cancelTimer() {
+            closed = true;
+            if (timer != null) timer.cancel(false);
+            flushing.acquireUninterruptibly();
+            flushing.release();
+        }
+
+        public void offer(M item) {
+            if (!enter()) return;
+            try {
+                List<M> full = null;
+                synchronized (this) {
+                    if (buffer.isEmpty()) firstBufferedAt = System.nanoTime();
+                    buffer.add(item);
+                    if (buffer.size() >= bulkSize || System.nanoTime() - firstBufferedAt >= flushIntervalNanos) {
+                        full = buffer;
+                        buffer = new ArrayList<>(bulkSize);
+                    }
+                }
+                if (full != null) dispatch(full);
+            } finally {
+                writers.decrementAndGet();
+            }
+        }
+
+        /**
+         * 批量写入：整段只加一次锁，适合分块执行时按块提交
+         */
+        public void offerAll(List<M> items) {
+            if (!enter()) return;
+            try {
+                offerAllEntered(items);
+            } finally {
+                writers.decrementAndGet();
+            }
+        }
+
+        private void offerAllEntered(List<M> items) {
+            List<List<M>> ready = null;
+            synchronized (this) {
+                for (M item : items) {
+                    if (buffer.isEmpty()) firstBufferedAt = System.nanoTime();
+                    buffer.add(item);
+                    if (buffer.size() >= bulkSize) {
+                        if (ready == null) ready = new ArrayList<>(2);
+                        ready.add(buffer);
+                        buffer = new ArrayList<>(bulkSize);
+                    }
+                }
+                if (!buffer.isEmpty() && System.nanoTime() - firstBufferedAt >= flushIntervalNanos) {
+                    if (ready == null) ready = new ArrayList<>(1);
+                    ready.add(buffer);
+                    buffer = new ArrayList<>(bulkSize);
+                }
+            }
+            if (ready != null) {
+                for (List<M> bulk : ready) dispatch(bulk);
+            }
+        }
+
+        /**
+         * 先登记再检查 aborted：abort 要么看到本次登记并等待，要么本次看到 aborted 直接返回
+         */
+        private boolean enter() {
+            writers.incrementAndGet();
+            if (!aborted) return true;
+            writers.decrementAndGet();
+            return false;
+        }
+
+        private void dispatch(List<M> bulk) {
+            if (inFlight.tryAcquire()) {
+                Future<?> f;
+                try {
+                    f = dtsExecutor.submit(() -> {
+                        try {
+                            write(bulk);
+                        } finally {
+                            inFlight.release();
+                        }
+                    });
+                } catch (RuntimeException e) {
+                    inFlight.release();
+                    throw e;
+                }
+                synchronized (pending) {
+                    // 长时间流式执行时清理已完成的批次，避免 Future 无限堆积
+                    if (pending.size() >= maxInFlight * 4) pending.removeIf(Future::isDone);
+                    pending.add(f);
+                }
+            } else {
+                // 在途批次已满：由当前线程同步写出，天然限速
+                write(bulk);
+            }
+        }
+
+        /**
+         * 写出一批，失败时按 policy 重试；重试期间占用当前线程（在途批次或同步写入的调用方），上游随之限速
+         */
+        private void write(List<M> bulk) {
+            Exception error;
+            for (int attempt = 0; ; attempt++) {
+                Boolean ok;
+                error = null;
+                try {
+                    ok = delegate.publish(bulk);
+                } catch (Exception e) {
+                    ok = Boolean.FALSE;
+                    error = e;
+                }
+                if (Boolean.TRUE.equals(ok)) {
+                    published.addAndGet(bulk.size());
+                    if (onPublished != null) onPublished.accept(bulk.size());
+                    return;
+                }
+                if (attempt >= policy.getMaxRetries() || !policy.retryable(error)) break;
+                long delay = policy.backoff(attempt);
+                log.warn("{} bulk publish failed, retry {}/{} in {}ms, size={}, error={}", delegate.name(), attempt + 1,
+                        policy.getMaxRetries(), delay, bulk.size(), error == null ? "returned false" : error.toString());
+                try {
+                    Thread.sleep(delay);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+            if (error != null) {
+                log.error("{} bulk publish error, size={}", delegate.name(), bulk.size(), error);
+            } else {
+                log.error("{} bulk publish returned false, size={}", delegate.name(), bulk.size());
+            }
+            failedBulks.incrementAndGet();
+            if (onFailed == null) return;
+            try {
+                onFailed.accept(bulk, error);
+            } catch (RuntimeException e) {
+                // 死信写出失败不掩盖批次失败本身，flush 时仍会抛出
+                log.error("{} failed to report failed bulk, size={}", delegate.name(), bulk.size(), e);
+            }
+        }
+
+        public long published() {
+            return published.get();
+        }
+
+        /**
+         * 刷出剩余缓冲并等待所有在途批次完成；存在失败批次时抛出异常
+         */
+        @Override
+        public void close() {
+            cancelTimer();
+            flush();
+        }
+
+        /**
+         * 执行失败时调用：拒绝之后的写入并等待进行中的写入返回，丢弃尚未刷出的缓冲，等待在途批次结束，不因批次失败抛出异常。
+         * 失败的执行不会提交断点与水位，丢弃的记录在重跑时重新写出
+         */
+        public void abort() {
+            aborted = true;
+            while (writers.get() > 0) LockSupport.parkNanos(100_000);
+            cancelTimer();
+            synchronized (this) {
+                buffer = new ArrayList<>(0);
+            }
+            for (Future<?> f : drainPending()) {
+                try {
+                    f.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (Exception ignored) {
+                    // 批次失败已在 write 中记录
+                }
+            }
+        }
+
+        private List<Future<?>> drainPending() {
+            synchronized (pending) {
+                List<Future<?>> waiting = new ArrayList<>(pending);
+                pending.clear();
+                return waiting;
+            }
+        }
+
+        /**
+         * 与 close 相同，但会话仍可继续写入；返回后此前 offer 的记录均已写出（用于保存断点前）。
+         * 失败批次数在每次 flush 时清零，只反映本次 flush 覆盖的批次
+         */
+        public void flush() {
+            flushing.acquireUninterruptibly();
+            try {
+                flushBuffered();
+            } finally {
+                flushing.release();
+            }
+        }
+
+        private void flushBuffered() {
+            List<M> rest;
+            synchronized (this) {
+                rest = buffer;
+                buffer = new ArrayList<>(0);
+            }
+            if (!rest.isEmpty()) write(rest);
+            for (Future<?> f : drainPending()) {
+                try {
+                    f.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while waiting for " + name(), e);
+                } catch (Exception e) {
+                    failedBulks.incrementAndGet();
+                }
+            }
+            long failed = failedBulks.getAndSet(0);
+            if (failed > 0) {
+                throw new IllegalStateException(name() + " failed, failedBulks=" + failed
+                        + ", published=" + published.get());
+            }
+        }
+    }
+}
\ No newline at end of file
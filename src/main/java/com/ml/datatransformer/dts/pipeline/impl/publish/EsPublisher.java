@@ -14,6 +14,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * EsPublisher
@@ -23,6 +24,7 @@ import java.util.Objects;
  * - index: "card_fee_aggregation"      // 必填
  * - id_field: "id"                     // 可选，若提供则使用该字段作为文档 _id
  * - create_index_if_missing: true      // 可选，默认 true
+ * - bulk_size / flush_interval_ms / max_in_flight  // 由 BatchPublishStage 读取，控制攒批与并发
  */
 @Slf4j
 @RequiredArgsConstructor
@@ -30,6 +32,7 @@ public class EsPublisher implements Publisher<List<Map<String, Object>>, Boolean
 
     private final ElasticsearchOperations esOps;
     private final Map<String, Object> config;
+    private final AtomicBoolean indexReady = new AtomicBoolean();
 
     @Override
     public Boolean publish(List<Map<String, Object>> result) {
@@ -46,10 +49,16 @@ public class EsPublisher implements Publisher<List<Map<String, Object>>, Boolean
         boolean createIfMissing = !"false".equalsIgnoreCase(String.valueOf(config.getOrDefault("create_index_if_missing", "true")));
 
         IndexCoordinates coords = IndexCoordinates.of(index);
-        if (createIfMissing) {
-            IndexOperations io = esOps.indexOps(coords);
-            if (!io.exists()) {
-                io.create();
+        // 批量发布时每个 bulk 都会调用 publish，索引检查只需做一次
+        if (createIfMissing && !indexReady.get()) {
+            synchronized (indexReady) {
+                if (!indexReady.get()) {
+                    IndexOperations io = esOps.indexOps(coords);
+                    if (!io.exists()) {
+                        io.create();
+                    }
+                    indexReady.set(true);
+                }
             }
         }
 
@@ -63,14 +72,10 @@ public class EsPublisher implements Publisher<List<Map<String, Object>>, Boolean
             queries.add(qb.build());
         }
 
-        try {
-            esOps.bulkIndex(queries, coords);
-            log.debug("EsPublisher indexed {} documents into index {}", queries.size(), index);
-            return Boolean.TRUE;
-        } catch (Exception e) {
-            log.error("EsPublisher bulk index error, index={}", index, e);
-            return Boolean.FALSE;
-        }
+        // 异常交给 BatchPublishStage：按 on_error 的 retry_on 匹配异常及其 cause（如连接失败的 IOException）决定是否重试
+        esOps.bulkIndex(queries, coords);
+        log.debug("EsPublisher indexed {} documents into index {}", queries.size(), index);
+        return Boolean.TRUE;
     }
 
     @Override
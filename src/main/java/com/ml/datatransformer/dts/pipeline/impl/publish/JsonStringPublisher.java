@@ -0,0 +1,30 @@
+package com.ml.datatransformer.dts.pipeline.impl.publish;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ml.datatransformer.dts.pipeline.model.Publisher;
+
+import java.util.Map;
+
+/**
+ * JsonStringPublisher
+ * 将单条结果序列化为 JSON 字符串，作为接口同步返回的默认发布方式。
+ * 无状态，可在多个编译后的流水线之间共享。
+ */
+public class JsonStringPublisher implements Publisher<Map<String, Object>, String> {
+
+    private static final ObjectMapper OM = new ObjectMapper();
+
+    @Override
+    public String publish(Map<String, Object> result) {
+        try {
+            return OM.writeValueAsString(result);
+        } catch (Exception e) {
+            return String.valueOf(result);
+        }
+    }
+
+    @Override
+    public String name() {
+        return "publish:json";
+    }
+}
\ No newline at end of file
@@ -0,0 +1,29 @@
+package com.ml.datatransformer.dts.pipeline.metrics;
+
+import com.ml.datatransformer.dts.pipeline.impl.DTSExecutor;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * DTSExecutor 指标：dts.executor.active（受限任务在途数）、dts.executor.queue.depth（排队任务数）
+ * 以 MeterBinder 注册，由 actuator 自动绑定；Gauge 在采集时读取，不在任务路径上产生开销
+ */
+@Component
+@RequiredArgsConstructor
+public class DTSExecutorMetrics implements MeterBinder {
+
+    private final DTSExecutor dtsExecutor;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("dts.executor.active", dtsExecutor, DTSExecutor::activeCount)
+                .tag("mode", dtsExecutor.mode())
+                .register(registry);
+        Gauge.builder("dts.executor.queue.depth", dtsExecutor, DTSExecutor::queueDepth)
+                .tag("mode", dtsExecutor.mode())
+                .register(registry);
+    }
+}
@@ -0,0 +1,116 @@
+package com.ml.datatransformer.dts.pipeline.metrics;
+
+import com.ml.datatransformer.dts.pipeline.model.Stage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PipelineMetrics
+ * 单条编译后流水线的指标句柄，编译期按 stages() 顺序预先注册全部 Meter，执行期只按下标访问数组。
+ *
+ * 指标（tags：ruleId、stage=Stage.name()、position=阶段下标）：
+ * - dts.stage.latency：阶段耗时；collector/批量发布/BatchProcessor 按次全量计时，单条算子与 publisher 按 sampleRate 抽样计时
+ * - dts.stage.rows：阶段处理的记录数（按块汇总后累加一次）
+ * - dts.stage.errors：阶段抛出异常次数
+ * - dts.pipeline.execution{ruleId, mode}：单次执行总耗时
+ * - dts.pipeline.batch.size{ruleId}：每次采集（流式为每个窗口）的记录数分布
+ *
+ * 同名同 tag 的 Meter 由 MeterRegistry 去重，任务重新编译后继续累加到同一序列。
+ */
+public final class PipelineMetrics {
+
+    public static final PipelineMetrics NOOP = new PipelineMetrics();
+
+    private final boolean enabled;
+    private final int sampleRate;
+    private final Timer[] latency;
+    private final Counter[] rows;
+    private final Counter[] errors;
+    private final Timer execution;
+    private final DistributionSummary batchSize;
+
+    private PipelineMetrics() {
+        this.enabled = false;
+        this.sampleRate = 0;
+        this.latency = new Timer[0];
+        this.rows = new Counter[0];
+        this.errors = new Counter[0];
+        this.execution = null;
+        this.batchSize = null;
+    }
+
+    public PipelineMetrics(MeterRegistry registry, String ruleId, String mode, List<Stage> stages, int sampleRate) {
+        this.enabled = true;
+        this.sampleRate = Math.max(0, sampleRate);
+        int n = stages.size();
+        this.latency = new Timer[n];
+        this.rows = new Counter[n];
+        this.errors = new Counter[n];
+        for (int i = 0; i < n; i++) {
+            String stage = stages.get(i).name();
+            String position = Integer.toString(i);
+            latency[i] = Timer.builder("dts.stage.latency")
+                    .tags("ruleId", ruleId, "stage", stage, "position", position)
+                    .publishPercentileHistogram()
+                    .register(registry);
+            rows[i] = Counter.builder("dts.stage.rows")
+                    .tags("ruleId", ruleId, "stage", stage, "position", position)
+                    .register(registry);
+            errors[i] = Counter.builder("dts.stage.errors")
+                    .tags("ruleId", ruleId, "stage", stage, "position", position)
+                    .register(registry);
+        }
+        this.execution = Timer.builder("dts.pipeline.execution")
+                .tags("ruleId", ruleId, "mode", mode)
+                .publishPercentileHistogram()
+                .register(registry);
+        this.batchSize = DistributionSummary.builder("dts.pipeline.batch.size")
+                .tags("ruleId", ruleId)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    public boolean enabled() {
+        return enabled;
+    }
+
+    /**
+     * 第 index 条记录是否需要逐阶段计时
+     */
+    public boolean sampled(long index) {
+        return enabled && sampleRate > 0 && index % sampleRate == 0;
+    }
+
+    public void latency(int stage, long nanos) {
+        if (enabled) latency[stage].record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void rows(int stage, long count) {
+        if (enabled && count > 0) rows[stage].increment(count);
+    }
+
+    /**
+     * 区间 [from, to) 内的阶段各累加 count 条
+     */
+    public void rows(int from, int to, long count) {
+        if (!enabled || count <= 0) return;
+        for (int i = from; i < to; i++) rows[i].increment(count);
+    }
+
+    public void error(int stage) {
+        if (enabled) errors[stage].increment();
+    }
+
+    public void execution(long nanos) {
+        if (enabled) execution.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void batchSize(int size) {
+        if (enabled) batchSize.record(size);
+    }
+}
\ No newline at end of file
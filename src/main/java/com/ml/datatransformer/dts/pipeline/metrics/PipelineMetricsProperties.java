@@ -0,0 +1,22 @@
+package com.ml.datatransformer.dts.pipeline.metrics;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 流水线指标配置（dts.metrics.*）
+ *
+ * 示例：
+ * dts:
+ *   metrics:
+ *     enabled: true
+ *     sample-rate: 64     # 每 N 条记录对算子/publisher 计时一次；1 为全量计时，0 关闭单条计时（计数器仍然生效）
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "dts.metrics")
+public class PipelineMetricsProperties {
+    private boolean enabled = true;
+    private int sampleRate = 64;
+}
@@ -0,0 +1,43 @@
+package com.ml.datatransformer.dts.pipeline.model;
+
+import java.util.List;
+
+/**
+ * 批级聚合阶段：接在 processors 之后，处理完成的记录不再逐条发布，聚合结果再交给 publisher 与批量发布。
+ * - 每个分块任务持有独立的 {@link Partial}，块结束时合并进本次执行的 {@link Run}，执行线程之间不争用
+ * - 不可变，随编译结果复用；单次执行的状态由 Run 持有
+ */
+public interface Aggregator<M> extends Stage {
+
+    Run<M> begin();
+
+    /**
+     * 单次执行的聚合状态
+     */
+    interface Run<M> {
+
+        /**
+         * 新建块内部分聚合，只由一个线程使用
+         */
+        Partial<M> partial();
+
+        /**
+         * 合并块的部分聚合，可被多个线程调用
+         */
+        void merge(Partial<M> partial);
+
+        /**
+         * 取出已关闭的时间窗口的聚合结果；未配置时间窗口时返回空列表
+         */
+        List<M> closed();
+
+        /**
+         * 取出全部剩余的聚合结果，执行结束时调用
+         */
+        List<M> finish();
+    }
+
+    interface Partial<M> {
+        void add(M row);
+    }
+}
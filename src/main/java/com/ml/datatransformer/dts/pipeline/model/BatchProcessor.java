@@ -0,0 +1,13 @@
+package com.ml.datatransformer.dts.pipeline.model;
+
+import java.util.List;
+
+/**
+ * 可按块执行的单条算子：分块执行时流水线把块内仍有效的记录一次交给 processBatch，其余场景仍逐条调用 process。
+ * - processBatch 在原记录上修改，结果须与逐条调用 process 一致
+ * - 抛出异常时不应已修改记录：容错模式下该阶段会退回逐条执行以定位失败记录
+ */
+public interface BatchProcessor<M> extends Processor<M, M> {
+
+    void processBatch(List<M> rows);
+}
@@ -0,0 +1,9 @@
+package com.ml.datatransformer.dts.pipeline.model;
+
+/**
+ * 可记录断点的游标：position 为最近一次 next() 返回记录的采集位置（如 DB 断点键、ES search_after 排序值），
+ * 尚未读取任何记录时为恢复起点（可能为 null）。位置须可被 JSON 序列化。
+ */
+public interface CheckpointCursor<M> extends RecordCursor<M> {
+    Object position();
+}
@@ -0,0 +1,11 @@
+package com.ml.datatransformer.dts.pipeline.model;
+
+import java.util.Iterator;
+
+/**
+ * 增量拉取的记录游标，使用完毕必须关闭以释放底层连接/滚动上下文
+ */
+public interface RecordCursor<M> extends Iterator<M>, AutoCloseable {
+    @Override
+    void close();
+}
\ No newline at end of file
@@ -0,0 +1,117 @@
+package com.ml.datatransformer.dts.pipeline.model;
+
+import java.util.Iterator;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * RecordCursor 的常用适配
+ */
+public final class RecordCursors {
+
+    private RecordCursors() {
+    }
+
+    public static <M> RecordCursor<M> of(Iterator<M> it, AutoCloseable resource) {
+        return new RecordCursor<>() {
+            @Override
+            public boolean hasNext() {
+                return it.hasNext();
+            }
+
+            @Override
+            public M next() {
+                return it.next();
+            }
+
+            @Override
+            public void close() {
+                if (resource == null) return;
+                try {
+                    resource.close();
+                } catch (Exception e) {
+                    throw new IllegalStateException("close cursor failed", e);
+                }
+            }
+        };
+    }
+
+    public static <M> RecordCursor<M> of(Stream<M> stream) {
+        return of(stream.iterator(), stream);
+    }
+
+    public static <M> RecordCursor<M> of(Iterable<M> items) {
+        return of(items.iterator(), null);
+    }
+
+    public static <T, M> RecordCursor<M> map(RecordCursor<T> source, Function<T, M> mapper) {
+        return new RecordCursor<>() {
+            @Override
+            public boolean hasNext() {
+                return source.hasNext();
+            }
+
+            @Override
+            public M next() {
+                return mapper.apply(source.next());
+            }
+
+            @Override
+            public void close() {
+                source.close();
+            }
+        };
+    }
+
+    /**
+     * 为游标附加断点位置
+     */
+    public static <M> CheckpointCursor<M> checkpoint(RecordCursor<M> source, Supplier<?> position) {
+        return new CheckpointCursor<>() {
+            @Override
+            public boolean hasNext() {
+                return source.hasNext();
+            }
+
+            @Override
+            public M next() {
+                return source.next();
+            }
+
+            @Override
+            public Object position() {
+                return position.get();
+            }
+
+            @Override
+            public void close() {
+                source.close();
+            }
+        };
+    }
+
+    public static <T, M> CheckpointCursor<M> map(CheckpointCursor<T> source, Function<T, M> mapper) {
+        return new CheckpointCursor<>() {
+            @Override
+            public boolean hasNext() {
+                return source.hasNext();
+            }
+
+            @Override
+            public M next() {
+                return mapper.apply(source.next());
+            }
+
+            @Override
+            public Object position() {
+                return source.position();
+            }
+
+            @Override
+            public void close() {
+                source.close();
+            }
+        };
+    }
+}
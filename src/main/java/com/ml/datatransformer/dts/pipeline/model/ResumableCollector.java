@@ -0,0 +1,17 @@
+package com.ml.datatransformer.dts.pipeline.model;
+
+/**
+ * 可从断点恢复的流式采集：按稳定且唯一的键有序读取，从 position 之后继续
+ */
+public interface ResumableCollector<I, R> extends StreamingCollector<I, R> {
+
+    /**
+     * 是否配置了断点键；未配置时不能开启 checkpoint
+     */
+    boolean resumable();
+
+    /**
+     * @param position 上次断点位置，null 表示从头读取
+     */
+    CheckpointCursor<R> open(I input, Object position);
+}
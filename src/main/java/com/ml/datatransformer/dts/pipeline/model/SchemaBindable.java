@@ -0,0 +1,21 @@
+package com.ml.datatransformer.dts.pipeline.model;
+
+import com.ml.datatransformer.dts.pipeline.record.RecordSchema;
+
+import java.util.Collection;
+
+/**
+ * 可参与 typed record 编译的算子：声明读写的字段，并可基于 schema 生成按槽位访问的版本
+ */
+public interface SchemaBindable {
+
+    /**
+     * 算子读取或写入的字段名，用于编译期生成 RecordSchema
+     */
+    Collection<String> fields();
+
+    /**
+     * 基于 schema 把字段名解析为槽位，返回新的算子实例；原算子不变
+     */
+    MapProcessor bind(RecordSchema schema);
+}
\ No newline at end of file
@@ -0,0 +1,15 @@
+package com.ml.datatransformer.dts.pipeline.model;
+
+import com.ml.datatransformer.dts.pipeline.record.RecordSchema;
+
+/**
+ * 可参与 typed record 编译的采集算子：基于 schema 生成直接产出 SlotRecord 的版本，
+ * 采集时按编译期解析的槽位写入字段值，不再先构造 Map 再转换
+ */
+public interface SchemaBindableCollector<I> {
+
+    /**
+     * 返回按 schema 产出 SlotRecord 的新采集算子；原算子不变
+     */
+    Collector<I, ?> bind(RecordSchema schema);
+}
@@ -0,0 +1,8 @@
+package com.ml.datatransformer.dts.pipeline.model;
+
+/**
+ * 流式采集：返回游标按需拉取记录，整批数据不在内存中完整物化
+ */
+public interface StreamingCollector<I, R> extends Stage {
+    RecordCursor<R> open(I input);
+}
\ No newline at end of file
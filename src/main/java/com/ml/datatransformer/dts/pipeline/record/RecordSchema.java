@@ -0,0 +1,68 @@
+package com.ml.datatransformer.dts.pipeline.record;
+
+import java.util.*;
+
+/**
+ * RecordSchema
+ * 编译期确定的字段布局：字段名 -> 槽位下标。编译完成后不可变，可被多个线程共享。
+ * 算子在编译期把字段名解析为槽位，运行期通过 {@link SlotRecord#get(int)} 直接按下标访问。
+ */
+public final class RecordSchema {
+
+    private final String[] names;
+    private final Map<String, Integer> slots;
+
+    private RecordSchema(Collection<String> fields) {
+        LinkedHashSet<String> unique = new LinkedHashSet<>();
+        for (String f : fields) {
+            if (f != null && !f.isEmpty()) unique.add(f);
+        }
+        this.names = unique.toArray(new String[0]);
+        Map<String, Integer> tmp = new HashMap<>(names.length * 2);
+        for (int i = 0; i < names.length; i++) tmp.put(names[i], i);
+        this.slots = Collections.unmodifiableMap(tmp);
+    }
+
+    public static RecordSchema of(Collection<String> fields) {
+        return new RecordSchema(fields == null ? List.of() : fields);
+    }
+
+    /**
+     * @return 槽位下标，字段不在 schema 中时返回 -1
+     */
+    public int slot(String name) {
+        Integer i = slots.get(name);
+        return i == null ? -1 : i;
+    }
+
+    public String name(int slot) {
+        return names[slot];
+    }
+
+    public int size() {
+        return names.length;
+    }
+
+    public List<String> fields() {
+        return List.of(names);
+    }
+
+    public SlotRecord newRecord() {
+        return new SlotRecord(this);
+    }
+
+    /**
+     * 将普通 Map 行转为 SlotRecord；已是同一 schema 的 SlotRecord 时原样返回
+     */
+    public SlotRecord wrap(Map<String, Object> row) {
+        if (row instanceof SlotRecord r && r.schema() == this) return r;
+        SlotRecord record = new SlotRecord(this);
+        if (row != null) record.putAll(row);
+        return record;
+    }
+
+    @Override
+    public String toString() {
+        return "RecordSchema" + Arrays.toString(names);
+    }
+}
\ No newline at end of file
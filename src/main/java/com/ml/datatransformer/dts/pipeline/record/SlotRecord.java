@@ -0,0 +1,201 @@
+package com.ml.datatransformer.dts.pipeline.record;
+
+import java.util.*;
+
+/**
+ * SlotRecord
+ * 基于 RecordSchema 的紧凑行：schema 内字段存放在 Object[] 槽位中，按下标读写无需哈希；
+ * schema 外的字段落入按需创建的溢出 Map。对外仍是完整的 Map<String,Object> 视图，
+ * 未做槽位绑定的算子、JSON 序列化、ES 发布均可照常使用。
+ *
+ * 非线程安全：与普通 HashMap 行一样，一条记录同一时刻只由一个工作线程处理。
+ */
+public final class SlotRecord extends AbstractMap<String, Object> {
+
+    /**
+     * 显式写入的 null 值占位，槽位为 null 表示字段不存在
+     */
+    private static final Object NULL = new Object();
+
+    private final RecordSchema schema;
+    private final Object[] values;
+    private int present;
+    private Map<String, Object> extra;
+
+    SlotRecord(RecordSchema schema) {
+        this.schema = schema;
+        this.values = new Object[schema.size()];
+    }
+
+    public RecordSchema schema() {
+        return schema;
+    }
+
+    public Object get(int slot) {
+        Object v = values[slot];
+        return v == NULL ? null : v;
+    }
+
+    public boolean has(int slot) {
+        return values[slot] != null;
+    }
+
+    public Object set(int slot, Object value) {
+        Object old = values[slot];
+        if (old == null) present++;
+        values[slot] = value == null ? NULL : value;
+        return old == NULL ? null : old;
+    }
+
+    /**
+     * 浅拷贝：槽位数组与溢出 Map 各自复制，字段值本身共享
+     */
+    public SlotRecord copy() {
+        SlotRecord r = new SlotRecord(schema);
+        System.arraycopy(values, 0, r.values, 0, values.length);
+        r.present = present;
+        if (extra != null) r.extra = new LinkedHashMap<>(extra);
+        return r;
+    }
+
+    private Object clearSlot(int slot) {
+        Object old = values[slot];
+        if (old == null) return null;
+        values[slot] = null;
+        present--;
+        return old == NULL ? null : old;
+    }
+
+    @Override
+    public Object get(Object key) {
+        int slot = key instanceof String s ? schema.slot(s) : -1;
+        if (slot >= 0) return get(slot);
+        return extra == null ? null : extra.get(key);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        int slot = key instanceof String s ? schema.slot(s) : -1;
+        if (slot >= 0) return has(slot);
+        return extra != null && extra.containsKey(key);
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        int slot = schema.slot(key);
+        if (slot >= 0) return set(slot, value);
+        if (extra == null) extra = new LinkedHashMap<>();
+        return extra.put(key, value);
+    }
+
+    @Override
+    public Object remove(Object key) {
+        int slot = key instanceof String s ? schema.slot(s) : -1;
+        if (slot >= 0) return clearSlot(slot);
+        return extra == null ? null : extra.remove(key);
+    }
+
+    @Override
+    public int size() {
+        return present + (extra == null ? 0 : extra.size());
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(values, null);
+        present = 0;
+        extra = null;
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<String, Object>> iterator() {
+                return new EntryIterator();
+            }
+
+            @Override
+            public int size() {
+                return SlotRecord.this.size();
+            }
+        };
+    }
+
+    private final class EntryIterator implements Iterator<Entry<String, Object>> {
+        private int next = advance(0);
+        private int last = -1;
+        private Iterator<Entry<String, Object>> extraIt;
+
+        private int advance(int from) {
+            int i = from;
+            while (i < values.length && values[i] == null) i++;
+            return i;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next < values.length) return true;
+            if (extraIt == null) extraIt = extra == null ? Collections.emptyIterator() : extra.entrySet().iterator();
+            return extraIt.hasNext();
+        }
+
+        @Override
+        public Entry<String, Object> next() {
+            if (next < values.length) {
+                int slot = next;
+                last = slot;
+                next = advance(slot + 1);
+                return new SlotEntry(slot);
+            }
+            if (!hasNext()) throw new NoSuchElementException();
+            last = -1;
+            return extraIt.next();
+        }
+
+        @Override
+        public void remove() {
+            if (last >= 0) {
+                clearSlot(last);
+                last = -1;
+            } else if (extraIt != null) {
+                extraIt.remove();
+            } else {
+                throw new IllegalStateException();
+            }
+        }
+    }
+
+    private final class SlotEntry implements Entry<String, Object> {
+        private final int slot;
+
+        private SlotEntry(int slot) {
+            this.slot = slot;
+        }
+
+        @Override
+        public String getKey() {
+            return schema.name(slot);
+        }
+
+        @Override
+        public Object getValue() {
+            return get(slot);
+        }
+
+        @Override
+        public Object setValue(Object value) {
+            return set(slot, value);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Entry<?, ?> e && Objects.equals(getKey(), e.getKey()) && Objects.equals(getValue(), e.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(getKey()) ^ Objects.hashCode(getValue());
+        }
+    }
+}
\ No newline at end of file
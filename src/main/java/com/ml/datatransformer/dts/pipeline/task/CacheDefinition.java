@@ -0,0 +1,17 @@
+package com.ml.datatransformer.dts.pipeline.task;
+
+import lombok.Data;
+
+/**
+ * 任务级结果缓存配置（task.yaml 中的 cache 节点），只用于幂等的触发类任务：
+ * 命中时直接返回上次结果，不会再次采集、计算与发布
+ *
+ * cache:
+ *   enabled: true
+ *   ttl_seconds: 300     # 不配置时使用 dts.result-cache.default-ttl-seconds
+ */
+@Data
+public class CacheDefinition {
+    private Boolean enabled;
+    private Long ttlSeconds;
+}
@@ -0,0 +1,31 @@
+package com.ml.datatransformer.dts.pipeline.task;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 任务级单条记录出错策略（task.yaml 中的 on_error 节点）
+ *
+ * on_error:
+ *   policy: retry          # stop(默认，任一记录失败即中止) | continue(跳过失败记录) | retry(发布失败重试后跳过)
+ *   max_retries: 3
+ *   retry_on: [IOException, org.springframework.dao.TransientDataAccessException]  # 可选，只重试这些异常
+ *   backoff_ms: 100        # 首次重试等待，之后翻倍
+ *   max_backoff_ms: 2000
+ *   max_errors: 1000       # 单次执行允许跳过的记录数上限，超出后中止；不配置则不限制
+ *   dead_letter:
+ *     type: file           # file(NDJSON 文件) | table(数据库表)
+ *     config:
+ *       path: ./dead-letter
+ */
+@Data
+public class ErrorPolicyDefinition {
+    private String policy;
+    private Integer maxRetries;
+    private Long backoffMs;
+    private Long maxBackoffMs;
+    private List<String> retryOn;
+    private Long maxErrors;
+    private OperatorStep deadLetter;
+}
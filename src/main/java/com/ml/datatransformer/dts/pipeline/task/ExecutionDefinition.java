@@ -0,0 +1,26 @@
+package com.ml.datatransformer.dts.pipeline.task;
+
+import lombok.Data;
+
+/**
+ * 任务级执行配置（task.yaml 中的 execution 节点）
+ *
+ * execution:
+ *   mode: chunked        # record | chunked | streaming
+ *   chunk_size: 1024
+ *   max_concurrency: 64
+ *   window_size: 1000    # streaming 模式每窗口记录数
+ *   record_mode: typed   # map(默认，HashMap 行) | typed(编译期字段槽位化的 SlotRecord 行)
+ *   columnar: true       # 连续的算术算子合并为列式阶段，chunked/streaming 模式下按块在整列上计算（见 ColumnarCalculate）
+ *   checkpoint: true     # streaming 模式按窗口保存断点，失败后再次执行从断点继续；collect 须配置断点键
+ */
+@Data
+public class ExecutionDefinition {
+    private String mode;
+    private Integer chunkSize;
+    private Integer maxConcurrency;
+    private Integer windowSize;
+    private String recordMode;
+    private Boolean columnar;
+    private Boolean checkpoint;
+}
\ No newline at end of file
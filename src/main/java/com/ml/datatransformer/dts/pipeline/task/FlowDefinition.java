@@ -3,10 +3,41 @@ package com.ml.datatransformer.dts.pipeline.task;
 import lombok.Data;
 
 import java.util.List;
+import java.util.Map;
 
+/**
+ * 任务内的一个 flow；多个 flow 按 depends_on 组成 DAG（见 FlowGraph）
+ *
+ * flows:
+ *   - name: enrich
+ *     clean: [...]
+ *   - name: visa
+ *     depends_on: enrich          # 单个名称或列表；为空时输入为共享采集结果
+ *     when: "scheme == 'VISA'"    # 可选，只处理满足条件的记录
+ *     calculate: [...]
+ *     output_fields: [id, fee]    # 可选，只输出列出的字段；未被使用的中间计算在编译期去掉（见 PipelineOptimizer）
+ *     aggregate:                  # 可选，按 group_by 聚合后再发布（见 GroupByAggregator）
+ *       group_by: [merchant_id]
+ *       metrics: [{op: sum, field: amount, as: total_amount}]
+ *     publish: [...]
+ */
 @Data
 public class FlowDefinition {
+    /**
+     * flow 名称，任务内唯一；未配置时为 flow-<序号>（从 0 开始）
+     */
+    private String name;
+    private List<String> dependsOn;
+    private String when;
     private List<OperatorStep> clean;
     private List<OperatorStep> calculate;
     private List<OperatorStep> publish;
-} 
\ No newline at end of file
+    /**
+     * 输出字段，为空时输出记录的全部字段
+     */
+    private List<String> outputFields;
+    /**
+     * 聚合配置，null 表示逐条发布
+     */
+    private Map<String, Object> aggregate;
+}
@@ -2,16 +2,25 @@ package com.ml.datatransformer.dts.pipeline.task;
 
 import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
+/**
+ * 启动时加载任务：非 strict，个别任务不合法时跳过并记录日志，不影响其余任务与应用启动
+ */
+@Slf4j
 @Component
 @RequiredArgsConstructor
 public class TaskAutoLoader {
 
-    private final YamlTaskLoader yamlTaskLoader;
+    private final TaskReloader taskReloader;
 
     @PostConstruct
     public void init() {
-        yamlTaskLoader.load();
+        try {
+            taskReloader.reload(false);
+        } catch (RuntimeException e) {
+            log.error("Failed to load YAML tasks", e);
+        }
     }
-} 
\ No newline at end of file
+}
@@ -10,4 +10,21 @@ public class TaskDefinition {
     private String name;
     private OperatorStep collect;
     private List<FlowDefinition> flows;
-} 
\ No newline at end of file
+    /**
+     * 任务级发布配置，flow 未配置 publish 时使用
+     */
+    private List<OperatorStep> publish;
+    private ExecutionDefinition execution;
+    /**
+     * 单条记录出错策略，未配置时任一记录失败即中止本次执行
+     */
+    private ErrorPolicyDefinition onError;
+    /**
+     * 结果缓存，未配置时不缓存
+     */
+    private CacheDefinition cache;
+    /**
+     * 注册时由 TaskRegistry 分配的单调递增版本号，用于判断编译缓存是否失效
+     */
+    private long version;
+}
\ No newline at end of file
@@ -0,0 +1,123 @@
+package com.ml.datatransformer.dts.pipeline.task;
+
+import com.ml.datatransformer.dts.dto.TaskReloadResult;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+/**
+ * TaskFileWatcher
+ * 用 NIO WatchService 监听 dts.taskPath：路径为文件时监听其所在目录并只关注该文件，路径为目录时关注其中的 yaml 文件。
+ * 收到事件后等待 debounce-ms 内无新事件再触发一次 strict 重载；重载失败时保留当前任务并记录日志。
+ * 以 ".." 开头的条目（如 Kubernetes ConfigMap 的 ..data 软链切换）同样触发重载。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TaskFileWatcher {
+
+    private final YamlTaskLoader loader;
+    private final TaskReloader reloader;
+    private final TaskReloadProperties properties;
+
+    private WatchService watchService;
+    private Thread thread;
+    private Path target;
+
+    @PostConstruct
+    public void start() {
+        Path path = loader.taskPath();
+        if (!properties.isWatch() || path == null) {
+            return;
+        }
+        Path dir = Files.isDirectory(path) ? path : path.toAbsolutePath().getParent();
+        if (dir == null || !Files.isDirectory(dir)) {
+            log.warn("task path directory not exists, skip watching: {}", path);
+            return;
+        }
+        target = Files.isDirectory(path) ? null : path.getFileName();
+        try {
+            watchService = dir.getFileSystem().newWatchService();
+            dir.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+        } catch (IOException e) {
+            log.error("Failed to watch task path {}", dir, e);
+            return;
+        }
+        thread = new Thread(this::watch, "dts-task-watcher");
+        thread.setDaemon(true);
+        thread.start();
+        log.info("Watching task path {}, debounce={}ms", dir, properties.getDebounceMs());
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                boolean relevant = drain(key);
+                // 防抖：持续有事件时继续等待，静默 debounce-ms 后再重载
+                WatchKey next;
+                while ((next = watchService.poll(Math.max(0, properties.getDebounceMs()), TimeUnit.MILLISECONDS)) != null) {
+                    relevant |= drain(next);
+                }
+                if (relevant) reload();
+                if (!key.isValid()) {
+                    log.warn("Task path is no longer accessible, stop watching");
+                    return;
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // 应用关闭
+        }
+    }
+
+    private boolean drain(WatchKey key) {
+        boolean relevant = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == OVERFLOW || relevant((Path) event.context())) relevant = true;
+        }
+        key.reset();
+        return relevant;
+    }
+
+    private boolean relevant(Path name) {
+        String s = name.toString();
+        if (s.startsWith("..")) return true;
+        if (target != null) return name.equals(target);
+        return s.endsWith(".yaml") || s.endsWith(".yml");
+    }
+
+    private void reload() {
+        try {
+            TaskReloadResult result = reloader.reload(true);
+            if (!result.isChanged()) log.debug("Task files changed but no task differs, version={}", result.getVersion());
+        } catch (RuntimeException e) {
+            log.error("Task reload rejected, keep current tasks: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (watchService == null) return;
+        try {
+            watchService.close();
+        } catch (IOException ignored) {
+        }
+        thread.interrupt();
+    }
+}
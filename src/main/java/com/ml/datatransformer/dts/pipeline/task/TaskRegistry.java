@@ -2,21 +2,94 @@ package com.ml.datatransformer.dts.pipeline.task;
 
 import org.springframework.stereotype.Component;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
+/**
+ * TaskRegistry
+ * 任务注册表：当前全部任务保存在不可变快照中，通过 AtomicReference 整体替换。
+ * - 读：get/snapshot 只读一次引用，无锁；进行中的请求继续使用取到的快照与 TaskDefinition
+ * - 写：register/replaceAll 串行执行（写入只发生在启动与重载时），基于当前快照复制后原子发布
+ * - 版本：每次发布快照分配新的快照版本；内容发生变化的任务分配新的任务版本，未变化的任务保留原版本，编译缓存继续命中
+ */
 @Component
 public class TaskRegistry {
-    private final Map<String, TaskDefinition> nameToTask = new ConcurrentHashMap<>();
 
-    public void register(TaskDefinition def) {
+    /**
+     * 注册表快照
+     *
+     * @param version 快照版本，每次发布递增
+     * @param tasks   任务名 -> 任务定义（不可变）
+     */
+    public record Snapshot(long version, Map<String, TaskDefinition> tasks) {
+    }
+
+    private final AtomicLong versionSeq = new AtomicLong();
+    private final AtomicReference<Snapshot> current = new AtomicReference<>(new Snapshot(0, Map.of()));
+
+    /**
+     * 注册单个任务；同名任务被覆盖后旧版本的编译结果随之失效
+     */
+    public synchronized void register(TaskDefinition def) {
         if (def == null || def.getName() == null) {
             return;
         }
-        nameToTask.put(def.getName(), def);
+        Map<String, TaskDefinition> tasks = new HashMap<>(current.get().tasks());
+        tasks.put(def.getName(), versioned(tasks.get(def.getName()), def));
+        publish(tasks);
+    }
+
+    /**
+     * 用一组任务整体替换注册表（不在其中的任务被移除），返回新快照
+     */
+    public synchronized Snapshot replaceAll(Collection<TaskDefinition> defs) {
+        Map<String, TaskDefinition> old = current.get().tasks();
+        Map<String, TaskDefinition> tasks = new LinkedHashMap<>();
+        for (TaskDefinition def : defs) {
+            if (def == null || def.getName() == null) continue;
+            tasks.put(def.getName(), versioned(old.get(def.getName()), def));
+        }
+        return publish(tasks);
     }
 
     public TaskDefinition get(String name) {
-        return nameToTask.get(name);
+        return current.get().tasks().get(name);
+    }
+
+    public Snapshot snapshot() {
+        return current.get();
+    }
+
+    /**
+     * 内容与已注册任务相同时沿用旧对象（含版本），否则分配新版本
+     */
+    private TaskDefinition versioned(TaskDefinition old, TaskDefinition def) {
+        if (sameContent(old, def)) return old;
+        def.setVersion(versionSeq.incrementAndGet());
+        return def;
+    }
+
+    /**
+     * 除版本号外内容是否相同
+     */
+    public static boolean sameContent(TaskDefinition old, TaskDefinition def) {
+        if (old == def) return true;
+        if (old == null || def == null) return false;
+        long version = def.getVersion();
+        def.setVersion(old.getVersion());
+        boolean same = def.equals(old);
+        def.setVersion(version);
+        return same;
+    }
+
+    private Snapshot publish(Map<String, TaskDefinition> tasks) {
+        Snapshot next = new Snapshot(versionSeq.incrementAndGet(), Collections.unmodifiableMap(tasks));
+        current.set(next);
+        return next;
     }
-} 
\ No newline at end of file
+}
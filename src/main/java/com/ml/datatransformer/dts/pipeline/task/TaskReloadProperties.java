@@ -0,0 +1,22 @@
+package com.ml.datatransformer.dts.pipeline.task;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 任务热更新配置（dts.reload.*）
+ *
+ * 示例：
+ * dts:
+ *   reload:
+ *     watch: true          # 监听 dts.taskPath（文件所在目录或目录本身）变化并自动重载
+ *     debounce-ms: 500     # 最后一次文件事件后静默多久再重载，合并编辑器的连续写入
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "dts.reload")
+public class TaskReloadProperties {
+    private boolean watch = true;
+    private long debounceMs = 500;
+}
@@ -0,0 +1,155 @@
+package com.ml.datatransformer.dts.pipeline.task;
+
+import com.ml.datatransformer.dts.cache.ResultCache;
+import com.ml.datatransformer.dts.dto.TaskReloadResult;
+import com.ml.datatransformer.dts.pipeline.compile.PipelineCache;
+import com.ml.datatransformer.dts.pipeline.compile.PipelineCompiler;
+import com.ml.datatransformer.dts.pipeline.flow.FlowGraph;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * TaskReloader
+ * 重新读取 dts.taskPath 下的任务文件，校验后整体替换 TaskRegistry 快照：
+ * - 只重新解析发生变化（修改时间或大小不同）的文件，未变化文件沿用上次解析结果
+ * - 校验：任务名必填且全局唯一；内容有变化的任务先完整编译一次（算子配置、表达式、flow 依赖等），编译结果直接放入 PipelineCache
+ * - strict：任一文件/任务校验失败则整体拒绝，注册表保持不变（热更新与重载接口使用）；
+ *   非 strict：跳过失败的文件/任务，其余照常注册（启动加载使用）
+ * - 没有任何变化时不发布新快照
+ * 重载在文件监听线程或重载接口线程上执行，不占用执行请求的线程；多个来源的重载串行执行。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TaskReloader {
+
+    private final YamlTaskLoader loader;
+    private final TaskRegistry registry;
+    private final PipelineCompiler compiler;
+    private final PipelineCache pipelineCache;
+    private final ResultCache resultCache;
+
+    private final Map<Path, ParsedFile> parsed = new HashMap<>();
+
+    public synchronized TaskReloadResult reload(boolean strict) {
+        TaskRegistry.Snapshot current = registry.snapshot();
+        TaskReloadResult result = new TaskReloadResult();
+        result.setVersion(current.version());
+        result.setTasks(current.tasks().size());
+
+        Path root = loader.taskPath();
+        if (root == null) {
+            log.warn("dts.taskPath is empty, skip loading tasks");
+            return result;
+        }
+        if (!Files.exists(root)) {
+            if (strict) throw new IllegalStateException("task path not exists: " + root);
+            log.warn("task file not exists: {}", root);
+            return result;
+        }
+
+        // 1) 解析（未变化的文件复用缓存）
+        Map<Path, ParsedFile> files = new HashMap<>();
+        Map<String, TaskDefinition> tasks = new LinkedHashMap<>();
+        try {
+            for (Path file : loader.taskFiles()) {
+                BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+                ParsedFile cached = parsed.get(file);
+                ParsedFile pf;
+                if (cached != null && cached.modified().equals(attrs.lastModifiedTime()) && cached.size() == attrs.size()) {
+                    pf = cached;
+                } else {
+                    try {
+                        pf = new ParsedFile(attrs.lastModifiedTime(), attrs.size(), loader.parse(file));
+                    } catch (IllegalArgumentException e) {
+                        if (strict) throw e;
+                        skip(result, file.toString(), e);
+                        continue;
+                    }
+                }
+                files.put(file, pf);
+                for (TaskDefinition def : pf.tasks()) {
+                    if (def.getName() == null || def.getName().isBlank()) {
+                        reject(strict, result, file.toString(), new IllegalArgumentException("task without name in " + file));
+                        continue;
+                    }
+                    if (tasks.putIfAbsent(def.getName(), def) != null) {
+                        reject(strict, result, def.getName(),
+                                new IllegalArgumentException("duplicate task name [" + def.getName() + "] in " + file));
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("read task files failed: " + e.getMessage(), e);
+        }
+
+        // 2) 有变化的任务编译校验
+        Map<String, FlowGraph> compiled = new HashMap<>();
+        for (TaskDefinition def : new ArrayList<>(tasks.values())) {
+            TaskDefinition old = current.tasks().get(def.getName());
+            if (TaskRegistry.sameContent(old, def)) continue;
+            if (old == null) result.getAdded().add(def.getName());
+            else result.getUpdated().add(def.getName());
+            if (def.getFlows() == null || def.getFlows().isEmpty()) continue;
+            try {
+                compiled.put(def.getName(), compiler.compile(def));
+            } catch (RuntimeException e) {
+                if (strict) {
+                    // 整次重载被拒绝，已编译的执行图不会放入缓存，释放其资源
+                    compiled.values().forEach(FlowGraph::close);
+                }
+                reject(strict, result, def.getName(),
+                        new IllegalArgumentException("task [" + def.getName() + "] is invalid: " + e.getMessage(), e));
+                tasks.remove(def.getName());
+                result.getAdded().remove(def.getName());
+                result.getUpdated().remove(def.getName());
+            }
+        }
+        for (String name : current.tasks().keySet()) {
+            if (!tasks.containsKey(name)) result.getRemoved().add(name);
+        }
+
+        // 3) 发布新快照；编译好的执行图按新版本放入缓存，被移除的任务清理缓存，变化的任务清理结果缓存
+        parsed.clear();
+        parsed.putAll(files);
+        if (!result.isChanged()) {
+            return result;
+        }
+        TaskRegistry.Snapshot next = registry.replaceAll(tasks.values());
+        compiled.forEach((name, graph) -> pipelineCache.put(next.tasks().get(name), graph));
+        result.getRemoved().forEach(pipelineCache::invalidate);
+        result.getUpdated().forEach(resultCache::invalidate);
+        result.getRemoved().forEach(resultCache::invalidate);
+        result.setVersion(next.version());
+        result.setTasks(next.tasks().size());
+        log.info("Tasks reloaded from {}, version={}, tasks={}, added={}, updated={}, removed={}, skipped={}",
+                root, next.version(), next.tasks().size(), result.getAdded(), result.getUpdated(),
+                result.getRemoved(), result.getSkipped().size());
+        return result;
+    }
+
+    private void reject(boolean strict, TaskReloadResult result, String source, IllegalArgumentException e) {
+        if (strict) throw e;
+        skip(result, source, e);
+    }
+
+    private void skip(TaskReloadResult result, String source, Exception e) {
+        log.error("Skip invalid task source {}", source, e);
+        result.getSkipped().add(source + ": " + e.getMessage());
+    }
+
+    private record ParsedFile(FileTime modified, long size, List<TaskDefinition> tasks) {
+    }
+}
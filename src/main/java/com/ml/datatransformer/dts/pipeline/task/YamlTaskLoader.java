@@ -1,62 +1,81 @@
 package com.ml.datatransformer.dts.pipeline.task;
 
-import lombok.RequiredArgsConstructor;
-import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.error.YAMLException;
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Stream;
 
-@Slf4j
+/**
+ * YamlTaskLoader
+ * 只负责定位与解析任务文件，注册/校验/重载由 TaskReloader 完成
+ */
 @Component
-@RequiredArgsConstructor
 public class YamlTaskLoader {
 
-    private final TaskRegistry registry;
-
     @Value("${dts.taskPath:}")
     private String taskPath;
 
-    public void load() {
-        if (taskPath == null || taskPath.isEmpty()) {
-            log.warn("dts.taskPath is empty, skip loading tasks");
-            return;
+    /**
+     * dts.taskPath 对应的任务文件：路径为目录时取其中全部 .yaml/.yml 文件（按文件名排序），否则为该文件本身
+     */
+    public List<Path> taskFiles() throws IOException {
+        Path path = taskPath();
+        if (path == null || !Files.exists(path)) {
+            return List.of();
+        }
+        if (!Files.isDirectory(path)) {
+            return List.of(path);
         }
-        Path path = Path.of(taskPath);
-        if (!Files.exists(path)) {
-            log.warn("task file not exists: {}", taskPath);
-            return;
+        try (Stream<Path> files = Files.list(path)) {
+            return files.filter(f -> {
+                        String name = f.getFileName().toString();
+                        return Files.isRegularFile(f) && (name.endsWith(".yaml") || name.endsWith(".yml"));
+                    })
+                    .sorted()
+                    .toList();
         }
-        try (InputStream is = Files.newInputStream(path)) {
+    }
+
+    /**
+     * dts.taskPath 未配置时返回 null
+     */
+    public Path taskPath() {
+        return taskPath == null || taskPath.isEmpty() ? null : Path.of(taskPath);
+    }
+
+    /**
+     * 解析单个任务文件；文件内任一任务结构不合法时抛出 IllegalArgumentException
+     */
+    public List<TaskDefinition> parse(Path file) throws IOException {
+        List<TaskDefinition> defs = new ArrayList<>();
+        try (InputStream is = Files.newInputStream(file)) {
             Yaml yaml = new Yaml();
             Iterable<Object> objects = yaml.loadAll(is);
             for (Object obj : objects) {
                 if (obj instanceof List) {
                     List<?> list = (List<?>) obj;
                     for (Object item : list) {
-                        TaskDefinition def = toTaskDefinition(item);
-                        if (def != null) {
-                            registry.register(def);
-                        }
-                    }
-                } else {
-                    TaskDefinition def = toTaskDefinition(obj);
-                    if (def != null) {
-                        registry.register(def);
+                        defs.add(toTaskDefinition(file, item));
                     }
+                } else if (obj != null) {
+                    defs.add(toTaskDefinition(file, obj));
                 }
             }
-            log.info("YAML tasks loaded from {}", taskPath);
-        } catch (Exception e) {
-            log.error("Failed to load YAML tasks from {}", taskPath, e);
+        } catch (YAMLException e) {
+            throw new IllegalArgumentException("invalid yaml in " + file + ": " + e.getMessage(), e);
         }
+        return defs;
     }
 
-    private TaskDefinition toTaskDefinition(Object obj) {
+    private TaskDefinition toTaskDefinition(Path file, Object obj) {
         //依赖 YAML 结构与 OperatorStep/FlowDefinition 字段名称一致
         try {
             var map = (java.util.Map<String, Object>) obj;
@@ -79,21 +98,95 @@ public class YamlTaskLoader {
                     if (flowObj instanceof java.util.Map) {
                         FlowDefinition fd = new FlowDefinition();
                         var fm = (java.util.Map<String, Object>) flowObj;
+                        fd.setName(fm.get("name") == null ? null : String.valueOf(fm.get("name")));
+                        fd.setDependsOn(readNames(fm.get("depends_on")));
+                        fd.setWhen(fm.get("when") == null ? null : String.valueOf(fm.get("when")));
                         fd.setClean(readSteps(fm.get("clean")));
                         fd.setCalculate(readSteps(fm.get("calculate")));
                         fd.setPublish(readSteps(fm.get("publish")));
+                        fd.setOutputFields(fm.get("output_fields") == null ? null : readNames(fm.get("output_fields")));
+                        if (fm.get("aggregate") instanceof java.util.Map) {
+                            fd.setAggregate((java.util.Map<String, Object>) fm.get("aggregate"));
+                        }
                         converted.add(fd);
                     }
                 }
                 def.setFlows(converted);
             }
+            def.setPublish(readSteps(map.get("publish")));
+            Object execution = map.get("execution");
+            if (execution instanceof java.util.Map) {
+                def.setExecution(readExecution((java.util.Map<String, Object>) execution));
+            }
+            Object onError = map.get("on_error");
+            if (onError instanceof java.util.Map) {
+                def.setOnError(readOnError((java.util.Map<String, Object>) onError));
+            }
+            Object cache = map.get("cache");
+            if (cache instanceof java.util.Map) {
+                var cm = (java.util.Map<String, Object>) cache;
+                CacheDefinition cd = new CacheDefinition();
+                cd.setEnabled(cm.get("enabled") == null ? null : Boolean.valueOf(String.valueOf(cm.get("enabled"))));
+                cd.setTtlSeconds(readLong(cm.get("ttl_seconds")));
+                def.setCache(cd);
+            }
             return def;
         } catch (Exception e) {
-            log.error("convert task definition error", e);
-            return null;
+            throw new IllegalArgumentException("invalid task definition in " + file + ": " + e, e);
         }
     }
 
+    private ExecutionDefinition readExecution(java.util.Map<String, Object> m) {
+        ExecutionDefinition ed = new ExecutionDefinition();
+        ed.setMode(m.get("mode") == null ? null : String.valueOf(m.get("mode")));
+        ed.setChunkSize(readInt(m.get("chunk_size")));
+        ed.setMaxConcurrency(readInt(m.get("max_concurrency")));
+        ed.setWindowSize(readInt(m.get("window_size")));
+        ed.setRecordMode(m.get("record_mode") == null ? null : String.valueOf(m.get("record_mode")));
+        ed.setColumnar(m.get("columnar") == null ? null : Boolean.valueOf(String.valueOf(m.get("columnar"))));
+        ed.setCheckpoint(m.get("checkpoint") == null ? null : Boolean.valueOf(String.valueOf(m.get("checkpoint"))));
+        return ed;
+    }
+
+    /**
+     * 单个名称或名称列表
+     */
+    private List<String> readNames(Object v) {
+        if (v == null) return java.util.Collections.emptyList();
+        if (!(v instanceof List)) return List.of(String.valueOf(v));
+        java.util.ArrayList<String> names = new java.util.ArrayList<>();
+        for (Object o : (List<?>) v) {
+            if (o != null) names.add(String.valueOf(o));
+        }
+        return names;
+    }
+
+    private ErrorPolicyDefinition readOnError(java.util.Map<String, Object> m) {
+        ErrorPolicyDefinition ed = new ErrorPolicyDefinition();
+        ed.setPolicy(m.get("policy") == null ? null : String.valueOf(m.get("policy")));
+        ed.setMaxRetries(readInt(m.get("max_retries")));
+        ed.setBackoffMs(readLong(m.get("backoff_ms")));
+        ed.setMaxBackoffMs(readLong(m.get("max_backoff_ms")));
+        ed.setRetryOn(m.get("retry_on") == null ? null : readNames(m.get("retry_on")));
+        ed.setMaxErrors(readLong(m.get("max_errors")));
+        if (m.get("dead_letter") instanceof java.util.Map) {
+            var dl = (java.util.Map<String, Object>) m.get("dead_letter");
+            OperatorStep step = new OperatorStep();
+            step.setType((String) dl.get("type"));
+            step.setConfig((java.util.Map<String, Object>) dl.get("config"));
+            ed.setDeadLetter(step);
+        }
+        return ed;
+    }
+
+    private Long readLong(Object v) {
+        return v == null ? null : Long.valueOf(String.valueOf(v));
+    }
+
+    private Integer readInt(Object v) {
+        return v == null ? null : Integer.valueOf(String.valueOf(v));
+    }
+
     private List<OperatorStep> readSteps(Object obj) {
         if (!(obj instanceof List)) {
             return java.util.Collections.emptyList();
@@ -1,11 +1,50 @@
 package com.ml.datatransformer.dts.service;
 
+import com.ml.datatransformer.dts.dto.DTSJobStatus;
 import com.ml.datatransformer.dts.dto.DTSRequest;
 import com.ml.datatransformer.dts.dto.DTSResponse;
+import com.ml.datatransformer.dts.dto.TaskReloadResult;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * 聚合服务接口
  */
 public interface DTSService {
     DTSResponse execute(DTSRequest request);
-} 
\ No newline at end of file
+
+    /**
+     * 在作业线程池中执行，完成时结束 Future；调用线程不阻塞
+     */
+    CompletableFuture<DTSResponse> executeAsync(DTSRequest request);
+
+    /**
+     * 提交作业并立即返回作业 id，通过 {@link #getJob(String)} 轮询状态、进度与结果
+     */
+    DTSJobStatus submitJob(DTSRequest request);
+
+    /**
+     * @return 作业不存在或已过期时返回 null
+     */
+    DTSJobStatus getJob(String jobId);
+
+    /**
+     * 流式输出：处理完成的记录逐条序列化写入 out，不构造中间字符串与整体结果。
+     * 执行中出错时追加一条 {"error": "..."} 后结束（响应头此时已发送）
+     *
+     * @param jsonArray true 输出单个 JSON 数组，false 输出 NDJSON（每行一条）
+     */
+    void executeStream(DTSRequest request, OutputStream out, boolean jsonArray) throws IOException;
+
+    /**
+     * 重新加载任务文件并原子替换注册表；校验失败时抛出异常，当前任务保持不变
+     */
+    TaskReloadResult reloadTasks();
+
+    /**
+     * 在后台刷新全部 lookup 参考表，返回提交刷新的表数；刷新期间查找继续使用旧数据
+     */
+    int refreshLookups();
+}
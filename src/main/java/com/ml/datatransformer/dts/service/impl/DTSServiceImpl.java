@@ -1,155 +1,168 @@
 package com.ml.datatransformer.dts.service.impl;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.ml.datatransformer.dts.cache.ResultCache;
+import com.ml.datatransformer.dts.dto.DTSJobStatus;
 import com.ml.datatransformer.dts.dto.DTSRequest;
 import com.ml.datatransformer.dts.dto.DTSResponse;
-import com.ml.datatransformer.dts.pipeline.DTSPipeline;
-import com.ml.datatransformer.dts.pipeline.impl.DTSExecutor;
-import com.ml.datatransformer.dts.pipeline.impl.OperatorFactory;
-import com.ml.datatransformer.dts.pipeline.model.Collector;
-import com.ml.datatransformer.dts.pipeline.model.MapProcessor;
-import com.ml.datatransformer.dts.pipeline.model.Processor;
-import com.ml.datatransformer.dts.pipeline.model.Publisher;
-import com.ml.datatransformer.dts.pipeline.task.FlowDefinition;
-import com.ml.datatransformer.dts.pipeline.task.OperatorStep;
+import com.ml.datatransformer.dts.dto.TaskReloadResult;
+import com.ml.datatransformer.dts.job.DTSJob;
+import com.ml.datatransformer.dts.job.DTSJobManager;
+import com.ml.datatransformer.dts.pipeline.ExecutionProgress;
+import com.ml.datatransformer.dts.pipeline.compile.PipelineCache;
+import com.ml.datatransformer.dts.pipeline.impl.lookup.LookupTables;
 import com.ml.datatransformer.dts.pipeline.task.TaskDefinition;
 import com.ml.datatransformer.dts.pipeline.task.TaskRegistry;
+import com.ml.datatransformer.dts.pipeline.task.TaskReloader;
 import com.ml.datatransformer.dts.service.DTSService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * DTSServiceImpl（批并发版本）
- * - 使用 OperatorFactory 构造 collector（批量）、processors（单条 Map→Map）、publisher（单条）
- * - 使用 DTSPipelineBatch 对 collector 返回的每条数据启动虚拟线程并发执行
+ * - 通过 PipelineCache 获取按 ruleId + 任务版本编译好的 FlowGraph，任务未变化时不再重复构造算子
+ * - 单 flow 任务由 DTSPipeline 对 collector 返回的每条数据并发执行；多 flow 任务共享一次采集，按 DAG 并行执行各 flow
  * - 返回 List<String>（每条结果 JSON）的整体 JSON 数组字符串
+ * - executeAsync / submitJob 交给 DTSJobManager 的作业线程执行，作业进度由 DTSPipeline 实时累加
+ * - execute / executeAsync：任务配置了 cache 时经 ResultCache 返回相同 (ruleId, payload) 的上次结果
  */
 @Service
 @RequiredArgsConstructor
 public class DTSServiceImpl implements DTSService {
 
     private final TaskRegistry taskRegistry;
-    private final OperatorFactory operatorFactory;
-    private final DTSExecutor dtsExecutor;
+    private final PipelineCache pipelineCache;
+    private final DTSJobManager jobManager;
+    private final TaskReloader taskReloader;
+    private final ResultCache resultCache;
+    private final LookupTables lookupTables;
 
     private static final ObjectMapper OM = new ObjectMapper();
+    /**
+     * 流式输出按窗口 flush，不在每条记录后 flush
+     */
+    private static final ObjectWriter ROW_WRITER = OM.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
 
     @Override
     public DTSResponse execute(DTSRequest request) {
-        TaskDefinition task = taskRegistry.get(request.getRuleId());
-        if (task == null || task.getFlows() == null || task.getFlows().isEmpty()) {
+        TaskDefinition task = resolveTask(request.getRuleId());
+        if (task == null) {
             return new DTSResponse(request.getRuleId(), "no task or empty flows");
         }
-        // 当前按第一个 flow 执行；如需多个 flow 可扩展策略（串行/并行/条件）
-        FlowDefinition flow = task.getFlows().get(0);
-
-        // 1) 批量 collector：I -> List<Map<String,Object>>
-        Collector<DTSRequest, List<Map<String, Object>>> batchCollector = buildBatchCollector(task);
-
-        // 2) 单条 processors（Map -> Map）
-        List<Processor<Map<String, Object>, Map<String, Object>>> processors = new ArrayList<>();
-        for (OperatorStep s : safe(flow.getClean()))     processors.add(cast(operatorFactory.createClean(s.getType(), s.getConfig())));
-        for (OperatorStep s : safe(flow.getCalculate())) processors.add(cast(operatorFactory.createCalculate(s.getType(), s.getConfig())));
-
-        // 3) 单条 publisher（Map -> String）：默认将每条结果转 JSON 字符串
-        Publisher<Map<String, Object>, String> publisher = new Publisher<Map<String, Object>, String>() {
-            @Override
-            public String publish(Map<String, Object> result) {
-                try {
-                    return OM.writeValueAsString(result);
-                } catch (Exception e) {
-                    return String.valueOf(result);
-                }
-            }
-
-            @Override
-            public String name() {
-                return "publish:json";
-            }
-        };
-
-        // 4) 组装并发批流水线，并发执行任务
-        DTSPipeline<DTSRequest, Map<String, Object>, String> pipeline =
-                new DTSPipeline<>(batchCollector, processors, publisher, dtsExecutor);
-
         try {
-            List<String> outputs = pipeline.execute(request);
-            // 返回整体 JSON 数组，便于前端/调用方消费
-            String jsonArray = OM.writeValueAsString(outputs);
-            return new DTSResponse(request.getRuleId(), jsonArray);
+            String result = resultCache.enabled(task)
+                    ? resultCache.get(task, request, () -> run(task, request, null))
+                    : run(task, request, null);
+            return new DTSResponse(request.getRuleId(), result);
         } catch (Exception e) {
             return new DTSResponse(request.getRuleId(), "error:" + e.getMessage());
         }
     }
 
-    private Collector<DTSRequest, List<Map<String, Object>>> buildBatchCollector(TaskDefinition task) {
-        OperatorStep collectStep = task.getCollect();
-        if (collectStep != null && collectStep.getType() != null) {
-            Collector<DTSRequest, ?> raw = (Collector<DTSRequest, ?>)
-                    operatorFactory.createCollector(collectStep.getType(), collectStep.getConfig());
+    @Override
+    public CompletableFuture<DTSResponse> executeAsync(DTSRequest request) {
+        try {
+            return jobManager.supplyAsync(() -> execute(request));
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(new DTSResponse(request.getRuleId(), "error:job queue is full"));
+        }
+    }
 
-            return new Collector<DTSRequest, List<Map<String, Object>>>() {
-                @Override
-                public List<Map<String, Object>> collect(DTSRequest req) {
-                    Object r = raw.collect(req);
-                    if (r instanceof List<?> ls) {
-                        if (ls.isEmpty()) return Collections.emptyList();
-                        Object first = ls.get(0);
-                        if (first instanceof Map) {
-                            return (List<Map<String, Object>>) r;
-                        } else {
-                            List<Map<String, Object>> wrapped = new ArrayList<>(ls.size());
-                            for (Object it : ls) {
-                                Map<String, Object> ctx = new HashMap<>(4);
-                                ctx.put("payload", it);
-                                ctx.put("ruleId", req == null ? null : req.getRuleId());
-                                wrapped.add(ctx);
-                            }
-                            return wrapped;
-                        }
-                    }
-                    if (r instanceof Map<?, ?> m) {
-                        Map<String, Object> ctx = new HashMap<>();
-                        m.forEach((k, v) -> ctx.put(String.valueOf(k), v));
-                        ctx.putIfAbsent("ruleId", req == null ? null : req.getRuleId());
-                        return List.of(ctx);
-                    }
-                    Map<String, Object> one = new HashMap<>();
-                    one.put("payload", r);
-                    one.put("ruleId", req == null ? null : req.getRuleId());
-                    return List.of(one);
-                }
+    @Override
+    public DTSJobStatus submitJob(DTSRequest request) {
+        return jobManager.submit(request.getRuleId(), job -> {
+            TaskDefinition task = resolveTask(request.getRuleId());
+            if (task == null) throw new IllegalStateException("no task or empty flows");
+            try {
+                return run(task, request, job.getProgress());
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("serialize result failed", e);
+            }
+        }).toStatus();
+    }
 
-                @Override
-                public String name() {
-                    return "collector:adapter";
-                }
-            };
-        }
+    @Override
+    public DTSJobStatus getJob(String jobId) {
+        DTSJob job = jobManager.get(jobId);
+        return job == null ? null : job.toStatus();
+    }
 
-        // 无 collect 配置时：把请求封装为单条
-        return new Collector<DTSRequest, List<Map<String, Object>>>() {
-            @Override
-            public List<Map<String, Object>> collect(DTSRequest req) {
-                Map<String, Object> one = new HashMap<>(4);
-                one.put("payload", req == null ? null : req.getPayload());
-                one.put("ruleId", req == null ? null : req.getRuleId());
-                return List.of(one);
+    @Override
+    public void executeStream(DTSRequest request, OutputStream out, boolean jsonArray) throws IOException {
+        try (JsonGenerator g = OM.getFactory().createGenerator(out)) {
+            g.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            // NDJSON：根值之间不加分隔符，每条后手动换行
+            if (!jsonArray) g.setPrettyPrinter(new MinimalPrettyPrinter(""));
+            else g.writeStartArray();
+            try {
+                TaskDefinition task = resolveTask(request.getRuleId());
+                if (task == null) throw new IllegalStateException("no task or empty flows");
+                pipelineCache.get(task).executeTo(request, window -> writeRows(g, window, jsonArray), null);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            } catch (RuntimeException e) {
+                g.writeStartObject();
+                g.writeStringField("error", e.getMessage());
+                g.writeEndObject();
+                if (!jsonArray) g.writeRaw('\n');
             }
+            if (jsonArray) g.writeEndArray();
+        }
+    }
+
+    @Override
+    public TaskReloadResult reloadTasks() {
+        return taskReloader.reload(true);
+    }
 
-            @Override
-            public String name() {
-                return "collector:fallback";
+    @Override
+    public int refreshLookups() {
+        return lookupTables.refreshAll();
+    }
+
+    private void writeRows(JsonGenerator g, List<Map<String, Object>> rows, boolean jsonArray) {
+        try {
+            for (Map<String, Object> row : rows) {
+                ROW_WRITER.writeValue(g, row);
+                if (!jsonArray) g.writeRaw('\n');
             }
-        };
+            g.flush();
+        } catch (IOException e) {
+            // 客户端断开等写出失败：中止本次执行
+            throw new UncheckedIOException(e);
+        }
     }
 
-    private <T> List<T> safe(List<T> list) { return list == null ? Collections.emptyList() : list; }
+    /**
+     * 任务不存在或没有 flow 时返回 null，并清理该 ruleId 的编译缓存
+     */
+    private TaskDefinition resolveTask(String ruleId) {
+        TaskDefinition task = taskRegistry.get(ruleId);
+        if (task == null || task.getFlows() == null || task.getFlows().isEmpty()) {
+            pipelineCache.invalidate(ruleId);
+            return null;
+        }
+        return task;
+    }
 
-    @SuppressWarnings("unchecked")
-    private Processor<Map<String, Object>, Map<String, Object>> cast(MapProcessor p) {
-        return (Processor<Map<String, Object>, Map<String, Object>>) p;
+    /**
+     * 执行任务并返回结果 JSON 数组
+     */
+    private String run(TaskDefinition task, DTSRequest request, ExecutionProgress progress) throws JsonProcessingException {
+        List<String> outputs = pipelineCache.get(task).execute(request, progress);
+        // 返回整体 JSON 数组，便于前端/调用方消费
+        return OM.writeValueAsString(outputs);
     }
 }
\ No newline at end of file
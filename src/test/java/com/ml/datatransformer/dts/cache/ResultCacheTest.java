@@ -0,0 +1,195 @@
+package com.ml.datatransformer.dts.cache;
+
+import com.ml.datatransformer.dts.dto.DTSRequest;
+import com.ml.datatransformer.dts.pipeline.task.CacheDefinition;
+import com.ml.datatransformer.dts.pipeline.task.TaskDefinition;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ResultCacheTest {
+
+    private final SimpleMeterRegistry meters = new SimpleMeterRegistry();
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void keyIsStableAcrossTaskVersionsAndInstances() throws Exception {
+        Map<String, String> shared = new ConcurrentHashMap<>();
+        ResultCache first = new ResultCache(properties(true), redis(shared), meters);
+        ResultCache second = new ResultCache(properties(true), redis(shared), new SimpleMeterRegistry());
+
+        assertThat(first.get(task(1, 60), request("a"), this::load)).isEqualTo("r1");
+        // 重启或其他实例上同一任务定义分配到不同的注册表版本
+        assertThat(first.get(task(7, 60), request("a"), this::load)).isEqualTo("r1");
+        assertThat(second.get(task(3, 60), request("a"), this::load)).isEqualTo("r1");
+        assertThat(loads).hasValue(1);
+
+        // 任务内容或 payload 变化后不再命中
+        assertThat(first.get(task(8, 120), request("a"), this::load)).isEqualTo("r2");
+        assertThat(first.get(task(8, 120), request("b"), this::load)).isEqualTo("r3");
+        assertThat(shared).hasSize(3);
+    }
+
+    @Test
+    void invalidateDropsOnlyTheReloadedTask() throws Exception {
+        ResultCache cache = new ResultCache(properties(false), null, meters);
+        TaskDefinition refunds = task(1, 60);
+        refunds.setName("refunds");
+        cache.get(task(1, 60), request("a"), this::load);
+        cache.get(refunds, request("a"), this::load);
+
+        cache.invalidate("orders");
+
+        assertThat(cache.get(task(1, 60), request("a"), this::load)).isEqualTo("r3");
+        assertThat(cache.get(refunds, request("a"), this::load)).isEqualTo("r2");
+        assertThat(loads).hasValue(3);
+    }
+
+    @Test
+    void concurrentIdenticalRequestsLoadOnce() throws Exception {
+        ResultCache cache = new ResultCache(properties(false), null, meters);
+        CountDownLatch release = new CountDownLatch(1);
+        int callers = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                results.add(pool.submit(() -> cache.get(task(1, 60), request("a"), () -> {
+                    release.await(5, TimeUnit.SECONDS);
+                    return load();
+                })));
+            }
+            // 等其余请求都挂到进行中的执行上再放行
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (coalesced() < callers - 1 && System.nanoTime() < deadline) Thread.sleep(5);
+            release.countDown();
+            for (Future<String> f : results) assertThat(f.get(5, TimeUnit.SECONDS)).isEqualTo("r1");
+        } finally {
+            pool.shutdownNow();
+        }
+        assertThat(loads).hasValue(1);
+        assertThat(coalesced()).isEqualTo(callers - 1);
+    }
+
+    @Test
+    void redisFailureFallsBackToLocalCache() throws Exception {
+        @SuppressWarnings("unchecked")
+        ValueOperations<String, String> ops = mock(ValueOperations.class);
+        when(ops.get(anyString())).thenThrow(new RedisConnectionFailureException("connection refused"));
+        StringRedisTemplate template = mock(StringRedisTemplate.class);
+        when(template.opsForValue()).thenReturn(ops);
+        ResultCache cache = new ResultCache(properties(true), provider(template), meters);
+
+        assertThat(cache.get(task(1, 60), request("a"), this::load)).isEqualTo("r1");
+        assertThat(cache.get(task(1, 60), request("b"), this::load)).isEqualTo("r2");
+        assertThat(cache.get(task(1, 60), request("a"), this::load)).isEqualTo("r1");
+
+        assertThat(loads).hasValue(2);
+        assertThat(meters.get("dts.result.cache.errors").functionCounter().count()).isEqualTo(1);
+        // 失败后一段时间内不再访问 Redis
+        verify(ops, times(1)).get(anyString());
+        verify(ops, never()).set(anyString(), anyString(), any(Duration.class));
+    }
+
+    @Test
+    void recordsHitsMissesAndRatio() throws Exception {
+        Map<String, String> shared = new ConcurrentHashMap<>();
+        ResultCache cache = new ResultCache(properties(true), redis(shared), meters);
+        ResultCache peer = new ResultCache(properties(true), redis(shared), new SimpleMeterRegistry());
+        peer.get(task(1, 60), request("b"), this::load);
+
+        cache.get(task(1, 60), request("a"), this::load);
+        cache.get(task(1, 60), request("a"), this::load);
+        cache.get(task(1, 60), request("a"), this::load);
+        cache.get(task(1, 60), request("b"), this::load);
+
+        assertThat(requests("local", "hit")).isEqualTo(2);
+        assertThat(requests("local", "miss")).isEqualTo(2);
+        assertThat(requests("redis", "hit")).isEqualTo(1);
+        assertThat(requests("redis", "miss")).isEqualTo(1);
+        // (本地命中 + Redis 命中) / 请求数
+        assertThat(meters.get("dts.result.cache.hit.ratio").gauge().value()).isEqualTo(0.75);
+        assertThat(meters.get("dts.result.cache.size").gauge().value()).isEqualTo(2);
+    }
+
+    private String load() {
+        return "r" + loads.incrementAndGet();
+    }
+
+    private double requests(String tier, String result) {
+        return meters.get("dts.result.cache.requests").tag("tier", tier).tag("result", result).functionCounter().count();
+    }
+
+    private double coalesced() {
+        return meters.get("dts.result.cache.coalesced").functionCounter().count();
+    }
+
+    private static ResultCacheProperties properties(boolean redisEnabled) {
+        ResultCacheProperties properties = new ResultCacheProperties();
+        properties.setRedisEnabled(redisEnabled);
+        return properties;
+    }
+
+    private static TaskDefinition task(long version, long ttlSeconds) {
+        CacheDefinition cache = new CacheDefinition();
+        cache.setTtlSeconds(ttlSeconds);
+        TaskDefinition task = new TaskDefinition();
+        task.setName("orders");
+        task.setCache(cache);
+        task.setVersion(version);
+        return task;
+    }
+
+    private static DTSRequest request(String payload) {
+        DTSRequest request = new DTSRequest();
+        request.setRuleId("orders");
+        request.setPayload(payload);
+        return request;
+    }
+
+    /**
+     * 以 Map 模拟的 Redis
+     */
+    @SuppressWarnings("unchecked")
+    private static ObjectProvider<StringRedisTemplate> redis(Map<String, String> store) {
+        ValueOperations<String, String> ops = mock(ValueOperations.class);
+        when(ops.get(anyString())).thenAnswer(inv -> store.get((String) inv.getArgument(0)));
+        doAnswer(inv -> store.put(inv.getArgument(0), inv.getArgument(1)))
+                .when(ops).set(anyString(), anyString(), any(Duration.class));
+        StringRedisTemplate template = mock(StringRedisTemplate.class);
+        when(template.opsForValue()).thenReturn(ops);
+        return provider(template);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ObjectProvider<StringRedisTemplate> provider(StringRedisTemplate template) {
+        ObjectProvider<StringRedisTemplate> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable()).thenReturn(template);
+        return provider;
+    }
+}
@@ -0,0 +1,412 @@
+package com.ml.datatransformer.dts.pipeline;
+
+import com.ml.datatransformer.dts.pipeline.checkpoint.Watermark;
+import com.ml.datatransformer.dts.pipeline.checkpoint.WatermarkStore;
+import com.ml.datatransformer.dts.pipeline.checkpoint.Watermarker;
+import com.ml.datatransformer.dts.pipeline.error.DeadLetter;
+import com.ml.datatransformer.dts.pipeline.error.DeadLetterSink;
+import com.ml.datatransformer.dts.pipeline.error.ErrorPolicy;
+import com.ml.datatransformer.dts.pipeline.impl.DTSExecutor;
+import com.ml.datatransformer.dts.pipeline.impl.DTSExecutorProperties;
+import com.ml.datatransformer.dts.pipeline.impl.publish.BatchPublishStage;
+import com.ml.datatransformer.dts.pipeline.model.Collector;
+import com.ml.datatransformer.dts.pipeline.model.Processor;
+import com.ml.datatransformer.dts.pipeline.model.Publisher;
+import com.ml.datatransformer.dts.pipeline.model.RecordCursor;
+import com.ml.datatransformer.dts.pipeline.model.RecordCursors;
+import com.ml.datatransformer.dts.pipeline.model.StreamingCollector;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DTSPipelineTest {
+
+    private static DTSExecutor executor;
+
+    @BeforeAll
+    static void start() {
+        DTSExecutorProperties properties = new DTSExecutorProperties();
+        properties.setType("platform");
+        properties.setPoolSize(4);
+        executor = new DTSExecutor(properties);
+    }
+
+    @AfterAll
+    static void stop() {
+        executor.close();
+    }
+
+    @Test
+    void commitsWatermarkAfterSuccessfulRun() {
+        MemoryWatermarks store = new MemoryWatermarks();
+        RecordingBulk bulk = new RecordingBulk();
+        DTSPipeline<String, Map<String, Object>, String> pipeline = pipeline(new RowsCollector(10), -1, bulk,
+                options(ExecutionMode.CHUNKED, store));
+
+        assertThat(pipeline.execute("req")).hasSize(10);
+        assertThat(bulk.written).hasValue(10);
+        assertThat(store.values.get("rule").value()).isEqualTo(9L);
+    }
+
+    @Test
+    void failedRunDrainsSessionsAndKeepsWatermark() {
+        for (ExecutionMode mode : ExecutionMode.values()) {
+            MemoryWatermarks store = new MemoryWatermarks();
+            RowsCollector collector = new RowsCollector(50);
+            RecordingBulk bulk = new RecordingBulk();
+            DTSPipeline<String, Map<String, Object>, String> pipeline = pipeline(collector, 37, bulk, options(mode, store));
+
+            assertThatThrownBy(() -> pipeline.execute("req")).hasMessageContaining("bad row 37");
+            assertThat(store.values).as(mode.name()).isEmpty();
+            assertThat(bulk.running).as(mode.name()).hasValue(0);
+            if (mode == ExecutionMode.STREAMING) assertThat(collector.closed).as(mode.name()).isTrue();
+        }
+    }
+
+    @Test
+    void closesCursorWhenSinkFails() {
+        RowsCollector collector = new RowsCollector(20);
+        DTSPipeline<String, Map<String, Object>, String> pipeline = pipeline(collector, -1, new RecordingBulk(),
+                options(ExecutionMode.STREAMING, new MemoryWatermarks()));
+
+        assertThatThrownBy(() -> pipeline.executeTo("req", rows -> {
+            throw new IllegalStateException("client gone");
+        }, null)).hasMessage("client gone");
+        assertThat(collector.closed).isTrue();
+    }
+
+    @Test
+    void operatorFailuresSkipRetryAndGoToDeadLetter() {
+        for (ExecutionMode mode : List.of(ExecutionMode.RECORD, ExecutionMode.CHUNKED)) {
+            MemorySink sink = new MemorySink();
+            AtomicInteger calls = new AtomicInteger();
+            Processor<Map<String, Object>, Map<String, Object>> check = processor(row -> {
+                if (id(row) == 3) {
+                    calls.incrementAndGet();
+                    throw new IllegalStateException("bad row 3");
+                }
+            });
+            DTSPipeline<String, Map<String, Object>, String> pipeline = new DTSPipeline<>(new RowsCollector(10),
+                    List.of(check), idPublisher(row -> { }), List.of(), executor, tolerant(mode, sink));
+
+            assertThat(pipeline.execute("req")).as(mode.name()).hasSize(9).doesNotContain("3");
+            assertThat(calls).as(mode.name()).hasValue(1);
+            assertThat(sink.letters).as(mode.name()).singleElement()
+                    .satisfies(l -> assertThat(l.stage()).isEqualTo("check"))
+                    .satisfies(l -> assertThat(l.record()).containsEntry("id", 3));
+        }
+    }
+
+    @Test
+    void publishFailuresAreRetriedOnCallingThread() {
+        for (ExecutionMode mode : List.of(ExecutionMode.RECORD, ExecutionMode.CHUNKED)) {
+            MemorySink sink = new MemorySink();
+            AtomicInteger attempts = new AtomicInteger();
+            List<String> retryThreads = new CopyOnWriteArrayList<>();
+            Publisher<Map<String, Object>, String> publisher = idPublisher(row -> {
+                if (id(row) == 5 && attempts.incrementAndGet() < 3) {
+                    if (attempts.get() > 1) retryThreads.add(Thread.currentThread().getName());
+                    throw new IllegalStateException("timeout");
+                }
+                if (id(row) == 5) retryThreads.add(Thread.currentThread().getName());
+            });
+            ExecutionProgress progress = new ExecutionProgress();
+            DTSPipeline<String, Map<String, Object>, String> pipeline = new DTSPipeline<>(new RowsCollector(10),
+                    List.of(), publisher, List.of(), executor, tolerant(mode, sink));
+
+            assertThat(pipeline.execute("req", progress)).as(mode.name()).hasSize(10).contains("5");
+            assertThat(attempts).as(mode.name()).hasValue(3);
+            assertThat(retryThreads).as(mode.name()).containsOnly(Thread.currentThread().getName());
+            assertThat(progress.getProcessed()).as(mode.name()).isEqualTo(10);
+            assertThat(sink.letters).as(mode.name()).isEmpty();
+        }
+    }
+
+    @Test
+    void exhaustedRetriesGoToDeadLetter() {
+        MemorySink sink = new MemorySink();
+        AtomicInteger attempts = new AtomicInteger();
+        Publisher<Map<String, Object>, String> publisher = idPublisher(row -> {
+            if (id(row) == 7) {
+                attempts.incrementAndGet();
+                throw new IllegalStateException("timeout");
+            }
+        });
+        DTSPipeline<String, Map<String, Object>, String> pipeline = new DTSPipeline<>(new RowsCollector(10),
+                List.of(), publisher, List.of(), executor, tolerant(ExecutionMode.CHUNKED, sink));
+
+        assertThat(pipeline.execute("req")).hasSize(9).doesNotContain("7");
+        assertThat(attempts).hasValue(4);
+        assertThat(sink.letters).singleElement().satisfies(l -> assertThat(l.stage()).isEqualTo("id"));
+    }
+
+    @Test
+    void maxErrorsWritesCollectedDeadLettersBeforeStopping() {
+        MemorySink sink = new MemorySink();
+        Processor<Map<String, Object>, Map<String, Object>> check = processor(row -> {
+            if (id(row) % 3 == 0) throw new IllegalStateException("bad row " + id(row));
+        });
+        PipelineOptions options = PipelineOptions.builder()
+                .mode(ExecutionMode.CHUNKED)
+                .chunkSize(100)
+                .errorPolicy(ErrorPolicy.builder().action(ErrorPolicy.Action.CONTINUE).maxErrors(2)
+                        .deadLetter(sink).ruleId("rule").build())
+                .build();
+        DTSPipeline<String, Map<String, Object>, String> pipeline = new DTSPipeline<>(new RowsCollector(10),
+                List.of(check), idPublisher(row -> { }), List.of(), executor, options);
+
+        assertThatThrownBy(() -> pipeline.execute("req")).hasMessageContaining("max_errors 2");
+        assertThat(sink.letters).extracting(l -> l.record().get("id")).containsExactly(0, 3);
+    }
+
+    @Test
+    void failedBulkRowsGoToDeadLetter() {
+        MemorySink sink = new MemorySink();
+        Publisher<List<Map<String, Object>>, Boolean> bulk = new Publisher<>() {
+            @Override
+            public Boolean publish(List<Map<String, Object>> rows) {
+                return rows.stream().noneMatch(row -> id(row) == 4);
+            }
+
+            @Override
+            public String name() {
+                return "bulk";
+            }
+        };
+        BatchPublishStage<Map<String, Object>> stage = new BatchPublishStage<>(bulk, executor, Map.of("bulk_size", 3));
+        DTSPipeline<String, Map<String, Object>, String> pipeline = new DTSPipeline<>(new RowsCollector(9),
+                List.of(), idPublisher(row -> { }), List.of(stage), executor,
+                PipelineOptions.builder()
+                        .mode(ExecutionMode.CHUNKED)
+                        .chunkSize(3)
+                        .errorPolicy(ErrorPolicy.builder().action(ErrorPolicy.Action.CONTINUE).deadLetter(sink).build())
+                        .build());
+
+        assertThatThrownBy(() -> pipeline.execute("req")).hasMessageContaining("failedBulks=1");
+        assertThat(sink.letters).hasSize(3)
+                .allSatisfy(l -> assertThat(l.stage()).isEqualTo("batch:bulk"))
+                .extracting(l -> l.record().get("id")).contains(4);
+    }
+
+    @Test
+    void flakyBulkIsRetriedInsteadOfDeadLettered() {
+        MemorySink sink = new MemorySink();
+        AtomicInteger failures = new AtomicInteger();
+        List<Object> written = new CopyOnWriteArrayList<>();
+        Publisher<List<Map<String, Object>>, Boolean> bulk = new Publisher<>() {
+            @Override
+            public Boolean publish(List<Map<String, Object>> rows) {
+                if (rows.stream().anyMatch(row -> id(row) == 4) && failures.incrementAndGet() <= 2) {
+                    throw new IllegalStateException("bulk rejected", new IOException("connection reset"));
+                }
+                rows.forEach(row -> written.add(row.get("id")));
+                return true;
+            }
+
+            @Override
+            public String name() {
+                return "bulk";
+            }
+        };
+        BatchPublishStage<Map<String, Object>> stage = new BatchPublishStage<>(bulk, executor, Map.of("bulk_size", 3));
+        DTSPipeline<String, Map<String, Object>, String> pipeline = new DTSPipeline<>(new RowsCollector(9),
+                List.of(), idPublisher(row -> { }), List.of(stage), executor,
+                PipelineOptions.builder()
+                        .mode(ExecutionMode.CHUNKED)
+                        .chunkSize(3)
+                        .errorPolicy(ErrorPolicy.builder()
+                                .action(ErrorPolicy.Action.RETRY)
+                                .backoffMs(1)
+                                .retryOn(List.of("IOException"))
+                                .deadLetter(sink)
+                                .build())
+                        .build());
+
+        assertThat(pipeline.execute("req")).hasSize(9);
+        assertThat(failures).hasValue(3);
+        assertThat(written).containsExactlyInAnyOrder(0, 1, 2, 3, 4, 5, 6, 7, 8);
+        assertThat(sink.letters).isEmpty();
+    }
+
+    private static PipelineOptions tolerant(ExecutionMode mode, DeadLetterSink sink) {
+        return PipelineOptions.builder()
+                .mode(mode)
+                .chunkSize(4)
+                .errorPolicy(ErrorPolicy.builder()
+                        .action(ErrorPolicy.Action.RETRY)
+                        .backoffMs(1)
+                        .deadLetter(sink)
+                        .ruleId("rule")
+                        .build())
+                .build();
+    }
+
+    private static int id(Map<String, Object> row) {
+        return ((Number) row.get("id")).intValue();
+    }
+
+    private static Processor<Map<String, Object>, Map<String, Object>> processor(
+            java.util.function.Consumer<Map<String, Object>> body) {
+        return new Processor<>() {
+            @Override
+            public Map<String, Object> process(Map<String, Object> row) {
+                body.accept(row);
+                return row;
+            }
+
+            @Override
+            public String name() {
+                return "check";
+            }
+        };
+    }
+
+    private static Publisher<Map<String, Object>, String> idPublisher(java.util.function.Consumer<Map<String, Object>> body) {
+        return new Publisher<>() {
+            @Override
+            public String publish(Map<String, Object> row) {
+                body.accept(row);
+                return String.valueOf(row.get("id"));
+            }
+
+            @Override
+            public String name() {
+                return "id";
+            }
+        };
+    }
+
+    private static PipelineOptions options(ExecutionMode mode, WatermarkStore store) {
+        return PipelineOptions.builder()
+                .mode(mode)
+                .chunkSize(4)
+                .windowSize(8)
+                .watermarker(new Watermarker(store, "rule", "id"))
+                .build();
+    }
+
+    private static DTSPipeline<String, Map<String, Object>, String> pipeline(RowsCollector collector, int failAt,
+                                                                             RecordingBulk bulk,
+                                                                             PipelineOptions options) {
+        Processor<Map<String, Object>, Map<String, Object>> check = new Processor<>() {
+            @Override
+            public Map<String, Object> process(Map<String, Object> row) {
+                if (((Number) row.get("id")).intValue() == failAt) throw new IllegalStateException("bad row " + failAt);
+                return row;
+            }
+
+            @Override
+            public String name() {
+                return "check";
+            }
+        };
+        Publisher<Map<String, Object>, String> publisher = new Publisher<>() {
+            @Override
+            public String publish(Map<String, Object> row) {
+                return String.valueOf(row.get("id"));
+            }
+
+            @Override
+            public String name() {
+                return "id";
+            }
+        };
+        BatchPublishStage<Map<String, Object>> stage = new BatchPublishStage<>(bulk, executor, Map.of("bulk_size", 3));
+        return new DTSPipeline<>(collector, List.of(check), publisher, List.of(stage), executor, options);
+    }
+
+    private static final class RowsCollector implements Collector<String, List<Map<String, Object>>>,
+            StreamingCollector<String, Map<String, Object>> {
+        private final int count;
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private RowsCollector(int count) {
+            this.count = count;
+        }
+
+        @Override
+        public List<Map<String, Object>> collect(String input) {
+            List<Map<String, Object>> rows = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                Map<String, Object> row = new HashMap<>();
+                row.put("id", i);
+                rows.add(row);
+            }
+            return rows;
+        }
+
+        @Override
+        public RecordCursor<Map<String, Object>> open(String input) {
+            return RecordCursors.of(collect(input).iterator(), () -> closed.set(true));
+        }
+
+        @Override
+        public String name() {
+            return "rows";
+        }
+    }
+
+    private static final class RecordingBulk implements Publisher<List<Map<String, Object>>, Boolean> {
+        private final AtomicInteger written = new AtomicInteger();
+        private final AtomicInteger running = new AtomicInteger();
+
+        @Override
+        public Boolean publish(List<Map<String, Object>> bulk) {
+            running.incrementAndGet();
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            written.addAndGet(bulk.size());
+            running.decrementAndGet();
+            return true;
+        }
+
+        @Override
+        public String name() {
+            return "bulk";
+        }
+    }
+
+    private static final class MemorySink implements DeadLetterSink {
+        private final List<DeadLetter> letters = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void write(List<DeadLetter> batch) {
+            letters.addAll(batch);
+        }
+
+        @Override
+        public String name() {
+            return "memory";
+        }
+    }
+
+    private static final class MemoryWatermarks implements WatermarkStore {
+        private final Map<String, Watermark> values = new ConcurrentHashMap<>();
+
+        @Override
+        public Watermark loadWatermark(String ruleId) {
+            return values.get(ruleId);
+        }
+
+        @Override
+        public void saveWatermark(Watermark watermark) {
+            values.put(watermark.ruleId(), watermark);
+        }
+    }
+}
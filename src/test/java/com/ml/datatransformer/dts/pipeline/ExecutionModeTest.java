@@ -0,0 +1,24 @@
+package com.ml.datatransformer.dts.pipeline;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ExecutionModeTest {
+
+    @Test
+    void parsesKnownModesAndDefaultsToRecord() {
+        assertThat(ExecutionMode.of(null)).isEqualTo(ExecutionMode.RECORD);
+        assertThat(ExecutionMode.of(" ")).isEqualTo(ExecutionMode.RECORD);
+        assertThat(ExecutionMode.of("Chunked")).isEqualTo(ExecutionMode.CHUNKED);
+        assertThat(ExecutionMode.of(" streaming ")).isEqualTo(ExecutionMode.STREAMING);
+    }
+
+    @Test
+    void rejectsUnknownModes() {
+        assertThatThrownBy(() -> ExecutionMode.of("chunk"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("unknown execution mode: chunk");
+    }
+}
@@ -0,0 +1,168 @@
+package com.ml.datatransformer.dts.pipeline.checkpoint;
+
+import com.ml.datatransformer.dts.dto.DTSRequest;
+import com.ml.datatransformer.dts.pipeline.DTSPipeline;
+import com.ml.datatransformer.dts.pipeline.ExecutionMode;
+import com.ml.datatransformer.dts.pipeline.PipelineOptions;
+import com.ml.datatransformer.dts.pipeline.impl.DTSExecutor;
+import com.ml.datatransformer.dts.pipeline.impl.DTSExecutorProperties;
+import com.ml.datatransformer.dts.pipeline.impl.collect.DbCollector;
+import com.ml.datatransformer.dts.pipeline.impl.publish.BatchPublishStage;
+import com.ml.datatransformer.dts.pipeline.model.Processor;
+import com.ml.datatransformer.dts.pipeline.model.Publisher;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 流式执行中途失败后同一请求重跑：从最后一次提交的断点继续，已提交的记录不再发布
+ */
+class CheckpointResumeTest {
+
+    private static JdbcTemplate jdbc;
+    private static DTSExecutor executor;
+
+    @TempDir
+    Path dir;
+
+    private FileCheckpointStore store;
+    private final List<Object> published = new CopyOnWriteArrayList<>();
+    private volatile long failAt;
+
+    @BeforeAll
+    static void start() {
+        jdbc = new JdbcTemplate(new DriverManagerDataSource("jdbc:h2:mem:checkpoint_resume;DB_CLOSE_DELAY=-1;DATABASE_TO_LOWER=TRUE", "sa", ""));
+        jdbc.execute("CREATE TABLE t_txn (id BIGINT, amount INT)");
+        // 插入顺序与断点键顺序不同，恢复依赖按键排序而非物理顺序
+        for (int i = 20; i >= 1; i--) {
+            jdbc.update("INSERT INTO t_txn VALUES (?, ?)", i, i * 10);
+        }
+        DTSExecutorProperties properties = new DTSExecutorProperties();
+        properties.setType("platform");
+        properties.setPoolSize(4);
+        executor = new DTSExecutor(properties);
+    }
+
+    @AfterAll
+    static void stop() {
+        executor.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        CheckpointProperties properties = new CheckpointProperties();
+        properties.setPath(dir.toString());
+        store = new FileCheckpointStore(properties);
+    }
+
+    @Test
+    void rerunResumesAfterLastCommittedWindow() {
+        DTSPipeline<DTSRequest, Map<String, Object>, String> pipeline = pipeline();
+
+        failAt = 13;
+        assertThatThrownBy(() -> pipeline.executeTo(request("2026-10-01"), rows -> { }, null))
+                .hasMessageContaining("killed at 13");
+        // 窗口 [1..5] [6..10] 已提交；[11..15] 未提交，其中已写出的记录重跑时会再次发布（幂等 _id 覆盖）
+        assertThat(published).contains(ids(1, 10)).doesNotContain(13L);
+        Checkpoint saved = store.load("txn");
+        assertThat(saved.position()).isEqualTo(10);
+        assertThat(saved.offset()).isEqualTo(10);
+        assertThat(saved.published()).isEqualTo(10);
+
+        published.clear();
+        failAt = 0;
+        long collected = pipeline.executeTo(request("2026-10-01"), rows -> { }, null);
+
+        assertThat(collected).isEqualTo(10);
+        assertThat(published).containsExactlyInAnyOrder(ids(11, 20));
+        assertThat(store.load("txn")).isNull();
+    }
+
+    @Test
+    void checkpointOfAnotherPayloadIsDiscarded() {
+        DTSPipeline<DTSRequest, Map<String, Object>, String> pipeline = pipeline();
+
+        failAt = 8;
+        assertThatThrownBy(() -> pipeline.executeTo(request("2026-10-01"), rows -> { }, null));
+        assertThat(store.load("txn").position()).isEqualTo(5);
+
+        published.clear();
+        failAt = 0;
+        long collected = pipeline.executeTo(request("2026-10-02"), rows -> { }, null);
+
+        assertThat(collected).isEqualTo(20);
+        assertThat(published).containsExactlyInAnyOrder(ids(1, 20));
+        assertThat(store.load("txn")).isNull();
+    }
+
+    private DTSPipeline<DTSRequest, Map<String, Object>, String> pipeline() {
+        DbCollector collector = new DbCollector(jdbc, Map.of("sql", "SELECT id, amount FROM t_txn", "checkpoint_column", "id"));
+        Processor<Map<String, Object>, Map<String, Object>> crash = new Processor<>() {
+            @Override
+            public Map<String, Object> process(Map<String, Object> row) {
+                if (((Number) row.get("id")).longValue() == failAt) throw new IllegalStateException("killed at " + failAt);
+                return row;
+            }
+
+            @Override
+            public String name() {
+                return "crash";
+            }
+        };
+        Publisher<Map<String, Object>, String> json = new Publisher<>() {
+            @Override
+            public String publish(Map<String, Object> row) {
+                return String.valueOf(row.get("id"));
+            }
+
+            @Override
+            public String name() {
+                return "id";
+            }
+        };
+        Publisher<List<Map<String, Object>>, Boolean> bulk = new Publisher<>() {
+            @Override
+            public Boolean publish(List<Map<String, Object>> rows) {
+                rows.forEach(row -> published.add(row.get("id")));
+                return true;
+            }
+
+            @Override
+            public String name() {
+                return "bulk";
+            }
+        };
+        BatchPublishStage<Map<String, Object>> stage = new BatchPublishStage<>(bulk, executor,
+                Map.of("bulk_size", 3, "flush_interval_ms", 60_000));
+        return new DTSPipeline<>(collector, List.of(crash), json, List.of(stage), executor,
+                PipelineOptions.builder()
+                        .mode(ExecutionMode.STREAMING)
+                        .windowSize(5)
+                        .checkpointer(new Checkpointer(store, "txn"))
+                        .build());
+    }
+
+    private static DTSRequest request(String payload) {
+        DTSRequest request = new DTSRequest();
+        request.setRuleId("txn");
+        request.setPayload(payload);
+        return request;
+    }
+
+    private static Object[] ids(long from, long to) {
+        return LongStream.rangeClosed(from, to).boxed().toArray();
+    }
+}
@@ -0,0 +1,70 @@
+package com.ml.datatransformer.dts.pipeline.checkpoint;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WatermarkerTest {
+
+    @Test
+    void advancesOnlyForward() {
+        MemoryWatermarks store = new MemoryWatermarks();
+        Watermarker watermarker = new Watermarker(store, "rule", "update_time");
+
+        Watermarker.Run run = watermarker.begin();
+        run.observe(List.of(Map.of("UPDATE_TIME", 5), Map.of("UPDATE_TIME", 9), Map.of("UPDATE_TIME", 7)));
+        run.commit();
+        assertThat(store.mark.value()).isEqualTo(9L);
+
+        Watermarker.Run stale = watermarker.begin();
+        stale.observe(List.of(Map.of("update_time", 8)));
+        stale.commit();
+        assertThat(store.mark.value()).isEqualTo(9L);
+
+        // 没有采集到记录时水位不变
+        watermarker.begin().commit();
+        assertThat(store.mark.value()).isEqualTo(9L);
+    }
+
+    @Test
+    void compoundWatermarkKeepsLargestKeyOfLastValue() {
+        MemoryWatermarks store = new MemoryWatermarks();
+        Watermarker watermarker = new Watermarker(store, "rule", "version", "id");
+
+        Watermarker.Run run = watermarker.begin();
+        run.observe(List.of(Map.of("version", 2, "id", 7), Map.of("version", 3, "id", 4),
+                Map.of("version", 3, "id", 6), Map.of("version", 1, "id", 9)));
+        run.commit();
+        assertThat(store.mark.value()).isEqualTo(List.of(3L, 6L));
+    }
+
+    @Test
+    void comparesCompoundAndScalarValues() {
+        assertThat(Watermarker.compare(List.of(3L, 6L), List.of(3L, 5L))).isPositive();
+        assertThat(Watermarker.compare(List.of(3L, 6L), List.of(4L, 1L))).isNegative();
+        assertThat(Watermarker.compare(List.of(3L, 6L), Arrays.asList(3L, 6L))).isZero();
+        // 单值水位表示该值已全部读取，大于同值的复合水位
+        assertThat(Watermarker.compare(3L, List.of(3L, 6L))).isPositive();
+        assertThat(Watermarker.compare(List.of(4L, 1L), 3L)).isPositive();
+        assertThat(Watermarker.compare(new java.math.BigDecimal("2.50"), 2.5)).isZero();
+        assertThat(Watermarker.compare("2024-01-02 00:00:00", "2024-01-01 23:59:59")).isPositive();
+    }
+
+    private static final class MemoryWatermarks implements WatermarkStore {
+        private volatile Watermark mark;
+
+        @Override
+        public Watermark loadWatermark(String ruleId) {
+            return mark;
+        }
+
+        @Override
+        public void saveWatermark(Watermark watermark) {
+            mark = watermark;
+        }
+    }
+}
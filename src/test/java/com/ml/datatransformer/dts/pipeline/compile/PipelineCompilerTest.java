@@ -0,0 +1,50 @@
+package com.ml.datatransformer.dts.pipeline.compile;
+
+import com.ml.datatransformer.dts.pipeline.impl.lookup.LookupTables;
+import com.ml.datatransformer.dts.pipeline.task.FlowDefinition;
+import com.ml.datatransformer.dts.pipeline.task.TaskDefinition;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PipelineCompilerTest {
+
+    // 依赖校验先于算子实例化，不需要其余组件
+    private final PipelineCompiler compiler = new PipelineCompiler(null, new LookupTables(null), null, null, null, null, null);
+
+    @Test
+    void rejectsDependencyCycle() {
+        TaskDefinition task = task(flow("load"), flow("a", "c"), flow("b", "a"), flow("c", "b"), flow("sink", "load"));
+
+        assertThatThrownBy(() -> compiler.compile(task))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("flow dependency cycle in task [orders]: [a, b, c]");
+    }
+
+    @Test
+    void rejectsUnknownSelfAndDuplicateFlows() {
+        assertThatThrownBy(() -> compiler.compile(task(flow("a"), flow("b", "missing"))))
+                .hasMessage("flow [b] depends on unknown flow [missing]");
+        assertThatThrownBy(() -> compiler.compile(task(flow("a"), flow("b", "b"))))
+                .hasMessage("flow [b] depends on itself");
+        assertThatThrownBy(() -> compiler.compile(task(flow("a"), flow("a"))))
+                .hasMessage("duplicate flow name [a] in task [orders]");
+    }
+
+    private static TaskDefinition task(FlowDefinition... flows) {
+        TaskDefinition task = new TaskDefinition();
+        task.setName("orders");
+        task.setFlows(new ArrayList<>(List.of(flows)));
+        return task;
+    }
+
+    private static FlowDefinition flow(String name, String... dependsOn) {
+        FlowDefinition flow = new FlowDefinition();
+        flow.setName(name);
+        flow.setDependsOn(List.of(dependsOn));
+        return flow;
+    }
+}
@@ -0,0 +1,159 @@
+package com.ml.datatransformer.dts.pipeline.compile;
+
+import com.ml.datatransformer.dts.pipeline.impl.NoopOperator;
+import com.ml.datatransformer.dts.pipeline.impl.calculate.AddOperator;
+import com.ml.datatransformer.dts.pipeline.impl.calculate.ArithmeticChain;
+import com.ml.datatransformer.dts.pipeline.impl.calculate.ColumnarCalculate;
+import com.ml.datatransformer.dts.pipeline.impl.calculate.MaxOperator;
+import com.ml.datatransformer.dts.pipeline.impl.calculate.MulOperator;
+import com.ml.datatransformer.dts.pipeline.impl.calculate.SubOperator;
+import com.ml.datatransformer.dts.pipeline.impl.clean.ExtractCastOperator;
+import com.ml.datatransformer.dts.pipeline.impl.clean.ExtractJsonOperator;
+import com.ml.datatransformer.dts.pipeline.impl.clean.ProjectOperator;
+import com.ml.datatransformer.dts.pipeline.impl.clean.TypeCastOperator;
+import com.ml.datatransformer.dts.pipeline.model.BatchProcessor;
+import com.ml.datatransformer.dts.pipeline.model.MapProcessor;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PipelineOptimizerTest {
+
+    private static final List<String> OUTPUT_FIELDS = List.of("scheme", "fee", "net");
+    private static final List<String> AGGREGATE_FIELDS = List.of("peak");
+
+    @Test
+    void rewritesChainWithoutChangingRecords() {
+        List<MapProcessor> optimized = PipelineOptimizer.optimize("f", operators(), List.of(), List.of(), false);
+
+        assertThat(optimized).hasSize(2);
+        assertThat(optimized.get(0)).isInstanceOf(ExtractCastOperator.class);
+        assertThat(optimized.get(1)).isInstanceOf(ArithmeticChain.class);
+        assertThat(((ArithmeticChain) optimized.get(1)).operators()).hasSize(4);
+        assertThat(runRows(optimized, rows())).isEqualTo(baseline(List.of()));
+    }
+
+    @Test
+    void deadFieldEliminationKeepsOutputAndAggregateFields() {
+        List<MapProcessor> optimized = PipelineOptimizer.optimize("f", operators(), OUTPUT_FIELDS, AGGREGATE_FIELDS, false);
+
+        assertThat(optimized).hasSize(3);
+        assertThat(((ArithmeticChain) optimized.get(1)).operators())
+                .extracting(op -> op.resultName())
+                .containsExactly("fee", "net", "peak");
+        assertThat(optimized.get(2)).isInstanceOf(ProjectOperator.class);
+        assertThat(runRows(optimized, rows())).isEqualTo(baseline(OUTPUT_FIELDS));
+    }
+
+    @Test
+    void columnarRewriteMatchesInBothRecordAndChunkedModes() {
+        List<MapProcessor> optimized = PipelineOptimizer.optimize("f", operators(), OUTPUT_FIELDS, AGGREGATE_FIELDS, true);
+
+        assertThat(optimized.get(1)).isInstanceOf(ColumnarCalculate.class);
+        List<Map<String, Object>> expected = baseline(OUTPUT_FIELDS);
+        assertThat(runRows(optimized, rows())).isEqualTo(expected);
+        assertThat(runBatch(optimized, rows())).isEqualTo(expected);
+    }
+
+    @Test
+    void stopsEliminatingAtOperatorsWithoutDeclaredFields() {
+        MapProcessor opaque = new MapProcessor() {
+            @Override
+            public Map<String, Object> process(Map<String, Object> data) {
+                data.put("scheme", String.valueOf(data.get("unused")));
+                return data;
+            }
+
+            @Override
+            public String name() {
+                return "clean:opaque";
+            }
+        };
+        List<MapProcessor> operators = new ArrayList<>(operators());
+        operators.add(6, opaque);
+
+        List<MapProcessor> optimized = PipelineOptimizer.optimize("f", operators, OUTPUT_FIELDS, AGGREGATE_FIELDS, false);
+
+        // opaque 读取 unused：其之前写 unused 的 sub 必须保留
+        assertThat(optimized).contains(operators.get(5), opaque);
+        assertThat(runRows(optimized, rows())).isEqualTo(project(runRows(operators, rows()), OUTPUT_FIELDS));
+    }
+
+    /**
+     * noop、空 type_map、空 fields_name 会被去掉；extract_json + type_cast 会合并；unused 不在输出中
+     */
+    private static List<MapProcessor> operators() {
+        return List.of(
+                new NoopOperator("clean:unknown"),
+                new ExtractJsonOperator(Map.of(
+                        "key_name", List.of("amount", "rate", "discount", "/card/scheme"),
+                        "key_alias", Map.of("/card/scheme", "scheme"))),
+                new TypeCastOperator(Map.of("type_map", Map.of("amount", "double", "rate", "double"))),
+                new TypeCastOperator(Map.of()),
+                new AddOperator(Map.of()),
+                new SubOperator(Map.of("fields_name", List.of("amount", "discount"), "result_name", "unused")),
+                new MulOperator(Map.of("fields_name", List.of("amount", "rate"), "result_name", "fee")),
+                new AddOperator(Map.of("fields_name", List.of("fee", "discount"), "result_name", "net")),
+                new MaxOperator(Map.of("fields_name", List.of("fee", "net"), "result_name", "peak")));
+    }
+
+    private static List<Map<String, Object>> rows() {
+        List<String> payloads = List.of(
+                "{\"amount\":\"12.5\",\"rate\":0.02,\"discount\":-1,\"card\":{\"scheme\":\"visa\"}}",
+                "{\"amount\":100,\"rate\":3,\"discount\":\"2.25\",\"card\":{\"scheme\":\"master\"}}",
+                "{\"amount\":\"n/a\",\"rate\":1,\"card\":{}}",
+                "{\"discount\":5}",
+                "{}",
+                "not json");
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (String p : payloads) {
+            Map<String, Object> row = new HashMap<>();
+            row.put("payload", p);
+            // 没有有效输入时算子不写入，原值保留
+            row.put("fee", 9L);
+            rows.add(row);
+        }
+        Map<String, Object> noPayload = new HashMap<>();
+        noPayload.put("id", 1L);
+        rows.add(noPayload);
+        return rows;
+    }
+
+    private static List<Map<String, Object>> baseline(List<String> outputFields) {
+        List<Map<String, Object>> rows = runRows(operators(), rows());
+        return outputFields.isEmpty() ? rows : project(rows, outputFields);
+    }
+
+    private static List<Map<String, Object>> project(List<Map<String, Object>> rows, List<String> outputFields) {
+        Set<String> keep = new LinkedHashSet<>(outputFields);
+        keep.addAll(AGGREGATE_FIELDS);
+        for (Map<String, Object> row : rows) row.keySet().retainAll(keep);
+        return rows;
+    }
+
+    private static List<Map<String, Object>> runRows(List<MapProcessor> operators, List<Map<String, Object>> rows) {
+        for (Map<String, Object> row : rows) {
+            for (MapProcessor op : operators) op.process(row);
+        }
+        return rows;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> runBatch(List<MapProcessor> operators, List<Map<String, Object>> rows) {
+        for (MapProcessor op : operators) {
+            if (op instanceof BatchProcessor<?> batch) {
+                ((BatchProcessor<Map<String, Object>>) batch).processBatch(rows);
+            } else {
+                for (Map<String, Object> row : rows) op.process(row);
+            }
+        }
+        return rows;
+    }
+}
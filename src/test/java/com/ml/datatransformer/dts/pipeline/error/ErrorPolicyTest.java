@@ -0,0 +1,60 @@
+package com.ml.datatransformer.dts.pipeline.error;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ErrorPolicyTest {
+
+    @Test
+    void onlyRetryPolicyRetries() {
+        assertThat(ErrorPolicy.STOP.retryable(new IllegalStateException())).isFalse();
+        ErrorPolicy skip = ErrorPolicy.builder().action(ErrorPolicy.Action.CONTINUE).build();
+        assertThat(skip.tolerant()).isTrue();
+        assertThat(skip.retryable(new IllegalStateException())).isFalse();
+        ErrorPolicy none = ErrorPolicy.builder().action(ErrorPolicy.Action.RETRY).maxRetries(0).build();
+        assertThat(none.retrying()).isFalse();
+        assertThat(none.retryable(new IllegalStateException())).isFalse();
+    }
+
+    @Test
+    void dataErrorsAreNotRetriedByDefault() {
+        ErrorPolicy policy = ErrorPolicy.builder().action(ErrorPolicy.Action.RETRY).build();
+        assertThat(policy.retryable(new IllegalStateException("timeout"))).isTrue();
+        assertThat(policy.retryable(new IllegalArgumentException("bad value"))).isFalse();
+        assertThat(policy.retryable(new NumberFormatException("x"))).isFalse();
+    }
+
+    @Test
+    void retryOnMatchesTypeHierarchyAndCauses() {
+        ErrorPolicy policy = ErrorPolicy.builder()
+                .action(ErrorPolicy.Action.RETRY)
+                .retryOn(List.of("IOException", "java.util.concurrent.TimeoutException"))
+                .build();
+        assertThat(policy.retryable(new UncheckedIOException(new IOException("reset")))).isTrue();
+        assertThat(policy.retryable(new RuntimeException(new java.util.concurrent.TimeoutException()))).isTrue();
+        assertThat(policy.retryable(new IllegalStateException("conflict"))).isFalse();
+    }
+
+    @Test
+    void backoffDoublesUpToLimit() {
+        ErrorPolicy policy = ErrorPolicy.builder().backoffMs(100).maxBackoffMs(500).build();
+        assertThat(policy.backoff(0)).isEqualTo(100);
+        assertThat(policy.backoff(1)).isEqualTo(200);
+        assertThat(policy.backoff(2)).isEqualTo(400);
+        assertThat(policy.backoff(3)).isEqualTo(500);
+        assertThat(policy.backoff(64)).isEqualTo(500);
+    }
+
+    @Test
+    void unknownActionIsRejected() {
+        assertThat(ErrorPolicy.Action.of(null)).isEqualTo(ErrorPolicy.Action.STOP);
+        assertThat(ErrorPolicy.Action.of(" retry ")).isEqualTo(ErrorPolicy.Action.RETRY);
+        assertThatThrownBy(() -> ErrorPolicy.Action.of("ignore")).hasMessageContaining("unknown error policy");
+    }
+}
@@ -0,0 +1,84 @@
+package com.ml.datatransformer.dts.pipeline.flow;
+
+import com.ml.datatransformer.dts.pipeline.record.RecordSchema;
+import com.ml.datatransformer.dts.pipeline.record.SlotRecord;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FlowConditionTest {
+
+    private static final Map<String, Object> ROW = Map.of("scheme", "VISA", "amount", "120.5", "rate", 2, "code", 7);
+
+    @Test
+    void numericComparisons() {
+        assertThat(test("amount > 100")).isTrue();
+        assertThat(test("amount * rate >= 241")).isTrue();
+        assertThat(test("amount * rate > 241")).isFalse();
+        assertThat(test("rate == 2")).isTrue();
+        assertThat(test("rate != 2")).isFalse();
+        assertThat(test("(amount - 20) / rate <= 50.25")).isTrue();
+        assertThat(test("rate < 1")).isFalse();
+        // 字段缺失或非数字时不匹配，包括 !=
+        assertThat(test("missing != 1")).isFalse();
+        assertThat(test("scheme > 1")).isFalse();
+    }
+
+    @Test
+    void stringComparisons() {
+        assertThat(test("scheme == 'VISA'")).isTrue();
+        assertThat(test("\"VISA\" == scheme")).isTrue();
+        assertThat(test("scheme != 'MC'")).isTrue();
+        assertThat(test("code == '7'")).isTrue();
+        assertThat(test("missing == 'x'")).isFalse();
+        assertThat(test("missing != 'x'")).isTrue();
+        assertThat(test("scheme == 'a && b || c'")).isFalse();
+    }
+
+    @Test
+    void andBindsTighterThanOr() {
+        assertThat(test("scheme == 'MC' && rate == 2 || amount > 100")).isTrue();
+        assertThat(test("amount > 100 || scheme == 'MC' && rate == 2")).isTrue();
+        assertThat(test("scheme == 'VISA' && rate == 2 && code < 5")).isFalse();
+        assertThat(test("rate == 1 || code == 1 || scheme == 'VISA'")).isTrue();
+    }
+
+    @Test
+    void collectsFieldsAndBindsToSlots() {
+        FlowCondition condition = FlowCondition.compile("scheme == 'VISA' && `fee rate` * amount > 10");
+        assertThat(condition.fields()).containsExactly("scheme", "fee rate", "amount");
+
+        RecordSchema schema = RecordSchema.of(List.of("scheme", "amount", "fee rate"));
+        FlowCondition bound = condition.bind(schema);
+        SlotRecord record = schema.newRecord();
+        record.put("scheme", "VISA");
+        record.put("amount", 100);
+        record.put("fee rate", "0.2");
+        assertThat(bound.test(record)).isTrue();
+
+        Map<String, Object> plain = new HashMap<>(record);
+        plain.put("amount", 1);
+        assertThat(bound.test(plain)).isFalse();
+    }
+
+    @Test
+    void rejectsInvalidConditions() {
+        for (String bad : List.of("amount", "amount = 1", "scheme > 'VISA'", "1 + 2 == 'x'", "scheme == 'VISA",
+                "(amount > 1", "amount > ", "amount >> 1")) {
+            assertThatThrownBy(() -> FlowCondition.compile(bad))
+                    .as(bad)
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessageStartingWith("invalid condition [" + bad + "]");
+        }
+        assertThatThrownBy(() -> FlowCondition.compile(" ")).hasMessage("condition must not be empty");
+    }
+
+    private static boolean test(String condition) {
+        return FlowCondition.compile(condition).test(ROW);
+    }
+}
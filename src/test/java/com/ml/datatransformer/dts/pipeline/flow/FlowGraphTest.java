@@ -0,0 +1,228 @@
+package com.ml.datatransformer.dts.pipeline.flow;
+
+import com.ml.datatransformer.dts.dto.DTSRequest;
+import com.ml.datatransformer.dts.pipeline.DTSPipeline;
+import com.ml.datatransformer.dts.pipeline.ExecutionMode;
+import com.ml.datatransformer.dts.pipeline.PipelineOptions;
+import com.ml.datatransformer.dts.pipeline.impl.DTSExecutor;
+import com.ml.datatransformer.dts.pipeline.impl.DTSExecutorProperties;
+import com.ml.datatransformer.dts.pipeline.model.Collector;
+import com.ml.datatransformer.dts.pipeline.model.Processor;
+import com.ml.datatransformer.dts.pipeline.model.Publisher;
+import com.ml.datatransformer.dts.pipeline.model.RecordCursor;
+import com.ml.datatransformer.dts.pipeline.model.RecordCursors;
+import com.ml.datatransformer.dts.pipeline.model.StreamingCollector;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FlowGraphTest {
+
+    private static DTSExecutor executor;
+
+    @BeforeAll
+    static void start() {
+        DTSExecutorProperties properties = new DTSExecutorProperties();
+        properties.setType("platform");
+        properties.setPoolSize(4);
+        executor = new DTSExecutor(properties);
+    }
+
+    @AfterAll
+    static void stop() {
+        executor.close();
+    }
+
+    @Test
+    void fanOutGivesEachSiblingItsOwnCopy() {
+        RowsCollector source = new RowsCollector(6);
+        FlowGraph graph = graph(source,
+                node("a", List.of(), null, true, row -> row.put("tag", "a")),
+                node("b", List.of(), null, true, row -> row.put("tag", "b")));
+
+        List<List<Map<String, Object>>> outputs = new ArrayList<>();
+        long collected = graph.executeTo(new DTSRequest(), outputs::add, null);
+
+        assertThat(collected).isEqualTo(6);
+        assertThat(outputs).hasSize(2);
+        assertThat(outputs.get(0)).hasSize(6).allSatisfy(r -> assertThat(r).containsEntry("tag", "a"));
+        assertThat(outputs.get(1)).hasSize(6).allSatisfy(r -> assertThat(r).containsEntry("tag", "b"));
+        // 共享采集结果不被任何 flow 的原地改写影响
+        assertThat(source.last).allSatisfy(r -> assertThat(r).doesNotContainKey("tag"));
+    }
+
+    @Test
+    void serialChainFeedsUpstreamOutputDownstream() {
+        FlowGraph graph = graph(new RowsCollector(4),
+                node("a", List.of(), null, false, row -> row.put("fee", id(row) * 10)),
+                node("b", List.of(0), null, false, row -> row.put("total", ((Number) row.get("fee")).intValue() + 1)));
+
+        List<List<Map<String, Object>>> outputs = new ArrayList<>();
+        graph.executeTo(new DTSRequest(), outputs::add, null);
+
+        // 只有汇点 b 的输出进入结果
+        assertThat(outputs).singleElement().satisfies(rows -> assertThat(rows)
+                .extracting(r -> r.get("total")).containsExactly(1, 11, 21, 31));
+        assertThat(graph.execute(new DTSRequest(), null)).containsExactly("0", "1", "2", "3");
+    }
+
+    @Test
+    void whenRoutesRowsByCondition() {
+        FlowGraph graph = graph(new RowsCollector(8),
+                node("visa", List.of(), FlowCondition.compile("scheme == 'VISA' && id * 10 >= 20"), true, row -> { }),
+                node("other", List.of(), FlowCondition.compile("scheme != 'VISA' || id < 1"), true, row -> { }));
+
+        List<List<Map<String, Object>>> outputs = new ArrayList<>();
+        graph.executeTo(new DTSRequest(), outputs::add, null);
+
+        // 偶数 id 为 VISA
+        assertThat(outputs.get(0)).extracting(FlowGraphTest::id).containsExactly(2, 4, 6);
+        assertThat(outputs.get(1)).extracting(FlowGraphTest::id).containsExactly(0, 1, 3, 5, 7);
+    }
+
+    @Test
+    void upstreamFailureSkipsDownstreamAndFailsTheRun() {
+        AtomicInteger downstream = new AtomicInteger();
+        AtomicInteger sibling = new AtomicInteger();
+        FlowGraph graph = graph(new RowsCollector(4),
+                node("a", List.of(), null, true, row -> {
+                    throw new IllegalStateException("bad row " + id(row));
+                }),
+                node("b", List.of(0), null, false, row -> downstream.incrementAndGet()),
+                node("c", List.of(), null, true, row -> sibling.incrementAndGet()));
+
+        assertThatThrownBy(() -> graph.execute(new DTSRequest(), null))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("flow [a] failed");
+        assertThat(downstream).hasValue(0);
+        assertThat(sibling).hasValue(4);
+    }
+
+    @Test
+    void mergesMultipleUpstreamsInDependencyOrder() {
+        FlowGraph graph = graph(new RowsCollector(4),
+                node("even", List.of(), FlowCondition.compile("scheme == 'VISA'"), true, row -> row.put("src", "even")),
+                node("odd", List.of(), FlowCondition.compile("scheme == 'MC'"), true, row -> row.put("src", "odd")),
+                node("all", List.of(1, 0), null, false, row -> { }));
+
+        List<List<Map<String, Object>>> outputs = new ArrayList<>();
+        graph.executeTo(new DTSRequest(), outputs::add, null);
+
+        assertThat(outputs).singleElement().satisfies(rows -> assertThat(rows)
+                .extracting(r -> r.get("src")).containsExactly("odd", "odd", "even", "even"));
+    }
+
+    @Test
+    void streamingRunsTheWholeGraphPerWindow() {
+        RowsCollector source = new RowsCollector(10);
+        PipelineOptions options = PipelineOptions.builder().mode(ExecutionMode.STREAMING).windowSize(4).build();
+        FlowGraph graph = new FlowGraph(source,
+                List.of(node("a", List.of(), null, false, row -> row.put("seen", true)),
+                        node("b", List.of(0), FlowCondition.compile("id >= 2"), false, row -> { })),
+                executor.coordinator(), options, null);
+
+        List<Integer> windows = new CopyOnWriteArrayList<>();
+        long collected = graph.executeTo(new DTSRequest(), rows -> windows.add(rows.size()), null);
+
+        assertThat(collected).isEqualTo(10);
+        // 窗口 [0..3] [4..7] [8,9]，b 过滤掉 id 0、1
+        assertThat(windows).containsExactly(2, 4, 2);
+        assertThat(source.opened).isTrue();
+    }
+
+    @Test
+    void rejectsNodesPlacedBeforeTheirDependencies() {
+        assertThatThrownBy(() -> graph(new RowsCollector(1),
+                node("a", List.of(1), null, false, row -> { }),
+                node("b", List.of(), null, false, row -> { })))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("flow [a] must be placed after its dependencies");
+    }
+
+    private static FlowGraph graph(RowsCollector collector, FlowNode... nodes) {
+        return new FlowGraph(collector, List.of(nodes), executor.coordinator(), PipelineOptions.defaults(), null);
+    }
+
+    private static FlowNode node(String name, List<Integer> deps, FlowCondition when, boolean copy,
+                                 Consumer<Map<String, Object>> body) {
+        Processor<Map<String, Object>, Map<String, Object>> processor = new Processor<>() {
+            @Override
+            public Map<String, Object> process(Map<String, Object> row) {
+                body.accept(row);
+                return row;
+            }
+
+            @Override
+            public String name() {
+                return name;
+            }
+        };
+        Publisher<Map<String, Object>, String> publisher = new Publisher<>() {
+            @Override
+            public String publish(Map<String, Object> row) {
+                return String.valueOf(row.get("id"));
+            }
+
+            @Override
+            public String name() {
+                return "id";
+            }
+        };
+        DTSPipeline<List<Map<String, Object>>, Map<String, Object>, String> pipeline = new DTSPipeline<>(
+                new FlowInput(when, copy), List.of(processor), publisher, executor);
+        return new FlowNode(name, deps, pipeline);
+    }
+
+    private static int id(Map<String, Object> row) {
+        return ((Number) row.get("id")).intValue();
+    }
+
+    /**
+     * 偶数 id 的 scheme 为 VISA，奇数为 MC
+     */
+    private static final class RowsCollector implements Collector<DTSRequest, List<Map<String, Object>>>,
+            StreamingCollector<DTSRequest, Map<String, Object>> {
+        private final int count;
+        private volatile List<Map<String, Object>> last;
+        private volatile boolean opened;
+
+        private RowsCollector(int count) {
+            this.count = count;
+        }
+
+        @Override
+        public List<Map<String, Object>> collect(DTSRequest input) {
+            List<Map<String, Object>> rows = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                Map<String, Object> row = new HashMap<>();
+                row.put("id", i);
+                row.put("scheme", i % 2 == 0 ? "VISA" : "MC");
+                rows.add(row);
+            }
+            last = rows;
+            return rows;
+        }
+
+        @Override
+        public RecordCursor<Map<String, Object>> open(DTSRequest input) {
+            opened = true;
+            return RecordCursors.of(collect(input));
+        }
+
+        @Override
+        public String name() {
+            return "rows";
+        }
+    }
+}
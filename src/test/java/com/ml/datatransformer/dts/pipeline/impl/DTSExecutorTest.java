@@ -0,0 +1,41 @@
+package com.ml.datatransformer.dts.pipeline.impl;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DTSExecutorTest {
+
+    @Test
+    void createsConfiguredExecutorType() {
+        for (String type : new String[]{"platform", "forkjoin", "PLATFORM"}) {
+            try (DTSExecutor executor = new DTSExecutor(properties(type))) {
+                assertThat(executor.mode()).isEqualTo(type.toLowerCase());
+            }
+        }
+    }
+
+    @Test
+    void autoAndVirtualFallBackToPlatformWithoutVirtualThreads() {
+        for (String type : new String[]{"auto", "virtual", null}) {
+            try (DTSExecutor executor = new DTSExecutor(properties(type))) {
+                assertThat(executor.mode()).isIn("virtual", "platform");
+            }
+        }
+    }
+
+    @Test
+    void rejectsUnknownType() {
+        assertThatThrownBy(() -> new DTSExecutor(properties("platfrom")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("platfrom");
+    }
+
+    private static DTSExecutorProperties properties(String type) {
+        DTSExecutorProperties properties = new DTSExecutorProperties();
+        properties.setType(type);
+        properties.setPoolSize(2);
+        return properties;
+    }
+}
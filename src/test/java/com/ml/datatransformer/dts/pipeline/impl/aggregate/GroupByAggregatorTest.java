@@ -0,0 +1,173 @@
+package com.ml.datatransformer.dts.pipeline.impl.aggregate;
+
+import com.ml.datatransformer.dts.pipeline.model.Aggregator;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class GroupByAggregatorTest {
+
+    private static final List<Map<String, Object>> METRICS = List.of(
+            Map.of("op", "sum", "field", "fee", "as", "total_fee"),
+            Map.of("op", "count", "as", "txn_count"),
+            Map.of("op", "avg", "field", "fee"),
+            Map.of("op", "min", "field", "fee"),
+            Map.of("op", "max", "field", "fee"),
+            Map.of("op", "distinct", "field", "card_no", "as", "card_count"));
+
+    @Test
+    void groupsAcrossPartialsAndNormalizesIntegerKeys() {
+        GroupByAggregator agg = new GroupByAggregator(config("merchant_id", null));
+        Aggregator.Run<Map<String, Object>> run = agg.begin();
+        Aggregator.Partial<Map<String, Object>> p1 = run.partial();
+        p1.add(row(1, null, "1.5", "c1"));
+        p1.add(row(2, null, 3, "c2"));
+        Aggregator.Partial<Map<String, Object>> p2 = run.partial();
+        p2.add(row(1L, null, 2, "c1"));
+        p2.add(row(1L, null, null, "c3"));
+        run.merge(p1);
+        run.merge(p2);
+
+        assertThat(run.closed()).isEmpty();
+        List<Map<String, Object>> out = run.finish();
+        assertThat(out).hasSize(2);
+        Map<String, Object> m1 = out.get(0);
+        assertThat(m1).containsEntry("merchant_id", 1L)
+                .containsEntry("total_fee", new BigDecimal("3.5"))
+                .containsEntry("txn_count", 3L)
+                .containsEntry("min_fee", new BigDecimal("1.5"))
+                .containsEntry("max_fee", 2L)
+                .containsEntry("card_count", 2L);
+        assertThat((BigDecimal) m1.get("avg_fee")).isEqualByComparingTo("1.75");
+        assertThat(out.get(1)).containsEntry("merchant_id", 2L).containsEntry("total_fee", 3L).containsEntry("avg_fee", 3L);
+    }
+
+    @Test
+    void tumblingWindowsCloseOnceEventTimePassesTheirEnd() {
+        GroupByAggregator agg = new GroupByAggregator(config("merchant_id", window(0)));
+        Aggregator.Run<Map<String, Object>> run = agg.begin();
+
+        run.merge(partial(run, row(1, 1_000L, 1, "c1"), row(1, "1970-01-01T00:00:59Z", 2, "c2")));
+        assertThat(run.closed()).isEmpty();
+
+        run.merge(partial(run, row(1, 60_000L, 4, "c1")));
+        List<Map<String, Object>> closed = run.closed();
+        assertThat(closed).hasSize(1);
+        assertThat(closed.get(0))
+                .containsEntry("window_start", 0L)
+                .containsEntry("window_end", 60_000L)
+                .containsEntry("total_fee", 3L)
+                .containsEntry("txn_count", 2L);
+
+        List<Map<String, Object>> rest = run.finish();
+        assertThat(rest).hasSize(1);
+        assertThat(rest.get(0)).containsEntry("window_start", 60_000L).containsEntry("total_fee", 4L);
+    }
+
+    @Test
+    void lateRowsWithinAllowedLatenessStillCount() {
+        GroupByAggregator agg = new GroupByAggregator(config(null, window(30)));
+        Aggregator.Run<Map<String, Object>> run = agg.begin();
+
+        run.merge(partial(run, row(1, 10_000L, 1, "c1"), row(1, 70_000L, 1, "c1")));
+        assertThat(run.closed()).isEmpty();
+        run.merge(partial(run, row(1, 20_000L, 5, "c1")));
+        run.merge(partial(run, row(1, 95_000L, 1, "c1")));
+
+        List<Map<String, Object>> closed = run.closed();
+        assertThat(closed).hasSize(1);
+        assertThat(closed.get(0)).containsEntry("window_start", 0L).containsEntry("total_fee", 6L);
+    }
+
+    @Test
+    void rowsForClosedWindowsAreDropped() {
+        GroupByAggregator agg = new GroupByAggregator(config(null, window(0)));
+        Aggregator.Run<Map<String, Object>> run = agg.begin();
+
+        run.merge(partial(run, row(1, 5_000L, 1, "c1"), row(1, 65_000L, 1, "c1")));
+        assertThat(run.closed()).hasSize(1);
+        run.merge(partial(run, row(1, 6_000L, 100, "c1")));
+
+        List<Map<String, Object>> rest = run.finish();
+        assertThat(rest).hasSize(1);
+        assertThat(rest.get(0)).containsEntry("window_start", 60_000L).containsEntry("total_fee", 1L);
+    }
+
+    @Test
+    void localTimesUseConfiguredZone() {
+        Map<String, Object> window = window(0);
+        window.put("size_seconds", 3600);
+        window.put("time_zone", "Asia/Shanghai");
+        GroupByAggregator agg = new GroupByAggregator(config(null, window));
+        Aggregator.Run<Map<String, Object>> run = agg.begin();
+
+        run.merge(partial(run, row(1, "1970-01-01 08:30:00", 1, "c1")));
+
+        assertThat(run.finish().get(0)).containsEntry("window_start", 0L).containsEntry("window_end", 3_600_000L);
+    }
+
+    @Test
+    void unparseableWindowTimeIsRejected() {
+        GroupByAggregator agg = new GroupByAggregator(config(null, window(0)));
+        Aggregator.Partial<Map<String, Object>> p = agg.begin().partial();
+
+        assertThatThrownBy(() -> p.add(row(1, "yesterday", 1, "c1")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("invalid window time [yesterday]");
+        assertThatThrownBy(() -> p.add(row(1, null, 1, "c1"))).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void invalidConfigIsRejected() {
+        assertThatThrownBy(() -> new GroupByAggregator(Map.of("group_by", "a")))
+                .hasMessage("aggregate requires metrics");
+        assertThatThrownBy(() -> new GroupByAggregator(Map.of("metrics", List.of(Map.of("op", "median", "field", "x")))))
+                .hasMessage("unknown aggregate op: median");
+        assertThatThrownBy(() -> new GroupByAggregator(Map.of("metrics", List.of(Map.of("op", "sum")))))
+                .hasMessage("aggregate sum requires field");
+        Map<String, Object> badWindow = window(0);
+        badWindow.put("size_seconds", 0);
+        assertThatThrownBy(() -> new GroupByAggregator(config(null, badWindow)))
+                .hasMessage("aggregate window requires positive size_seconds");
+    }
+
+    @SafeVarargs
+    private static Aggregator.Partial<Map<String, Object>> partial(Aggregator.Run<Map<String, Object>> run, Map<String, Object>... rows) {
+        Aggregator.Partial<Map<String, Object>> p = run.partial();
+        for (Map<String, Object> r : rows) p.add(r);
+        return p;
+    }
+
+    private static Map<String, Object> config(String groupBy, Map<String, Object> window) {
+        Map<String, Object> config = new LinkedHashMap<>();
+        if (groupBy != null) config.put("group_by", List.of(groupBy));
+        config.put("metrics", METRICS);
+        if (window != null) config.put("window", window);
+        return config;
+    }
+
+    private static Map<String, Object> window(long latenessSeconds) {
+        Map<String, Object> window = new HashMap<>();
+        window.put("field", "txn_time");
+        window.put("size_seconds", 60);
+        window.put("allowed_lateness_seconds", latenessSeconds);
+        window.put("time_zone", "UTC");
+        return window;
+    }
+
+    private static Map<String, Object> row(Object merchant, Object time, Object fee, String card) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("merchant_id", merchant);
+        row.put("txn_time", time);
+        row.put("fee", fee);
+        row.put("card_no", card);
+        return row;
+    }
+}
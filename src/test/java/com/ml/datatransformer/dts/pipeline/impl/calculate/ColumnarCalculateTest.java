@@ -0,0 +1,126 @@
+package com.ml.datatransformer.dts.pipeline.impl.calculate;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ColumnarCalculateTest {
+
+    /**
+     * 覆盖快速内核与逐行退回路径：缺失、非数字、0 / -1、long 边界、小数字符串、double、BigDecimal
+     */
+    private static final Object[] VALUES = {
+            null, "n/a", 0, -1, 1, 2, 3, 7L, -12L, 100, Integer.MAX_VALUE,
+            Long.MAX_VALUE, Long.MIN_VALUE, "12.50", " 4 ", "-0.3", 2.5d, -1.25d, 0d, new BigDecimal("1e2")
+    };
+
+    @Test
+    void exactColumnarMatchesChainAndSequentialOperators() {
+        assertEquivalent("exact");
+    }
+
+    @Test
+    void lossyColumnarMatchesChainAndSequentialOperators() {
+        assertEquivalent("double");
+    }
+
+    @Test
+    void regularLongBatchTakesFastPathWithSameResults() {
+        List<ArithmeticOperator> ops = operators("exact");
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            Map<String, Object> row = new HashMap<>();
+            row.put("a", (long) i);
+            row.put("b", (long) (i % 7) + 1);
+            row.put("c", 3L);
+            row.put("d", (long) (i % 5) + 1);
+            rows.add(row);
+        }
+
+        assertThat(columnar(ops, rows)).isEqualTo(sequential(ops, rows));
+    }
+
+    @Test
+    void emptyBatchIsNoop() {
+        new ColumnarCalculate(operators("exact")).processBatch(new ArrayList<>());
+    }
+
+    private void assertEquivalent(String math) {
+        List<ArithmeticOperator> ops = operators(math);
+        Random random = new Random(42);
+        // 跨越多个 64 行的位图字
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            Map<String, Object> row = new HashMap<>();
+            for (String f : List.of("a", "b", "c", "d")) {
+                int pick = random.nextInt(VALUES.length + 1);
+                // VALUES.length 表示字段缺失
+                if (pick < VALUES.length) row.put(f, VALUES[pick]);
+            }
+            rows.add(row);
+        }
+
+        List<Map<String, Object>> expected = sequential(ops, rows);
+        assertThat(chain(ops, rows)).isEqualTo(expected);
+        assertThat(columnar(ops, rows)).isEqualTo(expected);
+    }
+
+    /**
+     * 中间结果被后续算子读取；s 被重复写入，除数为 0 时 s 保留前一个算子的结果；a 被覆盖后再参与计算
+     */
+    private static List<ArithmeticOperator> operators(String math) {
+        return List.of(
+                new AddOperator(config(math, "s", "a", "b")),
+                new MulOperator(config(math, "p", "s", "c")),
+                new DivOperator(config(math, "s", "p", "d")),
+                new SubOperator(config(math, "r", "s", "a", "b")),
+                new AvgOperator(config(math, "avg", "a", "b", "c")),
+                new MinOperator(config(math, "lo", "a", "d", "r")),
+                new MaxOperator(config(math, "hi", "b", "c", "avg")),
+                new AddOperator(config(math, "a", "a", "hi")),
+                new DivOperator(config(math, "q", "a", "c")));
+    }
+
+    private static Map<String, Object> config(String math, String result, String... fields) {
+        Map<String, Object> config = new HashMap<>();
+        config.put("fields_name", List.of(fields));
+        config.put("result_name", result);
+        config.put("math", math);
+        config.put("scale", 6);
+        return config;
+    }
+
+    private static List<Map<String, Object>> sequential(List<ArithmeticOperator> ops, List<Map<String, Object>> rows) {
+        List<Map<String, Object>> out = copy(rows);
+        for (Map<String, Object> row : out) {
+            for (ArithmeticOperator op : ops) op.process(row);
+        }
+        return out;
+    }
+
+    private static List<Map<String, Object>> chain(List<ArithmeticOperator> ops, List<Map<String, Object>> rows) {
+        ArithmeticChain chain = new ArithmeticChain(ops);
+        List<Map<String, Object>> out = copy(rows);
+        for (Map<String, Object> row : out) chain.process(row);
+        return out;
+    }
+
+    private static List<Map<String, Object>> columnar(List<ArithmeticOperator> ops, List<Map<String, Object>> rows) {
+        List<Map<String, Object>> out = copy(rows);
+        new ColumnarCalculate(ops).processBatch(out);
+        return out;
+    }
+
+    private static List<Map<String, Object>> copy(List<Map<String, Object>> rows) {
+        List<Map<String, Object>> out = new ArrayList<>(rows.size());
+        for (Map<String, Object> row : rows) out.add(new HashMap<>(row));
+        return out;
+    }
+}
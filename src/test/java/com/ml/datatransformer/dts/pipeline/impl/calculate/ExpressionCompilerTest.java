@@ -0,0 +1,109 @@
+package com.ml.datatransformer.dts.pipeline.impl.calculate;
+
+import com.ml.datatransformer.dts.pipeline.record.RecordSchema;
+import com.ml.datatransformer.dts.pipeline.record.SlotRecord;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ExpressionCompilerTest {
+
+    private final ExpressionCompiler exact = new ExpressionCompiler(false, 4, RoundingMode.HALF_UP);
+
+    private Number eval(String formula, Map<String, Object> row) {
+        return exact.compile(formula).eval(row);
+    }
+
+    @Test
+    void respectsPrecedenceAndParentheses() {
+        Map<String, Object> row = Map.of("a", 2, "b", "3", "c", 4L);
+
+        assertThat(eval("a + b * c", row)).isEqualTo(14L);
+        assertThat(eval("(a + b) * c", row)).isEqualTo(20L);
+        assertThat(eval("a - b - c", row)).isEqualTo(-5L);
+        assertThat(eval("-a * -b", row)).isEqualTo(6L);
+        assertThat(eval("c / a / a", row)).isEqualTo(1L);
+    }
+
+    @Test
+    void decimalsStayExactWithConfiguredScale() {
+        Map<String, Object> row = Map.of("rate", "0.1", "amount", "0.2");
+
+        assertThat(eval("rate + amount", row)).isEqualTo(new BigDecimal("0.3"));
+        assertThat(eval("1 / 3", row)).isEqualTo(new BigDecimal("0.3333"));
+    }
+
+    @Test
+    void missingOrNonNumericOperandsAndZeroDivisorYieldNull() {
+        Map<String, Object> row = new HashMap<>();
+        row.put("a", 1L);
+        row.put("text", "n/a");
+        row.put("zero", 0L);
+
+        assertThat(eval("a + missing", row)).isNull();
+        assertThat(eval("a * text", row)).isNull();
+        assertThat(eval("a / zero", row)).isNull();
+        assertThat(eval("coalesce(missing, text, a)", row)).isEqualTo(1L);
+    }
+
+    @Test
+    void functions() {
+        Map<String, Object> row = Map.of("x", "-2.345", "y", 7L);
+
+        assertThat(eval("abs(x)", row)).isEqualTo(new BigDecimal("2.345"));
+        assertThat(eval("round(x, 2)", row)).isEqualTo(new BigDecimal("-2.35"));
+        assertThat(eval("round(y)", row)).isEqualTo(7L);
+        assertThat(eval("min(y, x, 3)", row)).isEqualTo(new BigDecimal("-2.345"));
+        assertThat(eval("MAX(y, x, 3)", row)).isEqualTo(7L);
+        assertThat(eval("max(y, missing)", row)).isNull();
+    }
+
+    @Test
+    void lossyModeEvaluatesInDouble() {
+        ExpressionCompiler lossy = new ExpressionCompiler(true, 4, RoundingMode.HALF_UP);
+
+        assertThat(lossy.compile("a + b").eval(Map.of("a", "0.1", "b", "0.2"))).isEqualTo(0.1d + 0.2d);
+        assertThat(lossy.compile("round(a, 1)").eval(Map.of("a", 2.26d))).isEqualTo(2.3d);
+    }
+
+    @Test
+    void constantSubtreesAreFoldedAndFieldsCollected() {
+        ExpressionCompiler.Expr folded = exact.compile("(1 + 2) * 3 - max(4, 5)");
+        ExpressionCompiler.Expr mixed = exact.compile("`fee rate` * amount + card.fee + amount");
+
+        assertThat(ExpressionCompiler.fieldsOf(folded)).isEmpty();
+        assertThat(folded.eval(Map.of())).isEqualTo(4L);
+        assertThat(ExpressionCompiler.fieldsOf(mixed)).containsExactly("fee rate", "amount", "card.fee");
+        assertThat(mixed.eval(Map.of("fee rate", 2, "amount", 10, "card.fee", 1))).isEqualTo(31L);
+    }
+
+    @Test
+    void boundExpressionReadsSlotsAndFallsBackToMaps() {
+        RecordSchema schema = RecordSchema.of(List.of("a", "b"));
+        ExpressionCompiler.Expr bound = exact.compile("a * b + c").bind(schema);
+        SlotRecord record = schema.newRecord();
+        record.put("a", 3L);
+        record.put("b", "4");
+        record.put("c", 1L);
+
+        assertThat(bound.eval(record)).isEqualTo(13L);
+        assertThat(bound.eval(Map.of("a", 1L, "b", 2L, "c", 3L))).isEqualTo(5L);
+    }
+
+    @Test
+    void rejectsMalformedFormulas() {
+        for (String bad : List.of("a +", "(a + b", "a b", "foo(a)", "abs(a, b)", "round(a, 1, 2)", "min()", "`a", "1..2", "a # b")) {
+            assertThatThrownBy(() -> exact.compile(bad))
+                    .as(bad)
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessageStartingWith("invalid formula [" + bad + "]");
+        }
+    }
+}
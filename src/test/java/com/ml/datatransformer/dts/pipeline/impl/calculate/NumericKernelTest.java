@@ -0,0 +1,127 @@
+package com.ml.datatransformer.dts.pipeline.impl.calculate;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NumericKernelTest {
+
+    @Test
+    void parsePicksCheapestRepresentation() {
+        assertThat(NumericKernel.parse(3)).isEqualTo(3L);
+        assertThat(NumericKernel.parse(" -42 ")).isEqualTo(-42L);
+        assertThat(NumericKernel.parse("+7")).isEqualTo(7L);
+        assertThat(NumericKernel.parse("1.50")).isEqualTo(new BigDecimal("1.50"));
+        assertThat(NumericKernel.parse("1e3")).isEqualTo(new BigDecimal("1e3"));
+        assertThat(NumericKernel.parse(".5")).isEqualTo(new BigDecimal(".5"));
+        assertThat(NumericKernel.parse("12345678901234567890")).isEqualTo(new BigDecimal("12345678901234567890"));
+        assertThat(NumericKernel.parse(2.5f)).isEqualTo(2.5d);
+        assertThat(NumericKernel.parse(BigInteger.TEN)).isEqualTo(BigDecimal.TEN);
+    }
+
+    @Test
+    void parseRejectsNonNumbersWithoutThrowing() {
+        for (Object v : new Object[]{null, "", "  ", "-", "abc", "1.2.3", "1e", "1e+", "12x", ".", "1e1234567890",
+                Double.NaN, Double.POSITIVE_INFINITY, new Object()}) {
+            assertThat(NumericKernel.parse(v)).as("parse(%s)", v).isNull();
+        }
+    }
+
+    @Test
+    void longArithmeticPromotesOnOverflow() {
+        assertThat(NumericKernel.add(1L, 2L, false)).isEqualTo(3L);
+        assertThat(NumericKernel.add(Long.MAX_VALUE, 1L, false))
+                .isEqualTo(BigDecimal.valueOf(Long.MAX_VALUE).add(BigDecimal.ONE));
+        assertThat(NumericKernel.subtract(Long.MIN_VALUE, 1L, false))
+                .isEqualTo(BigDecimal.valueOf(Long.MIN_VALUE).subtract(BigDecimal.ONE));
+        assertThat(NumericKernel.multiply(Long.MAX_VALUE, 2L, false))
+                .isEqualTo(BigDecimal.valueOf(Long.MAX_VALUE).multiply(BigDecimal.valueOf(2)));
+        assertThat(NumericKernel.multiply(-3L, 4L, false)).isEqualTo(-12L);
+        assertThat(NumericKernel.add(Long.MAX_VALUE, 1L, true)).isInstanceOf(Double.class);
+        assertThat(NumericKernel.negate(Long.MIN_VALUE)).isEqualTo(BigDecimal.valueOf(Long.MIN_VALUE).negate());
+    }
+
+    @Test
+    void decimalArithmeticIsExactUnlessLossy() {
+        Number a = NumericKernel.parse("0.1");
+        Number b = NumericKernel.parse("0.2");
+
+        assertThat(NumericKernel.add(a, b, false)).isEqualTo(new BigDecimal("0.3"));
+        assertThat(NumericKernel.add(a, b, true)).isEqualTo(0.1d + 0.2d);
+        assertThat(NumericKernel.compare(a, b)).isNegative();
+        assertThat(NumericKernel.compare(2L, new BigDecimal("2.00"))).isZero();
+    }
+
+    @Test
+    void divideKeepsExactLongsAndReturnsNullOnZero() {
+        assertThat(NumericKernel.divide(10L, 2L, false, 4, RoundingMode.HALF_UP)).isEqualTo(5L);
+        assertThat(NumericKernel.divide(10L, 4L, false, 4, RoundingMode.HALF_UP)).isEqualTo(new BigDecimal("2.5000"));
+        assertThat(NumericKernel.divide(1L, 3L, false, 2, RoundingMode.DOWN)).isEqualTo(new BigDecimal("0.33"));
+        assertThat(NumericKernel.divide(Long.MIN_VALUE, -1L, false, 0, RoundingMode.HALF_UP))
+                .isEqualTo(BigDecimal.valueOf(Long.MIN_VALUE).negate());
+        assertThat(NumericKernel.divide(1L, 0L, false, 2, RoundingMode.HALF_UP)).isNull();
+        assertThat(NumericKernel.divide(1L, 0d, true, 2, RoundingMode.HALF_UP)).isNull();
+        assertThat(NumericKernel.divide(1L, new BigDecimal("0.00"), false, 2, RoundingMode.HALF_UP)).isNull();
+    }
+
+    @Test
+    void accumulatorStaysLongUntilItMustPromote() {
+        NumericKernel.Accumulator acc = new NumericKernel.Accumulator(false, NumericKernel.DEFAULT_SCALE, RoundingMode.HALF_UP);
+        assertThat(acc.isEmpty()).isTrue();
+        assertThat(acc.result()).isNull();
+
+        acc.add(Long.MAX_VALUE);
+        assertThat(acc.result()).isEqualTo(Long.MAX_VALUE);
+        acc.add(1L);
+        assertThat(acc.result()).isEqualTo(BigDecimal.valueOf(Long.MAX_VALUE).add(BigDecimal.ONE));
+        acc.subtract(new BigDecimal("0.5"));
+        assertThat(acc.result()).isEqualTo(new BigDecimal("9223372036854775807.5"));
+    }
+
+    @Test
+    void accumulatorSubtractFromEmptyNegatesFirstOperand() {
+        NumericKernel.Accumulator acc = new NumericKernel.Accumulator(false, NumericKernel.DEFAULT_SCALE, RoundingMode.HALF_UP);
+        acc.subtract(Long.MIN_VALUE);
+
+        assertThat(acc.result()).isEqualTo(BigDecimal.valueOf(Long.MIN_VALUE).negate());
+    }
+
+    @Test
+    void accumulatorDivideByZeroLeavesValueUntouched() {
+        NumericKernel.Accumulator acc = new NumericKernel.Accumulator(false, 3, RoundingMode.HALF_UP);
+        acc.set(10L);
+
+        assertThat(acc.divide(0L)).isFalse();
+        assertThat(acc.result()).isEqualTo(10L);
+        assertThat(acc.divide(5L)).isTrue();
+        assertThat(acc.result()).isEqualTo(2L);
+        assertThat(acc.divide(3L)).isTrue();
+        assertThat(acc.result()).isEqualTo(new BigDecimal("0.667"));
+    }
+
+    @Test
+    void accumulatorLossyModeUsesDouble() {
+        NumericKernel.Accumulator acc = new NumericKernel.Accumulator(true, NumericKernel.DEFAULT_SCALE, RoundingMode.HALF_UP);
+        acc.add(1L);
+        acc.multiply(new BigDecimal("2.5"));
+
+        assertThat(acc.result()).isEqualTo(2.5d);
+    }
+
+    @Test
+    void accumulatorMinMaxAcrossKinds() {
+        NumericKernel.Accumulator min = new NumericKernel.Accumulator(false, NumericKernel.DEFAULT_SCALE, RoundingMode.HALF_UP);
+        NumericKernel.Accumulator max = new NumericKernel.Accumulator(false, NumericKernel.DEFAULT_SCALE, RoundingMode.HALF_UP);
+        for (Number n : new Number[]{5L, new BigDecimal("2.5"), 9L, new BigDecimal("9.5"), 3L}) {
+            min.min(n);
+            max.max(n);
+        }
+
+        assertThat(min.result()).isEqualTo(new BigDecimal("2.5"));
+        assertThat(max.result()).isEqualTo(new BigDecimal("9.5"));
+    }
+}
@@ -0,0 +1,75 @@
+package com.ml.datatransformer.dts.pipeline.impl.clean;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JsonFieldExtractorTest {
+
+    private static final String PAYLOAD = "{\"id\":7,\"amount\":12.5,\"paid\":true,\"note\":null,"
+            + "\"card\":{\"scheme\":\"visa\",\"bin\":\"4111\"},"
+            + "\"items\":[{\"fee\":1},{\"fee\":2.5}],"
+            + "\"a/b\":{\"c~d\":\"escaped\"}}";
+
+    @Test
+    void extractsTopLevelFieldsWithScalarTypes() throws Exception {
+        Object[] out = new JsonFieldExtractor(List.of("id", "amount", "paid", "note")).extract(PAYLOAD);
+
+        assertThat(out[0]).isEqualTo(7);
+        assertThat(out[1]).isEqualTo(12.5d);
+        assertThat(out[2]).isEqualTo(Boolean.TRUE);
+        assertThat(out[3]).isNull();
+        assertThat(JsonFieldExtractor.isMissing(out[3])).isFalse();
+    }
+
+    @Test
+    void extractsJsonPointersIntoObjectsAndArrays() throws Exception {
+        Object[] out = new JsonFieldExtractor(List.of("/card/scheme", "/items/1/fee", "/a~1b/c~0d")).extract(PAYLOAD);
+
+        assertThat(out).containsExactly("visa", 2.5d, "escaped");
+    }
+
+    @Test
+    void absentPathsAreMissingNotNull() throws Exception {
+        Object[] out = new JsonFieldExtractor(List.of("absent", "/card/cvv", "/items/5/fee", "/id/x")).extract(PAYLOAD);
+
+        for (Object v : out) assertThat(JsonFieldExtractor.isMissing(v)).isTrue();
+    }
+
+    @Test
+    void containerTargetIsMaterializedAndItsChildrenResolved() throws Exception {
+        Object[] out = new JsonFieldExtractor(List.of("card", "/card/bin", "items", "/items/0/fee")).extract(PAYLOAD);
+
+        assertThat(out[0]).isEqualTo(Map.of("scheme", "visa", "bin", "4111"));
+        assertThat(out[1]).isEqualTo("4111");
+        assertThat(out[2]).asList().hasSize(2);
+        assertThat(out[3]).isEqualTo(1);
+    }
+
+    @Test
+    void duplicatePathsAllReceiveTheValue() throws Exception {
+        Object[] out = new JsonFieldExtractor(List.of("id", "/id")).extract(PAYLOAD);
+
+        assertThat(out).containsExactly(7, 7);
+    }
+
+    @Test
+    void stopsParsingOnceAllTargetsAreFound() throws Exception {
+        // 目标字段之后的内容是非法 JSON：若继续解析会抛异常
+        Object[] out = new JsonFieldExtractor(List.of("id")).extract("{\"id\":1, this is not json");
+
+        assertThat(out).containsExactly(1);
+    }
+
+    @Test
+    void scalarOrEmptyPayloadYieldsMissing() throws Exception {
+        JsonFieldExtractor extractor = new JsonFieldExtractor(List.of("id"));
+
+        assertThat(JsonFieldExtractor.isMissing(extractor.extract("42")[0])).isTrue();
+        assertThat(JsonFieldExtractor.isMissing(extractor.extract("{}")[0])).isTrue();
+        assertThat(new JsonFieldExtractor(List.of()).extract(PAYLOAD)).isEmpty();
+    }
+}
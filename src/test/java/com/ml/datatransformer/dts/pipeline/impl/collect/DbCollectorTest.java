@@ -0,0 +1,231 @@
+package com.ml.datatransformer.dts.pipeline.impl.collect;
+
+import com.ml.datatransformer.dts.dto.DTSRequest;
+import com.ml.datatransformer.dts.pipeline.checkpoint.Watermark;
+import com.ml.datatransformer.dts.pipeline.checkpoint.WatermarkStore;
+import com.ml.datatransformer.dts.pipeline.checkpoint.Watermarker;
+import com.ml.datatransformer.dts.pipeline.compile.SlotRecordCollector;
+import com.ml.datatransformer.dts.pipeline.compile.MapCollectorAdapter;
+import com.ml.datatransformer.dts.pipeline.model.RecordCursor;
+import com.ml.datatransformer.dts.pipeline.record.RecordSchema;
+import com.ml.datatransformer.dts.pipeline.record.SlotRecord;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DbCollectorTest {
+
+    private static JdbcTemplate jdbc;
+
+    @BeforeAll
+    static void setUp() {
+        jdbc = new JdbcTemplate(new DriverManagerDataSource("jdbc:h2:mem:db_collector;DB_CLOSE_DELAY=-1;DATABASE_TO_LOWER=TRUE", "sa", ""));
+        jdbc.execute("CREATE TABLE t_order (id BIGINT, amount INT, note VARCHAR(20))");
+        for (int i = 1; i <= 20; i++) {
+            jdbc.update("INSERT INTO t_order VALUES (?, ?, ?)", i, i * 10, "n" + i);
+        }
+        jdbc.execute("CREATE TABLE t_account (id BIGINT, credit_limit INT, code VARCHAR(8))");
+        jdbc.update("INSERT INTO t_account VALUES (NULL, 0, 'z')");
+        for (int i = -5; i <= 105; i++) {
+            jdbc.update("INSERT INTO t_account VALUES (?, ?, ?)", i, i * 2, "c" + i);
+        }
+        jdbc.execute("CREATE TABLE t_event (id BIGINT, version INT)");
+        int[] versions = {1, 1, 2, 2, 2, 2, 3, 3, 4, 5};
+        for (int i = 0; i < versions.length; i++) {
+            jdbc.update("INSERT INTO t_event VALUES (?, ?)", i + 1, versions[i]);
+        }
+    }
+
+    @Test
+    void limitedWatermarkResumesInsideGroupOfEqualValues() {
+        Map<String, Object> config = config("SELECT id, version FROM t_event");
+        config.put("watermark_column", "version");
+        config.put("watermark_key", "id");
+        config.put("limit", 3);
+        MemoryWatermarks store = new MemoryWatermarks();
+        DbCollector collector = new DbCollector(jdbc, config, null, store);
+        Watermarker watermarker = new Watermarker(store, "events", "version", "id");
+        DTSRequest request = new DTSRequest();
+        request.setRuleId("events");
+
+        List<Object> seen = new ArrayList<>();
+        for (int run = 0; run < 10; run++) {
+            List<Map<String, Object>> rows = collector.collect(request);
+            if (rows.isEmpty()) break;
+            assertThat(rows).hasSizeLessThanOrEqualTo(3);
+            Watermarker.Run wm = watermarker.begin();
+            wm.observe(rows);
+            wm.commit();
+            rows.forEach(r -> seen.add(r.get("id")));
+        }
+        // version 2 的 4 条记录跨越两批，不丢不重
+        assertThat(seen).containsExactly(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L);
+        assertThat(store.mark.value()).isEqualTo(List.of(5L, 10L));
+    }
+
+    @Test
+    void limitedWatermarkRequiresUniqueKey() {
+        Map<String, Object> config = config("SELECT id, version FROM t_event");
+        config.put("watermark_column", "version");
+        config.put("limit", 3);
+        assertThatThrownBy(() -> new DbCollector(jdbc, config))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("watermark_key");
+    }
+
+    @Test
+    void splitCoversWholeSpanWithoutGaps() {
+        List<DbCollector.KeyRange> ranges = DbCollector.KeyRange.split(0, 99, 4);
+        assertThat(ranges).hasSize(4);
+        assertThat(ranges.get(0).first()).isTrue();
+        assertThat(ranges.get(3).last()).isTrue();
+        for (int i = 1; i < ranges.size(); i++) {
+            assertThat(ranges.get(i).lower()).isEqualTo(ranges.get(i - 1).upper());
+        }
+        // 跨度小于分区数时每个值一段
+        assertThat(DbCollector.KeyRange.split(5, 7, 10)).hasSize(3);
+        assertThat(DbCollector.KeyRange.split(5, 5, 10)).hasSize(1);
+        // 跨度超过 long 范围
+        assertThat(DbCollector.KeyRange.split(Long.MIN_VALUE, Long.MAX_VALUE, 3)).hasSize(3);
+    }
+
+    @Test
+    void configuredBoundsOnlyPlaceSplitPoints() {
+        Map<String, Object> config = config("SELECT id, credit_limit FROM t_account");
+        config.put("partition_column", "id");
+        config.put("partitions", 4);
+        config.put("partition_min", 0);
+        config.put("partition_max", 99);
+        DbCollector collector = new DbCollector(jdbc, config);
+
+        assertThat(collector.partition(String.valueOf(config.get("sql")), new Object[0])).hasSize(4);
+        List<Map<String, Object>> rows = collector.collect(new DTSRequest());
+        // 边界外（-5..-1, 100..105）与 NULL 的记录都不丢失，也不重复
+        assertThat(rows).hasSize(112);
+        assertThat(rows.stream().map(r -> r.get("id")).distinct().count()).isEqualTo(112);
+
+        List<Map<String, Object>> streamed = new ArrayList<>();
+        try (RecordCursor<Map<String, Object>> cursor = collector.open(new DTSRequest())) {
+            cursor.forEachRemaining(streamed::add);
+        }
+        assertThat(streamed).hasSize(112);
+    }
+
+    @Test
+    void limitDetectionIgnoresColumnNames() {
+        Map<String, Object> config = config("SELECT id, credit_limit FROM t_account");
+        config.put("partition_column", "id");
+        config.put("partitions", 4);
+        DbCollector collector = new DbCollector(jdbc, config);
+
+        assertThat(collector.partition("SELECT id, credit_limit FROM t_account", new Object[0])).hasSize(4);
+        assertThat(collector.partition("SELECT id FROM t_account LIMIT 10", new Object[0])).hasSize(1);
+        assertThat(collector.partition("SELECT id FROM t_account limit ?", new Object[]{10})).hasSize(1);
+    }
+
+    @Test
+    void rejectsNonIntegerPartitionColumn() {
+        Map<String, Object> config = config("SELECT code FROM t_account WHERE code IS NOT NULL");
+        config.put("partition_column", "code");
+        config.put("partitions", 4);
+        DbCollector collector = new DbCollector(jdbc, config);
+
+        assertThatThrownBy(() -> collector.collect(new DTSRequest()))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("partition_column [code] must be an integer column");
+
+        config.put("partition_min", "a");
+        config.put("partition_max", "z");
+        assertThatThrownBy(() -> new DbCollector(jdbc, config).collect(new DTSRequest()))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("partition_min must be an integer");
+    }
+
+    @Test
+    void partitionColumnMustBeAResultColumnLabel() {
+        Map<String, Object> config = config("SELECT o.id AS order_id FROM t_order o");
+        config.put("partition_column", "o.id");
+        config.put("partitions", 4);
+        assertThatThrownBy(() -> new DbCollector(jdbc, config))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("invalid partition_column: o.id");
+
+        config.put("partition_column", "order_id");
+        assertThat(new DbCollector(jdbc, config, null).collect(new DTSRequest())).hasSize(20);
+    }
+
+    @Test
+    void typedModeWritesColumnsIntoSlots() {
+        RecordSchema schema = RecordSchema.of(List.of("id", "amount"));
+        DbCollector collector = new DbCollector(jdbc, config("SELECT id, amount, note FROM t_order ORDER BY id"));
+        SlotRecordCollector typed = new SlotRecordCollector(new MapCollectorAdapter(collector), schema);
+
+        List<Map<String, Object>> rows = typed.collect(new DTSRequest());
+        assertThat(rows).hasSize(20);
+        assertThat(rows).allSatisfy(r -> assertThat(r).isInstanceOf(SlotRecord.class));
+        SlotRecord first = (SlotRecord) rows.get(0);
+        assertThat(first.schema()).isSameAs(schema);
+        assertThat(first.get(schema.slot("id"))).isEqualTo(1L);
+        assertThat(first.get(schema.slot("amount"))).isEqualTo(10);
+        // schema 外的列落入溢出 Map
+        assertThat(first.get("note")).isEqualTo("n1");
+
+        List<Map<String, Object>> streamed = new ArrayList<>();
+        try (RecordCursor<Map<String, Object>> cursor = typed.open(new DTSRequest())) {
+            cursor.forEachRemaining(streamed::add);
+        }
+        assertThat(streamed).isEqualTo(rows);
+        assertThat(streamed).allSatisfy(r -> assertThat(r).isInstanceOf(SlotRecord.class));
+    }
+
+    @Test
+    void streamingOpenAppliesLimitLikeCollect() {
+        Map<String, Object> config = config("SELECT id FROM t_order ORDER BY id");
+        config.put("limit", 5);
+        config.put("partition_column", "id");
+        config.put("partitions", 4);
+        DbCollector collector = new DbCollector(jdbc, config);
+
+        List<Map<String, Object>> streamed = new ArrayList<>();
+        try (RecordCursor<Map<String, Object>> cursor = collector.open(new DTSRequest())) {
+            cursor.forEachRemaining(streamed::add);
+        }
+        assertThat(streamed).hasSize(5).isEqualTo(collector.collect(new DTSRequest()));
+    }
+
+    @Test
+    void mapModeKeepsPlainRows() {
+        DbCollector collector = new DbCollector(jdbc, config("SELECT id FROM t_order"));
+        assertThat(collector.collect(new DTSRequest())).hasSize(20)
+                .allSatisfy(r -> assertThat(r).isNotInstanceOf(SlotRecord.class));
+    }
+
+    private static final class MemoryWatermarks implements WatermarkStore {
+        private volatile Watermark mark;
+
+        @Override
+        public Watermark loadWatermark(String ruleId) {
+            return mark;
+        }
+
+        @Override
+        public void saveWatermark(Watermark watermark) {
+            mark = watermark;
+        }
+    }
+
+    private static Map<String, Object> config(String sql) {
+        Map<String, Object> config = new HashMap<>();
+        config.put("sql", sql);
+        return config;
+    }
+}
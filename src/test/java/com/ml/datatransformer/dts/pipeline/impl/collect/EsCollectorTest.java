@@ -0,0 +1,150 @@
+package com.ml.datatransformer.dts.pipeline.impl.collect;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import com.ml.datatransformer.dts.dto.DTSRequest;
+import com.ml.datatransformer.dts.pipeline.checkpoint.Watermark;
+import com.ml.datatransformer.dts.pipeline.checkpoint.WatermarkStore;
+import com.ml.datatransformer.dts.pipeline.checkpoint.Watermarker;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.elasticsearch.client.elc.NativeQuery;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.SearchHit;
+import org.springframework.data.elasticsearch.core.SearchHits;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class EsCollectorTest {
+
+    private final ElasticsearchOperations esOps = mock(ElasticsearchOperations.class);
+    private final MemoryWatermarks store = new MemoryWatermarks();
+    private final List<Map<String, Object>> page = new ArrayList<>();
+
+    @BeforeEach
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    void setUp() {
+        SearchHits<Map> hits = mock(SearchHits.class);
+        when(hits.getSearchHits()).thenAnswer(inv -> {
+            List<SearchHit<Map>> out = new ArrayList<>();
+            for (Map<String, Object> doc : page) {
+                SearchHit<Map> hit = mock(SearchHit.class);
+                when(hit.getContent()).thenReturn(doc);
+                out.add(hit);
+            }
+            return out;
+        });
+        when(esOps.search(any(NativeQuery.class), eq(Map.class), any(IndexCoordinates.class))).thenReturn(hits);
+    }
+
+    @Test
+    void pageModeWithWatermarkRequiresUniqueKey() {
+        Map<String, Object> config = config();
+        config.remove("watermark_key");
+        assertThatThrownBy(() -> new EsCollector(esOps, mock(ElasticsearchClient.class), null, config, store))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("watermark_field with page requires watermark_key (a unique field)");
+
+        // 全量扫描读完水位之后的全部文档，不需要键；query 自行引用 ${watermark} 时由调用方负责
+        config.remove("page");
+        new EsCollector(esOps, mock(ElasticsearchClient.class), null, config, store);
+        config.put("page", 0);
+        config.put("query", Map.of("range", Map.of("update_time", Map.of("gte", "${watermark}"))));
+        new EsCollector(esOps, mock(ElasticsearchClient.class), null, config, store);
+        config.put("page", 1);
+        assertThatThrownBy(() -> new EsCollector(esOps, mock(ElasticsearchClient.class), null, config, store))
+                .hasMessage("page must be 0 when watermark_field is configured");
+    }
+
+    @Test
+    void pageModeResumesInsideGroupOfEqualWatermarks() {
+        EsCollector collector = new EsCollector(esOps, mock(ElasticsearchClient.class), null, config(), store);
+        Watermarker watermarker = new Watermarker(store, "events", "update_time", "order_id");
+
+        // 一页 3 条，截断在 update_time = t2 的一组中间
+        page.addAll(List.of(doc("t1", 1), doc("t2", 2), doc("t2", 3)));
+        Watermarker.Run run = watermarker.begin();
+        run.observe(collector.collect(request()));
+        run.commit();
+        assertThat(store.mark.value()).isEqualTo(List.of("t2", 3L));
+
+        collector.collect(request());
+        NativeQuery next = lastQuery();
+        assertThat(next.getSort()).containsExactly(Sort.Order.asc("update_time"), Sort.Order.asc("order_id"));
+        assertThat(next.getQuery().toString().replaceAll("\\s", ""))
+                .contains("\"range\":{\"update_time\":{\"gt\":\"t2\"}}")
+                .contains("\"term\":{\"update_time\":{\"value\":\"t2\"}}")
+                .contains("\"range\":{\"order_id\":{\"gt\":3")
+                .contains("\"minimum_should_match\":\"1\"");
+    }
+
+    @Test
+    void firstPageStartsFromInitialWatermark() {
+        Map<String, Object> config = config();
+        config.put("watermark_initial", "t0");
+        EsCollector collector = new EsCollector(esOps, mock(ElasticsearchClient.class), null, config, store);
+
+        collector.collect(request());
+
+        assertThat(lastQuery().getQuery().toString().replaceAll("\\s", ""))
+                .contains("\"range\":{\"update_time\":{\"gt\":\"t0\"}}")
+                .doesNotContain("order_id");
+    }
+
+    private NativeQuery lastQuery() {
+        ArgumentCaptor<NativeQuery> captor = ArgumentCaptor.forClass(NativeQuery.class);
+        verify(esOps, atLeastOnce()).search(captor.capture(), eq(Map.class), any(IndexCoordinates.class));
+        return captor.getValue();
+    }
+
+    private static Map<String, Object> config() {
+        Map<String, Object> config = new HashMap<>();
+        config.put("index", "events");
+        config.put("size", 3);
+        config.put("page", 0);
+        config.put("watermark_field", "update_time");
+        config.put("watermark_key", "order_id");
+        return config;
+    }
+
+    private static Map<String, Object> doc(String time, long id) {
+        Map<String, Object> doc = new HashMap<>();
+        doc.put("update_time", time);
+        doc.put("order_id", id);
+        return doc;
+    }
+
+    private static DTSRequest request() {
+        DTSRequest request = new DTSRequest();
+        request.setRuleId("events");
+        return request;
+    }
+
+    private static final class MemoryWatermarks implements WatermarkStore {
+        private volatile Watermark mark;
+
+        @Override
+        public Watermark loadWatermark(String ruleId) {
+            return mark;
+        }
+
+        @Override
+        public void saveWatermark(Watermark watermark) {
+            mark = watermark;
+        }
+    }
+}
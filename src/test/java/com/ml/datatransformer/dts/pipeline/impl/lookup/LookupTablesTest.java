@@ -0,0 +1,89 @@
+package com.ml.datatransformer.dts.pipeline.impl.lookup;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LookupTablesTest {
+
+    @TempDir
+    Path dir;
+
+    private LookupTables tables;
+    private Path csv;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        tables = new LookupTables(null);
+        csv = dir.resolve("fee.csv");
+        Files.writeString(csv, "scheme,fee_rate\nvisa,0.02\nmaster,0.03\n");
+    }
+
+    @AfterEach
+    void tearDown() {
+        tables.close();
+    }
+
+    @Test
+    void leasesShareTableUntilLastRelease() {
+        LookupTables.Lease first = tables.lease("a");
+        LookupTables.Lease second = tables.lease("b");
+        LookupTable t1 = first.table(config(0));
+        LookupTable t2 = second.table(config(0));
+
+        assertThat(t2).isSameAs(t1);
+        assertThat(t1.index().get("visa")).containsExactly("0.02");
+        assertThat(tables.size()).isEqualTo(1);
+
+        first.close();
+        assertThat(tables.size()).isEqualTo(1);
+        second.close();
+        assertThat(tables.size()).isZero();
+        // 重复关闭无效果，关闭后不能再取表
+        second.close();
+        assertThatThrownBy(() -> second.table(config(0))).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void refreshIntervalIsPartOfTableIdentity() {
+        LookupTables.Lease lease = tables.lease("a");
+        LookupTable manual = lease.table(config(0));
+        LookupTable scheduled = lease.table(config(60));
+        LookupTable again = lease.table(config(60));
+
+        assertThat(scheduled).isNotSameAs(manual);
+        assertThat(again).isSameAs(scheduled);
+        assertThat(tables.size()).isEqualTo(2);
+        lease.close();
+        assertThat(tables.size()).isZero();
+    }
+
+    @Test
+    void failedLoadDoesNotRegisterTable() {
+        Map<String, Object> config = config(0);
+        config.put("path", dir.resolve("missing.csv").toString());
+        LookupTables.Lease lease = tables.lease("a");
+
+        assertThatThrownBy(() -> lease.table(config)).isInstanceOf(IllegalArgumentException.class);
+        assertThat(tables.size()).isZero();
+        lease.close();
+    }
+
+    private Map<String, Object> config(long refreshSeconds) {
+        Map<String, Object> config = new HashMap<>();
+        config.put("source", "file");
+        config.put("path", csv.toString());
+        config.put("key", "scheme");
+        if (refreshSeconds > 0) config.put("refresh_seconds", refreshSeconds);
+        return config;
+    }
+}
@@ -0,0 +1,320 @@
+package com.ml.datatransformer.dts.pipeline.impl.publish;
+
+import com.ml.datatransformer.dts.pipeline.error.ErrorPolicy;
+import com.ml.datatransformer.dts.pipeline.impl.DTSExecutor;
+import com.ml.datatransformer.dts.pipeline.impl.DTSExecutorProperties;
+import com.ml.datatransformer.dts.pipeline.model.Publisher;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BatchPublishStageTest {
+
+    private static DTSExecutor executor;
+
+    @BeforeAll
+    static void start() {
+        DTSExecutorProperties properties = new DTSExecutorProperties();
+        properties.setType("platform");
+        properties.setPoolSize(8);
+        executor = new DTSExecutor(properties);
+    }
+
+    @AfterAll
+    static void stop() {
+        executor.close();
+    }
+
+    @Test
+    void splitsIntoBulksAndFlushesRemainder() {
+        RecordingPublisher publisher = new RecordingPublisher();
+        BatchPublishStage<Integer> stage = new BatchPublishStage<>(publisher, executor,
+                Map.of("bulk_size", 3, "flush_interval_ms", 60_000));
+        AtomicLong reported = new AtomicLong();
+        BatchPublishStage<Integer>.Session session = stage.open(reported::addAndGet);
+        for (int i = 0; i < 7; i++) session.offer(i);
+        session.offerAll(List.of(7, 8));
+        session.close();
+
+        assertThat(session.published()).isEqualTo(9);
+        assertThat(reported).hasValue(9);
+        assertThat(publisher.bulks).allSatisfy(b -> assertThat(b.size()).isLessThanOrEqualTo(3));
+        assertThat(publisher.bulks.stream().flatMap(List::stream).sorted().toList())
+                .containsExactly(0, 1, 2, 3, 4, 5, 6, 7, 8);
+    }
+
+    @Test
+    void flushWritesBufferedRecordsBeforeReturning() {
+        RecordingPublisher publisher = new RecordingPublisher();
+        BatchPublishStage<Integer> stage = new BatchPublishStage<>(publisher, executor,
+                Map.of("bulk_size", 100, "flush_interval_ms", 60_000));
+        BatchPublishStage<Integer>.Session session = stage.open();
+        session.offerAll(List.of(1, 2));
+        assertThat(publisher.bulks).isEmpty();
+        session.flush();
+        assertThat(publisher.bulks).containsExactly(List.of(1, 2));
+        session.offer(3);
+        session.close();
+        assertThat(session.published()).isEqualTo(3);
+    }
+
+    @Test
+    void stalledBufferIsFlushedByTimerWithoutFurtherWrites() throws Exception {
+        RecordingPublisher publisher = new RecordingPublisher();
+        BatchPublishStage<Integer> stage = new BatchPublishStage<>(publisher, executor,
+                Map.of("bulk_size", 100, "flush_interval_ms", 20));
+        BatchPublishStage<Integer>.Session session = stage.open();
+        session.offerAll(List.of(1, 2));
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (publisher.bulks.isEmpty() && System.nanoTime() < deadline) Thread.sleep(5);
+        assertThat(publisher.bulks).containsExactly(List.of(1, 2));
+
+        session.offer(3);
+        session.close();
+        assertThat(session.published()).isEqualTo(3);
+        // close 取消定时任务：之后的触发不再写出
+        int bulks = publisher.bulks.size();
+        Thread.sleep(60);
+        assertThat(publisher.bulks).hasSize(bulks);
+    }
+
+    @Test
+    void limitsConcurrentBulksToMaxInFlight() throws Exception {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        Publisher<List<Integer>, Boolean> slow = publisher(bulk -> {
+            peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+            sleep(20);
+            running.decrementAndGet();
+            return true;
+        });
+        BatchPublishStage<Integer> stage = new BatchPublishStage<>(slow, executor,
+                Map.of("bulk_size", 1, "max_in_flight", 2));
+        BatchPublishStage<Integer>.Session session = stage.open();
+        for (int i = 0; i < 20; i++) session.offer(i);
+        session.close();
+
+        assertThat(session.published()).isEqualTo(20);
+        // 2 个异步批次 + 写入线程在许可耗尽时同步写出的 1 个批次
+        assertThat(peak.get()).isLessThanOrEqualTo(3);
+    }
+
+    @Test
+    void flushFailsWhenABulkFails() {
+        BatchPublishStage<Integer> stage = new BatchPublishStage<>(publisher(bulk -> !bulk.contains(3)), executor,
+                Map.of("bulk_size", 2));
+        BatchPublishStage<Integer>.Session session = stage.open();
+        session.offerAll(List.of(1, 2, 3, 4, 5));
+        assertThatThrownBy(session::close)
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("failedBulks=1");
+        assertThat(session.published()).isEqualTo(3);
+    }
+
+    @Test
+    void failedBulksAreReportedAndCountedPerFlush() {
+        List<List<Integer>> failed = Collections.synchronizedList(new ArrayList<>());
+        BatchPublishStage<Integer> stage = new BatchPublishStage<>(publisher(bulk -> !bulk.contains(3)), executor,
+                Map.of("bulk_size", 2, "flush_interval_ms", 60_000));
+        BatchPublishStage<Integer>.Session session = stage.open(null, (bulk, e) -> failed.add(List.copyOf(bulk)));
+        session.offerAll(List.of(1, 2, 3, 4));
+        assertThatThrownBy(session::flush).hasMessageContaining("failedBulks=1");
+        assertThat(failed).containsExactly(List.of(3, 4));
+
+        // 上一次 flush 已报告的失败不影响之后的 flush
+        session.offerAll(List.of(5, 6));
+        session.close();
+        assertThat(session.published()).isEqualTo(4);
+    }
+
+    @Test
+    void flakyBulkIsRetriedBeforeItIsReportedFailed() {
+        AtomicInteger calls = new AtomicInteger();
+        List<Exception> failed = Collections.synchronizedList(new ArrayList<>());
+        BatchPublishStage<Integer> stage = new BatchPublishStage<>(publisher(bulk -> {
+            // 每个批次前两次写出连接失败
+            if (calls.incrementAndGet() % 3 != 0) throw new UncheckedIOException(new IOException("connection reset"));
+            return true;
+        }), executor, Map.of("bulk_size", 2, "flush_interval_ms", 60_000, "max_in_flight", 1));
+        BatchPublishStage<Integer>.Session session = stage.open(null, (bulk, e) -> failed.add(e), retry(3, "IOException"));
+        session.offerAll(List.of(1, 2));
+        session.flush();
+        session.offerAll(List.of(3, 4));
+        session.close();
+
+        assertThat(session.published()).isEqualTo(4);
+        assertThat(calls).hasValue(6);
+        assertThat(failed).isEmpty();
+    }
+
+    @Test
+    void exhaustedOrUnmatchedRetriesReportTheBulk() {
+        AtomicInteger calls = new AtomicInteger();
+        List<Exception> failed = Collections.synchronizedList(new ArrayList<>());
+        BatchPublishStage<Integer> stage = new BatchPublishStage<>(publisher(bulk -> {
+            calls.incrementAndGet();
+            if (bulk.contains(1)) throw new UncheckedIOException(new IOException("connection refused"));
+            throw new IllegalStateException("mapping conflict");
+        }), executor, Map.of("bulk_size", 2, "flush_interval_ms", 60_000));
+
+        BatchPublishStage<Integer>.Session session = stage.open(null, (bulk, e) -> failed.add(e), retry(2, "IOException"));
+        session.offerAll(List.of(1, 2));
+        assertThatThrownBy(session::flush).hasMessageContaining("failedBulks=1");
+        assertThat(calls).hasValue(3);
+
+        // 不在 retry_on 中的异常不重试
+        calls.set(0);
+        session.offerAll(List.of(3, 4));
+        assertThatThrownBy(session::close).hasMessageContaining("failedBulks=1");
+        assertThat(calls).hasValue(1);
+        assertThat(failed).extracting(e -> e.getClass().getSimpleName())
+                .containsExactly("UncheckedIOException", "IllegalStateException");
+    }
+
+    @Test
+    void failedBulksAreNotRetriedWithoutRetryPolicy() {
+        AtomicInteger calls = new AtomicInteger();
+        BatchPublishStage<Integer> stage = new BatchPublishStage<>(publisher(bulk -> calls.incrementAndGet() > 1), executor,
+                Map.of("bulk_size", 2, "flush_interval_ms", 60_000));
+        BatchPublishStage<Integer>.Session session = stage.open(null, null,
+                ErrorPolicy.builder().action(ErrorPolicy.Action.CONTINUE).build());
+        session.offerAll(List.of(1, 2));
+
+        assertThatThrownBy(session::close).hasMessageContaining("failedBulks=1");
+        assertThat(calls).hasValue(1);
+    }
+
+    @Test
+    void abortDropsBufferAndWaitsForInFlightBulks() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger written = new AtomicInteger();
+        Publisher<List<Integer>, Boolean> blocking = publisher(bulk -> {
+            started.countDown();
+            await(release);
+            written.addAndGet(bulk.size());
+            return false;
+        });
+        BatchPublishStage<Integer> stage = new BatchPublishStage<>(blocking, executor,
+                Map.of("bulk_size", 2, "flush_interval_ms", 60_000));
+        BatchPublishStage<Integer>.Session session = stage.open();
+        session.offerAll(List.of(1, 2, 3));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        Thread releaser = new Thread(() -> {
+            sleep(50);
+            release.countDown();
+        });
+        releaser.start();
+        session.abort();
+        // abort 返回时在途批次已结束，缓冲中的第 3 条被丢弃，失败批次不抛出
+        assertThat(written).hasValue(2);
+        releaser.join();
+    }
+
+    private static Publisher<List<Integer>, Boolean> publisher(java.util.function.Function<List<Integer>, Boolean> fn) {
+        return new Publisher<>() {
+            @Override
+            public Boolean publish(List<Integer> bulk) {
+                return fn.apply(bulk);
+            }
+
+            @Override
+            public String name() {
+                return "test";
+            }
+        };
+    }
+
+    @Test
+    void abortWaitsForRunningOffersAndDropsLateOnes() throws Exception {
+        CountDownLatch writing = new CountDownLatch(2);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger written = new AtomicInteger();
+        Publisher<List<Integer>, Boolean> blocking = publisher(bulk -> {
+            writing.countDown();
+            await(release);
+            written.addAndGet(bulk.size());
+            return true;
+        });
+        BatchPublishStage<Integer> stage = new BatchPublishStage<>(blocking, executor,
+                Map.of("bulk_size", 1, "flush_interval_ms", 60_000, "max_in_flight", 1));
+        BatchPublishStage<Integer>.Session session = stage.open();
+        session.offer(1);
+        // 在途批次已满，第二条在写入线程上同步写出，模拟失败执行中未被取消的任务
+        Thread straggler = new Thread(() -> session.offer(2));
+        straggler.start();
+        assertThat(writing.await(5, TimeUnit.SECONDS)).isTrue();
+
+        Thread releaser = new Thread(() -> {
+            sleep(50);
+            release.countDown();
+        });
+        releaser.start();
+        session.abort();
+        // abort 返回时同步写出的第二条也已结束
+        assertThat(written).hasValue(2);
+
+        session.offer(3);
+        session.offerAll(List.of(4, 5));
+        sleep(20);
+        assertThat(written).hasValue(2);
+        straggler.join();
+        releaser.join();
+    }
+
+    private static ErrorPolicy retry(int maxRetries, String... retryOn) {
+        return ErrorPolicy.builder()
+                .action(ErrorPolicy.Action.RETRY)
+                .maxRetries(maxRetries)
+                .backoffMs(1)
+                .retryOn(List.of(retryOn))
+                .build();
+    }
+
+    private static void sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class RecordingPublisher implements Publisher<List<Integer>, Boolean> {
+        private final List<List<Integer>> bulks = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public Boolean publish(List<Integer> bulk) {
+            bulks.add(List.copyOf(bulk));
+            return true;
+        }
+
+        @Override
+        public String name() {
+            return "recording";
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.ml.datatransformer.dts.pipeline.task;
+
+import com.ml.datatransformer.dts.cache.ResultCache;
+import com.ml.datatransformer.dts.dto.TaskReloadResult;
+import com.ml.datatransformer.dts.pipeline.compile.PipelineCache;
+import com.ml.datatransformer.dts.pipeline.compile.PipelineCompiler;
+import com.ml.datatransformer.dts.pipeline.flow.FlowGraph;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TaskReloaderTest {
+
+    @TempDir
+    Path dir;
+
+    private final TaskRegistry registry = new TaskRegistry();
+    private final PipelineCompiler compiler = mock(PipelineCompiler.class);
+    private final ResultCache resultCache = mock(ResultCache.class);
+    private final PipelineCache pipelineCache = new PipelineCache(compiler, new SimpleMeterRegistry());
+    private final Map<String, List<FlowGraph>> compiled = new HashMap<>();
+    private TaskReloader reloader;
+
+    @BeforeEach
+    void setUp() {
+        YamlTaskLoader loader = new YamlTaskLoader();
+        ReflectionTestUtils.setField(loader, "taskPath", dir.toString());
+        reloader = new TaskReloader(loader, registry, compiler, pipelineCache, resultCache);
+        // flow 名为 broken 的任务编译失败，其余任务每次编译得到新的执行图
+        when(compiler.compile(any())).thenAnswer(inv -> {
+            TaskDefinition def = inv.getArgument(0);
+            if ("broken".equals(def.getFlows().get(0).getName())) {
+                throw new IllegalArgumentException("unknown operator");
+            }
+            FlowGraph graph = mock(FlowGraph.class);
+            compiled.computeIfAbsent(def.getName(), k -> new ArrayList<>()).add(graph);
+            return graph;
+        });
+    }
+
+    @Test
+    void sameContentIgnoresVersionOnly() {
+        TaskDefinition a = parse("orders", "main", "select 1");
+        TaskDefinition b = parse("orders", "main", "select 1");
+        a.setVersion(3);
+        b.setVersion(7);
+
+        assertThat(TaskRegistry.sameContent(a, b)).isTrue();
+        assertThat(b.getVersion()).isEqualTo(7);
+        assertThat(TaskRegistry.sameContent(a, parse("orders", "main", "select 2"))).isFalse();
+        assertThat(TaskRegistry.sameContent(null, b)).isFalse();
+    }
+
+    @Test
+    void strictRejectionKeepsPreviousSnapshotAndCache() throws IOException {
+        write("a.yaml", "orders", "main", "select 1");
+        write("b.yaml", "refunds", "main", "select 1");
+        reloader.reload(true);
+        TaskRegistry.Snapshot before = registry.snapshot();
+        FlowGraph refunds = pipelineCache.get(before.tasks().get("refunds"));
+
+        write("a.yaml", "orders", "main", "select 2");
+        write("b.yaml", "refunds", "broken", "select 1");
+        assertThatThrownBy(() -> reloader.reload(true))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("task [refunds] is invalid: unknown operator");
+
+        assertThat(registry.snapshot()).isSameAs(before);
+        assertThat(pipelineCache.get(before.tasks().get("refunds"))).isSameAs(refunds);
+        verify(resultCache, never()).invalidate(anyString());
+        // 被拒绝的重载中已编译的 orders 新执行图不会进入缓存，并被释放
+        assertThat(compiled.get("orders")).hasSize(2);
+        verify(compiled.get("orders").get(1)).close();
+        verify(compiled.get("orders").get(0), never()).close();
+        assertThat(pipelineCache.missCount()).isZero();
+    }
+
+    @Test
+    void lenientReloadSkipsInvalidTaskAndKeepsOthers() throws IOException {
+        write("a.yaml", "orders", "main", "select 1");
+        write("b.yaml", "refunds", "broken", "select 1");
+
+        TaskReloadResult result = reloader.reload(false);
+
+        assertThat(result.getAdded()).containsExactly("orders");
+        assertThat(result.getSkipped()).singleElement().asString().startsWith("refunds: ");
+        assertThat(registry.snapshot().tasks()).containsOnlyKeys("orders");
+    }
+
+    @Test
+    void unchangedTasksKeepVersionAndCompiledGraph() throws IOException {
+        write("a.yaml", "orders", "main", "select 1");
+        write("b.yaml", "refunds", "main", "select 1");
+        reloader.reload(true);
+        TaskDefinition orders = registry.get("orders");
+        TaskDefinition refunds = registry.get("refunds");
+        FlowGraph ordersGraph = pipelineCache.get(orders);
+
+        // 文件被改写但任务内容不变
+        Files.writeString(dir.resolve("a.yaml"), "# touched\n" + yaml("orders", "main", "select 1"));
+        write("b.yaml", "refunds", "main", "select 2");
+        TaskReloadResult result = reloader.reload(true);
+
+        assertThat(result.getUpdated()).containsExactly("refunds");
+        assertThat(registry.get("orders")).isSameAs(orders);
+        assertThat(registry.get("orders").getVersion()).isEqualTo(orders.getVersion());
+        assertThat(registry.get("refunds").getVersion()).isGreaterThan(refunds.getVersion());
+        assertThat(pipelineCache.get(registry.get("orders"))).isSameAs(ordersGraph);
+        assertThat(compiled.get("orders")).hasSize(1);
+        assertThat(compiled.get("refunds")).hasSize(2);
+        verify(compiled.get("refunds").get(0)).close();
+        assertThat(pipelineCache.missCount()).isZero();
+        verify(resultCache).invalidate("refunds");
+        verify(resultCache, never()).invalidate("orders");
+
+        // 完全没有变化时不发布新快照
+        long version = registry.snapshot().version();
+        assertThat(reloader.reload(true).isChanged()).isFalse();
+        assertThat(registry.snapshot().version()).isEqualTo(version);
+    }
+
+    @Test
+    void removedTasksAreEvictedFromCaches() throws IOException {
+        write("a.yaml", "orders", "main", "select 1");
+        write("b.yaml", "refunds", "main", "select 1");
+        reloader.reload(true);
+        TaskDefinition refunds = registry.get("refunds");
+        FlowGraph refundsGraph = pipelineCache.get(refunds);
+
+        Files.delete(dir.resolve("b.yaml"));
+        TaskReloadResult result = reloader.reload(true);
+
+        assertThat(result.getRemoved()).containsExactly("refunds");
+        assertThat(registry.get("refunds")).isNull();
+        verify(refundsGraph).close();
+        verify(resultCache).invalidate("refunds");
+        verify(resultCache, never()).invalidate("orders");
+        // 缓存中已无旧执行图，再次获取需重新编译
+        pipelineCache.get(refunds);
+        assertThat(pipelineCache.missCount()).isEqualTo(1);
+        verify(compiler, times(2)).compile(refunds);
+    }
+
+    private void write(String file, String task, String flow, String sql) throws IOException {
+        Files.writeString(dir.resolve(file), yaml(task, flow, sql));
+    }
+
+    private TaskDefinition parse(String task, String flow, String sql) {
+        try {
+            Path file = Files.writeString(dir.resolve(task + "-" + sql.hashCode() + ".yml"), yaml(task, flow, sql));
+            return new YamlTaskLoader().parse(file).get(0);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String yaml(String task, String flow, String sql) {
+        return String.join("\n", List.of(
+                "name: " + task,
+                "collect:",
+                "  type: db",
+                "  config:",
+                "    sql: " + sql,
+                "flows:",
+                "  - name: " + flow,
+                ""));
+    }
+}